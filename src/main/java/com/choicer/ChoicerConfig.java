@@ -118,4 +118,34 @@ public interface ChoicerConfig extends Config {
         default int choicerOptionCount() {
                 return 5;
         }
+
+        @net.runelite.client.config.Range(min = 0, max = 30)
+        @ConfigItem(keyName = "dropPrefetchPerMinute", name = "Drop Prefetch Budget", description = "Wiki requests per minute used to preload drop tables for nearby attackable NPCs. 0 disables prefetching.", position = 19)
+        default int dropPrefetchPerMinute() {
+                return 6;
+        }
+
+        @net.runelite.client.config.Range(min = 10, max = 5000)
+        @ConfigItem(keyName = "dropCacheMemoryEntries", name = "Drop Cache Size", description = "Maximum number of drop tables kept in memory. Older tables are reloaded from disk when needed.", position = 21)
+        default int dropCacheMemoryEntries() {
+                return 200;
+        }
+
+        @net.runelite.client.config.Range(min = 1, max = 1024)
+        @ConfigItem(keyName = "dropCacheDiskMb", name = "Drop Cache Disk (MB)", description = "Maximum disk space used by cached drop tables. The least recently viewed tables are removed first.", position = 22)
+        default int dropCacheDiskMb() {
+                return 50;
+        }
+
+        @net.runelite.client.config.Range(min = 1, max = 10000)
+        @ConfigItem(keyName = "simulationTrialsThousands", name = "Simulation Trials (k)", description = "Thousands of trials run when simulating how long unlocking drops takes.", position = 23)
+        default int simulationTrialsThousands() {
+                return 1000;
+        }
+
+        @net.runelite.client.config.Range(min = 1, max = 3600)
+        @ConfigItem(keyName = "simulationSecondsPerKill", name = "Simulation Seconds per Kill", description = "Assumed time per kill, used to turn simulated kills into hours.", position = 24)
+        default int simulationSecondsPerKill() {
+                return 30;
+        }
 }
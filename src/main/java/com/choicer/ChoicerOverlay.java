@@ -1,6 +1,9 @@
 package com.choicer;
 
+import com.choicer.drops.DropSourceIndex;
 import com.choicer.filters.QuestItemAllowlist;
+import com.choicer.ui.RollReels;
+import com.choicer.ui.RollTextureCache;
 import com.choicer.ui.TextFitUtil;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
@@ -27,13 +30,13 @@ import java.awt.LinearGradientPaint;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.awt.event.MouseEvent;
-import java.util.function.Supplier;
+import java.util.function.IntSupplier;
 
 /**
  * Overlay used for Choicer rolls.
@@ -46,6 +49,7 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
     private static final float SNAP_NEXT_THRESHOLD = 0.55f;
     private static final long SNAP_DURATION_MS = 420L;
     private static final long HIGHLIGHT_DURATION_MS = 3000L;
+    private static final int MAX_TOOLTIP_SOURCES = 3;
     private static final float INITIAL_SPEED = 980f;
     private static final float MIN_SPEED = 120f;
     private static final float MAX_DT = 0.05f;
@@ -85,6 +89,8 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
 
     private static final int ICON_COUNT = 3;
     private static final int DRAW_COUNT = ICON_COUNT + 1;
+    // Items one column scrolls through per roll: ~40 at the smallest icon scale, with headroom
+    private static final int MAX_REEL_SPINS = 128;
     // Ensure scroll frames mirror the spacing seen in the final choice buttons.
     private static final int COLUMN_SPACING = 18;
     private static final int VISIBLE_ROLLING_ITEM_COUNT = 4;
@@ -122,20 +128,51 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
     private static final int ANTICIPATION_WINDOW_MS = 650;
     private static final Color CENTER_MARKER = new Color(210, 180, 98, 150);
     private static final Color CENTER_MARKER_SHADOW = new Color(22, 18, 12, 120);
+    private static final BasicStroke CENTER_MARKER_STROKE = new BasicStroke(2f);
+
+    // Texture cache sprite kinds
+    private static final int SPRITE_SLOT_WINDOW = 1;
+    private static final int SPRITE_ICON_FRAME = 2;
+    private static final int SPRITE_HIGHLIGHT_GLOW = 3;
+    private static final int SPRITE_HIGHLIGHT_OUTLINE = 4;
+    private static final int SPRITE_IMPACT_FLASH = 5;
 
     private final Client client;
     private final ItemManager itemManager;
+    private final RollTextureCache textures;
 
-    private final List<List<Integer>> rollingColumns = Collections.synchronizedList(new ArrayList<>());
+    private final RollReels reels = new RollReels(DRAW_COUNT, MAX_REEL_SPINS);
     private final float[] columnOffsetAdjust = new float[5];
     private final float[] columnSpeedScale = new float[5];
     private final Random spinRandom = new Random();
-    private final Set<Integer> uniqueRollItems = Collections.synchronizedSet(new HashSet<>());
 
     @Inject
     private AudioPlayer audioPlayer;
     @Inject
     private ChoicerConfig config;
+    // null in tests that construct the overlay directly
+    @Inject
+    private DropSourceIndex dropSourceIndex;
+    /** Tooltip drop-source summaries by item ID, "" when none; kept in step by the index. */
+    private final Map<Integer, String> dropSourceText = new ConcurrentHashMap<>();
+    private final DropSourceIndex.TableListener dropSourceListener = new DropSourceIndex.TableListener() {
+        @Override
+        public void tableIndexed(Object key, List<DropSourceIndex.Source> rows) {
+            for (DropSourceIndex.Source row : rows) {
+                dropSourceText.remove(row.getItemId());
+            }
+        }
+
+        @Override
+        public void tableRemoved(Object key) {
+            dropSourceText.clear();
+        }
+
+        @Override
+        public void cleared() {
+            dropSourceText.clear();
+        }
+    };
 
     private volatile boolean isAnimating = false;
     private long rollDurationMs;
@@ -143,7 +180,7 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
 
     private float rollOffset = 0f;
     private float currentSpeed = INITIAL_SPEED;
-    private Supplier<Integer> randomLockedItemSupplier;
+    private IntSupplier randomLockedItemSupplier;
     private long lastUpdateNanos = 0L;
 
     private boolean isSnapping = false;
@@ -151,7 +188,6 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
     private float snapBase;
     private float snapResidualStart;
     private float snapTarget;
-    private int winnerDelta = 0;
     private int columnCount = 2;
     private final List<Rectangle> columnHitboxes = new ArrayList<>();
     private volatile boolean selectionPending = false;
@@ -165,7 +201,22 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
     private volatile int resolveSelectedIndex = -1;
     private volatile int resolveSelectedItemId = 0;
 
+    public void startUp() {
+        if (dropSourceIndex != null) {
+            dropSourceIndex.addListener(dropSourceListener);
+        }
+    }
+
+    public void shutDown() {
+        if (dropSourceIndex != null) {
+            dropSourceIndex.removeListener(dropSourceListener);
+        }
+        dropSourceText.clear();
+    }
+
     public void setChoicerOptions(List<Integer> options) {
+        // only the items on offer are ever looked up
+        dropSourceText.clear();
         if (options == null) {
             currentOptions = Collections.emptyList();
         } else {
@@ -259,24 +310,10 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
 
     private List<Integer> captureSnappedItems() {
         List<Integer> snapped = new ArrayList<>();
-        synchronized (rollingColumns) {
-            if (rollingColumns.isEmpty()) {
-                return snapped;
-            }
-            final int centerIndex = ICON_COUNT / 2;
-            final int columns = Math.min(columnCount, rollingColumns.size());
+        try (RollReels.Frame frame = reels.frame()) {
+            final int columns = Math.min(columnCount, frame.getColumns());
             for (int col = 0; col < columns; col++) {
-                List<Integer> column = rollingColumns.get(col);
-                if (column.isEmpty()) {
-                    snapped.add(0);
-                    continue;
-                }
-                final int winnerIndex = Math.min(centerIndex + winnerDelta, column.size() - 1);
-                if (winnerIndex >= 0 && winnerIndex < column.size()) {
-                    snapped.add(column.get(winnerIndex));
-                } else {
-                    snapped.add(0);
-                }
+                snapped.add(frame.winner(col, ICON_COUNT / 2));
             }
         }
         return snapped;
@@ -293,6 +330,7 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
     public ChoicerOverlay(Client client, ItemManager itemManager) {
         this.client = client;
         this.itemManager = itemManager;
+        this.textures = new RollTextureCache(itemManager);
         setPosition(OverlayPosition.DYNAMIC);
         setLayer(OverlayLayer.ABOVE_WIDGETS);
     }
@@ -307,7 +345,7 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
     }
 
     @Override
-    public void startRollAnimation(int dummy, int rollDurationMs, Supplier<Integer> randomLockedItemSupplier) {
+    public void startRollAnimation(int dummy, int rollDurationMs, IntSupplier randomLockedItemSupplier) {
         setSelectionPending(false);
         resolveAnimating = false;
         resolveOptions = Collections.emptyList();
@@ -329,6 +367,7 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
         this.rollOffset = 0f;
         this.currentSpeed = INITIAL_SPEED;
         this.randomLockedItemSupplier = randomLockedItemSupplier;
+        reels.reset(columnCount, randomLockedItemSupplier);
         this.isAnimating = true;
         this.lastUpdateNanos = System.nanoTime();
 
@@ -337,21 +376,8 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
         this.snapBase = 0f;
         this.snapResidualStart = 0f;
         this.snapTarget = 0f;
-        this.winnerDelta = 0;
         this.impactSoundPlayed = false;
         this.selectionStartMs = 0L;
-        uniqueRollItems.clear();
-
-        synchronized (rollingColumns) {
-            rollingColumns.clear();
-            for (int c = 0; c < columnCount; c++) {
-                List<Integer> column = new ArrayList<>();
-                for (int i = 0; i < DRAW_COUNT; i++) {
-                    column.add(nextUniqueRollItem());
-                }
-                rollingColumns.add(column);
-            }
-        }
     }
 
     @Override
@@ -359,18 +385,9 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
         if (!currentOptions.isEmpty()) {
             return currentOptions.get(0);
         }
-        synchronized (rollingColumns) {
-            if (rollingColumns.isEmpty()) {
-                return 0;
-            }
-            List<Integer> firstColumn = rollingColumns.get(0);
-            int centerIndex = ICON_COUNT / 2;
-            int idx = Math.min(centerIndex + winnerDelta, firstColumn.size() - 1);
-            if (idx >= 0 && idx < firstColumn.size()) {
-                return firstColumn.get(idx);
-            }
+        try (RollReels.Frame frame = reels.frame()) {
+            return frame.winner(0, ICON_COUNT / 2);
         }
-        return 0;
     }
 
     @Override
@@ -396,6 +413,7 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
         g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
 
         final long nowMs = System.currentTimeMillis();
+        textures.validate(client.getViewportWidth(), client.getViewportHeight());
         if (resolveAnimating) {
             return renderResolveAnimation(g, nowMs);
         }
@@ -489,7 +507,7 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
 
         if (!clickableSelection) {
             for (int col = 0; col < columnCount; col++) {
-                drawSlotWindow(g, columnXs[col], slotTopY, slotWidth, slotHeight, slotScale);
+                drawSlotWindowSprite(g, columnXs[col], slotTopY, slotWidth, slotHeight, slotScale);
             }
 
             for (int col = 0; col < columnCount; col++) {
@@ -517,116 +535,101 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
                 columnHitboxes.clear();
             }
 
-            synchronized (rollingColumns) {
-                if (!highlightPhase && !isSnapping && (rollStartMs + rollDurationMs - nowMs) <= SNAP_DURATION_MS) {
-                    isSnapping = true;
-                    snapStartMs = nowMs;
-
-                    final float k = (float) Math.floor(rollOffset / activeStep);
-                    snapBase = k * activeStep;
-                    snapResidualStart = rollOffset - snapBase;
-                    final boolean goNext = (snapResidualStart / activeStep) >= SNAP_NEXT_THRESHOLD;
-                    winnerDelta = goNext ? 1 : 0;
-                    snapTarget = goNext ? (snapBase + activeStep) : snapBase;
-                    if (snapTarget < rollOffset) {
-                        snapTarget += activeStep;
-                        winnerDelta = 1;
-                    }
+            // this thread owns the reels while they spin; no lock needed
+            reels.acquire();
+            if (!highlightPhase && !isSnapping && (rollStartMs + rollDurationMs - nowMs) <= SNAP_DURATION_MS) {
+                isSnapping = true;
+                snapStartMs = nowMs;
+
+                final float k = (float) Math.floor(rollOffset / activeStep);
+                snapBase = k * activeStep;
+                snapResidualStart = rollOffset - snapBase;
+                final boolean goNext = (snapResidualStart / activeStep) >= SNAP_NEXT_THRESHOLD;
+                reels.setWinnerDelta(goNext ? 1 : 0);
+                snapTarget = goNext ? (snapBase + activeStep) : snapBase;
+                if (snapTarget < rollOffset) {
+                    snapTarget += activeStep;
+                    reels.setWinnerDelta(1);
                 }
+            }
 
-                if (!highlightPhase) {
-                    if (isSnapping) {
-                        final float u = Math.min(1f, (nowMs - snapStartMs) / (float) SNAP_DURATION_MS);
-                        final float s = u * u * (3f - 2f * u);
-                        final float start = rollOffset;
-                        final float end = snapTarget;
-                        rollOffset = start + (end - start) * s;
-
-                        if (u >= 1f) {
-                            rollOffset = end;
-                            if (rollOffset >= activeStep) {
-                                normalizeOnce(activeStep);
-                                winnerDelta = 0;
-                            }
-                            isSnapping = false;
-                            snapBase = 0f;
-                            snapTarget = 0f;
-                            snapResidualStart = 0f;
-                        }
-                    } else {
-                        rollOffset += currentSpeed * dt;
-                        while (rollOffset >= activeStep) {
+            if (!highlightPhase) {
+                if (isSnapping) {
+                    final float u = Math.min(1f, (nowMs - snapStartMs) / (float) SNAP_DURATION_MS);
+                    final float s = u * u * (3f - 2f * u);
+                    final float start = rollOffset;
+                    final float end = snapTarget;
+                    rollOffset = start + (end - start) * s;
+
+                    if (u >= 1f) {
+                        rollOffset = end;
+                        if (rollOffset >= activeStep) {
                             normalizeOnce(activeStep);
+                            reels.setWinnerDelta(0);
                         }
+                        isSnapping = false;
+                        snapBase = 0f;
+                        snapTarget = 0f;
+                        snapResidualStart = 0f;
                     }
-                } else if (isSnapping) {
-                    rollOffset = snapTarget;
-                    if (rollOffset >= activeStep) {
+                } else {
+                    rollOffset += currentSpeed * dt;
+                    while (rollOffset >= activeStep) {
                         normalizeOnce(activeStep);
-                        winnerDelta = 0;
                     }
-                    isSnapping = false;
-                    snapBase = 0f;
-                    snapTarget = 0f;
-                    snapResidualStart = 0f;
                 }
-
-                for (int col = 0; col < columnCount; col++) {
-                    List<Integer> column = col < rollingColumns.size() ? rollingColumns.get(col)
-                            : Collections.emptyList();
-                    final int iconsX = columnXs[col] + iconPadX;
-                    final int itemsToDraw = Math.min(column.size(), DRAW_COUNT);
-                    for (int i = 0; i < itemsToDraw; i++) {
-                        final int itemId = column.get(i);
-                        final BufferedImage image = itemManager.getImage(itemId, 1, false);
-                        if (image == null)
-                            continue;
-
-                        final float columnOffset = rollOffset + columnOffsetAdjust[col];
-                        final float drawYF = iconsTopYF + i * activeStep - columnOffset;
-                        final int drawY = Math.round(drawYF);
-
-                        Object oldInterpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
-                        Object oldAntialias = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
-                        if (highlightPhase) {
-                            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-                                    RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
-                            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
-                        }
-                        drawIconFrame(g, iconsX, drawY, iconSize);
-                        final int x = iconsX + innerBoxXInset;
-                        final int y = drawY + innerBoxYInset;
-                        g.drawImage(image, x, y, innerBoxW, innerBoxH, null);
-                        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, oldInterpolation);
-                        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, oldAntialias);
-                    }
+            } else if (isSnapping) {
+                rollOffset = snapTarget;
+                if (rollOffset >= activeStep) {
+                    normalizeOnce(activeStep);
+                    reels.setWinnerDelta(0);
                 }
+                isSnapping = false;
+                snapBase = 0f;
+                snapTarget = 0f;
+                snapResidualStart = 0f;
+            }
 
-                if (highlightPhase) {
-                    for (int col = 0; col < columnCount; col++) {
-                        List<Integer> column = col < rollingColumns.size() ? rollingColumns.get(col)
-                                : Collections.emptyList();
-                        final int winnerIndex = Math.min(centerIndex + winnerDelta, column.size() - 1);
-                        if (winnerIndex < 0 || winnerIndex >= column.size()) {
-                            continue;
-                        }
+            final int reelColumns = Math.min(columnCount, reels.columns());
+            for (int col = 0; col < reelColumns; col++) {
+                final int iconsX = columnXs[col] + iconPadX;
+                for (int i = 0; i < DRAW_COUNT; i++) {
+                    final int itemId = reels.item(col, i);
+                    if (itemId <= 0)
+                        continue;
+                    // crisp once settled, smooth while spinning
+                    final BufferedImage image = textures.icon(itemId, innerBoxW, innerBoxH, !highlightPhase);
+                    if (image == null)
+                        continue;
 
-                        final int centerItemId = column.get(winnerIndex);
-                        final float columnOffset = rollOffset + columnOffsetAdjust[col];
-                        final float columnBaseF = iconsTopYF + centerIndex * activeStep - columnOffset;
-                        final int columnBaseY = Math.round(columnBaseF);
-                        drawHighlight(g, columnXs[col] + iconPadX, columnBaseY, centerItemId, iconSize, false);
-                        float impactAlpha = getImpactAlpha(nowMs);
-                        if (impactAlpha > 0f) {
-                            drawImpactFlash(g, columnXs[col] + iconPadX, columnBaseY, iconSize, impactAlpha);
-                        }
-                        if (clickableSelection && col < currentOptions.size()) {
-                            final int iconX = columnXs[col] + iconPadX;
-                            final int iconY = columnBaseY;
-                            Rectangle rect = new Rectangle(iconX, iconY, iconSize, iconSize);
-                            synchronized (columnHitboxes) {
-                                columnHitboxes.add(rect);
-                            }
+                    final float columnOffset = rollOffset + columnOffsetAdjust[col];
+                    final float drawYF = iconsTopYF + i * activeStep - columnOffset;
+                    final int drawY = Math.round(drawYF);
+
+                    drawIconFrameSprite(g, iconsX, drawY, iconSize, !highlightPhase);
+                    final int x = iconsX + innerBoxXInset;
+                    final int y = drawY + innerBoxYInset;
+                    g.drawImage(image, x, y, null);
+                }
+            }
+
+            if (highlightPhase) {
+                for (int col = 0; col < reelColumns; col++) {
+                    final int centerItemId = reels.winner(col, centerIndex);
+                    final float columnOffset = rollOffset + columnOffsetAdjust[col];
+                    final float columnBaseF = iconsTopYF + centerIndex * activeStep - columnOffset;
+                    final int columnBaseY = Math.round(columnBaseF);
+                    drawHighlight(g, columnXs[col] + iconPadX, columnBaseY, centerItemId, iconSize, false);
+                    float impactAlpha = getImpactAlpha(nowMs);
+                    if (impactAlpha > 0f) {
+                        drawImpactFlash(g, columnXs[col] + iconPadX, columnBaseY, iconSize, impactAlpha);
+                    }
+                    if (clickableSelection && col < currentOptions.size()) {
+                        final int iconX = columnXs[col] + iconPadX;
+                        final int iconY = columnBaseY;
+                        Rectangle rect = new Rectangle(iconX, iconY, iconSize, iconSize);
+                        synchronized (columnHitboxes) {
+                            columnHitboxes.add(rect);
                         }
                     }
                 }
@@ -926,7 +929,8 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
         }
 
         if (hoveredIndex >= 0 && hoveredIndex < drawCount && mouse != null) {
-            String hoverText = buildHoverText(optionsSnapshot.get(hoveredIndex));
+            String hoverText = withDropSources(optionsSnapshot.get(hoveredIndex),
+                    buildHoverText(optionsSnapshot.get(hoveredIndex)));
             if (hoverText != null && !hoverText.trim().isEmpty()) {
                 drawChoiceHoverTooltip(g, hoverText, mouse, buttonRects.get(hoveredIndex));
             }
@@ -1029,15 +1033,9 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
         final int iconSize = iconRect.width;
         final int iconX = iconRect.x;
         final int iconY = iconRect.y;
-        BufferedImage icon = itemManager.getImage(itemId, 1, false);
+        BufferedImage icon = textures.icon(itemId, iconSize, iconSize, false);
         if (icon != null) {
-            Object oldInterpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
-            Object oldAntialias = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
-            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
-            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
-            g.drawImage(icon, iconX, iconY, iconSize, iconSize, null);
-            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, oldInterpolation);
-            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, oldAntialias);
+            g.drawImage(icon, iconX, iconY, null);
         }
 
         drawMarkerBadge(g, rect, itemId);
@@ -1179,29 +1177,55 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
         return 0.35f * easeOut;
     }
 
+    /**
+     * The flash fades both its gradient and its composite by {@code alpha}, so
+     * the full-strength sprite is blitted at {@code alpha} squared.
+     */
     private void drawImpactFlash(Graphics2D g, int x, int y, int size, float alpha) {
         if (alpha <= 0f) {
             return;
         }
+        final long key = RollTextureCache.key(SPRITE_IMPACT_FLASH, size, 0, 0);
+        RollTextureCache.Sprite sprite = textures.sprite(key);
+        if (sprite == null) {
+            final float radius = size * 0.9f;
+            final int origin = (int) Math.floor(size / 2f - radius) - 1;
+            final int span = (int) Math.ceil(radius * 2f) + 3;
+            sprite = textures.render(key, origin, origin, span, span, sg -> paintImpactFlash(sg, size));
+        }
+        Composite oldComposite = g.getComposite();
+        g.setComposite(AlphaComposite.SrcOver.derive(Math.min(1f, alpha * alpha)));
+        sprite.draw(g, x, y);
+        g.setComposite(oldComposite);
+    }
+
+    private void paintImpactFlash(Graphics2D g, int size) {
         float radius = size * 0.9f;
-        float cx = x + size / 2f;
-        float cy = y + size / 2f;
-        RadialGradientPaint glow = new RadialGradientPaint(
+        float cx = size / 2f;
+        float cy = size / 2f;
+        g.setPaint(new RadialGradientPaint(
                 new Point2D.Float(cx, cy),
                 radius,
                 new float[] { 0f, 0.6f, 1f },
                 new Color[] {
-                        new Color(255, 235, 170, Math.round(180 * alpha)),
-                        new Color(255, 210, 120, Math.round(120 * alpha)),
+                        new Color(255, 235, 170, 180),
+                        new Color(255, 210, 120, 120),
                         new Color(255, 200, 90, 0)
-                });
-        Composite oldComposite = g.getComposite();
-        g.setComposite(AlphaComposite.SrcOver.derive(Math.min(1f, alpha)));
-        Paint oldPaint = g.getPaint();
-        g.setPaint(glow);
+                }));
         g.fill(new Ellipse2D.Float(cx - radius, cy - radius, radius * 2f, radius * 2f));
-        g.setPaint(oldPaint);
-        g.setComposite(oldComposite);
+    }
+
+    private void drawIconFrameSprite(Graphics2D g, int x, int y, int size, boolean antialias) {
+        final long key = RollTextureCache.key(SPRITE_ICON_FRAME, size, 0, antialias ? 1 : 0);
+        RollTextureCache.Sprite sprite = textures.sprite(key);
+        if (sprite == null) {
+            sprite = textures.render(key, -1, -1, size + 2, size + 2, sg -> {
+                sg.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                        antialias ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+                drawIconFrame(sg, 0, 0, size);
+            });
+        }
+        sprite.draw(g, x, y);
     }
 
     private void drawIconFrame(Graphics2D g, int x, int y, int size) {
@@ -1234,7 +1258,7 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
         Composite oldComposite = g.getComposite();
         Stroke oldStroke = g.getStroke();
         g.setComposite(AlphaComposite.SrcOver.derive(Math.max(0.15f, Math.min(1f, alpha))));
-        g.setStroke(new BasicStroke(2f));
+        g.setStroke(CENTER_MARKER_STROKE);
 
         g.setColor(CENTER_MARKER_SHADOW);
         g.drawLine(x + 1, yTop + 1, x + w - 1, yTop + 1);
@@ -1348,46 +1372,10 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
     private void normalizeOnce(float step) {
         if (rollOffset >= step) {
             rollOffset -= step;
-            if (!rollingColumns.isEmpty()) {
-                for (List<Integer> column : rollingColumns) {
-                    if (column == null || column.isEmpty()) {
-                        continue;
-                    }
-                    column.remove(0);
-                    if (randomLockedItemSupplier != null) {
-                        column.add(nextUniqueRollItem());
-                    }
-                }
-            }
+            reels.advance(randomLockedItemSupplier);
         }
     }
 
-    private int nextUniqueRollItem() {
-        if (randomLockedItemSupplier == null) {
-            return 0;
-        }
-
-        final int maxAttempts = Math.max(10, columnCount * DRAW_COUNT);
-        int fallback = 0;
-
-        for (int attempt = 0; attempt < maxAttempts; attempt++) {
-            Integer rolled = randomLockedItemSupplier.get();
-            int candidate = rolled != null ? rolled : 0;
-            fallback = candidate;
-            if (candidate == 0) {
-                break;
-            }
-            if (uniqueRollItems.add(candidate)) {
-                return candidate;
-            }
-        }
-
-        if (fallback != 0) {
-            uniqueRollItems.add(fallback);
-        }
-        return fallback;
-    }
-
     private float normalizeStep(float value, float step) {
         if (step == 0f) {
             return 0f;
@@ -1417,6 +1405,18 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
         return Math.max(min, Math.round(value * scale));
     }
 
+    private void drawSlotWindowSprite(Graphics2D g, int x, int y, int width, int height, float scale) {
+        final long key = RollTextureCache.key(SPRITE_SLOT_WINDOW, width, height, scale > 1f ? 1 : 0);
+        RollTextureCache.Sprite sprite = textures.sprite(key);
+        if (sprite == null) {
+            // corner brackets sit outside the frame by their padding plus half a stroke
+            final int margin = Math.max(2, Math.round(Math.min(width, height) * 0.03f)) + 4;
+            sprite = textures.render(key, -margin, -margin, width + margin * 2, height + margin * 2,
+                    sg -> drawSlotWindow(sg, 0, 0, width, height, scale));
+        }
+        sprite.draw(g, x, y);
+    }
+
     private void drawSlotWindow(Graphics2D g, int x, int y, int width, int height, float scale) {
         Rectangle2D.Float frame = new Rectangle2D.Float(x, y, width, height);
         GradientPaint paint = new GradientPaint(
@@ -1713,31 +1713,40 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
         return baseName + " (" + questName + ")";
     }
 
+    /**
+     * Appends the most common cached drop sources, if any, to the tooltip.
+     * The summary is built once per item and reused until the index changes.
+     */
+    private String withDropSources(int itemId, String text) {
+        if (dropSourceIndex == null) {
+            return text;
+        }
+        String sources = dropSourceText.computeIfAbsent(itemId, id -> {
+            String described = dropSourceIndex.describe(id, MAX_TOOLTIP_SOURCES);
+            return described != null ? described : "";
+        });
+        if (sources.isEmpty()) {
+            return text;
+        }
+        return text == null || text.trim().isEmpty() ? sources : text + " - " + sources;
+    }
+
     private void drawHighlight(Graphics2D g, int iconsX, int baseY, int itemId, int iconDimension, boolean emphasize) {
-        final float glowScale = emphasize ? 1.8f : 1.4f;
-        final float glowHeightScale = emphasize ? 2.0f : 1.6f;
-        final int glowW = (int) (iconDimension * glowScale);
-        final int glowH = (int) (iconDimension * glowHeightScale);
-        final float cx = iconsX + iconDimension / 2f;
-        final float cy = baseY + iconDimension / 2f;
-
-        final Color[] glowPalette = getHighlightPalette(itemId);
-        final Color accent = glowPalette[0];
-        final Color innerGlow = new Color(accent.getRed(), accent.getGreen(), accent.getBlue(), emphasize ? 130 : 95);
-        final Color outerGlow = new Color(accent.getRed(), accent.getGreen(), accent.getBlue(), 0);
-        final RadialGradientPaint glow = new RadialGradientPaint(
-                new Point2D.Float(cx, cy),
-                glowH / 2f,
-                new float[] { 0f, 1f },
-                new Color[] {
-                        innerGlow,
-                        outerGlow
-                });
-        final Composite old = g.getComposite();
-        g.setComposite(AlphaComposite.SrcOver.derive(0.6f));
-        g.setPaint(glow);
-        g.fill(new Ellipse2D.Float(cx - glowW / 2f, cy - glowH / 2f, glowW, glowH));
-        g.setComposite(old);
+        final boolean tradeable = isTradeableItem(itemId);
+        final Color accent = (tradeable ? TRADEABLE_GLOW : UNTRADEABLE_GLOW)[0];
+        final int variant = (tradeable ? 1 : 0) | (emphasize ? 2 : 0);
+
+        final long glowKey = RollTextureCache.key(SPRITE_HIGHLIGHT_GLOW, iconDimension, 0, variant);
+        RollTextureCache.Sprite glow = textures.sprite(glowKey);
+        if (glow == null) {
+            final int glowW = (int) (iconDimension * (emphasize ? 1.8f : 1.4f));
+            final int glowH = (int) (iconDimension * (emphasize ? 2.0f : 1.6f));
+            final int originX = (int) Math.floor(iconDimension / 2f - glowW / 2f) - 1;
+            final int originY = (int) Math.floor(iconDimension / 2f - glowH / 2f) - 1;
+            glow = textures.render(glowKey, originX, originY, glowW + 3, glowH + 3,
+                    sg -> paintHighlightGlow(sg, iconDimension, glowW, glowH, accent, emphasize));
+        }
+        glow.draw(g, iconsX, baseY);
 
         final float centerScale = emphasize ? 1.25f : 1.05f;
         final int innerBoxXInset = FRAME_CONTENT_INSET;
@@ -1753,31 +1762,40 @@ public class ChoicerOverlay extends Overlay implements RollOverlay {
         final int scaledX = innerBoxX + (innerBoxW - scaledW) / 2;
         final int scaledY = innerBoxY + (innerBoxH - scaledH) / 2;
 
-        final BufferedImage centerImg = itemManager.getImage(itemId, 1, false);
+        final BufferedImage centerImg = textures.icon(itemId, scaledW, scaledH, false);
         if (centerImg != null) {
-            Object oldInterpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
-            Object oldAntialias = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
-            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
-            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
-            g.drawImage(centerImg, scaledX, scaledY, scaledW, scaledH, null);
-            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, oldInterpolation);
-            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, oldAntialias);
+            g.drawImage(centerImg, scaledX, scaledY, null);
         }
 
-        Stroke oldStroke = g.getStroke();
-        Composite oldComposite = g.getComposite();
-        g.setComposite(AlphaComposite.SrcOver.derive(emphasize ? 0.9f : 0.7f));
-        g.setStroke(new BasicStroke(emphasize ? 2.2f : 1.6f));
-        g.setColor(accent);
-        g.drawRoundRect(
-                iconsX - 1,
-                baseY - 1,
-                iconDimension + 2,
-                iconDimension + 2,
-                6,
-                6);
-        g.setStroke(oldStroke);
-        g.setComposite(oldComposite);
+        final long outlineKey = RollTextureCache.key(SPRITE_HIGHLIGHT_OUTLINE, iconDimension, 0, variant);
+        RollTextureCache.Sprite outline = textures.sprite(outlineKey);
+        if (outline == null) {
+            outline = textures.render(outlineKey, -3, -3, iconDimension + 6, iconDimension + 6, sg -> {
+                sg.setComposite(AlphaComposite.SrcOver.derive(emphasize ? 0.9f : 0.7f));
+                sg.setStroke(new BasicStroke(emphasize ? 2.2f : 1.6f));
+                sg.setColor(accent);
+                sg.drawRoundRect(-1, -1, iconDimension + 2, iconDimension + 2, 6, 6);
+            });
+        }
+        outline.draw(g, iconsX, baseY);
+    }
+
+    private void paintHighlightGlow(Graphics2D g, int iconDimension, int glowW, int glowH, Color accent,
+            boolean emphasize) {
+        final float cx = iconDimension / 2f;
+        final float cy = iconDimension / 2f;
+        final Color innerGlow = new Color(accent.getRed(), accent.getGreen(), accent.getBlue(), emphasize ? 130 : 95);
+        final Color outerGlow = new Color(accent.getRed(), accent.getGreen(), accent.getBlue(), 0);
+        g.setComposite(AlphaComposite.SrcOver.derive(0.6f));
+        g.setPaint(new RadialGradientPaint(
+                new Point2D.Float(cx, cy),
+                glowH / 2f,
+                new float[] { 0f, 1f },
+                new Color[] {
+                        innerGlow,
+                        outerGlow
+                }));
+        g.fill(new Ellipse2D.Float(cx - glowW / 2f, cy - glowH / 2f, glowW, glowH));
     }
 
     private Color[] getHighlightPalette(int itemId) {
@@ -1,8 +1,13 @@
 package com.choicer;
 
+import com.choicer.drops.DropSourceIndex;
+import com.choicer.drops.ItemNameIndex;
 import com.choicer.managers.ObtainedItemsManager;
 import com.choicer.managers.RollAnimationManager;
 import com.choicer.managers.RolledItemsManager;
+import com.choicer.ui.ItemCellLoader;
+import com.choicer.ui.ItemIdListModel;
+import com.choicer.ui.ItemSearchIndex;
 import com.choicer.ui.TextFitUtil;
 import net.runelite.api.ItemComposition;
 import net.runelite.client.callback.ClientThread;
@@ -25,6 +30,11 @@ import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Panel for displaying rolled/obtained items with list-based filtering.
@@ -46,6 +56,12 @@ public class ChoicerPanel extends PluginPanel {
     private static final Font TITLE_FONT = new Font("SansSerif", Font.BOLD, 18);
     private static final Font UI_FONT = new Font("SansSerif", Font.PLAIN, 12);
     private static final Font SMALL_FONT = new Font("SansSerif", Font.PLAIN, 11);
+    private static final int MAX_TOOLTIP_SOURCES = 5;
+    /** Quiet time after a keystroke or state change before the list is refiltered. */
+    private static final long FILTER_DEBOUNCE_MS = 150;
+    private static final int ICON_SIZE = 32;
+    /** Rows above and below the viewport whose icons and names are loaded ahead. */
+    private static final int PREFETCH_ROWS = 12;
 
     private enum ListMode {
         ROLLED("Rolled"),
@@ -79,14 +95,29 @@ public class ChoicerPanel extends PluginPanel {
     private final HashSet<Integer> allTradeableItems;
     private final ClientThread clientThread;
     private final RollAnimationManager rollAnimationManager;
-
-    private final Map<Integer, ImageIcon> itemIconCache = new HashMap<>();
-    private final Map<Integer, String> itemNameCache = new HashMap<>();
-    private final Set<Integer> iconFetchInFlight = ConcurrentHashMap.newKeySet();
-    private final Set<Integer> nameFetchInFlight = ConcurrentHashMap.newKeySet();
-
-    private final DefaultListModel<Integer> listModel = new DefaultListModel<>();
+    private final DropSourceIndex dropSourceIndex;
+    private final ItemNameIndex itemNameIndex;
+
+    /** Filters the list and scales icons, off both the client and the Swing thread. */
+    private final ScheduledExecutorService panelExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "choicer-panel");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ItemCellLoader cellLoader;
+    /** Names of listed items missing from the item name dictionary, fetched once from the client. */
+    private final Map<Integer, String> extraNames = new ConcurrentHashMap<>();
+    private final Set<Integer> extraNamesRequested = ConcurrentHashMap.newKeySet();
+    /** Search index and the inputs it was built from; confined to the panel thread. */
+    private ItemSearchIndex searchIndex = ItemSearchIndex.EMPTY;
+    private Map<String, Integer> indexedDictionary;
+    private int indexedExtraNames = -1;
+    private volatile long filterGeneration;
+    private ScheduledFuture<?> pendingFilter;
+
+    private final ItemIdListModel listModel = new ItemIdListModel();
     private final JList<Integer> itemList = new JList<>(listModel);
+    private JScrollPane itemScroll;
     private final JTextField searchField = new JTextField();
     private final JLabel countLabel = new JLabel("Rolled: 0/0");
     private final JComboBox<ListMode> modeDropdown = new JComboBox<>(ListMode.values());
@@ -100,13 +131,18 @@ public class ChoicerPanel extends PluginPanel {
             ItemManager itemManager,
             HashSet<Integer> allTradeableItems,
             ClientThread clientThread,
-            RollAnimationManager rollAnimationManager) {
+            RollAnimationManager rollAnimationManager,
+            DropSourceIndex dropSourceIndex,
+            ItemNameIndex itemNameIndex) {
         this.obtainedItemsManager = obtainedItemsManager;
         this.rolledItemsManager = rolledItemsManager;
         this.itemManager = itemManager;
         this.allTradeableItems = allTradeableItems;
         this.clientThread = clientThread;
         this.rollAnimationManager = rollAnimationManager;
+        this.dropSourceIndex = dropSourceIndex;
+        this.itemNameIndex = itemNameIndex;
+        this.cellLoader = new ItemCellLoader(itemManager, clientThread, panelExecutor, ICON_SIZE, itemList::repaint);
         init();
     }
 
@@ -182,8 +218,11 @@ public class ChoicerPanel extends PluginPanel {
         searchField.addKeyListener(new KeyAdapter() {
             @Override
             public void keyReleased(KeyEvent e) {
-                searchText = searchField.getText().toLowerCase();
-                updatePanel();
+                String text = searchField.getText();
+                if (!text.equals(searchText)) {
+                    searchText = text;
+                    updatePanel();
+                }
             }
         });
 
@@ -226,12 +265,13 @@ public class ChoicerPanel extends PluginPanel {
         itemList.setBackground(PANEL_BG);
         itemList.setFixedCellHeight(36);
 
-        JScrollPane scroll = new JScrollPane(
+        itemScroll = new JScrollPane(
                 itemList,
                 JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
                 JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-        scroll.getViewport().setBackground(PANEL_BG);
-        scroll.setBorder(null);
+        itemScroll.getViewport().setBackground(PANEL_BG);
+        itemScroll.getViewport().addChangeListener(e -> prefetchAroundViewport());
+        itemScroll.setBorder(null);
 
         JPanel container = new JPanel(new BorderLayout());
         container.setOpaque(false);
@@ -242,7 +282,7 @@ public class ChoicerPanel extends PluginPanel {
         titled.setTitleColor(TEXT_MUTED);
         titled.setTitleFont(UI_FONT.deriveFont(Font.BOLD));
         container.setBorder(new CompoundBorder(titled, empty));
-        container.add(scroll, BorderLayout.CENTER);
+        container.add(itemScroll, BorderLayout.CENTER);
         return container;
     }
 
@@ -301,59 +341,207 @@ public class ChoicerPanel extends PluginPanel {
         rollAnimationManager.enqueueRoll(0);
     }
 
+    /**
+     * Refresh the item list. Must be called on the Swing thread. Filtering
+     * runs on a background thread once input has been quiet for
+     * {@link #FILTER_DEBOUNCE_MS}, and only the resulting IDs come back to
+     * Swing; superseded runs are dropped.
+     */
     public void updatePanel() {
         final ListMode modeSnap = listMode;
         final String searchSnap = searchText;
+        final long generation = ++filterGeneration;
 
-        clientThread.invokeLater(() -> {
-            Set<Integer> obtained = obtainedItemsManager.getObtainedItems();
-            Set<Integer> rolled = rolledItemsManager.getRolledItems();
-            List<Integer> base = new ArrayList<>();
-
-            switch (modeSnap) {
-                case ROLLED:
-                    base.addAll(rolled);
-                    break;
-                case OBTAINED:
-                    base.addAll(obtained);
-                    break;
-                case ROLLED_NOT_OBTAINED:
-                    base.addAll(rolled);
-                    base.removeIf(obtained::contains);
-                    break;
-                case USABLE:
-                    base.addAll(rolled);
-                    base.removeIf(id -> !obtained.contains(id));
-                    break;
+        if (pendingFilter != null) {
+            pendingFilter.cancel(false);
+        }
+        try {
+            pendingFilter = panelExecutor.schedule(
+                    () -> refilter(generation, modeSnap, searchSnap),
+                    FILTER_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // panel was shut down
+        }
+    }
+
+    /** Stop the panel's background thread. */
+    public void shutdown() {
+        panelExecutor.shutdownNow();
+    }
+
+    private void refilter(long generation, ListMode mode, String search) {
+        if (generation != filterGeneration) {
+            return;
+        }
+
+        int[] rolled = rolledItemsManager.getRolledItemIds();
+        int[] obtained = obtainedItemsManager.getObtainedItemIds();
+        int[] base;
+        switch (mode) {
+            case OBTAINED:
+                base = obtained;
+                break;
+            case ROLLED_NOT_OBTAINED:
+                base = retain(rolled, sorted(obtained), false);
+                break;
+            case USABLE:
+                base = retain(rolled, sorted(obtained), true);
+                break;
+            case ROLLED:
+            default:
+                base = rolled;
+                break;
+        }
+
+        BitSet matches = null;
+        if (!search.trim().isEmpty()) {
+            ItemSearchIndex index = currentSearchIndex();
+            requestMissingNames(index, base);
+            matches = index.matching(search);
+        }
+
+        // newest first
+        int[] ids = new int[base.length];
+        int count = 0;
+        for (int i = base.length - 1; i >= 0; i--) {
+            if (matches == null || matches.get(base[i])) {
+                ids[count++] = base[i];
             }
+        }
+        final int[] shown = count == ids.length ? ids : Arrays.copyOf(ids, count);
 
-            if (searchSnap != null && !searchSnap.isEmpty()) {
-                base.removeIf(id -> {
-                    ItemComposition comp = itemManager.getItemComposition(id);
-                    String name = comp != null ? comp.getName() : null;
-                    return name == null || !name.toLowerCase().contains(searchSnap);
-                });
+        final int total;
+        synchronized (allTradeableItems) {
+            total = allTradeableItems.size();
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            if (generation != filterGeneration) {
+                return;
             }
+            showIds(shown);
+            prefetchAroundViewport();
+            countLabel.setText(formatCountLabel(mode, shown.length, total));
+        });
+    }
+
+    /**
+     * Swap in a new list, keeping the selected item selected and, unless the
+     * list is scrolled to the top, the topmost visible item where it was.
+     */
+    private void showIds(int[] ids) {
+        int selected = itemList.getSelectedIndex();
+        int selectedId = selected >= 0 ? listModel.getIdAt(selected) : -1;
+
+        JViewport viewport = itemScroll.getViewport();
+        int viewY = viewport.getViewPosition().y;
+        int first = itemList.getFirstVisibleIndex();
+        int anchorId = -1;
+        int anchorOffset = 0;
+        if (viewY > 0 && first >= 0) {
+            Rectangle bounds = itemList.getCellBounds(first, first);
+            if (bounds != null) {
+                anchorId = listModel.getIdAt(first);
+                anchorOffset = viewY - bounds.y;
+            }
+        }
+
+        listModel.setIds(ids);
 
-            Collections.reverse(base);
+        if (selectedId >= 0) {
+            int index = listModel.indexOf(selectedId);
+            if (index < 0) {
+                itemList.clearSelection();
+            } else if (index != itemList.getSelectedIndex()) {
+                itemList.setSelectedIndex(index);
+            }
+        }
 
-            final int total;
-            synchronized (allTradeableItems) {
-                total = allTradeableItems.size();
+        if (anchorId >= 0) {
+            int index = listModel.indexOf(anchorId);
+            itemScroll.validate();
+            Rectangle bounds = index >= 0 ? itemList.getCellBounds(index, index) : null;
+            if (bounds != null) {
+                viewport.setViewPosition(new Point(0, bounds.y + anchorOffset));
             }
+        }
+    }
 
-            SwingUtilities.invokeLater(() -> {
-                listModel.clear();
-                for (Integer id : base) {
-                    listModel.addElement(id);
-                }
-                countLabel.setText(formatCountLabel(modeSnap, base.size(), total));
-                itemList.revalidate();
-                itemList.repaint();
-            });
+    /** Rebuild the search index if the dictionary or the fetched extra names changed. */
+    private ItemSearchIndex currentSearchIndex() {
+        Map<String, Integer> dictionary = itemNameIndex.names();
+        if (dictionary == indexedDictionary && extraNames.size() == indexedExtraNames) {
+            return searchIndex;
+        }
+        indexedDictionary = dictionary;
+        indexedExtraNames = extraNames.size();
+
+        Map<Integer, String> byId = new HashMap<>(dictionary.size() + extraNames.size());
+        dictionary.forEach((name, id) -> byId.putIfAbsent(id, name));
+        byId.putAll(extraNames);
+        searchIndex = ItemSearchIndex.build(byId);
+        return searchIndex;
+    }
+
+    /**
+     * Fetch, in one client-thread batch, the names of listed items the index
+     * does not know (untradeable variants, or all of them before the
+     * dictionary is ready), then filter again.
+     */
+    private void requestMissingNames(ItemSearchIndex index, int[] ids) {
+        List<Integer> missing = new ArrayList<>();
+        for (int id : ids) {
+            if (!index.contains(id) && extraNamesRequested.add(id)) {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        clientThread.invokeLater(() -> {
+            for (int id : missing) {
+                ItemComposition comp = itemManager.getItemComposition(id);
+                String name = comp != null ? comp.getName() : null;
+                extraNames.put(id, name != null ? name : "");
+            }
+            SwingUtilities.invokeLater(this::updatePanel);
         });
     }
 
+    /** Keep the IDs, in order, whose presence in {@code sortedOther} equals {@code present}. */
+    private static int[] retain(int[] ids, int[] sortedOther, boolean present) {
+        int[] out = new int[ids.length];
+        int n = 0;
+        for (int id : ids) {
+            if ((Arrays.binarySearch(sortedOther, id) >= 0) == present) {
+                out[n++] = id;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] sorted(int[] ids) {
+        int[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /** Queue icons and names for the rows just outside the visible range. */
+    private void prefetchAroundViewport() {
+        int first = itemList.getFirstVisibleIndex();
+        int last = itemList.getLastVisibleIndex();
+        if (first < 0 || last < 0) {
+            return;
+        }
+        int size = listModel.getSize();
+        for (int i = Math.max(0, first - PREFETCH_ROWS); i < first; i++) {
+            cellLoader.prefetch(listModel.getIdAt(i));
+        }
+        for (int i = last + 1; i < Math.min(size, last + 1 + PREFETCH_ROWS); i++) {
+            cellLoader.prefetch(listModel.getIdAt(i));
+        }
+    }
+
     private String formatCountLabel(ListMode mode, int count, int total) {
         String label;
         switch (mode) {
@@ -381,7 +569,7 @@ public class ChoicerPanel extends PluginPanel {
         ItemCellRenderer() {
             setLayout(new BorderLayout(6, 0));
             setOpaque(true);
-            iconLabel.setPreferredSize(new Dimension(32, 32));
+            iconLabel.setPreferredSize(new Dimension(ICON_SIZE, ICON_SIZE));
             nameLabel.setFont(SMALL_FONT);
             nameLabel.setForeground(TEXT);
             add(iconLabel, BorderLayout.WEST);
@@ -398,22 +586,15 @@ public class ChoicerPanel extends PluginPanel {
                 return this;
             }
 
-            ImageIcon ico = itemIconCache.get(value);
-            if (ico != null) {
-                iconLabel.setIcon(ico);
-            } else {
-                iconLabel.setIcon(null);
-                requestItemIcon(value, list, index);
-            }
+            iconLabel.setIcon(cellLoader.icon(value));
 
-            String name = itemNameCache.get(value);
+            String name = cellLoader.name(value);
             if (name != null) {
                 nameLabel.setText(fitNameToCell(name, list, index));
-                setToolTipText(name);
+                setToolTipText(buildTooltip(value, name));
             } else {
                 nameLabel.setText("...");
                 setToolTipText(null);
-                requestItemName(value, list, index);
             }
 
             if (isSelected) {
@@ -424,6 +605,25 @@ public class ChoicerPanel extends PluginPanel {
             return this;
         }
 
+        /** Item name, followed by the cached NPCs that drop it, most common first. */
+        private String buildTooltip(int itemId, String name) {
+            List<DropSourceIndex.Source> sources = dropSourceIndex != null
+                    ? dropSourceIndex.sourcesOf(itemId)
+                    : Collections.emptyList();
+            if (sources.isEmpty()) {
+                return name;
+            }
+            StringBuilder sb = new StringBuilder("<html>").append(escapeHtml(name));
+            int shown = Math.min(MAX_TOOLTIP_SOURCES, sources.size());
+            for (int i = 0; i < shown; i++) {
+                sb.append("<br>").append(escapeHtml(sources.get(i).toString()));
+            }
+            if (sources.size() > shown) {
+                sb.append("<br>and ").append(sources.size() - shown).append(" more");
+            }
+            return sb.append("</html>").toString();
+        }
+
         private String fitNameToCell(String name, JList<? extends Integer> list, int index) {
             if (name == null || name.isEmpty()) {
                 return "";
@@ -451,48 +651,7 @@ public class ChoicerPanel extends PluginPanel {
         }
     }
 
-    private void requestItemIcon(int itemId, JList<?> list, int index) {
-        if (!iconFetchInFlight.add(itemId))
-            return;
-
-        clientThread.invokeLater(() -> {
-            BufferedImage image = itemManager.getImage(itemId);
-            ImageIcon icon = null;
-            if (image != null) {
-                BufferedImage resized = ImageUtil.resizeImage(image, 32, 32);
-                icon = new ImageIcon(resized);
-            }
-            final ImageIcon finalIcon = icon;
-            SwingUtilities.invokeLater(() -> {
-                if (finalIcon != null) {
-                    itemIconCache.put(itemId, finalIcon);
-                }
-                iconFetchInFlight.remove(itemId);
-                Rectangle r = list.getCellBounds(index, index);
-                if (r != null)
-                    list.repaint(r);
-                else
-                    list.repaint();
-            });
-        });
-    }
-
-    private void requestItemName(int itemId, JList<?> list, int index) {
-        if (!nameFetchInFlight.add(itemId))
-            return;
-
-        clientThread.invokeLater(() -> {
-            ItemComposition comp = itemManager.getItemComposition(itemId);
-            String name = (comp != null) ? comp.getName() : "Unknown";
-            SwingUtilities.invokeLater(() -> {
-                itemNameCache.put(itemId, name);
-                nameFetchInFlight.remove(itemId);
-                Rectangle r = list.getCellBounds(index, index);
-                if (r != null)
-                    list.repaint(r);
-                else
-                    list.repaint();
-            });
-        });
+    private static String escapeHtml(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
     }
 }
@@ -4,6 +4,10 @@ import com.choicer.account.AccountChanged;
 import com.choicer.account.AccountManager;
 import com.choicer.drops.DropFetcher;
 import com.choicer.drops.DropCache;
+import com.choicer.drops.DropPrefetcher;
+import com.choicer.drops.DropSourceIndex;
+import com.choicer.drops.FarmRanking;
+import com.choicer.drops.ItemNameIndex;
 import com.choicer.filters.EnsouledHeadMapping;
 import com.choicer.menus.ActionHandler;
 import com.choicer.filters.ItemsFilter;
@@ -19,6 +23,7 @@ import com.google.gson.Gson;
 import com.google.inject.Provides;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import com.choicer.managers.CompletionSimulator;
 import com.choicer.managers.RollAnimationManager;
 import com.choicer.managers.RolledItemsManager;
 import com.choicer.managers.ObtainedItemsManager;
@@ -88,6 +93,16 @@ public class ChoicerPlugin extends Plugin {
     @Inject
     private DropCache dropCache;
     @Inject
+    private ItemNameIndex itemNameIndex;
+    @Inject
+    private DropPrefetcher dropPrefetcher;
+    @Inject
+    private DropSourceIndex dropSourceIndex;
+    @Inject
+    private FarmRanking farmRanking;
+    @Inject
+    private CompletionSimulator completionSimulator;
+    @Inject
     private MusicWidgetController musicWidgetController;
     @Inject
     private NpcSearchService npcSearchService;
@@ -132,9 +147,12 @@ public class ChoicerPlugin extends Plugin {
         getInjector().getInstance(ActionHandler.class).startUp();
         accountManager.init();
         dropFetcher.startUp();
+        farmRanking.startUp();
         dropCache.startUp();
         dropCache.getAllNpcData();
         eventBus.register(accountManager);
+        eventBus.register(dropPrefetcher);
+        choicerOverlay.startUp();
         overlayManager.add(choicerOverlay);
         overlayManager.add(dropsTooltipOverlay);
 
@@ -145,6 +163,8 @@ public class ChoicerPlugin extends Plugin {
         });
         obtainedItemsManager.setExecutor(fileExecutor);
         rolledItemsManager.setExecutor(fileExecutor);
+        final int revision = client.getRevision();
+        fileExecutor.submit(() -> itemNameIndex.load(revision));
 
         if (accountManager.ready()) {
             Runnable refreshPanel = () -> {
@@ -162,6 +182,7 @@ public class ChoicerPlugin extends Plugin {
 
         itemDimmerController.setEnabled(config.dimLockedItemsEnabled());
         itemDimmerController.setDimOpacity(config.dimLockedItemsOpacity());
+        itemDimmerController.startUp();
         eventBus.register(itemDimmerController);
         rollAnimationManager.startUp();
         dropsTabUI.startUp();
@@ -172,7 +193,9 @@ public class ChoicerPlugin extends Plugin {
                 itemManager,
                 allTradeableItems,
                 clientThread,
-                rollAnimationManager);
+                rollAnimationManager,
+                dropSourceIndex,
+                itemNameIndex);
         rollAnimationManager.setChoicerPanel(choicerPanel);
 
         SwingUtilities.invokeLater(choicerPanel::updatePanel);
@@ -222,7 +245,10 @@ public class ChoicerPlugin extends Plugin {
         eventBus.unregister(musicWidgetController);
         dropsTabUI.shutDown();
         eventBus.unregister(itemDimmerController);
+        itemDimmerController.shutDown();
         eventBus.unregister(accountManager);
+        eventBus.unregister(dropPrefetcher);
+        dropPrefetcher.reset();
         getInjector().getInstance(ActionHandler.class).shutDown();
 
         if (clientToolbar != null && navButton != null) {
@@ -233,6 +259,9 @@ public class ChoicerPlugin extends Plugin {
             overlayManager.remove(choicerOverlay);
             overlayManager.remove(dropsTooltipOverlay);
         }
+        if (choicerOverlay != null) {
+            choicerOverlay.shutDown();
+        }
         if (rollAnimationManager != null) {
             rollAnimationManager.shutdown();
         }
@@ -251,8 +280,14 @@ public class ChoicerPlugin extends Plugin {
         }
         dropFetcher.shutdown();
         dropCache.shutdown();
+        farmRanking.shutDown();
+        completionSimulator.shutdown();
+        npcSearchService.shutdown();
 
         // reset panel/tradeable state
+        if (choicerPanel != null) {
+            choicerPanel.shutdown();
+        }
         choicerPanel = null;
         allTradeableItems.clear();
         tradeableItemsInitialized = false;
@@ -275,14 +310,29 @@ public class ChoicerPlugin extends Plugin {
         clientThread.invokeLater(() -> {
             tradeableItemsInitialized = false;
 
+            final int revision = client.getRevision();
+            ItemNameIndex.Builder names = itemNameIndex.builderIfMissing(revision);
+
             allTradeableItems.clear();
             for (int i = 0; i < 40000; i++) {
                 ItemComposition comp = itemManager.getItemComposition(i);
                 if (isEligibleForLocking(i, comp)) {
                     allTradeableItems.add(i);
                 }
+                if (names != null) {
+                    names.add(i, comp);
+                }
             }
             rollAnimationManager.setAllTradeableItems(allTradeableItems);
+            itemDimmerController.invalidate();
+
+            if (names != null) {
+                Map<String, Integer> builtNames = names.build();
+                ExecutorService executor = fileExecutor;
+                if (executor != null) {
+                    executor.submit(() -> itemNameIndex.save(revision, builtNames));
+                }
+            }
 
             // Only now mark initialized (prevents early rolls on login/inventory scan).
             tradeableItemsInitialized = true;
@@ -312,11 +362,16 @@ public class ChoicerPlugin extends Plugin {
             case "showRareDropTable":
             case "showGemDropTable":
                 dropCache.clearAllCaches();
+                dropPrefetcher.reset();
                 refreshDropsViewerIfOpen();
                 break;
             case "sortDropsByRarity":
                 refreshDropsViewerIfOpen();
                 break;
+            case "dropCacheMemoryEntries":
+            case "dropCacheDiskMb":
+                dropCache.enforceQuotas();
+                break;
             case "dimLockedItemsEnabled":
             case "dimLockedItemsOpacity":
                 itemDimmerController.setEnabled(config.dimLockedItemsEnabled());
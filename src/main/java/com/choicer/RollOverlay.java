@@ -1,12 +1,12 @@
 package com.choicer;
 
-import java.util.function.Supplier;
+import java.util.function.IntSupplier;
 
 /**
  * Common contract for roll overlays so the animation manager can swap them.
  */
 public interface RollOverlay {
-    void startRollAnimation(int dummy, int rollDurationMs, Supplier<Integer> randomLockedItemSupplier);
+    void startRollAnimation(int dummy, int rollDurationMs, IntSupplier randomLockedItemSupplier);
 
     int getFinalItem();
 
@@ -2,30 +2,52 @@ package com.choicer.drops;
 
 import static net.runelite.client.RuneLite.RUNELITE_DIR;
 
+import com.choicer.ChoicerConfig;
 import com.choicer.account.AccountManager;
 import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Persistent drop-table cache backed by JSON files in the user's RuneLite
- * directory. The cache is mirrored in memory to make name-based lookups and
- * searches effectively instantaneous.
+ * directory, in two tiers:
+ * <ul>
+ * <li>every table on disk is listed in a small persisted index holding its
+ * name, size, fetch time and access statistics, so lookups and searches
+ * never have to open the files</li>
+ * <li>recently used tables are also held in memory and reloaded lazily from
+ * disk after eviction</li>
+ * </ul>
+ * Both tiers are bounded by configurable quotas and evicted least recently
+ * used first on the IO executor.
+ * <p>
+ * Tables older than {@link #MAX_AGE} that record a wiki revision are not
+ * refetched outright: their revisions are checked in batches through the
+ * {@link DropRevalidator}, unchanged tables are marked fresh again and only
+ * changed pages are downloaded. They keep being served meanwhile, up to
+ * {@link #STALE_LIMIT} if the wiki cannot be reached.
  */
 @Slf4j
 @Singleton
@@ -33,23 +55,115 @@ public class DropCache {
     private final Gson gson;
     private final AccountManager accountManager;
     private final DropFetcher dropFetcher;
+    private final DropSeedDatabase seedDatabase;
+    private final ChoicerConfig config;
+    private final DropRevalidator revalidator;
+    private final DropPool pool;
+    private final DropSourceIndex sourceIndex;
+    private final NpcNameIndex npcNames;
+    /** Holds one directory of tables per player. */
+    private final Path baseDir;
     private static final Duration MAX_AGE = Duration.ofDays(7);
+    private static final Duration STALE_LIMIT = Duration.ofDays(30);
+    private static final String INDEX_FILE = "drops-index.json";
+    /** How often access statistics recorded by cache hits are written out. */
+    private static final long INDEX_FLUSH_SECONDS = 60;
+    private static final int NAME_SEARCH_LIMIT = 10;
+    /** Local name matches at which the wiki search is skipped. */
+    private static final int LOCAL_NAME_HITS = 5;
+    private static final Type ENTRY_MAP_TYPE = new TypeToken<Map<String, Entry>>() {
+    }.getType();
     private final Map<Path, Object> writeLocks = new ConcurrentHashMap<>();
     private final Map<Path, NpcDropData> cache = new ConcurrentHashMap<>();
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
     private final Map<String, Path> nameIndex = new ConcurrentHashMap<>();
+    /** Tables whose changed wiki page is being refetched. */
+    private final Set<Path> refetching = ConcurrentHashMap.newKeySet();
     private volatile boolean indexLoaded = false;
+    private volatile Path indexDir;
+
+    private final AtomicBoolean evictionQueued = new AtomicBoolean();
+    private final AtomicBoolean indexSaveQueued = new AtomicBoolean();
+    /** Set when only access statistics changed; flushed on a timer. */
+    private final AtomicBoolean indexDirty = new AtomicBoolean();
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+    private final AtomicBoolean sourceIndexQueued = new AtomicBoolean();
+    private final AtomicBoolean npcNamesSeeded = new AtomicBoolean();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong memoryEvictions = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
 
     // Dedicated IO executor so we dont block the common ForkJoinPool with file ops
-    private ExecutorService ioExecutor;
+    private ScheduledExecutorService ioExecutor;
 
     @Inject
-    public DropCache(Gson gson, AccountManager accountManager, DropFetcher dropFetcher) {
-        this.gson = gson;
+    public DropCache(Gson gson, AccountManager accountManager, DropFetcher dropFetcher,
+            DropSeedDatabase seedDatabase, ChoicerConfig config, DropRevalidator revalidator, DropPool pool,
+            DropSourceIndex sourceIndex, NpcNameIndex npcNames) {
+        this(gson, accountManager, dropFetcher, seedDatabase, config, revalidator, pool, sourceIndex, npcNames,
+                RUNELITE_DIR.toPath().resolve("choicer"));
+    }
+
+    DropCache(Gson gson, AccountManager accountManager, DropFetcher dropFetcher,
+            DropSeedDatabase seedDatabase, ChoicerConfig config, DropRevalidator revalidator, DropPool pool,
+            DropSourceIndex sourceIndex, NpcNameIndex npcNames, Path baseDir) {
+        this.gson = gson.newBuilder()
+                .registerTypeAdapter(NpcDropData.class, new NpcDropDataAdapter(pool))
+                .create();
+        this.pool = pool;
         this.accountManager = accountManager;
         this.dropFetcher = dropFetcher;
+        this.seedDatabase = seedDatabase;
+        this.config = config;
+        this.revalidator = revalidator;
+        this.sourceIndex = sourceIndex;
+        this.npcNames = npcNames;
+        this.baseDir = baseDir;
     }
 
-    /** Preload on-disk index and prune stale cache entries. */
+    /** Index record for one cached table; persisted keyed by file name. */
+    static final class Entry {
+        String name;
+        int level;
+        long size;
+        /** When the table was fetched or last confirmed current. */
+        long fetchedAt;
+        long revisionId;
+        volatile long lastAccess;
+        AtomicInteger hits = new AtomicInteger();
+    }
+
+    /** Point-in-time occupancy and eviction counters. */
+    @Getter
+    public static final class Stats {
+        private final int memoryEntries;
+        private final int diskEntries;
+        private final long diskBytes;
+        private final long hits;
+        private final long misses;
+        private final long memoryEvictions;
+        private final long diskEvictions;
+
+        Stats(int memoryEntries, int diskEntries, long diskBytes, long hits, long misses,
+                long memoryEvictions, long diskEvictions) {
+            this.memoryEntries = memoryEntries;
+            this.diskEntries = diskEntries;
+            this.diskBytes = diskBytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.memoryEvictions = memoryEvictions;
+            this.diskEvictions = diskEvictions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d in memory, %d on disk (%d KiB), %d hits, %d misses, evicted %d/%d (memory/disk)",
+                    memoryEntries, diskEntries, diskBytes / 1024, hits, misses, memoryEvictions, diskEvictions);
+        }
+    }
+
+    /** Preload on-disk index, prune expired entries and revalidate stale ones. */
     public void startUp() {
         ensureExecutor();
         String player = accountManager.getPlayerName();
@@ -61,29 +175,61 @@ public class DropCache {
     }
 
     /**
-     * Load from disk if possible; otherwise fetch from the wiki, write the
-     * JSON, and return the data. Results without drop-table sections are
-     * discarded and never cached.
+     * Load from disk if possible; otherwise take the bundled seed table or
+     * fetch from the wiki, write the JSON, and return the data. Seeded tables
+     * are dated by the seed's build time, so they age past {@link #MAX_AGE}
+     * like fetched tables; the seed is skipped once its tables could no
+     * longer be served. Stale tables with a known revision are
+     * returned as-is while a revalidation runs. Results without drop-table
+     * sections are discarded and never cached. Cancelling the returned future
+     * also drops its wiki request if that is still queued.
      */
     public CompletableFuture<NpcDropData> get(int npcId, String name, int level) {
+        return get(npcId, name, level, FetchPriority.USER);
+    }
+
+    /**
+     * As {@link #get(int, String, int)}, with any wiki fetch queued in the
+     * given scheduling lane.
+     */
+    public CompletableFuture<NpcDropData> get(int npcId, String name, int level, FetchPriority priority) {
         loadIndex();
         final String safeName = name.replaceAll("[^A-Za-z0-9]", "_");
         final Path file;
         try {
-            file = npcId == 0
-                    ? findExistingCacheFile(safeName, level)
-                    : getCacheFile(npcId, name, level);
+            Path byId = npcId == 0 ? null : getCacheFile(npcId, name, level);
+            // Files are keyed by wiki page ID, which game NPC IDs rarely
+            // match, so fall back to the name index.
+            file = byId != null && entries.containsKey(byId)
+                    ? byId
+                    : findExistingCacheFile(safeName, level);
         } catch (IOException ex) {
             log.error("Could not resolve cache file for {} ({}, lvl {})", npcId, name, level, ex);
             return CompletableFuture.failedFuture(ex);
         }
 
         ExecutorService executor = ensureExecutor();
-        return CompletableFuture.supplyAsync(() -> {
+        // completed when the caller cancels, so the fetch started below can follow
+        CompletableFuture<Void> cancelled = new CompletableFuture<>();
+        CompletableFuture<NpcDropData> result = CompletableFuture.supplyAsync(() -> {
             if (file != null) {
-                NpcDropData cached = cache.get(file);
-                if (cached != null && Files.exists(file) && isFresh(file)) {
-                    return cached;
+                Entry entry = entries.get(file);
+                if (entry != null && isServable(entry)) {
+                    NpcDropData cached = cache.get(file);
+                    if (cached == null) {
+                        cached = readEntry(file);
+                        if (cached != null && !sourceIndex.contains(file)) {
+                            sourceIndex.put(file, cached);
+                        }
+                    }
+                    if (cached != null) {
+                        touch(file, entry, cached);
+                        hits.incrementAndGet();
+                        if (!isFresh(entry)) {
+                            revalidateStale();
+                        }
+                        return cached;
+                    }
                 }
 
                 // stale or missing entry, clean up
@@ -93,13 +239,23 @@ public class DropCache {
                 }
                 removeIndex(file);
             }
+            misses.incrementAndGet();
             return null;
         }, executor).thenComposeAsync(cached -> {
             if (cached != null) {
                 return CompletableFuture.completedFuture(cached);
             }
 
-            return dropFetcher.fetch(npcId, name, level)
+            // Bundled tables are as old as the seed build, and are only
+            // used while a table fetched at that time would still be served.
+            final long seededAt = seedDatabase.getGeneratedAt();
+            NpcDropData found = seedDatabase.find(npcId, name, level);
+            final NpcDropData seeded = found != null && isServable(seededAt, found.getRevisionId()) ? found : null;
+            CompletableFuture<NpcDropData> source = seeded != null
+                    ? dropFetcher.resolveItemIds(seeded)
+                    : dropFetcher.fetch(npcId, name, level, priority);
+            cancelled.thenRun(() -> source.cancel(false));
+            return source
                     .thenApplyAsync(data -> {
                         try {
                             if (data == null || data.getDropTableSections().isEmpty()) {
@@ -107,40 +263,18 @@ public class DropCache {
                             }
 
                             Path out = getCacheFile(data.getNpcId(), data.getName(), data.getLevel());
-                            Files.createDirectories(out.getParent());
-                            String json = gson.toJson(data);
-
-                            Object lock = writeLocks.computeIfAbsent(out, p -> new Object());
-                            synchronized (lock) {
-                                Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
-                                try {
-                                    Files.writeString(
-                                            tmp,
-                                            json,
-                                            StandardCharsets.UTF_8,
-                                            StandardOpenOption.CREATE,
-                                            StandardOpenOption.TRUNCATE_EXISTING);
-                                    Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING,
-                                            StandardCopyOption.ATOMIC_MOVE);
-                                } finally {
-                                    writeLocks.remove(out);
-                                    try {
-                                        Files.deleteIfExists(tmp);
-                                    } catch (IOException ignored) {
-                                    }
-                                }
-                            }
-
-                            cache.put(out, data);
-                            nameIndex.put(buildNameKey(data.getName(), data.getLevel()), out);
+                            // Remove an old 0_id placeholder if present
+                            Path old = findExistingCacheFile(safeName, data.getLevel());
+                            long fetchedAt = data == seeded ? seededAt : System.currentTimeMillis();
+                            store(out, data, fetchedAt);
 
-                            if (npcId == 0 && data.getNpcId() != 0) {
-                                // Remove old 0_id placeholder if present
-                                Path old = findExistingCacheFile(safeName, data.getLevel());
-                                if (old != null && !old.equals(out)) {
-                                    Files.deleteIfExists(old);
-                                    removeIndex(old);
-                                }
+                            if (old != null && !old.equals(out)) {
+                                Files.deleteIfExists(old);
+                                removeIndex(old);
+                                nameIndex.put(buildNameKey(data.getName(), data.getLevel()), out);
+                            }
+                            if (!isFresh(fetchedAt)) {
+                                revalidateStale();
                             }
                         } catch (Exception e) {
                             log.error("Failed to write cache file for {}", name, e);
@@ -148,55 +282,237 @@ public class DropCache {
                         return data;
                     }, executor)
                     .exceptionally(ex -> {
-                        log.error("Error fetching drop data for NPC {}", npcId, ex);
+                        if (!(ex instanceof CancellationException || ex.getCause() instanceof CancellationException)) {
+                            log.error("Error fetching drop data for NPC {}", npcId, ex);
+                        }
                         return null;
                     });
         }, executor);
+        result.whenComplete((data, ex) -> {
+            if (result.isCancelled()) {
+                cancelled.complete(null);
+            }
+        });
+        return result;
     }
 
     /**
-     * @return a collection of all cached NPC drop data in memory
+     * As {@link #get(int, String, int, FetchPriority)} in the
+     * {@link FetchPriority#PREFETCH} lane, but returns at once: resolving the
+     * cache file, which may load the index from disk, runs on the cache
+     * executor. Safe to call from the client thread.
+     */
+    public CompletableFuture<NpcDropData> prefetch(int npcId, String name, int level) {
+        return CompletableFuture.supplyAsync(() -> get(npcId, name, level, FetchPriority.PREFETCH), ensureExecutor())
+                .thenCompose(f -> f);
+    }
+
+    /**
+     * Whether a table for this name and level is already cached. Never
+     * touches the disk, so it is safe on the client thread; before the index
+     * has loaded it conservatively answers false.
+     */
+    public boolean isCached(String name, int level) {
+        if (!indexLoaded) {
+            return false;
+        }
+        Path p = nameIndex.get(buildNameKey(name, level));
+        Entry entry = p != null ? entries.get(p) : null;
+        return entry != null && isServable(entry);
+    }
+
+    /**
+     * Narrow search candidates to the names worth fetching. Cached names are
+     * kept; the rest are resolved to wiki pages in one batched query, so
+     * names without an article are dropped and names redirecting to the same
+     * page are fetched once. If the wiki cannot be asked, every name is kept.
+     */
+    public CompletableFuture<List<String>> fetchableNames(List<String> names, int level, FetchPriority priority) {
+        Set<String> remote = new LinkedHashSet<>();
+        for (String n : names) {
+            if (!isCached(n, level)) {
+                remote.add(n);
+            }
+        }
+        if (remote.isEmpty()) {
+            return CompletableFuture.completedFuture(names);
+        }
+        return dropFetcher.resolvePageIds(remote, priority).handle((ids, ex) -> {
+            if (ids == null) {
+                return names;
+            }
+            Set<Integer> pages = new HashSet<>();
+            List<String> out = new ArrayList<>(names.size());
+            for (String n : names) {
+                Integer id = ids.get(n);
+                if (!remote.contains(n) || (id != null && pages.add(id))) {
+                    out.add(n);
+                }
+            }
+            return out;
+        });
+    }
+
+    /**
+     * @return the NPC drop data currently held in memory; tables only on
+     *         disk are not loaded
      */
     public Collection<NpcDropData> getAllNpcData() {
         loadIndex();
         return new ArrayList<>(cache.values());
     }
 
+    /** @return occupancy and eviction counters for both tiers */
+    public Stats getStats() {
+        long diskBytes = 0;
+        for (Entry e : entries.values()) {
+            diskBytes += e.size;
+        }
+        return new Stats(cache.size(), entries.size(), diskBytes, hits.get(), misses.get(),
+                memoryEvictions.get(), diskEvictions.get());
+    }
+
+    /** As {@link #searchNpcNames(String, int, int)} without filters. */
+    public CompletableFuture<List<String>> searchNpcNames(String query) {
+        return searchNpcNames(query, 0, 0);
+    }
+
     /**
-     * Return a list of NPC names containing the supplied query. Matches from
-     * the local cache are combined with wiki search results to ensure partial
-     * lookups surface all relevant NPCs.
+     * Return NPC names matching the supplied query, best first, from the
+     * {@link NpcNameIndex} over cached and bundled tables. The wiki search is
+     * only consulted when the index has fewer than {@link #LOCAL_NAME_HITS}
+     * matches; once the index is loaded, other searches complete immediately
+     * on the calling thread.
+     *
+     * @param level only names at this level, or any if {@code <= 0}
+     * @param npcId only names not known under another page ID, or any if
+     *              {@code <= 0}
      */
-    public CompletableFuture<List<String>> searchNpcNames(String query) {
+    public CompletableFuture<List<String>> searchNpcNames(String query, int level, int npcId) {
+        if (indexLoaded && npcNamesSeeded.get()) {
+            List<String> local = localNpcNames(query, level, npcId);
+            if (local.size() >= LOCAL_NAME_HITS) {
+                return CompletableFuture.completedFuture(local);
+            }
+        }
         ExecutorService executor = ensureExecutor();
         return CompletableFuture.supplyAsync(() -> {
-            String lc = query.toLowerCase(Locale.ROOT).trim();
             loadIndex();
+            if (npcNamesSeeded.compareAndSet(false, true)) {
+                seedDatabase.indexNames(npcNames);
+            }
 
-            // Preserve insertion order while de-duplicating names
-            Set<String> names = cache.values().stream()
-                    .map(NpcDropData::getName)
-                    .filter(Objects::nonNull)
-                    .filter(name -> name.toLowerCase(Locale.ROOT).contains(lc))
-                    .collect(Collectors.toCollection(LinkedHashSet::new));
-
-            try {
+            // Preserve ranking order while de-duplicating names
+            Set<String> names = new LinkedHashSet<>(localNpcNames(query, level, npcId));
+            if (names.size() < LOCAL_NAME_HITS && !query.trim().isEmpty()) {
                 names.addAll(dropFetcher.searchNpcNames(query));
-            } catch (Exception ex) {
-                log.debug("Wiki search failed for {}", query, ex);
             }
-
             return new ArrayList<>(names);
         }, executor);
     }
 
-    private boolean isFresh(Path file) {
-        try {
-            Instant cutoff = Instant.now().minus(MAX_AGE);
-            return Files.getLastModifiedTime(file).toInstant().isAfter(cutoff);
-        } catch (IOException e) {
-            return false;
+    private List<String> localNpcNames(String query, int level, int npcId) {
+        return npcNames.search(query, level, npcId, NAME_SEARCH_LIMIT).stream()
+                .map(NpcNameIndex.Match::getName)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Write a table to disk and both tiers, then enforce the quotas. Freshly
+     * fetched tables are pooled here; tables read back from disk are pooled
+     * by the adapter.
+     */
+    private void store(Path out, NpcDropData data) throws IOException {
+        store(out, data, System.currentTimeMillis());
+    }
+
+    /** As {@link #store(Path, NpcDropData)}, recording the table as fetched at {@code fetchedAt}. */
+    private void store(Path out, NpcDropData data, long fetchedAt) throws IOException {
+        Files.createDirectories(out.getParent());
+        pool.intern(data);
+
+        long size;
+        Object lock = writeLocks.computeIfAbsent(out, p -> new Object());
+        synchronized (lock) {
+            Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+            try {
+                // stream straight to the file rather than building the JSON string first
+                try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    gson.toJson(data, NpcDropData.class, w);
+                }
+                size = Files.size(tmp);
+                Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                writeLocks.remove(out);
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
         }
+
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry();
+        entry.name = data.getName();
+        entry.level = data.getLevel();
+        entry.size = size;
+        entry.fetchedAt = fetchedAt;
+        entry.revisionId = data.getRevisionId();
+        entry.lastAccess = now;
+        entry.hits.set(1);
+
+        entries.put(out, entry);
+        cache.put(out, data);
+        nameIndex.put(buildNameKey(data.getName(), data.getLevel()), out);
+        sourceIndex.put(out, data);
+        npcNames.add(data.getName(), data.getLevel(), data.getNpcId());
+        scheduleEviction();
+        scheduleIndexSave();
+    }
+
+    private NpcDropData readEntry(Path file) {
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            NpcDropData data = gson.fromJson(r, NpcDropData.class);
+            if (data != null && data.getDropTableSections() != null && !data.getDropTableSections().isEmpty()) {
+                return data;
+            }
+        } catch (Exception e) {
+            log.warn("Skipping bad cache file {}", file, e);
+        }
+        return null;
+    }
+
+    /**
+     * Record an access and keep the table in memory. The index is only
+     * marked dirty; the periodic flush or shutdown writes it.
+     */
+    private void touch(Path file, Entry entry, NpcDropData data) {
+        entry.lastAccess = System.currentTimeMillis();
+        entry.hits.incrementAndGet();
+        if (cache.put(file, data) == null) {
+            scheduleEviction();
+        }
+        indexDirty.set(true);
+    }
+
+    private boolean isFresh(Entry entry) {
+        return isFresh(entry.fetchedAt);
+    }
+
+    private static boolean isFresh(long fetchedAt) {
+        return fetchedAt > System.currentTimeMillis() - MAX_AGE.toMillis();
+    }
+
+    /** Fresh, or stale but still awaiting a revision check. */
+    private boolean isServable(Entry entry) {
+        return isServable(entry.fetchedAt, entry.revisionId);
+    }
+
+    private static boolean isServable(long fetchedAt, long revisionId) {
+        return isFresh(fetchedAt)
+                || revisionId > 0 && fetchedAt > System.currentTimeMillis() - STALE_LIMIT.toMillis();
     }
 
     /**
@@ -205,8 +521,9 @@ public class DropCache {
     private Path findExistingCacheFile(String safeName, int level) throws IOException {
         String key = safeName + "_" + level;
         Path p = nameIndex.get(key);
-        if (p != null && Files.exists(p)) {
-            if (isFresh(p)) {
+        if (p != null) {
+            Entry entry = entries.get(p);
+            if (entry != null && isServable(entry)) {
                 return p;
             }
             Files.deleteIfExists(p);
@@ -220,8 +537,7 @@ public class DropCache {
         if (player == null) {
             throw new IOException("Player name is not available");
         }
-        return RUNELITE_DIR.toPath()
-                .resolve("choicer")
+        return baseDir
                 .resolve(player)
                 .resolve("drops");
     }
@@ -236,8 +552,10 @@ public class DropCache {
     }
 
     /**
-     * Deletes cached drop table files older than {@link #MAX_AGE} and purges
-     * them from the in-memory index.
+     * Deletes cached drop table files that can no longer be served and purges
+     * them from the in-memory index, then revalidates the stale ones that
+     * remain. Indexed files are judged by their recorded fetch time; only
+     * unindexed strays are stat'ed.
      */
     public void pruneOldCaches() {
         String player = accountManager.getPlayerName();
@@ -245,8 +563,7 @@ public class DropCache {
             return;
         }
 
-        Path dir = RUNELITE_DIR.toPath()
-                .resolve("choicer")
+        Path dir = baseDir
                 .resolve(player)
                 .resolve("drops");
 
@@ -259,8 +576,11 @@ public class DropCache {
             files.filter(Files::isRegularFile)
                     .forEach(p -> {
                         try {
-                            Instant mod = Files.getLastModifiedTime(p).toInstant();
-                            if (mod.isBefore(cutoff)) {
+                            Entry entry = entries.get(p);
+                            boolean stale = entry != null
+                                    ? !isServable(entry)
+                                    : Files.getLastModifiedTime(p).toInstant().isBefore(cutoff);
+                            if (stale) {
                                 Files.deleteIfExists(p);
                                 removeIndex(p);
                             }
@@ -271,6 +591,103 @@ public class DropCache {
         } catch (IOException ex) {
             log.debug("Error pruning drop cache directory {}", dir, ex);
         }
+        scheduleIndexSave();
+        revalidateStale();
+    }
+
+    /**
+     * Check every stale table that records a wiki revision against the
+     * wiki's current revision. Unchanged tables are marked fresh; changed
+     * pages are refetched in the background lane, keeping the old table
+     * until the new one has been written. Tables whose check failed stay
+     * stale and are retried on the next call.
+     */
+    public void revalidateStale() {
+        if (!indexLoaded || ioExecutor == null || !revalidating.compareAndSet(false, true)) {
+            return;
+        }
+        Map<String, List<Path>> byTitle = new LinkedHashMap<>();
+        for (Map.Entry<Path, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.revisionId > 0 && entry.name != null && !isFresh(entry)
+                    && !refetching.contains(e.getKey())) {
+                byTitle.computeIfAbsent(entry.name, t -> new ArrayList<>()).add(e.getKey());
+            }
+        }
+        if (byTitle.isEmpty()) {
+            revalidating.set(false);
+            return;
+        }
+
+        ExecutorService executor = ensureExecutor();
+        revalidator.currentRevisions(byTitle.keySet()).whenCompleteAsync((current, ex) -> {
+            try {
+                if (current == null) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                int unchanged = 0;
+                int changed = 0;
+                for (Map.Entry<String, List<Path>> t : byTitle.entrySet()) {
+                    Long revision = current.get(t.getKey());
+                    if (revision == null) {
+                        continue; // check failed; retried next time
+                    }
+                    for (Path p : t.getValue()) {
+                        Entry entry = entries.get(p);
+                        if (entry == null) {
+                            continue;
+                        }
+                        if (revision == entry.revisionId) {
+                            entry.fetchedAt = now;
+                            unchanged++;
+                        } else {
+                            refetch(p, entry);
+                            changed++;
+                        }
+                    }
+                }
+                log.debug("Revalidated drop cache: {} unchanged, {} changed", unchanged, changed);
+                scheduleIndexSave();
+            } finally {
+                revalidating.set(false);
+            }
+        }, executor);
+    }
+
+    /**
+     * Replace a table whose wiki page changed, dropping it if the page lost
+     * its drops. A table already being refetched is left to that fetch.
+     */
+    private void refetch(Path file, Entry entry) {
+        if (!refetching.add(file)) {
+            return;
+        }
+        ExecutorService executor = ensureExecutor();
+        dropFetcher.fetch(0, entry.name, entry.level, FetchPriority.BACKGROUND)
+                .thenAcceptAsync(data -> {
+                    try {
+                        if (data == null || data.getDropTableSections().isEmpty()) {
+                            Files.deleteIfExists(file);
+                            removeIndex(file);
+                            return;
+                        }
+                        Path out = getCacheFile(data.getNpcId(), data.getName(), data.getLevel());
+                        store(out, data);
+                        if (!out.equals(file)) {
+                            Files.deleteIfExists(file);
+                            removeIndex(file);
+                            nameIndex.put(buildNameKey(data.getName(), data.getLevel()), out);
+                        }
+                    } catch (IOException ex) {
+                        log.debug("Failed to refresh drop cache {}", file, ex);
+                    }
+                }, executor)
+                .exceptionally(ex -> {
+                    log.debug("Failed to refetch changed drops for {}", entry.name, ex);
+                    return null;
+                })
+                .whenComplete((v, ex) -> refetching.remove(file));
     }
 
     /**
@@ -282,8 +699,7 @@ public class DropCache {
         if (player == null)
             return;
 
-        Path dir = RUNELITE_DIR.toPath()
-                .resolve("choicer")
+        Path dir = baseDir
                 .resolve(player)
                 .resolve("drops");
 
@@ -301,21 +717,38 @@ public class DropCache {
                 log.debug("Error clearing drop cache directory {}", dir, ex);
             }
         }
+        try {
+            Files.deleteIfExists(dir.resolveSibling(INDEX_FILE));
+        } catch (IOException ex) {
+            log.debug("Failed to delete drop cache index", ex);
+        }
 
         cache.clear();
+        entries.clear();
         nameIndex.clear();
+        sourceIndex.clear();
+        indexDir = dir;
         indexLoaded = true;
     }
 
     /** Remove the given file from the in-memory indices. */
     private void removeIndex(Path p) {
         NpcDropData data = cache.remove(p);
-        if (data != null) {
-            nameIndex.remove(buildNameKey(data.getName(), data.getLevel()));
+        Entry entry = entries.remove(p);
+        sourceIndex.remove(p);
+        String key = entry != null
+                ? buildNameKey(entry.name, entry.level)
+                : data != null ? buildNameKey(data.getName(), data.getLevel()) : null;
+        if (key != null) {
+            nameIndex.remove(key, p);
         }
     }
 
-    /** Lazily populate the in-memory indices from existing cache files. */
+    /**
+     * Lazily populate the index from the persisted index file. Only cache
+     * files the index does not know about, e.g. from older versions, are
+     * opened; tables are otherwise loaded on first access.
+     */
     private void loadIndex() {
         if (indexLoaded) {
             return;
@@ -326,27 +759,24 @@ public class DropCache {
             }
             try {
                 Path dir = getCacheDir();
+                indexDir = dir;
+                Map<String, Entry> saved = readIndexFile(dir.resolveSibling(INDEX_FILE));
                 if (Files.exists(dir)) {
                     try (Stream<Path> files = Files.list(dir)) {
-                        for (Path p : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
-                            if (!isFresh(p)) {
-                                Files.deleteIfExists(p);
-                                continue;
+                        for (Path p : files.filter(Files::isRegularFile)
+                                .filter(f -> f.getFileName().toString().endsWith(".json"))
+                                .collect(Collectors.toList())) {
+                            Entry entry = saved.get(p.getFileName().toString());
+                            if (entry == null || entry.name == null) {
+                                entry = indexUnknownFile(p);
                             }
-                            try {
-                                String json = Files.readString(p, StandardCharsets.UTF_8);
-                                NpcDropData data = gson.fromJson(json, NpcDropData.class);
-                                if (data != null && data.getDropTableSections() != null
-                                        && !data.getDropTableSections().isEmpty()) {
-                                    cache.put(p, data);
-                                    nameIndex.put(buildNameKey(data.getName(), data.getLevel()), p);
-                                } else {
-                                    Files.deleteIfExists(p);
-                                }
-                            } catch (Exception e) {
-                                log.warn("Skipping bad cache file {}", p, e);
+                            if (entry == null || !isServable(entry)) {
                                 Files.deleteIfExists(p);
+                                continue;
                             }
+                            entries.put(p, entry);
+                            nameIndex.put(buildNameKey(entry.name, entry.level), p);
+                            npcNames.add(entry.name, entry.level, 0);
                         }
                     }
                 }
@@ -355,6 +785,214 @@ public class DropCache {
             }
             indexLoaded = true;
         }
+        scheduleIndexSave();
+        scheduleSourceIndexBuild();
+    }
+
+    /**
+     * Feed every table on disk into the {@link DropSourceIndex} once the
+     * index is loaded. Tables are read one at a time and not kept in the
+     * memory tier, so this does not disturb the quotas.
+     */
+    private void scheduleSourceIndexBuild() {
+        ExecutorService executor = ioExecutor;
+        if (executor == null || !sourceIndexQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.submit(() -> {
+                int indexed = 0;
+                for (Path p : new ArrayList<>(entries.keySet())) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                    if (sourceIndex.contains(p)) {
+                        continue;
+                    }
+                    NpcDropData data = cache.get(p);
+                    if (data == null) {
+                        data = readEntry(p);
+                    }
+                    // skip files evicted or deleted while we were reading
+                    if (data != null && entries.containsKey(p)) {
+                        sourceIndex.put(p, data);
+                        indexed++;
+                    }
+                }
+                log.debug("Indexed drop sources of {} cached tables, {} items", indexed, sourceIndex.size());
+            });
+        } catch (RejectedExecutionException ex) {
+            sourceIndexQueued.set(false);
+        }
+    }
+
+    /** Build an index record for a file written before the index existed. */
+    private Entry indexUnknownFile(Path p) throws IOException {
+        NpcDropData data = readEntry(p);
+        if (data == null) {
+            return null;
+        }
+        Entry entry = new Entry();
+        entry.name = data.getName();
+        entry.level = data.getLevel();
+        entry.size = Files.size(p);
+        entry.fetchedAt = Files.getLastModifiedTime(p).toMillis();
+        entry.revisionId = data.getRevisionId();
+        entry.lastAccess = entry.fetchedAt;
+        return entry;
+    }
+
+    private Map<String, Entry> readIndexFile(Path file) {
+        if (!Files.exists(file)) {
+            return Collections.emptyMap();
+        }
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Entry> saved = gson.fromJson(r, ENTRY_MAP_TYPE);
+            return saved != null ? saved : Collections.emptyMap();
+        } catch (Exception ex) {
+            log.warn("Discarding unreadable drop cache index {}", file, ex);
+            return Collections.emptyMap();
+        }
+    }
+
+    private void scheduleIndexSave() {
+        ExecutorService executor = ioExecutor;
+        if (executor != null && indexSaveQueued.compareAndSet(false, true)) {
+            try {
+                executor.submit(() -> {
+                    indexSaveQueued.set(false);
+                    saveIndex();
+                });
+            } catch (RejectedExecutionException ex) {
+                indexSaveQueued.set(false);
+            }
+        }
+    }
+
+    /** Write the index if hits have changed it since the last save. */
+    private void flushIndex() {
+        if (indexDirty.get()) {
+            saveIndex();
+        }
+    }
+
+    private synchronized void saveIndex() {
+        Path dir = indexDir;
+        if (dir == null || !indexLoaded) {
+            return;
+        }
+        indexDirty.set(false);
+        Map<String, Entry> out = new HashMap<>();
+        for (Map.Entry<Path, Entry> e : entries.entrySet()) {
+            if (dir.equals(e.getKey().getParent())) {
+                out.put(e.getKey().getFileName().toString(), e.getValue());
+            }
+        }
+        Path file = dir.resolveSibling(INDEX_FILE);
+        Path tmp = file.resolveSibling(INDEX_FILE + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                gson.toJson(out, ENTRY_MAP_TYPE, w);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.debug("Failed to persist drop cache index", ex);
+        } finally {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void scheduleEviction() {
+        ExecutorService executor = ioExecutor;
+        if (executor != null && evictionQueued.compareAndSet(false, true)) {
+            try {
+                executor.submit(this::evict);
+            } catch (RejectedExecutionException ex) {
+                evictionQueued.set(false);
+            }
+        }
+    }
+
+    /** Drop least recently used tables until both tiers fit their quotas. */
+    private void evict() {
+        evictionQueued.set(false);
+        int maxMemory = Math.max(1, config.dropCacheMemoryEntries());
+        long maxDisk = Math.max(1, config.dropCacheDiskMb()) * 1024L * 1024L;
+
+        int fromMemory = 0;
+        if (cache.size() > maxMemory) {
+            List<Path> order = lruOrder(cache.keySet());
+            for (int i = 0; i < order.size() && cache.size() > maxMemory; i++) {
+                if (cache.remove(order.get(i)) != null) {
+                    fromMemory++;
+                }
+            }
+        }
+
+        int fromDisk = 0;
+        long total = 0;
+        for (Entry e : entries.values()) {
+            total += e.size;
+        }
+        if (total > maxDisk) {
+            List<Path> order = lruOrder(entries.keySet());
+            for (int i = 0; i < order.size() && total > maxDisk; i++) {
+                Path p = order.get(i);
+                Entry e = entries.get(p);
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ex) {
+                    log.debug("Failed to evict drop cache {}", p, ex);
+                    continue;
+                }
+                removeIndex(p);
+                total -= e != null ? e.size : 0;
+                fromDisk++;
+            }
+        }
+
+        if (fromMemory > 0 || fromDisk > 0) {
+            memoryEvictions.addAndGet(fromMemory);
+            diskEvictions.addAndGet(fromDisk);
+            log.debug("Drop cache evicted {} from memory and {} from disk: {}", fromMemory, fromDisk, getStats());
+            if (fromDisk > 0) {
+                scheduleIndexSave();
+            }
+        }
+    }
+
+    /**
+     * Order {@code paths} least recently used first, ties broken by fewer
+     * hits. Access times and hit counts are copied before sorting, since
+     * concurrent hits would otherwise change the order mid-sort.
+     */
+    private List<Path> lruOrder(Collection<Path> paths) {
+        Path[] order = paths.toArray(new Path[0]);
+        long[] lastAccess = new long[order.length];
+        int[] hitCounts = new int[order.length];
+        Integer[] idx = new Integer[order.length];
+        for (int i = 0; i < order.length; i++) {
+            Entry e = entries.get(order[i]);
+            lastAccess[i] = e != null ? e.lastAccess : 0L;
+            hitCounts[i] = e != null ? e.hits.get() : 0;
+            idx[i] = i;
+        }
+        Arrays.sort(idx, Comparator.comparingLong((Integer i) -> lastAccess[i])
+                .thenComparingInt(i -> hitCounts[i]));
+        List<Path> sorted = new ArrayList<>(order.length);
+        for (Integer i : idx) {
+            sorted.add(order[i]);
+        }
+        return sorted;
+    }
+
+    /** Re-check the quotas, e.g. after they were lowered in the config. */
+    public void enforceQuotas() {
+        scheduleEviction();
     }
 
     /** Gracefully shutdown IO executor. */
@@ -366,16 +1004,26 @@ public class DropCache {
 
         executor.shutdownNow();
         ioExecutor = null;
+        saveIndex();
+        log.debug("Drop cache at shutdown: {}", getStats());
         cache.clear();
+        entries.clear();
         nameIndex.clear();
+        sourceIndex.clear();
+        sourceIndexQueued.set(false);
+        npcNames.clear();
+        npcNamesSeeded.set(false);
         indexLoaded = false;
+        indexDir = null;
     }
 
     private synchronized ExecutorService ensureExecutor() {
         if (ioExecutor == null || ioExecutor.isShutdown() || ioExecutor.isTerminated()) {
-            ioExecutor = Executors.newFixedThreadPool(
+            ioExecutor = Executors.newScheduledThreadPool(
                     Math.max(2, Runtime.getRuntime().availableProcessors() / 2),
                     new ThreadFactoryBuilder().setNameFormat("dropcache-io-%d").build());
+            ioExecutor.scheduleWithFixedDelay(this::flushIndex,
+                    INDEX_FLUSH_SECONDS, INDEX_FLUSH_SECONDS, TimeUnit.SECONDS);
         }
         return ioExecutor;
     }
@@ -383,4 +1031,4 @@ public class DropCache {
     private String buildNameKey(String name, int level) {
         return name.replaceAll("[^A-Za-z0-9]", "_") + "_" + level;
     }
-}
\ No newline at end of file
+}
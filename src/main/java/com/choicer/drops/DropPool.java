@@ -0,0 +1,71 @@
+package com.choicer.drops;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonical instances of the strings and rarity records that repeat across
+ * drop tables. Bones, coins, runes and the rare and gem drop table rows
+ * appear on hundreds of NPCs, so cached tables share one copy of each
+ * instead of holding their own. Both pools hold their entries weakly: a
+ * value stays pooled while some cached table still uses it and is released
+ * once the cache has evicted every table that did, so the pools never fill
+ * up and keep deduplicating for as long as the plugin runs.
+ */
+@Singleton
+public class DropPool {
+    private final Interner<String> strings = Interners.newWeakInterner();
+    // keyed by the pooled raw text, which the items that use a record hold on to
+    private final Map<String, DropRarity> rarities = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** @return the pooled copy of {@code s} */
+    public String intern(String s) {
+        return s != null ? strings.intern(s) : null;
+    }
+
+    /**
+     * @param parsed the already parsed form of {@code raw}, or null to parse
+     *               it if no pooled record exists
+     * @return the pooled rarity record for the raw rarity text
+     */
+    public DropRarity rarity(String raw, DropRarity parsed) {
+        String key = intern(raw != null ? raw : "");
+        synchronized (rarities) {
+            DropRarity pooled = rarities.get(key);
+            if (pooled != null) {
+                return pooled;
+            }
+            if (parsed == null) {
+                parsed = DropRarity.parse(raw);
+            }
+            rarities.put(key, parsed);
+            return parsed;
+        }
+    }
+
+    /** Point the table's names, headers and rarities at pooled instances, in place. */
+    public NpcDropData intern(NpcDropData data) {
+        if (data == null) {
+            return null;
+        }
+        data.setName(intern(data.getName()));
+        for (DropTableSection sec : data.getDropTableSections()) {
+            sec.setHeader(intern(sec.getHeader()));
+            for (DropItem item : sec.getItems()) {
+                intern(item);
+            }
+        }
+        return data;
+    }
+
+    void intern(DropItem item) {
+        String rarity = intern(item.getRarity());
+        item.setName(intern(item.getName()));
+        item.restoreRarity(rarity, rarity(rarity, item.getParsedRarity()));
+    }
+}
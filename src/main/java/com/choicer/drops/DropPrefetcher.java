@@ -0,0 +1,244 @@
+package com.choicer.drops;
+
+import com.choicer.ChoicerConfig;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.NPC;
+import net.runelite.api.NPCComposition;
+import net.runelite.api.Player;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.client.eventbus.Subscribe;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms {@link DropCache} for attackable NPCs in the scene so "Show Drops"
+ * usually opens from disk. Spawned NPCs are deduplicated by name and level,
+ * and on each game tick the one closest to the player is fetched in the
+ * {@link FetchPriority#PREFETCH} lane. Candidates wait in a heap ordered by
+ * distance, measured on spawn and re-measured only on ticks the player has
+ * moved, so picking the next one does not scan the scene. The configured requests per minute is
+ * a {@link WikiRequestScheduler} budget charged per wiki request, so cache
+ * hits are free and a fetch needing several requests pays for each. NPCs
+ * that were tried are skipped for {@link #RETRY_TICKS} game ticks. All state
+ * is touched on the client thread only.
+ */
+@Slf4j
+@Singleton
+public class DropPrefetcher {
+    private static final int MAX_IN_FLIGHT = 1;
+    /** Five minutes. */
+    static final int RETRY_TICKS = 500;
+
+    private final Client client;
+    private final DropCache dropCache;
+    private final WikiRequestScheduler scheduler;
+    private final ChoicerConfig config;
+
+    private final Map<String, Candidate> pending = new HashMap<>();
+    /** Pending candidates, nearest first; may still hold some already taken or despawned. */
+    private PriorityQueue<Candidate> byDistance = new PriorityQueue<>();
+    private WorldPoint measuredFrom;
+    /** Key to the tick it was last tried on. */
+    private final Map<String, Integer> attempted = new HashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private int tick;
+
+    @Inject
+    public DropPrefetcher(Client client, DropCache dropCache, WikiRequestScheduler scheduler, ChoicerConfig config) {
+        this.client = client;
+        this.dropCache = dropCache;
+        this.scheduler = scheduler;
+        this.config = config;
+    }
+
+    /** Spawned NPCs sharing one drop table. */
+    private static final class Candidate implements Comparable<Candidate> {
+        final int npcId;
+        final String name;
+        final int level;
+        final List<NPC> npcs = new ArrayList<>(1);
+        // tiles to the nearest of npcs; only changed while out of the heap
+        int distance;
+
+        Candidate(int npcId, String name, int level) {
+            this.npcId = npcId;
+            this.name = name;
+            this.level = level;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            return Integer.compare(distance, o.distance);
+        }
+    }
+
+    @Subscribe
+    public void onNpcSpawned(NpcSpawned event) {
+        if (config.dropPrefetchPerMinute() <= 0) {
+            return;
+        }
+        NPC npc = event.getNpc();
+        if (!isAttackable(npc)) {
+            return;
+        }
+        String key = key(npc.getName(), npc.getCombatLevel());
+        Integer triedAt = attempted.get(key);
+        if (triedAt != null) {
+            if (tick - triedAt < RETRY_TICKS) {
+                return;
+            }
+            attempted.remove(key);
+        }
+        Candidate c = pending.get(key);
+        if (c == null) {
+            c = new Candidate(npc.getId(), npc.getName(), npc.getCombatLevel());
+            pending.put(key, c);
+            c.npcs.add(npc);
+            c.distance = distance(c, playerLocation());
+            byDistance.add(c);
+        } else {
+            // measured again on the next tick the player moves
+            c.npcs.add(npc);
+        }
+    }
+
+    @Subscribe
+    public void onNpcDespawned(NpcDespawned event) {
+        NPC npc = event.getNpc();
+        if (npc.getName() == null) {
+            return;
+        }
+        String key = key(npc.getName(), npc.getCombatLevel());
+        Candidate c = pending.get(key);
+        if (c != null) {
+            c.npcs.remove(npc);
+            if (c.npcs.isEmpty()) {
+                pending.remove(key);
+            }
+        }
+    }
+
+    @Subscribe
+    public void onGameStateChanged(GameStateChanged event) {
+        GameState state = event.getGameState();
+        if (state == GameState.LOGIN_SCREEN || state == GameState.HOPPING) {
+            reset();
+        }
+    }
+
+    @Subscribe
+    public void onGameTick(GameTick event) {
+        tick++;
+        if (tick % RETRY_TICKS == 0) {
+            attempted.values().removeIf(t -> tick - t >= RETRY_TICKS);
+        }
+        int perMinute = config.dropPrefetchPerMinute();
+        scheduler.setBudget(FetchPriority.PREFETCH, perMinute);
+        if (perMinute <= 0) {
+            pending.clear();
+            byDistance.clear();
+            return;
+        }
+        WorldPoint here = playerLocation();
+        if (here != null && !here.equals(measuredFrom)) {
+            remeasure(here);
+        }
+
+        while (inFlight.get() < MAX_IN_FLIGHT && scheduler.hasBudget(FetchPriority.PREFETCH)) {
+            Candidate next = nearest();
+            if (next == null) {
+                return;
+            }
+            String key = key(next.name, next.level);
+            pending.remove(key);
+            attempted.put(key, tick);
+            if (dropCache.isCached(next.name, next.level)) {
+                continue; // already warm; costs nothing
+            }
+
+            inFlight.incrementAndGet();
+            log.debug("Prefetching drops for {} (lvl {})", next.name, next.level);
+            dropCache.prefetch(next.npcId, next.name, next.level)
+                    .whenComplete((data, ex) -> inFlight.decrementAndGet());
+        }
+    }
+
+    /** Forget the scene and the NPCs already tried. */
+    public void reset() {
+        pending.clear();
+        byDistance.clear();
+        attempted.clear();
+        measuredFrom = null;
+    }
+
+    /** Take the nearest candidate still pending off the heap. */
+    private Candidate nearest() {
+        Candidate c;
+        while ((c = byDistance.poll()) != null) {
+            if (pending.get(key(c.name, c.level)) == c) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    /** Measure every pending candidate from {@code here} and rebuild the heap in one pass. */
+    private void remeasure(WorldPoint here) {
+        for (Candidate c : pending.values()) {
+            c.distance = distance(c, here);
+        }
+        byDistance = new PriorityQueue<>(pending.values());
+        measuredFrom = here;
+    }
+
+    private WorldPoint playerLocation() {
+        Player local = client.getLocalPlayer();
+        return local != null ? local.getWorldLocation() : null;
+    }
+
+    private static int distance(Candidate c, WorldPoint here) {
+        int d = Integer.MAX_VALUE - 1;
+        if (here != null) {
+            for (NPC npc : c.npcs) {
+                WorldPoint p = npc.getWorldLocation();
+                if (p != null && p.getPlane() == here.getPlane()) {
+                    d = Math.min(d, p.distanceTo(here));
+                }
+            }
+        }
+        return d;
+    }
+
+    private static boolean isAttackable(NPC npc) {
+        if (npc == null || npc.getName() == null || npc.getCombatLevel() <= 0) {
+            return false;
+        }
+        NPCComposition comp = npc.getTransformedComposition();
+        if (comp == null) {
+            return false;
+        }
+        for (String action : comp.getActions()) {
+            if ("Attack".equals(action)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String key(String name, int level) {
+        return name + "_" + level;
+    }
+}
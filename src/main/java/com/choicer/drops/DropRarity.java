@@ -0,0 +1,218 @@
+package com.choicer.drops;
+
+import lombok.Getter;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drop rarity parsed once from the wiki's rarity text. Sorting and tooltips
+ * read the stored fields, and the model is persisted with each cached drop.
+ * <p>
+ * The structured fields describe the first parseable segment of the text,
+ * e.g. the "3/128–1/64" in "3/128–1/64; 1/512". {@code rangeFrom} and
+ * {@code rangeTo} are one-over values ("1 in N"); they are equal unless the
+ * segment is a range. Values that could not be parsed are stored as 0 so the
+ * model stays valid JSON.
+ */
+@Getter
+public final class DropRarity {
+    static final DropRarity UNKNOWN = new DropRarity("", 0, 0, 0, 0, false);
+
+    // Anchored patterns for correctness & speed
+    private static final Pattern SEGMENTS = Pattern.compile("\\s*;\\s*|,\\s+");
+    private static final Pattern RANGE = Pattern.compile("\\s*[–—-]\\s*");
+    private static final Pattern PCT = Pattern.compile("^(\\d+(?:\\.\\d+)?)%$");
+    private static final Pattern MULT = Pattern
+            .compile("^(\\d+(?:\\.\\d+)?)\\s*[xX]\\s*(\\d+(?:\\.\\d+)?)\\s*/\\s*(\\d+(?:\\.\\d+)?)$");
+    private static final Pattern FRAC = Pattern.compile("^(\\d+(?:\\.\\d+)?)\\s*/\\s*(\\d+(?:\\.\\d+)?)$");
+    private static final Pattern PAREN = Pattern.compile("\\s*\\([^)]*\\)$");
+    private static final Pattern IN_SYNT = Pattern.compile("\\bin\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BRACKETS = Pattern.compile("\\[[^\\]]*\\]");
+
+    /** Normalized one-over form, e.g. "1/32" or "1/64–1/32"; shown in tooltips. */
+    private final String display;
+    /** Numerator of the first bound as written, 0 if it was not a fraction or percentage. */
+    private final double numerator;
+    /** Denominator of the first bound as written, 0 if it was not a fraction or percentage. */
+    private final double denominator;
+    private final double rangeFrom;
+    private final double rangeTo;
+    private final boolean always;
+
+    DropRarity(String display, double numerator, double denominator, double rangeFrom, double rangeTo,
+            boolean always) {
+        this.display = display;
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.rangeFrom = rangeFrom;
+        this.rangeTo = rangeTo;
+        this.always = always;
+    }
+
+    /**
+     * @return the sort key: 0 for "Always", the one-over value of the first
+     *         bound otherwise, and {@link Double#POSITIVE_INFINITY} (rarest)
+     *         when unknown
+     */
+    public double getSortValue() {
+        if (always) {
+            return 0d;
+        }
+        return rangeFrom > 0 ? rangeFrom : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return the chance of the drop per kill: 1 for "Always", the midpoint
+     *         of a range, and 0 when unknown
+     */
+    public double getChance() {
+        if (always) {
+            return 1d;
+        }
+        if (rangeFrom <= 0) {
+            return 0d;
+        }
+        double chance = rangeTo > 0 ? (1d / rangeFrom + 1d / rangeTo) / 2d : 1d / rangeFrom;
+        return Math.min(1d, chance);
+    }
+
+    /**
+     * Parse raw wiki rarity text such as "4/128", "2 x 1/128", "12.5%",
+     * "1 in 64" or "3/128–1/64".
+     */
+    public static DropRarity parse(String raw) {
+        if (raw == null || raw.isEmpty()) {
+            return UNKNOWN;
+        }
+
+        Bound first = null;
+        Bound last = null;
+        boolean always = false;
+        StringBuilder display = new StringBuilder();
+        String[] segments = SEGMENTS.split(raw);
+        for (int s = 0; s < segments.length; s++) {
+            if (s > 0) {
+                display.append("; ");
+            }
+            // Handle ranges like "1/128 – 1/64"
+            String[] range = RANGE.split(clean(segments[s]));
+            boolean pick = first == null;
+            for (int r = 0; r < range.length; r++) {
+                Bound b = simplify(range[r]);
+                if (r > 0) {
+                    display.append('–');
+                }
+                display.append(b.text);
+                if (s == 0 && r == 0) {
+                    always = "Always".equalsIgnoreCase(b.text);
+                }
+                if (pick && b.oneOver > 0) {
+                    if (first == null) {
+                        first = b;
+                    }
+                    last = b;
+                }
+            }
+        }
+
+        String text = display.toString();
+        if (first == null) {
+            return new DropRarity(text, 0, 0, 0, 0, always);
+        }
+        return new DropRarity(text, first.numerator, first.denominator, first.oneOver, last.oneOver, always);
+    }
+
+    private static String clean(String raw) {
+        String cleaned = BRACKETS.matcher(raw).replaceAll("");
+        cleaned = cleaned
+                .replace("×", "x")
+                .replace(",", "")
+                .replace("≈", "")
+                .replace("~", "");
+        cleaned = PAREN.matcher(cleaned).replaceAll("");
+        return IN_SYNT.matcher(cleaned).replaceAll("/").trim();
+    }
+
+    /** One bound of a rarity, normalized to one-over form where possible. */
+    private static final class Bound {
+        final String text;
+        final double numerator;
+        final double denominator;
+        final double oneOver;
+
+        Bound(String text, double numerator, double denominator, double oneOver) {
+            this.text = text;
+            this.numerator = numerator;
+            this.denominator = denominator;
+            this.oneOver = oneOver;
+        }
+    }
+
+    private static Bound simplify(String s) {
+        if (s.isEmpty()) {
+            return new Bound("", 0, 0, 0);
+        }
+
+        Matcher m;
+
+        // 12.5%
+        m = PCT.matcher(s);
+        if (m.matches()) {
+            double pct = safeDouble(m.group(1));
+            if (pct == 0) {
+                return new Bound("0", 0, 100, 0);
+            }
+            return oneOver(pct, 100);
+        }
+
+        // 2 x 1 / 128
+        m = MULT.matcher(s);
+        if (m.matches()) {
+            double factor = safeDouble(m.group(1));
+            double a = safeDouble(m.group(2));
+            double b = safeDouble(m.group(3));
+            if (factor != 0 && a != 0) {
+                return oneOver(a * factor, b);
+            }
+        }
+
+        // 1/128
+        m = FRAC.matcher(s);
+        if (m.matches()) {
+            double a = safeDouble(m.group(1));
+            double b = safeDouble(m.group(2));
+            if (a != 0) {
+                return oneOver(a, b);
+            }
+        }
+
+        // fallback to cleaned input
+        return new Bound(s, 0, 0, 0);
+    }
+
+    private static Bound oneOver(double numerator, double denominator) {
+        double val = denominator / numerator;
+        if (Double.isNaN(val) || Double.isInfinite(val)) {
+            return new Bound("", 0, 0, 0);
+        }
+        String text = Math.abs(val - Math.round(val)) < 0.01
+                ? "1/" + Math.round(val)
+                : String.format(Locale.ROOT, "1/%.2f", val);
+        return new Bound(text, numerator, denominator, val);
+    }
+
+    private static double safeDouble(String s) {
+        try {
+            return Double.parseDouble(s);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return display;
+    }
+}
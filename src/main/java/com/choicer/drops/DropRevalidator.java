@@ -0,0 +1,61 @@
+package com.choicer.drops;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Looks up the current wiki revision of cached pages so unchanged drop
+ * tables can be kept without downloading them again. Titles are checked up
+ * to {@link WikiApiClient#MAX_TITLES_PER_QUERY} per {@code prop=revisions}
+ * request, each batch queued separately in the
+ * {@link FetchPriority#BACKGROUND} lane so user lookups are not held up.
+ */
+@Slf4j
+@Singleton
+public class DropRevalidator {
+    private final WikiApiClient wikiApi;
+    private final WikiRequestScheduler scheduler;
+
+    @Inject
+    public DropRevalidator(WikiApiClient wikiApi, WikiRequestScheduler scheduler) {
+        this.wikiApi = wikiApi;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return title to latest revision ID; pages that no longer exist map to
+     *         0, and titles whose batch failed are omitted so they can be
+     *         retried later
+     */
+    public CompletableFuture<Map<String, Long>> currentRevisions(Collection<String> titles) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(titles));
+        Map<String, Long> out = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += WikiApiClient.MAX_TITLES_PER_QUERY) {
+            List<String> batch = distinct.subList(i,
+                    Math.min(distinct.size(), i + WikiApiClient.MAX_TITLES_PER_QUERY));
+            batches.add(scheduler.submit(FetchPriority.BACKGROUND, () -> wikiApi.queryPages(batch))
+                    .handle((pages, ex) -> {
+                        if (ex != null) {
+                            log.debug("Revision check failed for {} titles", batch.size(), ex);
+                            return null;
+                        }
+                        for (String title : batch) {
+                            WikiApiClient.PageInfo info = pages.get(title);
+                            out.put(title, info != null ? info.getRevisionId() : 0L);
+                        }
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).thenApply(v -> out);
+    }
+}
@@ -0,0 +1,191 @@
+package com.choicer.drops;
+
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Read-only drop tables bundled with the plugin, used to answer first lookups
+ * without touching the wiki. The database is produced by the
+ * {@code buildDropDatabase} Gradle task from saved wiki pages and loaded
+ * lazily on first use; a build without the resource simply behaves as an
+ * empty seed.
+ */
+@Slf4j
+@Singleton
+public class DropSeedDatabase {
+    static final String RESOURCE = "/com/choicer/drops/drop-seed.json.gz";
+    static final int FORMAT_VERSION = 1;
+
+    private final Gson gson;
+    private final String resource;
+    private volatile Map<String, List<NpcDropData>> byName;
+    private volatile Map<Integer, NpcDropData> byId;
+    private volatile long generatedAt;
+
+    @Inject
+    public DropSeedDatabase(Gson gson, DropPool pool) {
+        this(gson, pool, RESOURCE);
+    }
+
+    /** For tests: read the database from another classpath resource. */
+    DropSeedDatabase(Gson gson, DropPool pool, String resource) {
+        this.gson = gson.newBuilder()
+                .registerTypeAdapter(NpcDropData.class, new NpcDropDataAdapter(pool))
+                .create();
+        this.resource = resource;
+    }
+
+    /** On-disk layout of the bundled database. */
+    static final class SeedFile {
+        int version;
+        String generatedAt;
+        List<NpcDropData> entries;
+    }
+
+    /**
+     * Look up a bundled drop table. Names are matched case-insensitively and
+     * the level must match unless {@code level <= 0}; with no name, the
+     * stored page ID is used instead. Blocks on first call while the
+     * resource is read, so call it off the client thread.
+     *
+     * @return a private copy of the seeded table with unresolved item IDs, or
+     *         null if the seed has no entry
+     */
+    public NpcDropData find(int npcId, String name, int level) {
+        ensureLoaded();
+        NpcDropData hit = null;
+        if (name != null && !name.isEmpty()) {
+            List<NpcDropData> candidates = byName.get(name.trim().toLowerCase(Locale.ROOT));
+            if (candidates != null) {
+                for (NpcDropData d : candidates) {
+                    if (level <= 0 || d.getLevel() == level) {
+                        hit = d;
+                        break;
+                    }
+                }
+            }
+        } else if (npcId > 0) {
+            hit = byId.get(npcId);
+        }
+        return hit != null ? copyOf(hit) : null;
+    }
+
+    /** Add the name, level and page ID of every bundled table to {@code index}. */
+    void indexNames(NpcNameIndex index) {
+        ensureLoaded();
+        for (List<NpcDropData> tables : byName.values()) {
+            for (NpcDropData d : tables) {
+                index.add(d.getName(), d.getLevel(), d.getNpcId());
+            }
+        }
+    }
+
+    /** @return the number of bundled NPC tables */
+    public int size() {
+        ensureLoaded();
+        return byId.size();
+    }
+
+    /**
+     * @return when the bundled database was generated, in epoch millis, or 0
+     *         without one; bundled tables are as old as this
+     */
+    public long getGeneratedAt() {
+        ensureLoaded();
+        return generatedAt;
+    }
+
+    private void ensureLoaded() {
+        if (byName != null) {
+            return;
+        }
+        synchronized (this) {
+            if (byName != null) {
+                return;
+            }
+            Map<String, List<NpcDropData>> names = new HashMap<>();
+            Map<Integer, NpcDropData> ids = new HashMap<>();
+            SeedFile seed = read();
+            if (seed != null && seed.entries != null) {
+                for (NpcDropData d : seed.entries) {
+                    if (d == null || d.getName() == null || d.getDropTableSections() == null) {
+                        continue;
+                    }
+                    names.computeIfAbsent(d.getName().toLowerCase(Locale.ROOT), k -> new ArrayList<>(1)).add(d);
+                    if (d.getNpcId() > 0) {
+                        ids.putIfAbsent(d.getNpcId(), d);
+                    }
+                }
+                generatedAt = parseInstant(seed.generatedAt);
+                log.debug("Loaded {} bundled drop tables generated {}", ids.size(), seed.generatedAt);
+            }
+            byId = Collections.unmodifiableMap(ids);
+            byName = Collections.unmodifiableMap(names);
+        }
+    }
+
+    private SeedFile read() {
+        InputStream raw = DropSeedDatabase.class.getResourceAsStream(resource);
+        if (raw == null) {
+            return null;
+        }
+        try (Reader r = new InputStreamReader(new GZIPInputStream(raw), StandardCharsets.UTF_8)) {
+            SeedFile seed = gson.fromJson(r, SeedFile.class);
+            if (seed == null || seed.version != FORMAT_VERSION) {
+                log.warn("Ignoring bundled drop database with unsupported version");
+                return null;
+            }
+            return seed;
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Failed to read bundled drop database", ex);
+            return null;
+        }
+    }
+
+    private static long parseInstant(String text) {
+        if (text == null) {
+            return 0L;
+        }
+        try {
+            return Instant.parse(text).toEpochMilli();
+        } catch (DateTimeParseException ex) {
+            log.warn("Bundled drop database has a bad build time {}", text);
+            return 0L;
+        }
+    }
+
+    /**
+     * Callers resolve item IDs in place, so never hand out the shared
+     * instance; the immutable strings and rarity records are shared.
+     */
+    private static NpcDropData copyOf(NpcDropData d) {
+        List<DropTableSection> sections = new ArrayList<>(d.getDropTableSections().size());
+        for (DropTableSection sec : d.getDropTableSections()) {
+            List<DropItem> items = new ArrayList<>(sec.getItems().size());
+            for (DropItem item : sec.getItems()) {
+                items.add(new DropItem(item.getItemId(), item.getName(), item.getRarity(), item.getParsedRarity()));
+            }
+            sections.add(new DropTableSection(sec.getHeader(), items));
+        }
+        NpcDropData copy = new NpcDropData(d.getNpcId(), d.getName(), d.getLevel(), sections);
+        copy.setRevisionId(d.getRevisionId());
+        return copy;
+    }
+}
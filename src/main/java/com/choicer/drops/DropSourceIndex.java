@@ -0,0 +1,291 @@
+package com.choicer.drops;
+
+import lombok.Getter;
+
+import javax.inject.Singleton;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Inverted index from item ID to the cached NPC tables that drop it.
+ * {@link DropCache} keeps it in step as tables are written, loaded from disk
+ * or evicted from disk; tables only evicted from memory stay indexed.
+ * Lookups are a single map read of an immutable, rarity-sorted list, so they
+ * are cheap enough for the overlay's render loop. Listeners see every
+ * change, so derived views such as {@link FarmRanking} can follow along
+ * without rescanning the cache. Changes queue their notifications under the
+ * index lock, and they are delivered in that order after it is released, one
+ * at a time.
+ */
+@Singleton
+public class DropSourceIndex {
+    private static final Comparator<Source> MOST_COMMON_FIRST = Comparator
+            .comparingDouble((Source s) -> s.getRarity().getSortValue())
+            .thenComparing(Source::getNpcName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingInt(Source::getLevel);
+
+    private final Map<Integer, List<Source>> byItem = new ConcurrentHashMap<>();
+    private final Map<Object, List<Source>> rowsByTable = new ConcurrentHashMap<>();
+    private final List<TableListener> listeners = new CopyOnWriteArrayList<>();
+    // guarded by this
+    private final ArrayDeque<Runnable> events = new ArrayDeque<>();
+    private boolean delivering;
+
+    /** Notified after each change, in order, without the index lock held. */
+    public interface TableListener {
+        /** @param rows one row per distinct item, the most common if listed twice */
+        void tableIndexed(Object key, List<Source> rows);
+
+        void tableRemoved(Object key);
+
+        void cleared();
+    }
+
+    /** One row of an NPC's drop table. */
+    @Getter
+    public static final class Source {
+        private final Object table;
+        private final int itemId;
+        private final String npcName;
+        private final int level;
+        private final String section;
+        private final DropRarity rarity;
+
+        Source(Object table, int itemId, String npcName, int level, String section, DropRarity rarity) {
+            this.table = table;
+            this.itemId = itemId;
+            this.npcName = npcName;
+            this.level = level;
+            this.section = section;
+            this.rarity = rarity;
+        }
+
+        /** e.g. "Goblin (lvl 2) 1/128" */
+        @Override
+        public String toString() {
+            String rate = rarity.getDisplay();
+            String name = level > 0 ? npcName + " (lvl " + level + ")" : npcName;
+            return rate.isEmpty() ? name : name + " " + rate;
+        }
+    }
+
+    /**
+     * @return the NPCs that drop {@code itemId}, most common first; empty if
+     *         no cached table lists it
+     */
+    public List<Source> sourcesOf(int itemId) {
+        List<Source> sources = byItem.get(itemId);
+        return sources != null ? sources : Collections.emptyList();
+    }
+
+    /**
+     * @return a one-line summary of the best {@code limit} sources, or null
+     *         if none are known
+     */
+    public String describe(int itemId, int limit) {
+        List<Source> sources = sourcesOf(itemId);
+        if (sources.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder("Dropped by ");
+        int shown = Math.min(limit, sources.size());
+        for (int i = 0; i < shown; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(sources.get(i));
+        }
+        if (sources.size() > shown) {
+            sb.append(String.format(Locale.ROOT, " and %d more", sources.size() - shown));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Index a table under {@code key}, replacing whatever was indexed under
+     * the same key before.
+     */
+    public void put(Object key, NpcDropData data) {
+        synchronized (this) {
+            putLocked(key, data);
+        }
+        deliver();
+    }
+
+    private void putLocked(Object key, NpcDropData data) {
+        removeLocked(key);
+        if (data == null || data.getDropTableSections() == null) {
+            return;
+        }
+        Map<Integer, Source> rows = new LinkedHashMap<>();
+        for (DropTableSection sec : data.getDropTableSections()) {
+            for (DropItem item : sec.getItems()) {
+                int id = item.getItemId();
+                if (id <= 0) {
+                    continue;
+                }
+                Source source = new Source(key, id, data.getName(), data.getLevel(), sec.getHeader(),
+                        item.getParsedRarity());
+                // keep the most common row when an item is listed twice
+                rows.merge(id, source, (a, b) -> MOST_COMMON_FIRST.compare(a, b) <= 0 ? a : b);
+            }
+        }
+
+        for (Map.Entry<Integer, Source> e : rows.entrySet()) {
+            byItem.compute(e.getKey(), (id, old) -> {
+                Source source = e.getValue();
+                if (old == null) {
+                    return Collections.singletonList(source);
+                }
+                // old is already sorted, so the new row only needs its place;
+                // it goes after any rows that compare equal
+                int at = Collections.binarySearch(old, source, MOST_COMMON_FIRST);
+                at = at < 0 ? -at - 1 : upperBound(old, source, at);
+                List<Source> list = new ArrayList<>(old.size() + 1);
+                list.addAll(old.subList(0, at));
+                list.add(source);
+                list.addAll(old.subList(at, old.size()));
+                return Collections.unmodifiableList(list);
+            });
+        }
+        List<Source> indexed = Collections.unmodifiableList(new ArrayList<>(rows.values()));
+        rowsByTable.put(key, indexed);
+        post(l -> l.tableIndexed(key, indexed));
+    }
+
+    /** @return the index just past the run of rows equal to {@code source} around {@code at} */
+    private static int upperBound(List<Source> sorted, Source source, int at) {
+        int end = at + 1;
+        while (end < sorted.size() && MOST_COMMON_FIRST.compare(sorted.get(end), source) == 0) {
+            end++;
+        }
+        return end;
+    }
+
+    /** Drop everything indexed under {@code key}. */
+    public void remove(Object key) {
+        synchronized (this) {
+            removeLocked(key);
+        }
+        deliver();
+    }
+
+    private void removeLocked(Object key) {
+        List<Source> rows = rowsByTable.remove(key);
+        if (rows == null) {
+            return;
+        }
+        for (Source row : rows) {
+            byItem.computeIfPresent(row.itemId, (k, old) -> {
+                List<Source> list = new ArrayList<>(old.size());
+                for (Source s : old) {
+                    if (!s.table.equals(key)) {
+                        list.add(s);
+                    }
+                }
+                return list.isEmpty() ? null : Collections.unmodifiableList(list);
+            });
+        }
+        post(l -> l.tableRemoved(key));
+    }
+
+    /** @return whether a table is indexed under {@code key} */
+    public boolean contains(Object key) {
+        return rowsByTable.containsKey(key);
+    }
+
+    public void clear() {
+        synchronized (this) {
+            byItem.clear();
+            rowsByTable.clear();
+            post(TableListener::cleared);
+        }
+        deliver();
+    }
+
+    /**
+     * Feed the current contents to {@code listener} as if from scratch: one
+     * {@code cleared} followed by every indexed table, with no change
+     * interleaved.
+     */
+    public void replay(TableListener listener) {
+        synchronized (this) {
+            List<Map.Entry<Object, List<Source>>> tables = new ArrayList<>(rowsByTable.entrySet());
+            events.add(() -> {
+                listener.cleared();
+                for (Map.Entry<Object, List<Source>> e : tables) {
+                    listener.tableIndexed(e.getKey(), e.getValue());
+                }
+            });
+        }
+        deliver();
+    }
+
+    /** Queue a notification to every listener; caller holds the lock. */
+    private void post(Consumer<TableListener> event) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        events.add(() -> {
+            for (TableListener l : listeners) {
+                event.accept(l);
+            }
+        });
+    }
+
+    /**
+     * Run queued notifications on this thread unless another thread already
+     * is, in which case that thread picks them up.
+     */
+    private void deliver() {
+        synchronized (this) {
+            if (delivering) {
+                return;
+            }
+            delivering = true;
+        }
+        boolean done = false;
+        try {
+            while (true) {
+                Runnable event;
+                synchronized (this) {
+                    event = events.poll();
+                    if (event == null) {
+                        delivering = false;
+                        done = true;
+                        return;
+                    }
+                }
+                event.run();
+            }
+        } finally {
+            if (!done) {
+                synchronized (this) {
+                    delivering = false;
+                }
+            }
+        }
+    }
+
+    public void addListener(TableListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TableListener listener) {
+        listeners.remove(listener);
+    }
+
+    /** @return number of distinct items with at least one known source */
+    public int size() {
+        return byItem.size();
+    }
+}
@@ -0,0 +1,762 @@
+package com.choicer.drops;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Arrays;
+
+/**
+ * Single-pass extractor for wiki drop tables. Instead of building a DOM for
+ * the whole article, it tokenizes the HTML stream and only keeps state for
+ * the heading, table, row and cell currently open, so memory stays bounded
+ * regardless of page size.
+ *
+ * <p>Besides {@code table.item-drops} rows it picks up the handful of page
+ * facts the fetcher needs: the first heading, the canonical link and the
+ * combat level from the first infobox.</p>
+ */
+final class DropsHtmlExtractor {
+    private static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta",
+            "param", "source", "track", "wbr"));
+    private static final Map<String, Character> ENTITIES = new HashMap<>();
+    static {
+        ENTITIES.put("amp", '&');
+        ENTITIES.put("lt", '<');
+        ENTITIES.put("gt", '>');
+        ENTITIES.put("quot", '"');
+        ENTITIES.put("apos", '\'');
+        ENTITIES.put("nbsp", ' ');
+        ENTITIES.put("times", '×');
+        ENTITIES.put("ndash", '–');
+        ENTITIES.put("mdash", '—');
+        ENTITIES.put("minus", '−');
+        ENTITIES.put("asymp", '≈');
+    }
+
+    /** Everything the fetcher needs from one page or section. */
+    static final class Result {
+        String heading;
+        String canonicalHref;
+        int combatLevel;
+        final List<DropTableSection> sections = new ArrayList<>();
+
+        String getHeading() {
+            return heading;
+        }
+
+        String getCanonicalHref() {
+            return canonicalHref;
+        }
+
+        int getCombatLevel() {
+            return combatLevel;
+        }
+
+        List<DropTableSection> getSections() {
+            return sections;
+        }
+    }
+
+    private enum TableKind {
+        DROPS, INFOBOX, OTHER
+    }
+
+    private static final class Cell {
+        final boolean header;
+        final int depth;
+        final int col;
+        final int span;
+        final boolean itemCol;
+        final StringBuilder text = new StringBuilder();
+        final StringBuilder own = new StringBuilder();
+        String title;
+        List<String> rarityParts;
+        boolean hasRaritySpan;
+
+        Cell(boolean header, int depth, int col, int span, boolean itemCol) {
+            this.header = header;
+            this.depth = depth;
+            this.col = col;
+            this.span = span;
+            this.itemCol = itemCol;
+        }
+    }
+
+    private static final class Row {
+        final int depth;
+        final boolean body;
+        final List<Cell> cells = new ArrayList<>();
+        boolean hasHeader;
+        int nextCol;
+        Cell open;
+
+        Row(int depth, boolean body) {
+            this.depth = depth;
+            this.body = body;
+        }
+    }
+
+    private static final class Table {
+        final TableKind kind;
+        final int depth;
+        final String header;
+        final List<DropItem> items = new ArrayList<>();
+        boolean columnsKnown;
+        int itemCol = -1;
+        int itemSpan = 1;
+        int rarityCol = -1;
+        Row row;
+
+        Table(TableKind kind, int depth, String header) {
+            this.kind = kind;
+            this.depth = depth;
+            this.header = header;
+        }
+    }
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int len;
+
+    private final List<String> open = new ArrayList<>();
+    private final List<Table> tables = new ArrayList<>();
+    private final Result result = new Result();
+
+    private StringBuilder heading;
+    private int headingDepth;
+    private boolean pageHeading;
+    private String lastHeading;
+    private boolean infoboxSeen;
+
+    private StringBuilder spanText;
+    private int spanDepth;
+    private Cell spanCell;
+
+    private DropsHtmlExtractor(Reader in) {
+        this.in = in;
+    }
+
+    /** Extract drop tables and page facts from an HTML stream. */
+    static Result extract(Reader in) throws IOException {
+        DropsHtmlExtractor x = new DropsHtmlExtractor(in);
+        x.run();
+        return x.result;
+    }
+
+    private void run() throws IOException {
+        StringBuilder text = new StringBuilder();
+        int c;
+        while ((c = read()) != -1) {
+            if (c != '<') {
+                text.append((char) c);
+                continue;
+            }
+            flushText(text);
+            int next = peek();
+            if (next == '!') {
+                skipMarkup();
+            } else if (next == '/') {
+                read();
+                String name = readTagName();
+                skipTo('>');
+                closeElement(name);
+            } else if (Character.isLetter(next)) {
+                readStartTag();
+            } else {
+                text.append('<');
+            }
+        }
+        flushText(text);
+        while (!open.isEmpty()) {
+            pop();
+        }
+    }
+
+    private void readStartTag() throws IOException {
+        String name = readTagName();
+        Map<String, String> attrs = new HashMap<>();
+        boolean selfClosing = readAttributes(attrs);
+
+        if (name.equals("script") || name.equals("style")) {
+            skipRawText(name);
+            return;
+        }
+
+        Table table = currentTable();
+        if ((name.equals("td") || name.equals("th")) && table != null && table.row != null
+                && table.row.open != null) {
+            popTo(table.row.open.depth - 1);
+        } else if (name.equals("tr") && table != null && table.row != null) {
+            popTo(table.row.depth - 1);
+        }
+
+        if (VOID_ELEMENTS.contains(name) || selfClosing) {
+            onVoid(name, attrs);
+            return;
+        }
+
+        open.add(name);
+        onOpen(name, attrs, open.size());
+    }
+
+    private void onVoid(String name, Map<String, String> attrs) {
+        if (name.equals("link") && result.canonicalHref == null
+                && "canonical".equalsIgnoreCase(attrs.get("rel"))) {
+            result.canonicalHref = attrs.get("href");
+        } else if (name.equals("br")) {
+            onText(" ");
+        }
+    }
+
+    private void onOpen(String name, Map<String, String> attrs, int depth) {
+        switch (name) {
+            case "h1":
+                if (result.heading == null && "firstHeading".equals(attrs.get("id"))) {
+                    startHeading(depth, true);
+                }
+                return;
+            case "h2":
+            case "h3":
+            case "h4":
+                if (heading == null) {
+                    startHeading(depth, false);
+                }
+                return;
+            case "table": {
+                String cls = attrs.getOrDefault("class", "");
+                TableKind kind = TableKind.OTHER;
+                if (hasClass(cls, "item-drops")) {
+                    kind = TableKind.DROPS;
+                } else if (!infoboxSeen && hasClass(cls, "infobox")) {
+                    kind = TableKind.INFOBOX;
+                    infoboxSeen = true;
+                }
+                String header = lastHeading == null || lastHeading.isEmpty() ? "Drops" : lastHeading;
+                tables.add(new Table(kind, depth, header));
+                return;
+            }
+            case "tr": {
+                Table table = currentTable();
+                if (table != null && table.row == null) {
+                    String parent = depth >= 2 ? open.get(depth - 2) : "";
+                    boolean body = parent.equals("tbody") || parent.equals("table");
+                    table.row = new Row(depth, body);
+                }
+                return;
+            }
+            case "td":
+            case "th": {
+                Table table = currentTable();
+                if (table != null && table.row != null && table.row.open == null) {
+                    boolean header = name.equals("th");
+                    int span = parseSpan(attrs.get("colspan"));
+                    table.row.open = new Cell(header, depth, table.row.nextCol, span,
+                            header && hasClass(attrs.getOrDefault("class", ""), "item-col"));
+                    table.row.nextCol += span;
+                    if (header) {
+                        table.row.hasHeader = true;
+                    }
+                }
+                return;
+            }
+            case "a": {
+                Cell cell = currentCell();
+                String title = attrs.get("title");
+                if (cell != null && cell.title == null && title != null && !title.trim().isEmpty()) {
+                    cell.title = title.trim();
+                }
+                return;
+            }
+            case "span": {
+                Cell cell = currentCell();
+                if (cell == null || spanText != null) {
+                    return;
+                }
+                boolean fraction = attrs.containsKey("data-drop-fraction");
+                boolean oneOver = attrs.containsKey("data-drop-oneover");
+                if (!fraction && !oneOver) {
+                    return;
+                }
+                cell.hasRaritySpan = true;
+                String v = fraction ? attrs.get("data-drop-fraction") : "";
+                if (v == null || v.isEmpty()) {
+                    v = oneOver ? attrs.get("data-drop-oneover") : "";
+                }
+                if (v != null && !v.isEmpty()) {
+                    addRarityPart(cell, v);
+                } else {
+                    spanText = new StringBuilder();
+                    spanDepth = depth;
+                    spanCell = cell;
+                }
+                return;
+            }
+            default:
+        }
+    }
+
+    private void onClose(String name, int depth) {
+        if (heading != null && depth == headingDepth) {
+            String txt = normalize(heading);
+            if (pageHeading) {
+                result.heading = txt;
+            } else {
+                lastHeading = txt;
+            }
+            heading = null;
+            return;
+        }
+        if (spanText != null && depth == spanDepth) {
+            addRarityPart(spanCell, normalize(spanText));
+            spanText = null;
+            spanCell = null;
+            return;
+        }
+
+        Table table = currentTable();
+        if (table == null) {
+            return;
+        }
+        if ((name.equals("td") || name.equals("th")) && table.row != null && table.row.open != null
+                && table.row.open.depth == depth) {
+            table.row.cells.add(table.row.open);
+            table.row.open = null;
+        } else if (name.equals("tr") && table.row != null && table.row.depth == depth) {
+            finishRow(table, table.row);
+            table.row = null;
+        } else if (name.equals("table") && table.depth == depth) {
+            tables.remove(tables.size() - 1);
+            if (table.kind == TableKind.DROPS && !table.items.isEmpty()) {
+                result.sections.add(new DropTableSection(table.header, table.items));
+            }
+        }
+    }
+
+    private void finishRow(Table table, Row row) {
+        if (table.kind == TableKind.INFOBOX) {
+            finishInfoboxRow(row);
+            return;
+        }
+        if (table.kind != TableKind.DROPS) {
+            return;
+        }
+
+        if (row.hasHeader) {
+            if (!table.columnsKnown) {
+                table.columnsKnown = true;
+                // Column positions honour colspan: the wiki's Item header
+                // spans both the icon and the name cells.
+                for (Cell th : row.cells) {
+                    if (!th.header) {
+                        continue;
+                    }
+                    String key = normalizeHeader(normalize(th.text));
+                    if (th.itemCol || key.equals("item")) {
+                        table.itemCol = th.col;
+                        table.itemSpan = th.span;
+                    } else if (key.equals("rarity")) {
+                        table.rarityCol = th.col;
+                    }
+                }
+            }
+            return;
+        }
+        if (!row.body || table.itemCol < 0 || table.rarityCol < 0) {
+            return;
+        }
+
+        String name = itemName(row.cells, table.itemCol, table.itemSpan);
+        if (name.isEmpty() || name.equalsIgnoreCase("nothing")) {
+            return;
+        }
+
+        String rarity = "";
+        Cell rarityTd = cellAt(row.cells, table.rarityCol);
+        if (rarityTd == null) {
+            // Fallback: locate a cell containing the rarity spans
+            for (Cell td : row.cells) {
+                if (td.hasRaritySpan) {
+                    rarityTd = td;
+                    break;
+                }
+            }
+        }
+        if (rarityTd != null) {
+            rarity = rarityOf(rarityTd);
+        }
+
+        table.items.add(new DropItem(0, name, rarity));
+    }
+
+    private void finishInfoboxRow(Row row) {
+        if (result.combatLevel != 0) {
+            return;
+        }
+        Cell th = null;
+        Cell td = null;
+        for (Cell cell : row.cells) {
+            if (cell.header && th == null) {
+                th = cell;
+            } else if (!cell.header && td == null) {
+                td = cell;
+            }
+        }
+        if (th == null || td == null
+                || !normalize(th.text).toLowerCase(Locale.ROOT).contains("combat level")) {
+            return;
+        }
+        for (String part : normalize(td.text).split("[^0-9]+")) {
+            if (!part.isEmpty()) {
+                try {
+                    result.combatLevel = Integer.parseInt(part);
+                    return;
+                } catch (NumberFormatException ignored) {
+                    // out of range; try the next number
+                }
+            }
+        }
+    }
+
+    /** Prefer a linked title anywhere in the item columns, else the first non-empty text. */
+    private static String itemName(List<Cell> cells, int col, int span) {
+        String text = "";
+        for (Cell td : cells) {
+            if (td.header || td.col + td.span <= col || td.col >= col + span) {
+                continue;
+            }
+            if (td.title != null) {
+                return td.title;
+            }
+            if (text.isEmpty()) {
+                text = normalize(td.text).replace("(m)", "").trim();
+            }
+        }
+        return text;
+    }
+
+    private static Cell cellAt(List<Cell> cells, int col) {
+        for (Cell td : cells) {
+            if (!td.header && td.col <= col && col < td.col + td.span) {
+                return td;
+            }
+        }
+        return null;
+    }
+
+    private static int parseSpan(String value) {
+        if (value == null) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Math.min(100, Integer.parseInt(value.trim())));
+        } catch (NumberFormatException ex) {
+            return 1;
+        }
+    }
+
+    private static String rarityOf(Cell td) {
+        List<String> parts = td.rarityParts;
+        if (parts != null && !parts.isEmpty()) {
+            if (parts.size() == 1) {
+                return parts.get(0);
+            }
+            if (parts.size() == 2) {
+                return parts.get(0) + "–" + parts.get(1);
+            }
+            return String.join("; ", parts);
+        }
+        if (td.hasRaritySpan) {
+            return "";
+        }
+        String own = normalize(td.own);
+        return own.isEmpty() ? normalize(td.text) : own;
+    }
+
+    private static void addRarityPart(Cell cell, String value) {
+        String txt = value.replace(",", "").trim();
+        if (txt.isEmpty()) {
+            return;
+        }
+        if (cell.rarityParts == null) {
+            cell.rarityParts = new ArrayList<>(2);
+        }
+        cell.rarityParts.add(txt);
+    }
+
+    private static String normalizeHeader(String s) {
+        String t = s.trim().toLowerCase(Locale.ROOT);
+        if (t.contains("item"))
+            return "item";
+        if (t.contains("rarity"))
+            return "rarity";
+        return "";
+    }
+
+    private void startHeading(int depth, boolean page) {
+        heading = new StringBuilder();
+        headingDepth = depth;
+        pageHeading = page;
+    }
+
+    private void flushText(StringBuilder raw) {
+        if (raw.length() == 0) {
+            return;
+        }
+        onText(decodeEntities(raw));
+        raw.setLength(0);
+    }
+
+    private void onText(String s) {
+        if (heading != null) {
+            heading.append(s);
+        }
+        if (spanText != null) {
+            spanText.append(s);
+        }
+        Cell cell = currentCell();
+        if (cell != null) {
+            cell.text.append(s);
+            if (open.size() == cell.depth) {
+                cell.own.append(s);
+            }
+        }
+    }
+
+    private Table currentTable() {
+        return tables.isEmpty() ? null : tables.get(tables.size() - 1);
+    }
+
+    private Cell currentCell() {
+        Table table = currentTable();
+        return table != null && table.row != null ? table.row.open : null;
+    }
+
+    private void closeElement(String name) {
+        for (int i = open.size() - 1; i >= 0; i--) {
+            if (open.get(i).equals(name)) {
+                popTo(i);
+                return;
+            }
+        }
+        // stray end tag; ignore
+    }
+
+    /** Pop open elements until only {@code size} remain. */
+    private void popTo(int size) {
+        while (open.size() > size) {
+            pop();
+        }
+    }
+
+    private void pop() {
+        int depth = open.size();
+        String name = open.remove(depth - 1);
+        onClose(name, depth);
+    }
+
+    private static boolean hasClass(String classAttr, String cls) {
+        for (String c : classAttr.split("\\s+")) {
+            if (c.equals(cls)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Collapse whitespace runs and trim, as Jsoup's text() did. */
+    private static String normalize(CharSequence s) {
+        StringBuilder out = new StringBuilder(s.length());
+        boolean space = false;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (Character.isWhitespace(ch) || ch == '\u00a0') {
+                space = out.length() > 0;
+            } else {
+                if (space) {
+                    out.append(' ');
+                    space = false;
+                }
+                out.append(ch);
+            }
+        }
+        return out.toString();
+    }
+
+    static String decodeEntities(CharSequence s) {
+        StringBuilder out = null;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch != '&') {
+                if (out != null) {
+                    out.append(ch);
+                }
+                continue;
+            }
+            int semi = -1;
+            for (int j = i + 1; j < s.length() && j <= i + 10; j++) {
+                if (s.charAt(j) == ';') {
+                    semi = j;
+                    break;
+                }
+            }
+            Integer decoded = semi < 0 ? null : decodeEntity(s.subSequence(i + 1, semi).toString());
+            if (out == null) {
+                out = new StringBuilder(s.length());
+                out.append(s, 0, i);
+            }
+            if (decoded == null) {
+                out.append(ch);
+            } else {
+                out.appendCodePoint(decoded);
+                i = semi;
+            }
+        }
+        return out != null ? out.toString() : s.toString();
+    }
+
+    private static Integer decodeEntity(String name) {
+        if (name.startsWith("#")) {
+            try {
+                boolean hex = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X');
+                int cp = hex ? Integer.parseInt(name.substring(2), 16) : Integer.parseInt(name.substring(1));
+                return Character.isValidCodePoint(cp) ? cp : null;
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+        Character c = ENTITIES.get(name);
+        return c != null ? (int) c : null;
+    }
+
+    // --- tokenizer --------------------------------------------------------
+
+    private int read() throws IOException {
+        if (pos >= len) {
+            len = in.read(buf, 0, buf.length);
+            pos = 0;
+            if (len <= 0) {
+                len = 0;
+                return -1;
+            }
+        }
+        return buf[pos++];
+    }
+
+    private int peek() throws IOException {
+        int c = read();
+        if (c != -1) {
+            pos--;
+        }
+        return c;
+    }
+
+    private String readTagName() throws IOException {
+        StringBuilder name = new StringBuilder();
+        int c;
+        while ((c = peek()) != -1 && (Character.isLetterOrDigit(c) || c == '-' || c == ':')) {
+            name.append((char) Character.toLowerCase(c));
+            read();
+        }
+        return name.toString();
+    }
+
+    /** Parse attributes up to the closing '>'; returns true for {@code />}. */
+    private boolean readAttributes(Map<String, String> attrs) throws IOException {
+        boolean selfClosing = false;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '>') {
+                return selfClosing;
+            }
+            if (c == '/') {
+                selfClosing = true;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            selfClosing = false;
+
+            StringBuilder name = new StringBuilder();
+            name.append((char) Character.toLowerCase(c));
+            while ((c = peek()) != -1 && c != '=' && c != '>' && c != '/' && !Character.isWhitespace(c)) {
+                name.append((char) Character.toLowerCase(c));
+                read();
+            }
+            while ((c = peek()) != -1 && Character.isWhitespace(c)) {
+                read();
+            }
+            String value = "";
+            if (c == '=') {
+                read();
+                while ((c = peek()) != -1 && Character.isWhitespace(c)) {
+                    read();
+                }
+                StringBuilder v = new StringBuilder();
+                if (c == '"' || c == '\'') {
+                    int quote = read();
+                    while ((c = read()) != -1 && c != quote) {
+                        v.append((char) c);
+                    }
+                } else {
+                    while ((c = peek()) != -1 && c != '>' && !Character.isWhitespace(c)) {
+                        v.append((char) c);
+                        read();
+                    }
+                }
+                value = decodeEntities(v);
+            }
+            attrs.putIfAbsent(name.toString(), value);
+        }
+        return selfClosing;
+    }
+
+    private void skipTo(char end) throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != end) {
+            // discard
+        }
+    }
+
+    /** Skip comments, doctype and CDATA sections. */
+    private void skipMarkup() throws IOException {
+        read(); // '!'
+        if (peek() != '-') {
+            skipTo('>');
+            return;
+        }
+        int dashes = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '>' && dashes >= 2) {
+                return;
+            }
+            dashes = c == '-' ? dashes + 1 : 0;
+        }
+    }
+
+    private void skipRawText(String name) throws IOException {
+        String end = "</" + name;
+        int matched = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (Character.toLowerCase(c) == end.charAt(matched)) {
+                matched++;
+                if (matched == end.length()) {
+                    skipTo('>');
+                    return;
+                }
+            } else {
+                matched = Character.toLowerCase(c) == end.charAt(0) ? 1 : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.choicer.drops;
+
+import com.choicer.managers.ItemSetListener;
+import com.choicer.managers.ObtainedItemsManager;
+import com.choicer.managers.RolledItemsManager;
+import lombok.Getter;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranks the cached NPCs by how many not-yet-obtained items a kill is
+ * expected to yield, i.e. how quickly farming them earns new rolls.
+ * <p>
+ * Each table's score is the sum of the per-kill chances of its unobtained
+ * items. Scores are built once per table as the {@link DropSourceIndex}
+ * indexes it, and afterwards only adjusted: obtaining an item subtracts its
+ * chance from every table that drops it, and rolling one moves its chance
+ * into the table's usable share. Only a reload of the rolled or obtained
+ * set rescores everything.
+ */
+@Singleton
+public class FarmRanking {
+    private static final Comparator<Entry> BEST_FIRST = Comparator
+            .comparingDouble(Entry::getNewItemRate).reversed()
+            .thenComparing(Comparator.comparingDouble(Entry::getUsableRate).reversed())
+            .thenComparing(Entry::getNpcName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparingInt(Entry::getLevel);
+
+    private final DropSourceIndex sourceIndex;
+    private final ObtainedItemsManager obtainedItemsManager;
+    private final RolledItemsManager rolledItemsManager;
+
+    private final Map<Object, Score> scores = new HashMap<>();
+    private volatile List<Entry> ranked;
+
+    /** One NPC's standing; immutable snapshot. */
+    @Getter
+    public static final class Entry {
+        private final String npcName;
+        private final int level;
+        private final int rank;
+        private final int lockedItems;
+        /** Expected not-yet-obtained items per kill. */
+        private final double newItemRate;
+        /** The part of {@link #newItemRate} from items already rolled, usable as soon as they drop. */
+        private final double usableRate;
+
+        Entry(String npcName, int level, int rank, int lockedItems, double newItemRate, double usableRate) {
+            this.npcName = npcName;
+            this.level = level;
+            this.rank = rank;
+            this.lockedItems = lockedItems;
+            this.newItemRate = newItemRate;
+            this.usableRate = usableRate;
+        }
+
+        /** @return kills per new item, or 0 if none are left */
+        public double getKillsPerNewItem() {
+            return newItemRate > 0 ? 1d / newItemRate : 0d;
+        }
+    }
+
+    /**
+     * Live score of one cached table. Rows remember whether they still
+     * count, so an update that races the initial scoring is not applied
+     * twice.
+     */
+    private static final class Score {
+        final String npcName;
+        final int level;
+        final int[] itemIds;
+        final double[] chances;
+        final boolean[] locked;
+        final boolean[] usable;
+        int lockedItems;
+        double newItemRate;
+        double usableRate;
+
+        Score(String npcName, int level, int rows) {
+            this.npcName = npcName;
+            this.level = level;
+            this.itemIds = new int[rows];
+            this.chances = new double[rows];
+            this.locked = new boolean[rows];
+            this.usable = new boolean[rows];
+        }
+
+        int indexOf(int itemId) {
+            for (int i = 0; i < itemIds.length; i++) {
+                if (itemIds[i] == itemId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    @Inject
+    public FarmRanking(DropSourceIndex sourceIndex, ObtainedItemsManager obtainedItemsManager,
+            RolledItemsManager rolledItemsManager) {
+        this.sourceIndex = sourceIndex;
+        this.obtainedItemsManager = obtainedItemsManager;
+        this.rolledItemsManager = rolledItemsManager;
+    }
+
+    private final DropSourceIndex.TableListener tableListener = new DropSourceIndex.TableListener() {
+        @Override
+        public void tableIndexed(Object key, List<DropSourceIndex.Source> rows) {
+            synchronized (FarmRanking.this) {
+                scores.put(key, score(rows));
+                ranked = null;
+            }
+        }
+
+        @Override
+        public void tableRemoved(Object key) {
+            synchronized (FarmRanking.this) {
+                if (scores.remove(key) != null) {
+                    ranked = null;
+                }
+            }
+        }
+
+        @Override
+        public void cleared() {
+            synchronized (FarmRanking.this) {
+                scores.clear();
+                ranked = null;
+            }
+        }
+    };
+
+    private final ItemSetListener obtainedListener = new ItemSetListener() {
+        @Override
+        public void itemAdded(int itemId) {
+            onObtained(itemId);
+        }
+
+        @Override
+        public void itemsReloaded() {
+            rescoreAll();
+        }
+    };
+
+    private final ItemSetListener rolledListener = new ItemSetListener() {
+        @Override
+        public void itemAdded(int itemId) {
+            onRolled(itemId);
+        }
+
+        @Override
+        public void itemsReloaded() {
+            rescoreAll();
+        }
+    };
+
+    public void startUp() {
+        sourceIndex.addListener(tableListener);
+        obtainedItemsManager.addListener(obtainedListener);
+        rolledItemsManager.addListener(rolledListener);
+        rescoreAll();
+    }
+
+    public void shutDown() {
+        sourceIndex.removeListener(tableListener);
+        obtainedItemsManager.removeListener(obtainedListener);
+        rolledItemsManager.removeListener(rolledListener);
+        synchronized (this) {
+            scores.clear();
+            ranked = null;
+        }
+    }
+
+    /** @return the best {@code limit} NPCs to farm, best first */
+    public List<Entry> top(int limit) {
+        List<Entry> all = ranking();
+        return all.size() <= limit ? all : all.subList(0, limit);
+    }
+
+    /** @return the standing of the given NPC, or null if its table is not cached */
+    public Entry find(String npcName, int level) {
+        for (Entry e : ranking()) {
+            if (e.level == level && e.npcName != null && e.npcName.equalsIgnoreCase(npcName)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /** @return number of ranked NPCs */
+    public int size() {
+        return ranking().size();
+    }
+
+    private List<Entry> ranking() {
+        List<Entry> snapshot = ranked;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (ranked != null) {
+                return ranked;
+            }
+            List<Entry> unranked = new ArrayList<>(scores.size());
+            for (Score s : scores.values()) {
+                unranked.add(new Entry(s.npcName, s.level, 0, s.lockedItems, s.newItemRate, s.usableRate));
+            }
+            unranked.sort(BEST_FIRST);
+            List<Entry> out = new ArrayList<>(unranked.size());
+            for (Entry e : unranked) {
+                out.add(new Entry(e.npcName, e.level, out.size() + 1, e.lockedItems, e.newItemRate, e.usableRate));
+            }
+            ranked = Collections.unmodifiableList(out);
+            return ranked;
+        }
+    }
+
+    private Score score(List<DropSourceIndex.Source> rows) {
+        DropSourceIndex.Source first = rows.isEmpty() ? null : rows.get(0);
+        Score s = new Score(first != null ? first.getNpcName() : null, first != null ? first.getLevel() : 0,
+                rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            DropSourceIndex.Source row = rows.get(i);
+            int id = row.getItemId();
+            s.itemIds[i] = id;
+            s.chances[i] = row.getRarity().getChance();
+            if (obtainedItemsManager.isObtained(id)) {
+                continue;
+            }
+            s.locked[i] = true;
+            s.lockedItems++;
+            s.newItemRate += s.chances[i];
+            if (rolledItemsManager.isRolled(id)) {
+                s.usable[i] = true;
+                s.usableRate += s.chances[i];
+            }
+        }
+        return s;
+    }
+
+    private synchronized void onObtained(int itemId) {
+        for (DropSourceIndex.Source source : sourceIndex.sourcesOf(itemId)) {
+            Score s = scores.get(source.getTable());
+            int i = s != null ? s.indexOf(itemId) : -1;
+            if (i < 0 || !s.locked[i]) {
+                continue;
+            }
+            s.locked[i] = false;
+            s.lockedItems--;
+            s.newItemRate = Math.max(0d, s.newItemRate - s.chances[i]);
+            if (s.usable[i]) {
+                s.usable[i] = false;
+                s.usableRate = Math.max(0d, s.usableRate - s.chances[i]);
+            }
+            ranked = null;
+        }
+    }
+
+    private synchronized void onRolled(int itemId) {
+        for (DropSourceIndex.Source source : sourceIndex.sourcesOf(itemId)) {
+            Score s = scores.get(source.getTable());
+            int i = s != null ? s.indexOf(itemId) : -1;
+            if (i < 0 || !s.locked[i] || s.usable[i]) {
+                continue;
+            }
+            s.usable[i] = true;
+            s.usableRate += s.chances[i];
+            ranked = null;
+        }
+    }
+
+    /** Rebuild every score from the index, after a bulk change of either set. */
+    private void rescoreAll() {
+        sourceIndex.replay(tableListener);
+    }
+}
@@ -0,0 +1,16 @@
+package com.choicer.drops;
+
+/**
+ * Scheduling lanes for wiki requests. Lanes are served in declaration order,
+ * so a waiting {@link #USER} request always goes before background work.
+ */
+public enum FetchPriority {
+    /** Explicit user actions such as "Show Drops". */
+    USER,
+    /** Expanding an interactive NPC search into drop tables. */
+    SEARCH,
+    /** Warming the cache ahead of the user. */
+    PREFETCH,
+    /** Maintenance such as revalidating stale cache entries. */
+    BACKGROUND
+}
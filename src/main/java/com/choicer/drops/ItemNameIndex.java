@@ -0,0 +1,239 @@
+package com.choicer.drops;
+
+import static net.runelite.client.RuneLite.RUNELITE_DIR;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ItemComposition;
+import net.runelite.client.game.ItemManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Lowercase item-name to canonical item ID dictionary used to resolve wiki
+ * drop rows without touching the client thread. The dictionary is built once
+ * from item compositions and persisted per game revision, so later sessions
+ * only pay for a file read.
+ *
+ * Every named item is indexed, untradeable ones included, so drops such as
+ * clue scrolls and pets now resolve; the GE-backed search this replaced only
+ * matched tradeable items.
+ */
+@Slf4j
+@Singleton
+public class ItemNameIndex {
+    private static final String FILE_PREFIX = "item-names-";
+    private static final Type MAP_TYPE = new TypeToken<Map<String, Integer>>() {
+    }.getType();
+
+    private final Gson gson;
+    private final ItemManager itemManager;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @Inject
+    public ItemNameIndex(Gson gson, ItemManager itemManager) {
+        this.gson = gson;
+        this.itemManager = itemManager;
+    }
+
+    /** A dictionary together with the revision it was built for. */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(-1, Collections.emptyMap());
+
+        final int revision;
+        final Map<String, Integer> ids;
+
+        Snapshot(int revision, Map<String, Integer> ids) {
+            this.revision = revision;
+            this.ids = ids;
+        }
+
+        boolean isReadyFor(int rev) {
+            return rev == revision && !ids.isEmpty();
+        }
+    }
+
+    /**
+     * Collects names while the caller walks item compositions, so the
+     * dictionary shares the plugin's single pass over every item ID.
+     */
+    public final class Builder {
+        private final int revision;
+        private final Map<String, Integer> built = new HashMap<>();
+        private final Set<String> tradeableNames = new HashSet<>();
+
+        private Builder(int revision) {
+            this.revision = revision;
+        }
+
+        public void add(int itemId, ItemComposition comp) {
+            if (comp == null) {
+                return;
+            }
+            String name = comp.getName();
+            if (name == null) {
+                return;
+            }
+            String lower = name.trim().toLowerCase(Locale.ROOT);
+            if (lower.isEmpty() || "null".equals(lower)) {
+                return;
+            }
+
+            // First ID wins, but a tradeable item beats an untradeable one
+            // of the same name, matching what the GE-backed search preferred.
+            boolean tradeable = comp.isTradeable();
+            if (!built.containsKey(lower) || (tradeable && !tradeableNames.contains(lower))) {
+                built.put(lower, itemManager.canonicalize(itemId));
+                if (tradeable) {
+                    tradeableNames.add(lower);
+                }
+            }
+        }
+
+        /**
+         * Publish the collected dictionary.
+         *
+         * @return the dictionary to persist
+         */
+        public Map<String, Integer> build() {
+            publish(revision, built);
+            return built;
+        }
+    }
+
+    /** @return true once the dictionary for the current revision is available */
+    public boolean isReady() {
+        return !snapshot.ids.isEmpty();
+    }
+
+    /** @return the current lowercase name to canonical ID dictionary; empty until ready */
+    public Map<String, Integer> names() {
+        return snapshot.ids;
+    }
+
+    /**
+     * Resolve a wiki item name to its canonical ID. Safe to call from any
+     * thread.
+     *
+     * @return the canonical item ID, or 0 when the name is unknown
+     */
+    public int resolve(String itemName) {
+        if (itemName == null) {
+            return 0;
+        }
+        String lower = itemName.trim().toLowerCase(Locale.ROOT);
+        if (lower.isEmpty() || "nothing".equals(lower) || "unknown".equals(lower)) {
+            return 0;
+        }
+        Integer id = snapshot.ids.get(lower);
+        return id != null ? id : 0;
+    }
+
+    /**
+     * Load a previously persisted dictionary for the given revision. Intended
+     * to run on a background thread.
+     *
+     * @return true if a dictionary was loaded
+     */
+    public boolean load(int rev) {
+        if (rev <= 0) {
+            return false;
+        }
+        if (snapshot.isReadyFor(rev)) {
+            return true;
+        }
+        Path file = getFile(rev);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Integer> loaded = gson.fromJson(r, MAP_TYPE);
+            if (loaded == null || loaded.isEmpty()) {
+                return false;
+            }
+            publish(rev, loaded);
+            return true;
+        } catch (Exception ex) {
+            log.warn("Discarding unreadable item name index {}", file, ex);
+            return false;
+        }
+    }
+
+    /**
+     * Start building the dictionary from item compositions, unless the one
+     * for this revision is already loaded. The builder is fed on the client
+     * thread.
+     *
+     * @return a builder, or null if nothing needs building
+     */
+    public Builder builderIfMissing(int rev) {
+        return snapshot.isReadyFor(rev) ? null : new Builder(rev);
+    }
+
+    /** Persist a built dictionary and drop dictionaries of older revisions. */
+    public void save(int rev, Map<String, Integer> data) {
+        if (rev <= 0 || data == null || data.isEmpty()) {
+            return;
+        }
+        Path file = getFile(rev);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                gson.toJson(data, MAP_TYPE, w);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("Failed to persist item name index {}", file, ex);
+            return;
+        } finally {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+            }
+        }
+
+        String keep = file.getFileName().toString();
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            files.filter(p -> {
+                String fn = p.getFileName().toString();
+                return fn.startsWith(FILE_PREFIX) && !fn.equals(keep);
+            }).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ignored) {
+                }
+            });
+        } catch (IOException ex) {
+            log.debug("Error pruning old item name indices", ex);
+        }
+    }
+
+    private void publish(int rev, Map<String, Integer> data) {
+        snapshot = new Snapshot(rev, Collections.unmodifiableMap(data));
+    }
+
+    private Path getFile(int rev) {
+        return RUNELITE_DIR.toPath()
+                .resolve("choicer")
+                .resolve(FILE_PREFIX + rev + ".json");
+    }
+}
@@ -12,6 +12,8 @@ public class NpcDropData {
     private String name;
     private int level;
     private List<DropTableSection> dropTableSections;
+    /** Wiki revision the table was parsed from; 0 if unknown. */
+    private long revisionId;
 
     public NpcDropData(int npcId, String name, int level, List<DropTableSection> dropTableSections) {
         this.npcId = npcId;
@@ -0,0 +1,245 @@
+package com.choicer.drops;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming JSON form of {@link NpcDropData}, including its sections, items
+ * and parsed rarities. Field names match what reflective Gson wrote before,
+ * so existing cache files stay readable; unknown fields are skipped. Reading
+ * builds right-sized lists, reuses the stored {@link DropRarity} instead of
+ * parsing the rarity text again, and shares names and rarities through a
+ * {@link DropPool}.
+ */
+final class NpcDropDataAdapter extends TypeAdapter<NpcDropData> {
+    private final DropPool pool;
+
+    NpcDropDataAdapter() {
+        this(new DropPool());
+    }
+
+    NpcDropDataAdapter(DropPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void write(JsonWriter out, NpcDropData data) throws IOException {
+        if (data == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("npcId").value(data.getNpcId());
+        if (data.getName() != null) {
+            out.name("name").value(data.getName());
+        }
+        out.name("level").value(data.getLevel());
+        if (data.getDropTableSections() != null) {
+            out.name("dropTableSections").beginArray();
+            for (DropTableSection sec : data.getDropTableSections()) {
+                writeSection(out, sec);
+            }
+            out.endArray();
+        }
+        out.name("revisionId").value(data.getRevisionId());
+        out.endObject();
+    }
+
+    @Override
+    public NpcDropData read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        int npcId = 0;
+        String name = null;
+        int level = 0;
+        long revisionId = 0;
+        List<DropTableSection> sections = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "npcId":
+                    npcId = in.nextInt();
+                    break;
+                case "name":
+                    name = pool.intern(nextString(in));
+                    break;
+                case "level":
+                    level = in.nextInt();
+                    break;
+                case "revisionId":
+                    revisionId = in.nextLong();
+                    break;
+                case "dropTableSections":
+                    sections = readList(in, this::readSection);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        NpcDropData data = new NpcDropData(npcId, name, level,
+                sections != null ? sections : new ArrayList<>(0));
+        data.setRevisionId(revisionId);
+        return data;
+    }
+
+    private static void writeSection(JsonWriter out, DropTableSection sec) throws IOException {
+        out.beginObject();
+        if (sec.getHeader() != null) {
+            out.name("header").value(sec.getHeader());
+        }
+        if (sec.getItems() != null) {
+            out.name("items").beginArray();
+            for (DropItem item : sec.getItems()) {
+                writeItem(out, item);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    private DropTableSection readSection(JsonReader in) throws IOException {
+        String header = null;
+        List<DropItem> items = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "header":
+                    header = pool.intern(nextString(in));
+                    break;
+                case "items":
+                    items = readList(in, this::readItem);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return new DropTableSection(header, items != null ? items : new ArrayList<>(0));
+    }
+
+    private static void writeItem(JsonWriter out, DropItem item) throws IOException {
+        out.beginObject();
+        out.name("itemId").value(item.getItemId());
+        if (item.getName() != null) {
+            out.name("name").value(item.getName());
+        }
+        if (item.getRarity() != null) {
+            out.name("rarity").value(item.getRarity());
+        }
+        DropRarity r = item.getParsedRarity();
+        out.name("parsedRarity").beginObject();
+        out.name("display").value(r.getDisplay());
+        out.name("numerator").value(r.getNumerator());
+        out.name("denominator").value(r.getDenominator());
+        out.name("rangeFrom").value(r.getRangeFrom());
+        out.name("rangeTo").value(r.getRangeTo());
+        out.name("always").value(r.isAlways());
+        out.endObject();
+        out.endObject();
+    }
+
+    private DropItem readItem(JsonReader in) throws IOException {
+        int itemId = 0;
+        String name = null;
+        String rarity = null;
+        DropRarity parsed = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "itemId":
+                    itemId = in.nextInt();
+                    break;
+                case "name":
+                    name = pool.intern(nextString(in));
+                    break;
+                case "rarity":
+                    rarity = pool.intern(nextString(in));
+                    break;
+                case "parsedRarity":
+                    parsed = readRarity(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return new DropItem(itemId, name, rarity, pool.rarity(rarity, parsed));
+    }
+
+    private static DropRarity readRarity(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String display = "";
+        double numerator = 0;
+        double denominator = 0;
+        double rangeFrom = 0;
+        double rangeTo = 0;
+        boolean always = false;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "display":
+                    display = nextString(in);
+                    break;
+                case "numerator":
+                    numerator = in.nextDouble();
+                    break;
+                case "denominator":
+                    denominator = in.nextDouble();
+                    break;
+                case "rangeFrom":
+                    rangeFrom = in.nextDouble();
+                    break;
+                case "rangeTo":
+                    rangeTo = in.nextDouble();
+                    break;
+                case "always":
+                    always = in.nextBoolean();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return new DropRarity(display != null ? display : "", numerator, denominator, rangeFrom, rangeTo, always);
+    }
+
+    @FunctionalInterface
+    private interface ElementReader<T> {
+        T read(JsonReader in) throws IOException;
+    }
+
+    private static <T> List<T> readList(JsonReader in, ElementReader<T> element) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ArrayList<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(element.read(in));
+        }
+        in.endArray();
+        list.trimToSize();
+        return list;
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+}
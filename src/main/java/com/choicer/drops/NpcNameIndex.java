@@ -0,0 +1,361 @@
+package com.choicer.drops;
+
+import lombok.Getter;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index over every NPC name the plugin knows, from the drop cache index and
+ * the bundled seed, so name searches can be answered without the wiki.
+ * Queries match by prefix, by substring and, to tolerate typos, by prefix
+ * edit distance. Substring and typo candidates come from trigram postings,
+ * so only names sharing a trigram with the query are ever compared.
+ * <p>
+ * Adding a name only marks the index dirty; the sorted arrays and postings
+ * are rebuilt on the next search, which keeps bulk loads cheap.
+ */
+@Singleton
+public class NpcNameIndex {
+    /** How a name matched, best first. */
+    public enum MatchKind {
+        EXACT,
+        PREFIX,
+        SUBSTRING,
+        FUZZY
+    }
+
+    /** One indexed name that matched a query. */
+    @Getter
+    public static final class Match {
+        private final String name;
+        private final int level;
+        /** Wiki page ID, or 0 when only the name is known. */
+        private final int npcId;
+        private final MatchKind kind;
+        /** Edit distance for {@link MatchKind#FUZZY} matches, else 0. */
+        private final int distance;
+
+        Match(String name, int level, int npcId, MatchKind kind, int distance) {
+            this.name = name;
+            this.level = level;
+            this.npcId = npcId;
+            this.kind = kind;
+            this.distance = distance;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (lvl " + level + ")";
+        }
+    }
+
+    private static final class Record {
+        final String name;
+        final String key;
+        final int level;
+        final int npcId;
+
+        Record(String name, String key, int level, int npcId) {
+            this.name = name;
+            this.key = key;
+            this.level = level;
+            this.npcId = npcId;
+        }
+    }
+
+    private static final Comparator<Record> BY_KEY = Comparator
+            .comparing((Record r) -> r.key)
+            .thenComparingInt(r -> r.level);
+
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(new Record[0]);
+    private volatile boolean dirty;
+
+    /**
+     * Add or refresh a name. A known page ID is kept when the same name and
+     * level is added again without one.
+     */
+    public void add(String name, int level, int npcId) {
+        if (name == null || name.trim().isEmpty()) {
+            return;
+        }
+        String key = normalize(name);
+        String recordKey = key + '\0' + level;
+        Record existing = records.get(recordKey);
+        Record merged = records.merge(recordKey, new Record(name.trim(), key, level, npcId),
+                (old, neu) -> neu.npcId != 0 && neu.npcId != old.npcId ? neu
+                        : old.name.equals(neu.name) ? old
+                        : new Record(neu.name, key, level, old.npcId));
+        // the remapper hands back the old record only when nothing changed;
+        // a racing add can only make this rebuild once more than needed
+        if (merged != existing) {
+            dirty = true;
+        }
+    }
+
+    public void clear() {
+        records.clear();
+        dirty = true;
+    }
+
+    /** @return number of distinct name and level pairs */
+    public int size() {
+        return records.size();
+    }
+
+    /** @return whether the name is indexed at any level, ignoring case */
+    public boolean contains(String name) {
+        if (name == null) {
+            return false;
+        }
+        String key = normalize(name);
+        Snapshot s = current();
+        int i = s.lowerBound(key);
+        return i < s.size() && s.records[i].key.equals(key);
+    }
+
+    /**
+     * Find names matching {@code query}, best first: exact, then prefix,
+     * then substring, then typo matches within one edit for short queries
+     * and two for longer ones. An empty query matches every name that
+     * passes the filters.
+     *
+     * @param level only names at this level, or any level if {@code <= 0}
+     * @param npcId skip names known under another page ID, or no filter if
+     *              {@code <= 0}
+     */
+    public List<Match> search(String query, int level, int npcId, int limit) {
+        String q = query == null ? "" : normalize(query);
+        Snapshot s = current();
+        List<Match> out = new ArrayList<>();
+        boolean[] taken = new boolean[s.size()];
+
+        // prefix matches are a contiguous run of the sorted keys
+        for (int i = s.lowerBound(q); i < s.size() && s.records[i].key.startsWith(q); i++) {
+            if (accepts(s.records[i], level, npcId)) {
+                taken[i] = true;
+                out.add(match(s.records[i], s.records[i].key.length() == q.length()
+                        ? MatchKind.EXACT : MatchKind.PREFIX, 0));
+            }
+        }
+        if (q.isEmpty()) {
+            return rank(out, limit);
+        }
+
+        if (q.length() < 3) {
+            for (int i = 0; i < s.size(); i++) {
+                if (!taken[i] && s.records[i].key.contains(q) && accepts(s.records[i], level, npcId)) {
+                    taken[i] = true;
+                    out.add(match(s.records[i], MatchKind.SUBSTRING, 0));
+                }
+            }
+            return rank(out, limit);
+        }
+
+        // substring: every match is in the postings of each inner trigram,
+        // so scan the shortest of them
+        int[] shortest = null;
+        for (int j = 0; j + 3 <= q.length(); j++) {
+            int[] p = s.postings.get(trigram(q.charAt(j), q.charAt(j + 1), q.charAt(j + 2)));
+            if (p == null) {
+                shortest = null;
+                break;
+            }
+            if (shortest == null || p[0] < shortest[0]) {
+                shortest = p;
+            }
+        }
+        if (shortest != null) {
+            for (int k = 1; k <= shortest[0]; k++) {
+                int i = shortest[k];
+                if (!taken[i] && s.records[i].key.contains(q) && accepts(s.records[i], level, npcId)) {
+                    taken[i] = true;
+                    out.add(match(s.records[i], MatchKind.SUBSTRING, 0));
+                }
+            }
+        }
+
+        // typos: one edit changes at most four padded trigrams, so a name
+        // within maxEdits must share enough of them with the query
+        int maxEdits = q.length() <= 5 ? 1 : 2;
+        int[] shared = new int[s.size()];
+        int[] touched = new int[s.size()];
+        int touchedCount = 0;
+        for (long t : paddedTrigrams(q)) {
+            int[] p = s.postings.get(t);
+            if (p == null) {
+                continue;
+            }
+            for (int k = 1; k <= p[0]; k++) {
+                int i = p[k];
+                if (shared[i]++ == 0) {
+                    touched[touchedCount++] = i;
+                }
+            }
+        }
+        int needed = Math.max(1, q.length() - 4 * maxEdits);
+        for (int k = 0; k < touchedCount; k++) {
+            int i = touched[k];
+            if (taken[i] || shared[i] < needed || !accepts(s.records[i], level, npcId)) {
+                continue;
+            }
+            int d = prefixDistance(q, s.records[i].key, maxEdits);
+            if (d <= maxEdits) {
+                out.add(match(s.records[i], MatchKind.FUZZY, d));
+            }
+        }
+        return rank(out, limit);
+    }
+
+    private static boolean accepts(Record r, int level, int npcId) {
+        return (level <= 0 || r.level == level) && (npcId <= 0 || r.npcId == 0 || r.npcId == npcId);
+    }
+
+    private static Match match(Record r, MatchKind kind, int distance) {
+        return new Match(r.name, r.level, r.npcId, kind, distance);
+    }
+
+    private static List<Match> rank(List<Match> matches, int limit) {
+        matches.sort(Comparator.comparing(Match::getKind)
+                .thenComparingInt(Match::getDistance)
+                .thenComparingInt(m -> m.getName().length())
+                .thenComparing(Match::getName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparingInt(Match::getLevel));
+        return matches.size() > limit
+                ? new ArrayList<>(matches.subList(0, Math.max(0, limit)))
+                : matches;
+    }
+
+    private Snapshot current() {
+        if (dirty) {
+            synchronized (this) {
+                if (dirty) {
+                    dirty = false;
+                    Record[] sorted = records.values().toArray(new Record[0]);
+                    Arrays.sort(sorted, BY_KEY);
+                    snapshot = new Snapshot(sorted);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Optimal string alignment distance between {@code q} and the closest
+     * prefix of {@code t}, so a typo in a half-typed name still matches.
+     * Stops early and returns {@code max + 1} once every alignment is over
+     * {@code max}.
+     */
+    static int prefixDistance(String q, String t, int max) {
+        int m = Math.min(t.length(), q.length() + max);
+        int[] prev2 = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= q.length(); i++) {
+            char c = q.charAt(i - 1);
+            cur[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= m; j++) {
+                char d = t.charAt(j - 1);
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + (c == d ? 0 : 1));
+                if (i > 1 && j > 1 && c == t.charAt(j - 2) && q.charAt(i - 2) == d) {
+                    v = Math.min(v, prev2[j - 2] + 1);
+                }
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] tmp = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        int best = prev[0];
+        for (int j = 1; j <= m; j++) {
+            best = Math.min(best, prev[j]);
+        }
+        return Math.min(best, max + 1);
+    }
+
+    static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT).replace('_', ' ');
+    }
+
+    private static long trigram(char a, char b, char c) {
+        return (long) a << 32 | (long) b << 16 | c;
+    }
+
+    /** Trigrams of the key with two leading pad characters, so short and leading fragments count. */
+    private static long[] paddedTrigrams(String key) {
+        long[] out = new long[key.length()];
+        char a = 0;
+        char b = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            out[i] = trigram(a, b, c);
+            a = b;
+            b = c;
+        }
+        return out;
+    }
+
+    /** Immutable sorted records plus trigram postings; each list is {@code [count, index...]}. */
+    private static final class Snapshot {
+        final Record[] records;
+        final Map<Long, int[]> postings;
+
+        Snapshot(Record[] records) {
+            this.records = records;
+            Map<Long, int[]> map = new HashMap<>();
+            for (int i = 0; i < records.length; i++) {
+                for (long t : paddedTrigrams(records[i].key)) {
+                    int[] p = map.get(t);
+                    if (p == null) {
+                        p = new int[4];
+                        map.put(t, p);
+                    } else if (p[p[0]] == i) {
+                        // repeated trigram within one name
+                        continue;
+                    } else if (p[0] + 1 == p.length) {
+                        p = Arrays.copyOf(p, p.length * 2);
+                        map.put(t, p);
+                    }
+                    p[++p[0]] = i;
+                }
+            }
+            this.postings = Collections.unmodifiableMap(map);
+        }
+
+        int size() {
+            return records.length;
+        }
+
+        int lowerBound(String key) {
+            int lo = 0;
+            int hi = records.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (records[mid].key.compareTo(key) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.choicer.drops;
+
+import static net.runelite.client.RuneLite.RUNELITE_DIR;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Least-recently-used cache of wiki title searches with per-entry expiry.
+ * Empty results are cached for a shorter time, and failed requests for a
+ * minute, so a wiki outage is not hammered on every keystroke. Searches are
+ * title-prefix searches, so once a query returned fewer than the
+ * {@link WikiApiClient#SEARCH_LIMIT} titles it returned all of them, and
+ * any longer query starting with it is answered by filtering those
+ * locally. Successful results are persisted across sessions.
+ */
+@Slf4j
+@Singleton
+public class SearchResultCache {
+    static final int MAX_ENTRIES = 500;
+    static final Duration HIT_TTL = Duration.ofDays(3);
+    static final Duration EMPTY_TTL = Duration.ofHours(6);
+    static final Duration ERROR_TTL = Duration.ofMinutes(1);
+    /** New results after which the cache is written out again. */
+    private static final int SAVE_EVERY = 20;
+    private static final Type ENTRY_MAP_TYPE = new TypeToken<Map<String, Entry>>() {
+    }.getType();
+
+    private final Gson gson;
+    private final Path file;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final Object fileLock = new Object();
+    private boolean loaded;
+    private int unsaved;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong prefixHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /** Performs the actual search on a miss. */
+    @FunctionalInterface
+    public interface Search {
+        List<String> titles(String query) throws IOException;
+    }
+
+    @Inject
+    public SearchResultCache(Gson gson) {
+        this(gson, RUNELITE_DIR.toPath().resolve("choicer").resolve("wiki-search.json"), System::currentTimeMillis);
+    }
+
+    SearchResultCache(Gson gson, Path file, LongSupplier clock) {
+        this.gson = gson;
+        this.file = file;
+        this.clock = clock;
+    }
+
+    /** One cached search; persisted keyed by the normalized query. */
+    static final class Entry {
+        List<String> titles;
+        long fetchedAt;
+        /** Whether {@link #titles} is every match, so longer queries can be narrowed from it. */
+        boolean complete;
+        transient boolean failed;
+
+        boolean isFresh(long now) {
+            Duration ttl = failed ? ERROR_TTL : titles.isEmpty() ? EMPTY_TTL : HIT_TTL;
+            return now - fetchedAt < ttl.toMillis();
+        }
+    }
+
+    /** Point-in-time lookup counters. */
+    @Getter
+    public static final class Stats {
+        private final int entries;
+        private final long hits;
+        private final long prefixHits;
+        private final long misses;
+        private final long errors;
+
+        Stats(int entries, long hits, long prefixHits, long misses, long errors) {
+            this.entries = entries;
+            this.hits = hits;
+            this.prefixHits = prefixHits;
+            this.misses = misses;
+            this.errors = errors;
+        }
+
+        /** @return share of lookups answered without a request, 0 before any */
+        public double getHitRate() {
+            long total = hits + prefixHits + misses;
+            return total == 0 ? 0 : (double) (hits + prefixHits) / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d cached, %d hits, %d prefix hits, %d misses, %d errors (%.0f%% hit rate)",
+                    entries, hits, prefixHits, misses, errors, getHitRate() * 100);
+        }
+    }
+
+    /**
+     * Answer a search from the cache, by narrowing a complete result for a
+     * shorter prefix, or through {@code search}. Failures are logged and
+     * answered with no titles.
+     */
+    public List<String> lookup(String query, Search search) {
+        String key = normalize(query);
+        long now = clock.getAsLong();
+        synchronized (this) {
+            load();
+            Entry cached = entries.get(key);
+            if (cached != null && cached.isFresh(now)) {
+                hits.incrementAndGet();
+                return cached.titles;
+            }
+            List<String> narrowed = narrow(key, now);
+            if (narrowed != null) {
+                prefixHits.incrementAndGet();
+                return narrowed;
+            }
+        }
+
+        // requests can be slow; never hold the lock across one
+        misses.incrementAndGet();
+        Entry fetched = new Entry();
+        fetched.fetchedAt = now;
+        try {
+            fetched.titles = Collections.unmodifiableList(new ArrayList<>(search.titles(query)));
+            fetched.complete = fetched.titles.size() < WikiApiClient.SEARCH_LIMIT;
+        } catch (IOException | RuntimeException ex) {
+            errors.incrementAndGet();
+            log.debug("Wiki search failed for {}", query, ex);
+            fetched.titles = Collections.emptyList();
+            fetched.failed = true;
+        }
+
+        boolean save;
+        synchronized (this) {
+            entries.put(key, fetched);
+            save = !fetched.failed && ++unsaved >= SAVE_EVERY;
+        }
+        if (save) {
+            save();
+        }
+        return fetched.titles;
+    }
+
+    /** Longest fresh, complete cached prefix of {@code key}, filtered down to {@code key}. */
+    private List<String> narrow(String key, long now) {
+        for (int len = key.length() - 1; len > 0; len--) {
+            Entry e = entries.get(key.substring(0, len));
+            if (e == null || !e.complete || e.failed || !e.isFresh(now)) {
+                continue;
+            }
+            List<String> out = new ArrayList<>();
+            for (String title : e.titles) {
+                if (normalize(title).startsWith(key)) {
+                    out.add(title);
+                }
+            }
+            return Collections.unmodifiableList(out);
+        }
+        return null;
+    }
+
+    /** @return lookup counters since startup */
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), hits.get(), prefixHits.get(), misses.get(), errors.get());
+    }
+
+    static String normalize(String query) {
+        return query.trim().replace('_', ' ').replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Entry> saved = gson.fromJson(r, ENTRY_MAP_TYPE);
+            if (saved == null) {
+                return;
+            }
+            long now = clock.getAsLong();
+            saved.forEach((key, e) -> {
+                if (e != null && e.titles != null && e.isFresh(now)) {
+                    e.titles = Collections.unmodifiableList(e.titles);
+                    entries.put(key, e);
+                }
+            });
+        } catch (Exception ex) {
+            log.warn("Discarding unreadable wiki search cache {}", file, ex);
+        }
+    }
+
+    /** Write the successful, unexpired results to disk. */
+    public void save() {
+        if (file == null) {
+            return;
+        }
+        Map<String, Entry> snapshot = new LinkedHashMap<>();
+        synchronized (this) {
+            if (!loaded || unsaved == 0) {
+                return;
+            }
+            long now = clock.getAsLong();
+            entries.forEach((key, e) -> {
+                if (!e.failed && e.isFresh(now)) {
+                    snapshot.put(key, e);
+                }
+            });
+            unsaved = 0;
+        }
+        synchronized (fileLock) {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(file.getParent());
+                Files.writeString(
+                        tmp,
+                        gson.toJson(snapshot, ENTRY_MAP_TYPE),
+                        StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                log.debug("Failed to persist wiki search cache", ex);
+            } finally {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
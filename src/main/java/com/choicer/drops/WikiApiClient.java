@@ -0,0 +1,647 @@
+package com.choicer.drops;
+
+import static net.runelite.client.RuneLite.RUNELITE_DIR;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Thin MediaWiki API layer for the OSRS wiki. Page lookups are batched up to
+ * {@link #MAX_TITLES_PER_QUERY} titles per request, title to page-ID mappings
+ * are cached permanently on disk, and once an article's drops section is
+ * known, drop tables are fetched as that single parsed section instead of the
+ * full article. NPC IDs are resolved to their article once through
+ * Special:Lookup and cached with the titles.
+ */
+@Slf4j
+@Singleton
+public class WikiApiClient {
+    static final String USER_AGENT = "RuneLite-Choicer/"
+            + Optional.ofNullable(WikiApiClient.class.getPackage().getImplementationVersion())
+                    .orElse("dev");
+    static final int MAX_TITLES_PER_QUERY = 50;
+    /** Most titles a title search returns. */
+    static final int SEARCH_LIMIT = 20;
+    /** Delay before persisting the title cache, so bursts of new titles share one write. */
+    static final long TITLE_SAVE_DELAY_MS = 5_000;
+    /** How long an NPC ID without an article is answered from the cache before asking again. */
+    static final long MISSING_RECHECK_MS = TimeUnit.DAYS.toMillis(7);
+    private static final HttpUrl DEFAULT_API_URL = HttpUrl.get("https://oldschool.runescape.wiki/api.php");
+    private static final Type TITLE_MAP_TYPE = new TypeToken<Map<String, PageRef>>() {
+    }.getType();
+
+    private final OkHttpClient httpClient;
+    /** Same connections, but redirects are handed back instead of followed. */
+    private final OkHttpClient lookupClient;
+    private final Gson gson;
+    private final WikiRequestScheduler scheduler;
+    private final HttpUrl apiUrl;
+    private final Path titleCacheFile;
+    private final Map<String, PageRef> titles = new ConcurrentHashMap<>();
+    private volatile boolean titlesLoaded = false;
+    private final AtomicBoolean titleSaveQueued = new AtomicBoolean();
+    private ScheduledExecutorService saveExecutor;
+
+    @Inject
+    public WikiApiClient(OkHttpClient httpClient, Gson gson, WikiRequestScheduler scheduler) {
+        this(httpClient, gson, scheduler, DEFAULT_API_URL,
+                RUNELITE_DIR.toPath().resolve("choicer").resolve("wiki-titles.json"));
+    }
+
+    WikiApiClient(OkHttpClient httpClient, Gson gson, WikiRequestScheduler scheduler, HttpUrl apiUrl,
+            Path titleCacheFile) {
+        this.httpClient = httpClient;
+        this.lookupClient = httpClient.newBuilder()
+                .followRedirects(false)
+                .followSslRedirects(false)
+                .build();
+        this.gson = gson;
+        this.scheduler = scheduler;
+        this.apiUrl = apiUrl;
+        this.titleCacheFile = titleCacheFile;
+    }
+
+    /** Cached identity of a wiki page, keyed by the title it was requested as. */
+    static final class PageRef {
+        String title;
+        int pageId;
+        int dropsSection = -1;
+        /** Combat level from the article's infobox; 0 if not seen yet. */
+        int combatLevel;
+        /** When Special:Lookup last found no article for an NPC ID; 0 otherwise. */
+        long missingSince;
+    }
+
+    /** Page identity and latest revision as reported by the API. */
+    @Getter
+    public static final class PageInfo {
+        private final String title;
+        private final int pageId;
+        private final long revisionId;
+
+        PageInfo(String title, int pageId, long revisionId) {
+            this.title = title;
+            this.pageId = pageId;
+            this.revisionId = revisionId;
+        }
+    }
+
+    /** Consumes a response body as it streams in. */
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(Reader body) throws IOException;
+    }
+
+    /** Parsed HTML of a single page section, or of the whole article. */
+    @Getter
+    public static final class Section {
+        private final String title;
+        private final int pageId;
+        private final long revisionId;
+        private final String html;
+        /** Combat level remembered for the article; 0 if unknown. */
+        private final int combatLevel;
+
+        Section(String title, int pageId, long revisionId, String html, int combatLevel) {
+            this.title = title;
+            this.pageId = pageId;
+            this.revisionId = revisionId;
+            this.html = html;
+            this.combatLevel = combatLevel;
+        }
+    }
+
+    /**
+     * Resolve page IDs for the given titles. Cached mappings are answered
+     * locally; the rest are looked up in batches of up to
+     * {@link #MAX_TITLES_PER_QUERY} titles per request.
+     *
+     * @return requested title to page ID; missing pages are omitted
+     */
+    public Map<String, Integer> getPageIds(Collection<String> requested) throws IOException {
+        loadTitles();
+        Map<String, Integer> out = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String t : requested) {
+            PageRef ref = titles.get(key(t));
+            if (ref != null && ref.pageId > 0) {
+                out.put(t, ref.pageId);
+            } else {
+                missing.add(t);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Map.Entry<String, PageInfo> e : queryPages(missing).entrySet()) {
+                out.put(e.getKey(), e.getValue().getPageId());
+            }
+        }
+        return out;
+    }
+
+    /** Resolve a single page ID, answering from the permanent cache when possible. */
+    public int getPageId(String title) throws IOException {
+        Integer id = getPageIds(Collections.singletonList(title)).get(title);
+        return id != null ? id : 0;
+    }
+
+    /**
+     * Query page IDs and latest revision IDs for the given titles, always
+     * going to the network, in batches of up to {@link #MAX_TITLES_PER_QUERY}.
+     *
+     * @return requested title to page info; missing pages are omitted
+     */
+    public Map<String, PageInfo> queryPages(Collection<String> requested) throws IOException {
+        loadTitles();
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(requested));
+        Map<String, PageInfo> out = new LinkedHashMap<>();
+        for (int i = 0; i < distinct.size(); i += MAX_TITLES_PER_QUERY) {
+            List<String> batch = distinct.subList(i, Math.min(distinct.size(), i + MAX_TITLES_PER_QUERY));
+            HttpUrl url = apiUrl.newBuilder()
+                    .addQueryParameter("action", "query")
+                    .addQueryParameter("format", "json")
+                    .addQueryParameter("prop", "info|revisions")
+                    .addQueryParameter("rvprop", "ids")
+                    .addQueryParameter("redirects", "1")
+                    .addQueryParameter("titles", String.join("|", batch))
+                    .build();
+            parsePageQuery(getJson(url), batch, out);
+        }
+
+        boolean changed = false;
+        for (Map.Entry<String, PageInfo> e : out.entrySet()) {
+            changed |= remember(e.getKey(), e.getValue().getTitle(), e.getValue().getPageId());
+        }
+        if (changed) {
+            saveTitles();
+        }
+        return out;
+    }
+
+    /**
+     * Resolve the article for an NPC ID through Special:Lookup. The lookup is
+     * a HEAD request whose redirect is read, not followed, so no page body is
+     * downloaded. Found titles are cached permanently with the other titles;
+     * an ID without an article is remembered for {@link #MISSING_RECHECK_MS}.
+     *
+     * @param name used by the wiki to disambiguate when the ID is unknown
+     * @return the article title, or null if the wiki has no page for the NPC
+     */
+    public String lookupNpcTitle(int npcId, String name) throws IOException {
+        loadTitles();
+        String cacheKey = npcKey(npcId);
+        PageRef ref = titles.get(cacheKey);
+        if (ref != null) {
+            if (ref.title != null) {
+                return ref.title;
+            }
+            if (System.currentTimeMillis() - ref.missingSince < MISSING_RECHECK_MS) {
+                return null;
+            }
+        }
+
+        Request req = new Request.Builder()
+                .url(lookupUrl(npcId, name))
+                .head()
+                .header("User-Agent", USER_AGENT)
+                .build();
+        HttpUrl landed = scheduler.call(() -> {
+            try (Response res = lookupClient.newCall(req).execute()) {
+                if (res.isRedirect()) {
+                    String location = res.header("Location");
+                    return location != null ? res.request().url().resolve(location) : null;
+                }
+                if (!res.isSuccessful()) {
+                    throw new WikiRequestScheduler.HttpStatusException(res.code(),
+                            parseRetryAfter(res.header("Retry-After")));
+                }
+                return null; // answered in place: the wiki has no article to send us to
+            }
+        });
+
+        String title = landed != null ? titleFromUrl(landed) : null;
+        PageRef found = new PageRef();
+        found.title = title;
+        found.missingSince = title == null ? System.currentTimeMillis() : 0L;
+        titles.put(cacheKey, found);
+        saveTitles();
+        return title;
+    }
+
+    /** @return the Special:Lookup URL that redirects to an NPC's article */
+    public HttpUrl lookupUrl(int npcId, String name) {
+        HttpUrl.Builder url = apiUrl.resolve("/w/Special:Lookup").newBuilder()
+                .addQueryParameter("type", "npc");
+        if (npcId > 0) {
+            url.addQueryParameter("id", String.valueOf(npcId));
+        }
+        if (name != null && !name.isEmpty()) {
+            url.addQueryParameter("name", name.replace(' ', '_'));
+        }
+        return url.build();
+    }
+
+    /** @return the article title of a {@code /w/Title} URL, or null for special pages */
+    static String titleFromUrl(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        if (segments.size() < 2 || !"w".equals(segments.get(0))) {
+            return null;
+        }
+        String title = URLDecoder.decode(segments.get(segments.size() - 1), StandardCharsets.UTF_8)
+                .replace('_', ' ');
+        if (title.isEmpty() || title.startsWith("Special:")) {
+            return null;
+        }
+        return title;
+    }
+
+    /**
+     * Fetch the drops of an article in one request. The first fetch of a
+     * title parses the whole article, which also carries the infobox, and
+     * records where its drops section is; later fetches ask for just that
+     * section and report the combat level remembered through
+     * {@link #rememberCombatLevel}.
+     *
+     * @return the drops section, or the whole article while its drops
+     *         section is unknown or missing; null if there is no such page
+     */
+    public Section fetchDropsSection(String title) throws IOException {
+        loadTitles();
+        PageRef ref = titles.get(key(title));
+        int section = ref != null ? ref.dropsSection : -1;
+        return section >= 0 ? fetchSection(title, section) : fetchArticle(title);
+    }
+
+    /** Forget a cached drops section index, e.g. after the article was restructured. */
+    public void forgetDropsSection(String title) {
+        PageRef ref = titles.get(key(title));
+        if (ref != null && ref.dropsSection >= 0) {
+            ref.dropsSection = -1;
+            saveTitles();
+        }
+    }
+
+    /** Remember an article's combat level, read from its infobox by the caller. */
+    public void rememberCombatLevel(String title, int level) {
+        PageRef ref = titles.get(key(title));
+        if (level > 0 && ref != null && ref.combatLevel != level) {
+            ref.combatLevel = level;
+            saveTitles();
+        }
+    }
+
+    /** Fetch the parsed HTML of a single section of an article. */
+    public Section fetchSection(String title, int section) throws IOException {
+        HttpUrl url = apiUrl.newBuilder()
+                .addQueryParameter("action", "parse")
+                .addQueryParameter("format", "json")
+                .addQueryParameter("prop", "text|revid")
+                .addQueryParameter("redirects", "1")
+                .addQueryParameter("disablelimitreport", "1")
+                .addQueryParameter("disableeditsection", "1")
+                .addQueryParameter("page", title)
+                .addQueryParameter("section", String.valueOf(section))
+                .build();
+        JsonObject parse = parseObject(getJson(url));
+        if (parse == null || !parse.has("text")) {
+            return null;
+        }
+        String resolved = parse.has("title") ? parse.get("title").getAsString() : title;
+        int pageId = parse.has("pageid") ? parse.get("pageid").getAsInt() : 0;
+        long revId = parse.has("revid") ? parse.get("revid").getAsLong() : 0L;
+        JsonElement text = parse.get("text");
+        String html = text.isJsonObject() ? text.getAsJsonObject().get("*").getAsString() : text.getAsString();
+        if (remember(title, resolved, pageId)) {
+            saveTitles();
+        }
+        return new Section(resolved, pageId, revId, html, combatLevel(title));
+    }
+
+    /**
+     * Download an arbitrary wiki page, e.g. a Special:Lookup redirect, handing
+     * the body to {@code reader} as it arrives instead of buffering it.
+     */
+    public <T> T fetchPage(HttpUrl url, BodyReader<T> reader) throws IOException {
+        return execute(url, reader);
+    }
+
+    /** Query the wiki's opensearch API for article titles matching the text. */
+    public List<String> searchTitles(String query) throws IOException {
+        HttpUrl url = apiUrl.newBuilder()
+                .addQueryParameter("action", "opensearch")
+                .addQueryParameter("format", "json")
+                .addQueryParameter("limit", String.valueOf(SEARCH_LIMIT))
+                .addQueryParameter("namespace", "0")
+                .addQueryParameter("search", query)
+                .build();
+        JsonArray arr = getJson(url).getAsJsonArray();
+        JsonArray found = arr.get(1).getAsJsonArray();
+        List<String> names = new ArrayList<>(found.size());
+        for (int i = 0; i < found.size(); i++) {
+            names.add(found.get(i).getAsString());
+        }
+        return names;
+    }
+
+    /** Parse the whole article, recording its page ID and drops section index. */
+    private Section fetchArticle(String title) throws IOException {
+        HttpUrl url = apiUrl.newBuilder()
+                .addQueryParameter("action", "parse")
+                .addQueryParameter("format", "json")
+                .addQueryParameter("prop", "text|sections|revid")
+                .addQueryParameter("redirects", "1")
+                .addQueryParameter("disablelimitreport", "1")
+                .addQueryParameter("disableeditsection", "1")
+                .addQueryParameter("page", title)
+                .build();
+        JsonObject parse = parseObject(getJson(url));
+        if (parse == null || !parse.has("text")) {
+            return null;
+        }
+
+        int found = -1;
+        JsonArray sections = parse.has("sections") ? parse.getAsJsonArray("sections") : new JsonArray();
+        for (JsonElement el : sections) {
+            JsonObject sec = el.getAsJsonObject();
+            String line = sec.has("line") ? sec.get("line").getAsString() : "";
+            int level = sec.has("toclevel") ? sec.get("toclevel").getAsInt() : 0;
+            if (level == 1 && line.toLowerCase(Locale.ROOT).contains("drop")) {
+                try {
+                    found = Integer.parseInt(sec.get("index").getAsString());
+                } catch (NumberFormatException ignored) {
+                    // transcluded sections have non-numeric indices
+                }
+                if (found >= 0) {
+                    break;
+                }
+            }
+        }
+
+        String resolved = parse.has("title") ? parse.get("title").getAsString() : title;
+        int pageId = parse.has("pageid") ? parse.get("pageid").getAsInt() : 0;
+        long revId = parse.has("revid") ? parse.get("revid").getAsLong() : 0L;
+        JsonElement text = parse.get("text");
+        String html = text.isJsonObject() ? text.getAsJsonObject().get("*").getAsString() : text.getAsString();
+        boolean changed = remember(title, resolved, pageId);
+        PageRef ref = titles.get(key(title));
+        if (ref != null && ref.dropsSection != found) {
+            ref.dropsSection = found;
+            changed = true;
+        }
+        if (changed) {
+            saveTitles();
+        }
+        return new Section(resolved, pageId, revId, html, combatLevel(title));
+    }
+
+    private int combatLevel(String title) {
+        PageRef ref = titles.get(key(title));
+        return ref != null ? ref.combatLevel : 0;
+    }
+
+    private static JsonObject parseObject(JsonElement body) {
+        JsonObject root = body.getAsJsonObject();
+        return root.has("parse") ? root.getAsJsonObject("parse") : null;
+    }
+
+    /** Map each requested title through normalization and redirects to its page. */
+    private static void parsePageQuery(JsonElement body, List<String> batch, Map<String, PageInfo> out) {
+        JsonObject query = body.getAsJsonObject().getAsJsonObject("query");
+        if (query == null) {
+            return;
+        }
+
+        Map<String, String> renames = new HashMap<>();
+        for (String kind : new String[] { "normalized", "redirects" }) {
+            JsonArray arr = query.getAsJsonArray(kind);
+            if (arr == null) {
+                continue;
+            }
+            for (JsonElement el : arr) {
+                JsonObject o = el.getAsJsonObject();
+                renames.put(o.get("from").getAsString(), o.get("to").getAsString());
+            }
+        }
+
+        Map<String, PageInfo> byTitle = new HashMap<>();
+        JsonObject pages = query.getAsJsonObject("pages");
+        if (pages != null) {
+            for (Map.Entry<String, JsonElement> e : pages.entrySet()) {
+                JsonObject page = e.getValue().getAsJsonObject();
+                if (page.has("missing") || !page.has("pageid")) {
+                    continue;
+                }
+                long revId = page.has("lastrevid") ? page.get("lastrevid").getAsLong() : 0L;
+                JsonArray revs = page.getAsJsonArray("revisions");
+                if (revs != null && revs.size() > 0) {
+                    revId = revs.get(0).getAsJsonObject().get("revid").getAsLong();
+                }
+                String title = page.get("title").getAsString();
+                byTitle.put(title, new PageInfo(title, page.get("pageid").getAsInt(), revId));
+            }
+        }
+
+        for (String requested : batch) {
+            String t = requested;
+            // normalized then redirect; bounded to avoid cycles
+            for (int hop = 0; hop < 3 && renames.containsKey(t); hop++) {
+                t = renames.get(t);
+            }
+            PageInfo info = byTitle.get(t);
+            if (info != null) {
+                out.put(requested, info);
+            }
+        }
+    }
+
+    private JsonElement getJson(HttpUrl url) throws IOException {
+        return execute(url, body -> new JsonParser().parse(body));
+    }
+
+    /** Send a request through the {@link WikiRequestScheduler}, which paces and retries it. */
+    private <T> T execute(HttpUrl url, BodyReader<T> reader) throws IOException {
+        Request req = new Request.Builder()
+                .url(url)
+                .header("User-Agent", USER_AGENT)
+                .build();
+        return scheduler.call(() -> {
+            try (Response res = httpClient.newCall(req).execute()) {
+                if (!res.isSuccessful()) {
+                    throw new WikiRequestScheduler.HttpStatusException(res.code(),
+                            parseRetryAfter(res.header("Retry-After")));
+                }
+                return reader.read(res.body().charStream());
+            }
+        });
+    }
+
+    /** @return the delay requested by a Retry-After header in milliseconds, or -1 */
+    private static long parseRetryAfter(String header) {
+        if (header == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(header.trim())) * 1000L;
+        } catch (NumberFormatException ex) {
+            // HTTP-date form; fall back to our own backoff
+            return -1;
+        }
+    }
+
+    private boolean remember(String requested, String resolved, int pageId) {
+        if (pageId <= 0) {
+            return false;
+        }
+        PageRef ref = titles.computeIfAbsent(key(requested), k -> new PageRef());
+        if (ref.pageId == pageId && Objects.equals(ref.title, resolved)) {
+            return false;
+        }
+        if (ref.pageId != pageId) {
+            ref.dropsSection = -1;
+            ref.combatLevel = 0;
+        }
+        ref.pageId = pageId;
+        ref.title = resolved;
+        return true;
+    }
+
+    private static String npcKey(int npcId) {
+        // '#' cannot appear in a wiki title, so these never collide
+        return "#npc:" + npcId;
+    }
+
+    private static String key(String title) {
+        String t = title.trim().replace('_', ' ');
+        if (t.isEmpty()) {
+            return t;
+        }
+        return Character.toUpperCase(t.charAt(0)) + t.substring(1);
+    }
+
+    private void loadTitles() {
+        if (titlesLoaded) {
+            return;
+        }
+        synchronized (titles) {
+            if (titlesLoaded) {
+                return;
+            }
+            if (titleCacheFile != null && Files.exists(titleCacheFile)) {
+                try (Reader r = Files.newBufferedReader(titleCacheFile, StandardCharsets.UTF_8)) {
+                    Map<String, PageRef> loaded = gson.fromJson(r, TITLE_MAP_TYPE);
+                    if (loaded != null) {
+                        titles.putAll(loaded);
+                    }
+                } catch (Exception ex) {
+                    log.warn("Discarding unreadable wiki title cache {}", titleCacheFile, ex);
+                }
+            }
+            titlesLoaded = true;
+        }
+    }
+
+    /** Start the executor that persists the title cache. */
+    public synchronized void startUp() {
+        if (saveExecutor == null || saveExecutor.isShutdown()) {
+            saveExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("wiki-titles").setDaemon(true).build());
+        }
+    }
+
+    /** Stop the save executor and write any pending title changes. */
+    public void shutdown() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = saveExecutor;
+            saveExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (titleSaveQueued.getAndSet(false)) {
+            writeTitles();
+        }
+    }
+
+    /**
+     * Persist the title cache after {@link #TITLE_SAVE_DELAY_MS}, once for
+     * every change made in the meantime. Without a running executor, as in
+     * tests, the cache is written straight away.
+     */
+    private void saveTitles() {
+        if (titleCacheFile == null) {
+            return;
+        }
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = saveExecutor;
+        }
+        if (executor == null) {
+            writeTitles();
+            return;
+        }
+        if (titleSaveQueued.compareAndSet(false, true)) {
+            try {
+                executor.schedule(() -> {
+                    titleSaveQueued.set(false);
+                    writeTitles();
+                }, TITLE_SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                // shut down meanwhile; shutdown() writes what is pending
+            }
+        }
+    }
+
+    private void writeTitles() {
+        synchronized (titles) {
+            Path tmp = titleCacheFile.resolveSibling(titleCacheFile.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(titleCacheFile.getParent());
+                Files.writeString(
+                        tmp,
+                        gson.toJson(new HashMap<>(titles), TITLE_MAP_TYPE),
+                        StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                Files.move(tmp, titleCacheFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                log.debug("Failed to persist wiki title cache", ex);
+            } finally {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
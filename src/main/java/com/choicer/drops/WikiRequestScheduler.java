@@ -0,0 +1,550 @@
+package com.choicer.drops;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gatekeeper for every request sent to the wiki.
+ * <ul>
+ * <li>a token bucket caps the sustained request rate</li>
+ * <li>the number of requests in flight adapts AIMD-style: it grows slowly
+ * while the wiki answers quickly and halves on HTTP 429/5xx or network
+ * errors, shrinking further while latency stays high</li>
+ * <li>throttled and failed requests are retried with jittered exponential
+ * backoff, honouring {@code Retry-After}</li>
+ * <li>waiting requests are admitted by {@link FetchPriority} lane</li>
+ * <li>a lane may carry a per-minute budget, charged for every request it
+ * makes</li>
+ * </ul>
+ * Submitted tasks wait in per-lane queues and are handed to a pool thread
+ * only once they hold a concurrency permit, which they keep until they
+ * finish; requests they make only wait for the rate limit. A parked
+ * low-priority task therefore never occupies a thread a user request needs.
+ * A task backing off before a retry hands its permit back meanwhile, as long
+ * as no more tasks than permits are already doing so; the pool keeps a
+ * thread for each of those on top of one per permit.
+ */
+@Slf4j
+@Singleton
+public class WikiRequestScheduler {
+    private static final ThreadLocal<FetchPriority> PRIORITY = new ThreadLocal<>();
+    /** Set on pool threads running a task that already holds a permit. */
+    private static final ThreadLocal<Boolean> HOLDS_PERMIT = new ThreadLocal<>();
+
+    private final double ratePerSecond;
+    private final double burst;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long slowLatencyMillis;
+    private final Clock clock;
+
+    private final Object lock = new Object();
+    private final int[] waiting = new int[FetchPriority.values().length];
+    private final ArrayDeque<LaneTask>[] pending;
+    /** Per-lane requests per minute, or negative for no budget. */
+    private final double[] budgetRate = new double[FetchPriority.values().length];
+    private final double[] budget = new double[FetchPriority.values().length];
+    private final long[] budgetRefill = new long[FetchPriority.values().length];
+    private double tokens;
+    private long lastRefill;
+    private double limit;
+    private int inFlight;
+    /** Tasks that handed their permit back for a retry backoff. */
+    private int backingOff;
+    private long pausedUntil;
+    private double latencyEwma = -1;
+
+    private ThreadPoolExecutor executor;
+
+    @Inject
+    public WikiRequestScheduler() {
+        this(4.0, 8, 1, 4, 4, 500, 30_000, 4_000);
+    }
+
+    WikiRequestScheduler(double ratePerSecond, int burst, int minConcurrency, int maxConcurrency,
+            int maxAttempts, long baseBackoffMillis, long maxBackoffMillis, long slowLatencyMillis) {
+        this(ratePerSecond, burst, minConcurrency, maxConcurrency, maxAttempts, baseBackoffMillis,
+                maxBackoffMillis, slowLatencyMillis, Clock.SYSTEM);
+    }
+
+    @SuppressWarnings("unchecked")
+    WikiRequestScheduler(double ratePerSecond, int burst, int minConcurrency, int maxConcurrency,
+            int maxAttempts, long baseBackoffMillis, long maxBackoffMillis, long slowLatencyMillis,
+            Clock clock) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.slowLatencyMillis = slowLatencyMillis;
+        this.clock = clock;
+        this.tokens = burst;
+        this.limit = Math.min(maxConcurrency, Math.max(minConcurrency, 2));
+        this.lastRefill = clock.nanoTime();
+        this.pausedUntil = lastRefill;
+        this.pending = new ArrayDeque[FetchPriority.values().length];
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = new ArrayDeque<>();
+        }
+        Arrays.fill(budgetRate, -1);
+    }
+
+    /** Time source and waits, replaced in tests. */
+    interface Clock {
+        Clock SYSTEM = new Clock() {
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+
+            @Override
+            public void await(Object monitor, long nanos) throws InterruptedException {
+                TimeUnit.NANOSECONDS.timedWait(monitor, nanos);
+            }
+
+            @Override
+            public void sleep(long millis) throws InterruptedException {
+                Thread.sleep(millis);
+            }
+        };
+
+        long nanoTime();
+
+        /** Wait on {@code monitor}, which the caller holds, for at most {@code nanos}. */
+        void await(Object monitor, long nanos) throws InterruptedException;
+
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    /** A unit of blocking I/O work. */
+    @FunctionalInterface
+    public interface IOCallable<T> {
+        T call() throws IOException;
+    }
+
+    /** Non-success HTTP status from the wiki. */
+    @Getter
+    public static final class HttpStatusException extends IOException {
+        private final int code;
+        private final long retryAfterMillis;
+
+        public HttpStatusException(int code, long retryAfterMillis) {
+            super("HTTP " + code);
+            this.code = code;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        boolean isRetryable() {
+            return code == 429 || code >= 500;
+        }
+    }
+
+    /**
+     * Queue {@code task} in the given lane; it runs on the fetch pool once a
+     * concurrency permit is free and no higher lane is waiting. Requests the
+     * task makes through {@link #call} inherit the lane.
+     */
+    public <T> CompletableFuture<T> submit(FetchPriority priority, IOCallable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        LaneTask queued = new LaneTask(future, () -> {
+            try {
+                future.complete(withPriority(priority, task));
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        synchronized (lock) {
+            pending[priority.ordinal()].add(queued);
+        }
+        dispatch();
+        return future;
+    }
+
+    /** Run {@code task} on the calling thread with requests tagged as {@code priority}. */
+    public static <T> T withPriority(FetchPriority priority, IOCallable<T> task) throws IOException {
+        FetchPriority previous = PRIORITY.get();
+        PRIORITY.set(priority);
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) {
+                PRIORITY.remove();
+            } else {
+                PRIORITY.set(previous);
+            }
+        }
+    }
+
+    /** @return the lane of the current thread; untagged callers count as user requests */
+    public static FetchPriority currentPriority() {
+        FetchPriority p = PRIORITY.get();
+        return p != null ? p : FetchPriority.USER;
+    }
+
+    /**
+     * Perform one HTTP exchange under the rate limit and concurrency limit,
+     * retrying throttled, server-side and network failures. A task holding
+     * a permit hands it back while it backs off and waits for one again in
+     * its own lane before retrying, so a sleeping retry does not hold up the
+     * queue.
+     */
+    public <T> T call(IOCallable<T> request) throws IOException {
+        FetchPriority priority = currentPriority();
+        boolean holdsPermit = HOLDS_PERMIT.get() != null;
+        // set while the task's permit is handed back for a backoff
+        boolean lent = false;
+        IOException last = null;
+        try {
+            for (int attempt = 0; attempt < maxAttempts; attempt++) {
+                acquire(priority, holdsPermit && !lent);
+                if (lent) {
+                    endBackoff(false);
+                    lent = false;
+                }
+                long start = clock.nanoTime();
+                // only throttling, server errors and network failures count as congestion
+                boolean congested = false;
+                long retryAfter = -1;
+                try {
+                    return request.call();
+                } catch (HttpStatusException ex) {
+                    if (!ex.isRetryable()) {
+                        throw ex;
+                    }
+                    congested = true;
+                    retryAfter = ex.getRetryAfterMillis();
+                    last = ex;
+                } catch (InterruptedIOException ex) {
+                    throw ex;
+                } catch (IOException ex) {
+                    congested = true;
+                    last = ex;
+                } finally {
+                    release(clock.nanoTime() - start, congested, retryAfter, holdsPermit);
+                }
+
+                if (attempt + 1 < maxAttempts) {
+                    long delay = backoff(attempt, retryAfter);
+                    log.debug("Wiki request failed ({}); retrying in {} ms", last.getMessage(), delay);
+                    lent = holdsPermit && startBackoff();
+                    try {
+                        clock.sleep(delay);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted during wiki retry backoff");
+                    }
+                }
+            }
+            throw last;
+        } finally {
+            if (lent) {
+                // the task still releases a permit when it ends
+                endBackoff(true);
+            }
+        }
+    }
+
+    /** @return whether the calling task's permit was handed back for its backoff */
+    private boolean startBackoff() {
+        synchronized (lock) {
+            // each one keeps a pool thread busy without a permit
+            if (backingOff >= maxConcurrency) {
+                return false;
+            }
+            backingOff++;
+            inFlight--;
+            lock.notifyAll();
+        }
+        dispatch();
+        return true;
+    }
+
+    /** @param retake whether to take the permit back without waiting, when giving up */
+    private void endBackoff(boolean retake) {
+        synchronized (lock) {
+            backingOff--;
+            if (retake) {
+                inFlight++;
+            }
+        }
+    }
+
+    /**
+     * Limit {@code lane} to {@code perMinute} wiki requests, charged as each
+     * request is sent, so a task that makes several requests pays for each.
+     * Requests are never held back by the budget; callers check
+     * {@link #hasBudget} before submitting more work. At most one request's
+     * worth of budget is banked, so idle time does not turn into a burst.
+     */
+    public void setBudget(FetchPriority lane, int perMinute) {
+        int i = lane.ordinal();
+        synchronized (lock) {
+            if (budgetRate[i] == perMinute) {
+                return;
+            }
+            long now = clock.nanoTime();
+            if (budgetRate[i] < 0) {
+                budget[i] = 0;
+            } else {
+                refillBudget(i, now);
+            }
+            budgetRate[i] = perMinute;
+            budgetRefill[i] = now;
+        }
+    }
+
+    /** @return whether {@code lane} may send another request under its budget */
+    public boolean hasBudget(FetchPriority lane) {
+        int i = lane.ordinal();
+        synchronized (lock) {
+            if (budgetRate[i] < 0) {
+                return true;
+            }
+            refillBudget(i, clock.nanoTime());
+            return budget[i] >= 1;
+        }
+    }
+
+    /** @return the current adaptive concurrency limit */
+    public int getConcurrencyLimit() {
+        synchronized (lock) {
+            return (int) limit;
+        }
+    }
+
+    /** Start the fetch pool if it is missing or has been shut down. */
+    public void startUp() {
+        ensureExecutor();
+    }
+
+    /**
+     * Stop the fetch pool; queued tasks are cancelled and waiting requests
+     * interrupted.
+     */
+    public void shutdown() {
+        List<LaneTask> dropped = new ArrayList<>();
+        synchronized (lock) {
+            for (ArrayDeque<LaneTask> lane : pending) {
+                dropped.addAll(lane);
+                lane.clear();
+            }
+        }
+        for (LaneTask task : dropped) {
+            task.future.cancel(false);
+        }
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+    }
+
+    private synchronized ThreadPoolExecutor ensureExecutor() {
+        if (executor == null || executor.isShutdown()) {
+            // every running task holds a permit or is one of at most maxConcurrency backing off
+            executor = new ThreadPoolExecutor(
+                    maxConcurrency * 2, maxConcurrency * 2, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new ThreadFactoryBuilder().setNameFormat("dropfetch-%d").build());
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    /**
+     * Start queued tasks, highest lane first, while permits are free. Lanes
+     * at or below one with a caller blocked in {@link #acquire} are left for
+     * that caller.
+     */
+    private void dispatch() {
+        List<LaneTask> admitted = new ArrayList<>();
+        synchronized (lock) {
+            for (int lane = 0; lane < pending.length && waiting[lane] == 0; lane++) {
+                ArrayDeque<LaneTask> queue = pending[lane];
+                while (!queue.isEmpty() && inFlight < (int) limit) {
+                    LaneTask task = queue.poll();
+                    if (task.future.isDone()) {
+                        continue; // cancelled while queued
+                    }
+                    inFlight++;
+                    admitted.add(task);
+                }
+                if (!queue.isEmpty()) {
+                    break;
+                }
+            }
+            if (!admitted.isEmpty()) {
+                lock.notifyAll();
+            }
+        }
+        for (LaneTask task : admitted) {
+            try {
+                ensureExecutor().execute(() -> runHolding(task));
+            } catch (RejectedExecutionException ex) {
+                // shut down meanwhile
+                task.future.cancel(false);
+                releasePermit();
+            }
+        }
+    }
+
+    private void runHolding(LaneTask task) {
+        HOLDS_PERMIT.set(Boolean.TRUE);
+        try {
+            if (!task.future.isDone()) {
+                task.task.run();
+            }
+        } finally {
+            HOLDS_PERMIT.remove();
+            releasePermit();
+        }
+    }
+
+    private void releasePermit() {
+        synchronized (lock) {
+            inFlight--;
+            lock.notifyAll();
+        }
+        dispatch();
+    }
+
+    /**
+     * Wait for the rate limit and, unless the caller already holds one, for
+     * a concurrency permit.
+     */
+    private void acquire(FetchPriority priority, boolean holdsPermit) throws InterruptedIOException {
+        int lane = priority.ordinal();
+        synchronized (lock) {
+            if (!holdsPermit) {
+                waiting[lane]++;
+            }
+            try {
+                while (true) {
+                    long waitNanos = 0;
+                    if (holdsPermit || !higherLaneWaiting(lane) && inFlight < (int) limit) {
+                        long now = clock.nanoTime();
+                        if (now - pausedUntil < 0) {
+                            waitNanos = pausedUntil - now;
+                        } else {
+                            refill(now);
+                            if (tokens >= 1) {
+                                tokens -= 1;
+                                if (!holdsPermit) {
+                                    inFlight++;
+                                }
+                                if (budgetRate[lane] >= 0) {
+                                    // may go into debt; the lane's caller stops until it is repaid
+                                    refillBudget(lane, now);
+                                    budget[lane] -= 1;
+                                }
+                                return;
+                            }
+                            waitNanos = (long) ((1 - tokens) / ratePerSecond * 1e9);
+                        }
+                    }
+                    if (waitNanos > 0) {
+                        clock.await(lock, waitNanos);
+                    } else {
+                        lock.wait();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a wiki request slot");
+            } finally {
+                if (!holdsPermit) {
+                    waiting[lane]--;
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void release(long latencyNanos, boolean congested, long retryAfterMillis, boolean holdsPermit) {
+        synchronized (lock) {
+            if (!holdsPermit) {
+                inFlight--;
+            }
+            if (congested) {
+                limit = Math.max(minConcurrency, limit / 2);
+                if (retryAfterMillis > 0) {
+                    // the server asked everyone to hold off, not just this request
+                    long until = clock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+                    if (until - pausedUntil > 0) {
+                        pausedUntil = until;
+                    }
+                }
+            } else {
+                double ms = latencyNanos / 1e6;
+                latencyEwma = latencyEwma < 0 ? ms : latencyEwma * 0.8 + ms * 0.2;
+                if (latencyEwma > slowLatencyMillis) {
+                    limit = Math.max(minConcurrency, limit * 0.75);
+                } else {
+                    limit = Math.min(maxConcurrency, limit + 1.0 / limit);
+                }
+            }
+            lock.notifyAll();
+        }
+        // a grown limit or freed permit may admit queued tasks
+        dispatch();
+    }
+
+    private boolean higherLaneWaiting(int lane) {
+        for (int i = 0; i < lane; i++) {
+            if (waiting[i] > 0 || !pending[i].isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) / 1e9 * ratePerSecond);
+        lastRefill = now;
+    }
+
+    private void refillBudget(int lane, long now) {
+        budget[lane] = Math.min(1, budget[lane] + (now - budgetRefill[lane]) / 60e9 * budgetRate[lane]);
+        budgetRefill[lane] = now;
+    }
+
+    /** Jittered exponential backoff, never shorter than the server's Retry-After. */
+    private long backoff(int attempt, long retryAfterMillis) {
+        long cap = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 16));
+        long delay = ThreadLocalRandom.current().nextLong(cap / 2, cap + 1);
+        return Math.max(delay, retryAfterMillis);
+    }
+
+    /** A submitted task waiting in its lane for a permit. */
+    private static final class LaneTask {
+        private final CompletableFuture<?> future;
+        private final Runnable task;
+
+        LaneTask(CompletableFuture<?> future, Runnable task) {
+            this.future = future;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.choicer.managers;
+
+/**
+ * Builds the choices offered when an obtained item triggers a roll. Shared
+ * by {@link RollAnimationManager} and {@link CompletionSimulator}, so the
+ * simulated rolls follow exactly the rules of the real ones. Writes into a
+ * caller-owned array and allocates nothing, as the simulator calls it
+ * millions of times.
+ */
+public final class ChoicerOptionGenerator {
+    /** Where the generator draws candidates from. */
+    public interface ItemPool {
+        boolean isRolled(int itemId);
+
+        boolean isTradeable(int itemId);
+
+        /** @return a random item that is not rolled yet, or 0 if none are left */
+        int randomLocked();
+
+        /** @return a random tradeable item, rolled or not, or 0 if there are none */
+        int randomTradeable();
+
+        /** @return number of items the pool draws from; bounds the attempts */
+        int size();
+    }
+
+    private ChoicerOptionGenerator() {
+    }
+
+    /** @return the configured option count, clamped to what the overlay can show */
+    public static int optionCount(int configured) {
+        return Math.max(2, Math.min(5, configured));
+    }
+
+    /**
+     * Fill {@code out} with up to {@code target} distinct options: the
+     * obtained item first if it is still locked, then random locked items.
+     * If none of them is tradeable, one random tradeable item replaces the
+     * first untradeable option, so every roll offers at least one.
+     *
+     * @param out array of at least {@code target} elements
+     * @return number of options written
+     */
+    public static int generate(int obtainedItemId, int target, ItemPool pool, int[] out) {
+        int n = 0;
+        boolean hasTradeableOption = obtainedItemId != 0 && pool.isTradeable(obtainedItemId);
+        if (obtainedItemId != 0 && !pool.isRolled(obtainedItemId)) {
+            out[n++] = obtainedItemId;
+        }
+
+        int attemptsLeft = Math.max(target * 3, pool.size());
+        while (n < target && attemptsLeft-- > 0) {
+            int candidate = pool.randomLocked();
+            if (candidate == 0) {
+                break;
+            }
+            if (indexOf(out, n, candidate) < 0) {
+                out[n++] = candidate;
+            }
+            if (pool.isTradeable(candidate)) {
+                hasTradeableOption = true;
+            }
+        }
+
+        if (!hasTradeableOption) {
+            int failsafe = pool.randomTradeable();
+            if (failsafe != 0 && indexOf(out, n, failsafe) < 0) {
+                if (n >= target) {
+                    int drop = 0;
+                    for (int i = 0; i < n; i++) {
+                        if (!pool.isTradeable(out[i])) {
+                            drop = i;
+                            break;
+                        }
+                    }
+                    System.arraycopy(out, drop + 1, out, drop, n - drop - 1);
+                    n--;
+                }
+                if (n < target) {
+                    out[n++] = failsafe;
+                }
+            }
+        }
+        return n;
+    }
+
+    private static int indexOf(int[] a, int n, int value) {
+        for (int i = 0; i < n; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,576 @@
+package com.choicer.managers;
+
+import com.choicer.ChoicerConfig;
+import com.choicer.drops.DropItem;
+import com.choicer.drops.DropTableSection;
+import com.choicer.drops.NpcDropData;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Monte-Carlo estimate of how many kills of one NPC it takes to roll a set
+ * of target items.
+ * <p>
+ * A trial replays the plugin's rules: every first drop of a not-yet-obtained
+ * item triggers a roll whose options come from {@link ChoicerOptionGenerator},
+ * and the player takes a target whenever one is offered. Only first drops
+ * matter, so instead of simulating kill by kill each row's first drop is
+ * drawn once from the geometric distribution and the rows are replayed in
+ * kill order. Trials are split over a fork/join pool; every subtree draws
+ * from its own {@link SplittableRandom}, split off before forking, so a seed
+ * gives the same answer at any parallelism. Partial results are published as
+ * leaves finish.
+ */
+@Slf4j
+@Singleton
+public class CompletionSimulator {
+    private static final int LEAF_TRIALS = 2_048;
+    private static final long PUBLISH_INTERVAL_MS = 100L;
+    /** Kills beyond which a row is treated as never dropping. */
+    static final long HORIZON = 1L << 40;
+
+    private final ChoicerConfig config;
+    private final RolledItemsManager rolledItemsManager;
+    private final ObtainedItemsManager obtainedItemsManager;
+    private final RollAnimationManager rollAnimationManager;
+
+    private ForkJoinPool pool;
+
+    @Inject
+    public CompletionSimulator(ChoicerConfig config, RolledItemsManager rolledItemsManager,
+            ObtainedItemsManager obtainedItemsManager, RollAnimationManager rollAnimationManager) {
+        this.config = config;
+        this.rolledItemsManager = rolledItemsManager;
+        this.obtainedItemsManager = obtainedItemsManager;
+        this.rollAnimationManager = rollAnimationManager;
+    }
+
+    /**
+     * The fixed inputs of a simulation: the NPC's rollable, not-yet-obtained
+     * rows with their per-kill chance, the targets still to roll, and the
+     * item pools the options are drawn from. Item lookups go through tables
+     * indexed by item ID rather than searches, as trials do little else.
+     */
+    public static final class Scenario {
+        final int[] rowItems;
+        final double[] rowLogMiss;
+        final int[] targets;
+        final int[] lockable;
+        final int[] tradeable;
+        final int poolSize;
+        final int optionCount;
+        /** Item ID to its index in {@link #lockable}, or -1. */
+        private final int[] lockIndex;
+        private final long[] tradeableBits;
+        private final long[] targetBits;
+
+        Scenario(int[] rowItems, double[] rowChances, int[] targets, int[] lockable, int[] tradeable,
+                int poolSize, int optionCount) {
+            this.rowItems = rowItems;
+            this.rowLogMiss = new double[rowChances.length];
+            for (int i = 0; i < rowChances.length; i++) {
+                rowLogMiss[i] = Math.log1p(-Math.min(1d, rowChances[i]));
+            }
+            this.targets = targets;
+            this.lockable = lockable;
+            this.tradeable = tradeable;
+            this.poolSize = poolSize;
+            this.optionCount = ChoicerOptionGenerator.optionCount(optionCount);
+
+            int maxId = 0;
+            for (int[] ids : new int[][] { rowItems, targets, lockable, tradeable }) {
+                for (int id : ids) {
+                    maxId = Math.max(maxId, id);
+                }
+            }
+            lockIndex = new int[maxId + 1];
+            Arrays.fill(lockIndex, -1);
+            for (int i = 0; i < lockable.length; i++) {
+                lockIndex[lockable[i]] = i;
+            }
+            tradeableBits = bits(tradeable, maxId);
+            targetBits = bits(targets, maxId);
+        }
+
+        private static long[] bits(int[] ids, int maxId) {
+            long[] bits = new long[(maxId >>> 6) + 1];
+            for (int id : ids) {
+                bits[id >>> 6] |= 1L << id;
+            }
+            return bits;
+        }
+
+        int lockIndexOf(int itemId) {
+            return itemId >= 0 && itemId < lockIndex.length ? lockIndex[itemId] : -1;
+        }
+
+        boolean isTradeable(int itemId) {
+            return itemId >= 0 && itemId < lockIndex.length && (tradeableBits[itemId >>> 6] & 1L << itemId) != 0;
+        }
+
+        boolean isTarget(int itemId) {
+            return itemId >= 0 && itemId < lockIndex.length && (targetBits[itemId >>> 6] & 1L << itemId) != 0;
+        }
+
+        /**
+         * @param rollable     every item that can be rolled, rolled or not
+         * @param tradeable    the GE-tradeable subset of {@code rollable}
+         * @param isRolled     current rolled state
+         * @param isObtained   current obtained state
+         */
+        public static Scenario of(NpcDropData npc, Collection<Integer> targets, Set<Integer> rollable,
+                Set<Integer> tradeable, IntPredicate isRolled, IntPredicate isObtained, int optionCount) {
+            // An item listed in several sections drops if any row hits.
+            Map<Integer, Double> miss = new HashMap<>();
+            for (DropTableSection sec : npc.getDropTableSections()) {
+                for (DropItem item : sec.getItems()) {
+                    int id = item.getItemId();
+                    double chance = item.getParsedRarity().getChance();
+                    if (id <= 0 || chance <= 0 || !rollable.contains(id) || isObtained.test(id)) {
+                        continue;
+                    }
+                    miss.merge(id, 1d - chance, (a, b) -> a * b);
+                }
+            }
+            int[] rowItems = new int[miss.size()];
+            double[] rowChances = new double[miss.size()];
+            int n = 0;
+            for (Map.Entry<Integer, Double> e : miss.entrySet()) {
+                rowItems[n] = e.getKey();
+                rowChances[n++] = 1d - e.getValue();
+            }
+
+            int[] lockable = rollable.stream().mapToInt(Integer::intValue).filter(id -> !isRolled.test(id))
+                    .sorted().toArray();
+            int[] wanted = targets.stream().mapToInt(Integer::intValue)
+                    .filter(id -> Arrays.binarySearch(lockable, id) >= 0)
+                    .distinct().sorted().toArray();
+            int[] strict = tradeable.stream().mapToInt(Integer::intValue).sorted().toArray();
+            return new Scenario(rowItems, rowChances, wanted, lockable, strict, rollable.size(), optionCount);
+        }
+
+        /** @return number of targets that still need rolling */
+        public int getTargetCount() {
+            return targets.length;
+        }
+    }
+
+    /** Snapshot of a running or finished simulation. */
+    @Getter
+    public static final class Result {
+        private final long trials;
+        private final long completed;
+        private final double meanKills;
+        private final long medianKills;
+        private final long p90Kills;
+        private final long p99Kills;
+        private final double secondsPerKill;
+        private final boolean done;
+        /** Every target was already rolled or is not rollable, so no trials ran. */
+        private final boolean nothingToRoll;
+
+        Result(Tally t, double secondsPerKill, boolean done) {
+            this(t, secondsPerKill, done, false);
+        }
+
+        private Result(Tally t, double secondsPerKill, boolean done, boolean nothingToRoll) {
+            this.trials = t.trials;
+            this.completed = t.completed;
+            this.meanKills = t.completed > 0 ? t.killSum / t.completed : 0d;
+            this.medianKills = t.percentile(0.5);
+            this.p90Kills = t.percentile(0.9);
+            this.p99Kills = t.percentile(0.99);
+            this.secondsPerKill = secondsPerKill;
+            this.done = done;
+            this.nothingToRoll = nothingToRoll;
+        }
+
+        /** @return share of trials that rolled every target within the horizon */
+        public double getCompletionRate() {
+            return trials > 0 ? (double) completed / trials : 0d;
+        }
+
+        public double getMeanHours() {
+            return meanKills * secondsPerKill / 3600d;
+        }
+    }
+
+    /** A running simulation; cancel it to stop the remaining trials. */
+    public static final class Simulation {
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+        private volatile boolean cancelled;
+
+        public CompletableFuture<Result> getResult() {
+            return result;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            result.completeExceptionally(new CancellationException());
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Simulate killing {@code npc} until every item of {@code targets} is
+     * rolled, using the configured option count, trial count and kill time
+     * and the current rolled and obtained state.
+     *
+     * @param onProgress receives partial results, on a pool thread
+     */
+    public Simulation simulate(NpcDropData npc, Collection<Integer> targets, Consumer<Result> onProgress) {
+        Scenario scenario = Scenario.of(npc, targets,
+                rollAnimationManager.getAllTradeableItems(),
+                rollAnimationManager.getStrictlyTradeableItems(),
+                rolledItemsManager::isRolled,
+                obtainedItemsManager::isObtained,
+                config.choicerOptionCount());
+        long trials = config.simulationTrialsThousands() * 1_000L;
+        return run(scenario, trials, config.simulationSecondsPerKill(), ensurePool(),
+                new SplittableRandom(), onProgress);
+    }
+
+    public synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+    private synchronized ForkJoinPool ensurePool() {
+        if (pool == null || pool.isShutdown()) {
+            pool = newPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        }
+        return pool;
+    }
+
+    static ForkJoinPool newPool(int parallelism) {
+        AtomicInteger seq = new AtomicInteger();
+        return new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("choicer-sim-" + seq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    static Simulation run(Scenario scenario, long trials, double secondsPerKill, ForkJoinPool pool,
+            SplittableRandom rng, Consumer<Result> onProgress) {
+        Simulation sim = new Simulation();
+        if (scenario.getTargetCount() == 0) {
+            Result nothing = new Result(new Tally(), secondsPerKill, true, true);
+            if (onProgress != null) {
+                onProgress.accept(nothing);
+            }
+            sim.result.complete(nothing);
+            return sim;
+        }
+        Collector collector = new Collector(sim, secondsPerKill, onProgress);
+        pool.execute(new TrialTask(scenario, 0, trials, rng, collector) {
+            @Override
+            protected void compute() {
+                try {
+                    super.compute();
+                    collector.finish();
+                } catch (RuntimeException ex) {
+                    log.warn("Completion simulation failed", ex);
+                    sim.result.completeExceptionally(ex);
+                }
+            }
+        });
+        return sim;
+    }
+
+    /** Merges leaf tallies and throttles progress updates. */
+    private static final class Collector {
+        private final Simulation sim;
+        private final double secondsPerKill;
+        private final Consumer<Result> onProgress;
+        private final Tally total = new Tally();
+        private long lastPublish;
+
+        Collector(Simulation sim, double secondsPerKill, Consumer<Result> onProgress) {
+            this.sim = sim;
+            this.secondsPerKill = secondsPerKill;
+            this.onProgress = onProgress;
+        }
+
+        void add(Tally leaf) {
+            Result partial = null;
+            synchronized (this) {
+                total.merge(leaf);
+                long now = System.currentTimeMillis();
+                if (now - lastPublish >= PUBLISH_INTERVAL_MS) {
+                    lastPublish = now;
+                    partial = new Result(total, secondsPerKill, false);
+                }
+            }
+            if (partial != null && onProgress != null && !sim.cancelled) {
+                onProgress.accept(partial);
+            }
+        }
+
+        void finish() {
+            Result done;
+            synchronized (this) {
+                done = new Result(total, secondsPerKill, true);
+            }
+            if (!sim.cancelled) {
+                if (onProgress != null) {
+                    onProgress.accept(done);
+                }
+                sim.result.complete(done);
+            }
+        }
+    }
+
+    private static class TrialTask extends RecursiveAction {
+        private final Scenario scenario;
+        private final long from;
+        private final long to;
+        private final SplittableRandom rng;
+        private final Collector collector;
+
+        TrialTask(Scenario scenario, long from, long to, SplittableRandom rng, Collector collector) {
+            this.scenario = scenario;
+            this.from = from;
+            this.to = to;
+            this.rng = rng;
+            this.collector = collector;
+        }
+
+        @Override
+        protected void compute() {
+            if (collector.sim.cancelled) {
+                return;
+            }
+            if (to - from <= LEAF_TRIALS) {
+                Trial trial = new Trial(scenario, rng);
+                Tally tally = new Tally();
+                for (long i = from; i < to; i++) {
+                    tally.add(trial.run());
+                }
+                collector.add(tally);
+                return;
+            }
+            long mid = (from + to) >>> 1;
+            // split before forking so the streams do not depend on scheduling
+            TrialTask left = new TrialTask(scenario, from, mid, rng.split(), collector);
+            TrialTask right = new TrialTask(scenario, mid, to, rng, collector);
+            invokeAll(left, right);
+        }
+    }
+
+    /**
+     * One worker's reusable trial state. The rolled state of a trial is a
+     * bit set over {@link Scenario#lockable}, cleared through the list of
+     * bits it set, so a trial costs nothing proportional to the pool size.
+     */
+    static final class Trial implements ChoicerOptionGenerator.ItemPool {
+        private final Scenario s;
+        private final SplittableRandom rng;
+        private final long[] events;
+        private final int rowBits;
+        private final long[] rolledBits;
+        private final int[] rolledList;
+        private final int[] options;
+        private int rolledCount;
+
+        Trial(Scenario s, SplittableRandom rng) {
+            this.s = s;
+            this.rng = rng;
+            this.events = new long[s.rowItems.length];
+            this.rowBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, s.rowItems.length));
+            this.rolledBits = new long[(s.lockable.length + 63) >>> 6];
+            this.rolledList = new int[s.rowItems.length];
+            this.options = new int[s.optionCount];
+        }
+
+        /** @return kills until every target was rolled, or -1 if that never happened */
+        long run() {
+            int remaining = s.targets.length;
+            if (remaining == 0) {
+                return 0;
+            }
+            int n = s.rowItems.length;
+            for (int i = 0; i < n; i++) {
+                double logMiss = s.rowLogMiss[i];
+                long kill;
+                if (logMiss == Double.NEGATIVE_INFINITY) {
+                    kill = 1;
+                } else {
+                    // geometric: first success of a Bernoulli(p) sequence
+                    double k = Math.floor(Math.log(1d - rng.nextDouble()) / logMiss) + 1d;
+                    kill = k < HORIZON ? (long) k : HORIZON;
+                }
+                events[i] = kill << rowBits | i;
+            }
+            Arrays.sort(events, 0, n);
+
+            long result = -1;
+            for (int e = 0; e < n; e++) {
+                long kill = events[e] >>> rowBits;
+                if (kill >= HORIZON) {
+                    break;
+                }
+                int obtained = s.rowItems[(int) (events[e] & ((1L << rowBits) - 1))];
+                int count = ChoicerOptionGenerator.generate(obtained, s.optionCount, this, options);
+                if (count == 0) {
+                    continue;
+                }
+                int chosen = options[0];
+                for (int i = 0; i < count; i++) {
+                    if (s.isTarget(options[i])) {
+                        chosen = options[i];
+                        break;
+                    }
+                }
+                if (markRolled(chosen) && s.isTarget(chosen) && --remaining == 0) {
+                    result = kill;
+                    break;
+                }
+            }
+
+            for (int i = 0; i < rolledCount; i++) {
+                rolledBits[rolledList[i] >>> 6] = 0L;
+            }
+            rolledCount = 0;
+            return result;
+        }
+
+        private boolean markRolled(int itemId) {
+            int idx = s.lockIndexOf(itemId);
+            if (idx < 0 || isRolledIndex(idx)) {
+                return false;
+            }
+            rolledBits[idx >>> 6] |= 1L << idx;
+            rolledList[rolledCount++] = idx;
+            return true;
+        }
+
+        private boolean isRolledIndex(int idx) {
+            return (rolledBits[idx >>> 6] & 1L << idx) != 0;
+        }
+
+        @Override
+        public boolean isRolled(int itemId) {
+            int idx = s.lockIndexOf(itemId);
+            return idx < 0 || isRolledIndex(idx);
+        }
+
+        @Override
+        public boolean isTradeable(int itemId) {
+            return s.isTradeable(itemId);
+        }
+
+        @Override
+        public int randomLocked() {
+            if (rolledCount >= s.lockable.length) {
+                return 0;
+            }
+            // few items are rolled per trial, so rejection almost never repeats
+            while (true) {
+                int idx = rng.nextInt(s.lockable.length);
+                if (!isRolledIndex(idx)) {
+                    return s.lockable[idx];
+                }
+            }
+        }
+
+        @Override
+        public int randomTradeable() {
+            return s.tradeable.length == 0 ? 0 : s.tradeable[rng.nextInt(s.tradeable.length)];
+        }
+
+        @Override
+        public int size() {
+            return s.poolSize;
+        }
+    }
+
+    /**
+     * Trial counts plus a log-linear histogram of kills: 16 sub-buckets per
+     * power of two, so percentiles are within about 6% and tallies merge by
+     * adding arrays.
+     */
+    static final class Tally {
+        private static final int SUB_BITS = 4;
+        private final long[] buckets = new long[64 << SUB_BITS];
+        long trials;
+        long completed;
+        double killSum;
+
+        void add(long kills) {
+            trials++;
+            if (kills < 0) {
+                return;
+            }
+            completed++;
+            killSum += kills;
+            buckets[bucket(kills)]++;
+        }
+
+        void merge(Tally other) {
+            trials += other.trials;
+            completed += other.completed;
+            killSum += other.killSum;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += other.buckets[i];
+            }
+        }
+
+        /** @return the kills at quantile {@code q} of the completed trials, 0 if none */
+        long percentile(double q) {
+            if (completed == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(q * completed);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= Math.max(1, rank)) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(buckets.length - 1);
+        }
+
+        private static int bucket(long v) {
+            if (v < (1L << SUB_BITS)) {
+                return (int) v;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (exp - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+            return ((exp - SUB_BITS + 1) << SUB_BITS) + sub;
+        }
+
+        private static long upperBound(int bucket) {
+            if (bucket < (1 << SUB_BITS)) {
+                return bucket;
+            }
+            int exp = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+            long sub = bucket & ((1 << SUB_BITS) - 1);
+            return ((1L << SUB_BITS | sub) << (exp - SUB_BITS)) + (1L << (exp - SUB_BITS)) - 1;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.choicer.managers;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Insertion-ordered set of item IDs kept in primitive arrays: the IDs in the
+ * order they were added, and an open-addressed table of positions into that
+ * order for membership. IDs are only ever added, or all replaced at once.
+ * Thread-safe; every method locks the set.
+ */
+public final class ItemIdSet {
+    private static final int[] EMPTY = new int[0];
+
+    // slots[i] is 1 + the position of an ID in order; 0 marks a free slot
+    private int[] slots = new int[64];
+    private int[] order = new int[32];
+    private int size;
+
+    public synchronized boolean contains(int id) {
+        return find(id) >= 0;
+    }
+
+    /** @return whether {@code id} was not in the set before */
+    public synchronized boolean add(int id) {
+        int mask = slots.length - 1;
+        int i = hash(id) & mask;
+        while (slots[i] != 0) {
+            if (order[slots[i] - 1] == id) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size * 2);
+        }
+        order[size++] = id;
+        slots[i] = size;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return true;
+    }
+
+    /** Replace the contents with {@code ids}, in their iteration order. */
+    public synchronized void replaceAll(Collection<Integer> ids) {
+        size = 0;
+        Arrays.fill(slots, 0);
+        for (Integer id : ids) {
+            if (id != null) {
+                add(id);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** @return the IDs in the order they were added */
+    public synchronized int[] toArray() {
+        return size == 0 ? EMPTY : Arrays.copyOf(order, size);
+    }
+
+    /** @return a boxed copy in insertion order, for callers that still take a {@code Set<Integer>} */
+    public synchronized Set<Integer> toSet() {
+        Set<Integer> out = new LinkedHashSet<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            out.add(order[i]);
+        }
+        return out;
+    }
+
+    private int find(int id) {
+        int mask = slots.length - 1;
+        int i = hash(id) & mask;
+        while (slots[i] != 0) {
+            if (order[slots[i] - 1] == id) {
+                return slots[i] - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int pos = 0; pos < size; pos++) {
+            int i = hash(order[pos]) & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = pos + 1;
+        }
+    }
+
+    private static int hash(int id) {
+        return (id * 0x9E3779B9) >>> 1;
+    }
+}
@@ -0,0 +1,13 @@
+package com.choicer.managers;
+
+/**
+ * Notified when a tracked item set (rolled or obtained) changes. Called on
+ * whichever thread made the change.
+ */
+public interface ItemSetListener {
+    /** A single item was added. */
+    void itemAdded(int itemId);
+
+    /** The whole set was replaced, e.g. by a load or cloud reconcile. */
+    void itemsReloaded();
+}
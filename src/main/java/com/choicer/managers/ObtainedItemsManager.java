@@ -2,8 +2,7 @@ package com.choicer.managers;
 
 import com.choicer.account.AccountManager;
 import com.choicer.persist.ConfigPersistence;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.choicer.persist.IntArrayAdapter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -12,10 +11,10 @@ import javax.inject.Singleton;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.Reader;
-import java.lang.reflect.Type;
 import java.nio.file.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 
 import static net.runelite.client.RuneLite.RUNELITE_DIR;
@@ -33,15 +32,11 @@ public class ObtainedItemsManager {
     private static final long CONFIG_DEBOUNCE_MS = 3000L;
     private static final long SELF_WRITE_GRACE_MS = 1500L;
     private static final long FS_DEBOUNCE_MS = 200L;
-    private static final Type SET_TYPE = new TypeToken<Set<Integer>>() {
-    }.getType();
-    private final Set<Integer> obtainedItems = Collections.synchronizedSet(new LinkedHashSet<>());
+    private final ItemIdSet obtainedItems = new ItemIdSet();
 
     @Inject
     private AccountManager accountManager;
     @Inject
-    private Gson gson;
-    @Inject
     private ConfigPersistence configPersistence;
 
     @Setter
@@ -49,6 +44,8 @@ public class ObtainedItemsManager {
     @Setter
     private Runnable onChange;
 
+    private final List<ItemSetListener> listeners = new CopyOnWriteArrayList<>();
+
     private volatile long lastConfigWriteMs = 0L;
     private volatile boolean configWriteWarned = false;
     private volatile boolean dirty = false;
@@ -62,16 +59,33 @@ public class ObtainedItemsManager {
         return obtainedItems.contains(itemId);
     }
 
-    /** Return an immutable snapshot to avoid leaking the synchronizedSet. */
+    /**
+     * Boxed, immutable snapshot for callers that take a {@code Set<Integer>};
+     * prefer {@link #getObtainedItemIds()}.
+     */
     public Set<Integer> getObtainedItems() {
-        synchronized (obtainedItems) {
-            return Collections.unmodifiableSet(new LinkedHashSet<>(obtainedItems));
-        }
+        return Collections.unmodifiableSet(obtainedItems.toSet());
+    }
+
+    /** @return the obtained item IDs in the order they were added, without boxing a copy */
+    public int[] getObtainedItemIds() {
+        return obtainedItems.toArray();
+    }
+
+    public void addListener(ItemSetListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ItemSetListener listener) {
+        listeners.remove(listener);
     }
 
     public void markObtained(int itemId) {
         if (obtainedItems.add(itemId)) {
             dirty = true;
+            for (ItemSetListener l : listeners) {
+                l.itemAdded(itemId);
+            }
             saveObtainedItems();
             safeNotifyChange();
         }
@@ -133,7 +147,7 @@ public class ObtainedItemsManager {
 
         try {
             rotateBackupIfExists(file);
-            Set<Integer> snap = snapshotObtained();
+            int[] snap = snapshotObtained();
             writeJsonAtomic(file, snap);
             mirrorToCloud(System.currentTimeMillis(), false, snap);
             dirty = false;
@@ -213,9 +227,9 @@ public class ObtainedItemsManager {
             needPersist = !newFileExisted;
         }
 
-        synchronized (obtainedItems) {
-            obtainedItems.clear();
-            obtainedItems.addAll(winner);
+        obtainedItems.replaceAll(winner);
+        for (ItemSetListener l : listeners) {
+            l.itemsReloaded();
         }
         if (legacySeeded && legacyFile != null && Files.exists(legacyFile) && !newFileExisted) {
             try {
@@ -288,7 +302,7 @@ public class ObtainedItemsManager {
             }
             try {
                 rotateBackupIfExists(file);
-                Set<Integer> snap = snapshotObtained();
+                int[] snap = snapshotObtained();
                 writeJsonAtomic(file, snap);
                 mirrorToCloud(stampMillis, debounced, snap);
                 dirty = false;
@@ -302,7 +316,7 @@ public class ObtainedItemsManager {
      * Mirror to cloud, optionally debounced; uses provided snapshot to avoid
      * re-locking.
      */
-    private void mirrorToCloud(long stampMillis, boolean debounced, Set<Integer> snapshot) {
+    private void mirrorToCloud(long stampMillis, boolean debounced, int[] snapshot) {
         long now = System.currentTimeMillis();
         if (debounced && (now - lastConfigWriteMs < CONFIG_DEBOUNCE_MS))
             return;
@@ -312,7 +326,7 @@ public class ObtainedItemsManager {
         if (player == null || player.isEmpty() || executor == null)
             return;
 
-        final Set<Integer> snap = (snapshot != null) ? snapshot : snapshotObtained();
+        final int[] snap = (snapshot != null) ? snapshot : snapshotObtained();
 
         executor.submit(() -> {
             try {
@@ -433,10 +447,10 @@ public class ObtainedItemsManager {
      * Write JSON to .tmp and atomically replace the main file; mark self-write for
      * watcher echo suppression.
      */
-    private void writeJsonAtomic(Path file, Set<Integer> data) throws IOException {
+    private void writeJsonAtomic(Path file, int[] data) throws IOException {
         Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
         try (BufferedWriter w = Files.newBufferedWriter(tmp)) {
-            gson.toJson(data, w);
+            IntArrayAdapter.write(w, data);
         }
         safeMove(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
         lastSelfWriteMs = System.currentTimeMillis();
@@ -468,9 +482,8 @@ public class ObtainedItemsManager {
             return local;
 
         try (Reader r = Files.newBufferedReader(file)) {
-            Set<Integer> loaded = gson.fromJson(r, SET_TYPE);
-            if (loaded != null)
-                local.addAll(loaded);
+            for (int id : IntArrayAdapter.read(r))
+                local.add(id);
         } catch (NoSuchFileException ignored) {
             // Normal on fresh installs / multi-PC / atomic move race
             return local;
@@ -540,10 +553,8 @@ public class ObtainedItemsManager {
         }
     }
 
-    /** Take a consistent snapshot under the set's monitor. */
-    private Set<Integer> snapshotObtained() {
-        synchronized (obtainedItems) {
-            return new LinkedHashSet<>(obtainedItems);
-        }
+    /** Take a consistent snapshot; the set locks itself. */
+    private int[] snapshotObtained() {
+        return obtainedItems.toArray();
     }
 }
\ No newline at end of file
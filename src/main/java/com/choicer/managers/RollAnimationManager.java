@@ -284,55 +284,52 @@ public class RollAnimationManager {
     }
 
     private List<Integer> buildChoicerOptions(int obtainedItemId) {
-        int target = Math.max(2, Math.min(5, config.choicerOptionCount()));
-        LinkedHashSet<Integer> options = new LinkedHashSet<>();
-        boolean hasTradeableOption = isTradeableItem(obtainedItemId);
-        if (obtainedItemId != 0 && !rolledManager.isRolled(obtainedItemId)) {
-            options.add(obtainedItemId);
+        int target = ChoicerOptionGenerator.optionCount(config.choicerOptionCount());
+        int[] generated = new int[target];
+        int n = ChoicerOptionGenerator.generate(obtainedItemId, target, livePool, generated);
+        List<Integer> options = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            options.add(generated[i]);
         }
+        return options;
+    }
 
-        int attemptsLeft = Math.max(target * 3, allTradeableItems != null ? allTradeableItems.size() : target * 3);
-        while (options.size() < target && attemptsLeft-- > 0) {
-            int candidate = getRandomLockedItem();
-            if (candidate == 0) {
-                break;
-            }
-            options.add(candidate);
-            if (isTradeableItem(candidate)) {
-                hasTradeableOption = true;
-            }
+    private final ChoicerOptionGenerator.ItemPool livePool = new ChoicerOptionGenerator.ItemPool() {
+        @Override
+        public boolean isRolled(int itemId) {
+            return rolledManager.isRolled(itemId);
         }
 
-        if (!hasTradeableOption) {
-            int failsafe = getRandomTradeableItem();
-            if (failsafe != 0 && !options.contains(failsafe)) {
-                if (options.size() >= target) {
-                    Iterator<Integer> iterator = options.iterator();
-                    boolean removed = false;
-                    while (iterator.hasNext()) {
-                        int itemId = iterator.next();
-                        if (!isTradeableItem(itemId)) {
-                            iterator.remove();
-                            removed = true;
-                            break;
-                        }
-                    }
-                    if (!removed) {
-                        Iterator<Integer> fallbackIterator = options.iterator();
-                        if (fallbackIterator.hasNext()) {
-                            fallbackIterator.next();
-                            fallbackIterator.remove();
-                        }
-                    }
-                }
-                if (options.size() < target) {
-                    options.add(failsafe);
-                    hasTradeableOption = true;
-                }
-            }
+        @Override
+        public boolean isTradeable(int itemId) {
+            return isTradeableItem(itemId);
         }
 
-        return new ArrayList<>(options);
+        @Override
+        public int randomLocked() {
+            return getRandomLockedItem();
+        }
+
+        @Override
+        public int randomTradeable() {
+            return getRandomTradeableItem();
+        }
+
+        @Override
+        public int size() {
+            Set<Integer> items = allTradeableItems;
+            return items != null ? items.size() : 0;
+        }
+    };
+
+    /** @return every item that can currently be rolled, rolled or not */
+    public Set<Integer> getAllTradeableItems() {
+        return allTradeableItems;
+    }
+
+    /** @return the subset of {@link #getAllTradeableItems()} that is tradeable on the GE */
+    public Set<Integer> getStrictlyTradeableItems() {
+        return strictlyTradeableItems;
     }
 
     private boolean isTradeableItem(int itemId) {
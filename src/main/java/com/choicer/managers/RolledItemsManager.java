@@ -2,8 +2,7 @@ package com.choicer.managers;
 
 import com.choicer.account.AccountManager;
 import com.choicer.persist.ConfigPersistence;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.choicer.persist.IntArrayAdapter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -12,10 +11,10 @@ import javax.inject.Singleton;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.Reader;
-import java.lang.reflect.Type;
 import java.nio.file.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 
 import static net.runelite.client.RuneLite.RUNELITE_DIR;
@@ -33,15 +32,11 @@ public class RolledItemsManager {
     private static final long SELF_WRITE_GRACE_MS = 1500L;
     private static final long FS_DEBOUNCE_MS = 200L;
 
-    private static final Type SET_TYPE = new TypeToken<Set<Integer>>() {
-    }.getType();
-    private final Set<Integer> rolledItems = Collections.synchronizedSet(new LinkedHashSet<>());
+    private final ItemIdSet rolledItems = new ItemIdSet();
 
     @Inject
     private AccountManager accountManager;
     @Inject
-    private Gson gson;
-    @Inject
     private ConfigPersistence configPersistence;
 
     @Setter
@@ -49,6 +44,8 @@ public class RolledItemsManager {
     @Setter
     private Runnable onChange; // optional UI refresh
 
+    private final List<ItemSetListener> listeners = new CopyOnWriteArrayList<>();
+
     private volatile long lastConfigWriteMs = 0L;
     private volatile boolean configWriteWarned = false;
     private volatile boolean dirty = false;
@@ -66,16 +63,33 @@ public class RolledItemsManager {
         return rolledItems.contains(itemId);
     }
 
-    /** Return an immutable snapshot to avoid leaking the synchronizedSet. */
+    /**
+     * Boxed, immutable snapshot for callers that take a {@code Set<Integer>};
+     * prefer {@link #getRolledItemIds()}.
+     */
     public Set<Integer> getRolledItems() {
-        synchronized (rolledItems) {
-            return Collections.unmodifiableSet(new LinkedHashSet<>(rolledItems));
-        }
+        return Collections.unmodifiableSet(rolledItems.toSet());
+    }
+
+    /** @return the rolled item IDs in the order they were added, without boxing a copy */
+    public int[] getRolledItemIds() {
+        return rolledItems.toArray();
+    }
+
+    public void addListener(ItemSetListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ItemSetListener listener) {
+        listeners.remove(listener);
     }
 
     public void markRolled(int itemId) {
         if (rolledItems.add(itemId)) {
             dirty = true;
+            for (ItemSetListener l : listeners) {
+                l.itemAdded(itemId);
+            }
             safeNotifyChange();
             saveRolledItems();
         }
@@ -139,7 +153,7 @@ public class RolledItemsManager {
 
         try {
             rotateBackupIfExists(file);
-            Set<Integer> snap = snapshotRolled();
+            int[] snap = snapshotRolled();
             writeJsonAtomic(file, snap);
             mirrorToCloud(System.currentTimeMillis(), false, snap);
             dirty = false;
@@ -197,9 +211,9 @@ public class RolledItemsManager {
             needPersist = !newFileExisted;
         }
 
-        synchronized (rolledItems) {
-            rolledItems.clear();
-            rolledItems.addAll(winner);
+        rolledItems.replaceAll(winner);
+        for (ItemSetListener l : listeners) {
+            l.itemsReloaded();
         }
 
         if (needPersist) {
@@ -254,7 +268,7 @@ public class RolledItemsManager {
             }
             try {
                 rotateBackupIfExists(file);
-                Set<Integer> snap = snapshotRolled();
+                int[] snap = snapshotRolled();
                 writeJsonAtomic(file, snap);
                 mirrorToCloud(stampMillis, debounced, snap);
                 dirty = false;
@@ -268,7 +282,7 @@ public class RolledItemsManager {
      * Mirror to cloud, optionally debounced; uses provided snapshot to avoid
      * re-locking.
      */
-    private void mirrorToCloud(long stampMillis, boolean debounced, Set<Integer> snapshot) {
+    private void mirrorToCloud(long stampMillis, boolean debounced, int[] snapshot) {
         long now = System.currentTimeMillis();
         if (debounced && (now - lastConfigWriteMs < CONFIG_DEBOUNCE_MS))
             return;
@@ -278,7 +292,7 @@ public class RolledItemsManager {
         if (player == null || player.isEmpty() || executor == null)
             return;
 
-        final Set<Integer> snap = (snapshot != null) ? snapshot : snapshotRolled();
+        final int[] snap = (snapshot != null) ? snapshot : snapshotRolled();
 
         executor.submit(() -> {
             try {
@@ -381,10 +395,10 @@ public class RolledItemsManager {
      * Write JSON to .tmp and atomically replace the main file; mark self-write for
      * watcher echo suppression.
      */
-    private void writeJsonAtomic(Path file, Set<Integer> data) throws IOException {
+    private void writeJsonAtomic(Path file, int[] data) throws IOException {
         Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
         try (BufferedWriter w = Files.newBufferedWriter(tmp)) {
-            gson.toJson(data, w);
+            IntArrayAdapter.write(w, data);
         }
         safeMove(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
         lastSelfWriteMs = System.currentTimeMillis();
@@ -416,9 +430,8 @@ public class RolledItemsManager {
             return local;
 
         try (Reader r = Files.newBufferedReader(file)) {
-            Set<Integer> loaded = gson.fromJson(r, SET_TYPE);
-            if (loaded != null)
-                local.addAll(loaded);
+            for (int id : IntArrayAdapter.read(r))
+                local.add(id);
         } catch (NoSuchFileException ignored) {
             return local;
         } catch (IOException e) {
@@ -487,10 +500,8 @@ public class RolledItemsManager {
         }
     }
 
-    /** Take a consistent snapshot under the set's monitor. */
-    private Set<Integer> snapshotRolled() {
-        synchronized (rolledItems) {
-            return new LinkedHashSet<>(rolledItems);
-        }
+    /** Take a consistent snapshot; the set locks itself. */
+    private int[] snapshotRolled() {
+        return rolledItems.toArray();
     }
 }
\ No newline at end of file
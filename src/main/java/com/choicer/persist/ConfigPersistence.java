@@ -1,12 +1,9 @@
 package com.choicer.persist;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import net.runelite.client.config.ConfigManager;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.lang.reflect.Type;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -22,16 +19,12 @@ public final class ConfigPersistence {
     private static final String GROUP = "choicer";
     private static final String DATA_SUFFIX = ".data";
     private static final String TS_SUFFIX = ".ts";
-    private static final Type SET_TYPE = new TypeToken<Set<Integer>>() {
-    }.getType();
 
     private final ConfigManager configManager;
-    private final Gson gson;
 
     @Inject
-    public ConfigPersistence(ConfigManager configManager, Gson gson) {
+    public ConfigPersistence(ConfigManager configManager) {
         this.configManager = configManager;
-        this.gson = gson;
     }
 
     private static String dataKey(String key, String player) {
@@ -70,9 +63,11 @@ public final class ConfigPersistence {
         }
 
         try {
-            Set<Integer> parsed = gson.fromJson(rawData, SET_TYPE);
+            Set<Integer> parsed = new LinkedHashSet<>();
+            for (int id : IntArrayAdapter.INSTANCE.fromJson(rawData))
+                parsed.add(id);
             long ts = parseLongSafe(rawTs);
-            return new StampedSet((parsed != null) ? parsed : new LinkedHashSet<>(), ts);
+            return new StampedSet(parsed, ts);
         } catch (Exception ignored) {
             return new StampedSet(new LinkedHashSet<>(), 0L);
         }
@@ -84,10 +79,15 @@ public final class ConfigPersistence {
      * @param timestampMillis epoch millis representing the authoritative write time
      */
     public void writeStampedSet(String player, String key, Set<Integer> data, long timestampMillis) {
+        writeStampedSet(player, key, IntArrayAdapter.toArray(data), timestampMillis);
+    }
+
+    /** As {@link #writeStampedSet(String, String, Set, long)} for IDs already in an array. */
+    public void writeStampedSet(String player, String key, int[] data, long timestampMillis) {
         if (isBlank(player) || isBlank(key))
             return;
 
-        String dataJson = gson.toJson((data != null) ? data : new LinkedHashSet<>());
+        String dataJson = IntArrayAdapter.INSTANCE.toJson(data);
         String tsStr = String.valueOf(Math.max(0L, timestampMillis));
 
         // Two separate keys: value and timestamp
@@ -103,6 +103,11 @@ public final class ConfigPersistence {
      * @return true if a write occurred, false if skipped
      */
     public boolean writeStampedSetIfNewer(String player, String key, Set<Integer> data, long timestampMillis) {
+        return writeStampedSetIfNewer(player, key, IntArrayAdapter.toArray(data), timestampMillis);
+    }
+
+    /** As {@link #writeStampedSetIfNewer(String, String, Set, long)} for IDs already in an array. */
+    public boolean writeStampedSetIfNewer(String player, String key, int[] data, long timestampMillis) {
         if (isBlank(player) || isBlank(key))
             return false;
 
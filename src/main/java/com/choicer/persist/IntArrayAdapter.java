@@ -0,0 +1,102 @@
+package com.choicer.persist;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Streams a JSON array of item IDs to and from a primitive {@code int[]},
+ * without the boxing of a reflective {@code Set<Integer>} round trip. The
+ * format is unchanged, so existing state files and config values load as
+ * before; nulls inside the array are skipped.
+ */
+public final class IntArrayAdapter extends TypeAdapter<int[]> {
+    public static final IntArrayAdapter INSTANCE = new IntArrayAdapter();
+    private static final int[] EMPTY = new int[0];
+
+    private IntArrayAdapter() {
+    }
+
+    @Override
+    public void write(JsonWriter out, int[] ids) throws IOException {
+        if (ids == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (int id : ids) {
+            out.value(id);
+        }
+        out.endArray();
+    }
+
+    @Override
+    public int[] read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return EMPTY;
+        }
+        int[] ids = new int[64];
+        int n = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            if (n == ids.length) {
+                ids = Arrays.copyOf(ids, n * 2);
+            }
+            ids[n++] = in.nextInt();
+        }
+        in.endArray();
+        return n == 0 ? EMPTY : Arrays.copyOf(ids, n);
+    }
+
+    /** Read a whole document; an empty document reads as no IDs. */
+    public static int[] read(Reader reader) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        try {
+            in.peek();
+        } catch (EOFException empty) {
+            return EMPTY;
+        }
+        return INSTANCE.read(in);
+    }
+
+    /** Write {@code ids} as a JSON array. */
+    public static void write(Writer writer, Collection<Integer> ids) throws IOException {
+        JsonWriter out = new JsonWriter(writer);
+        INSTANCE.write(out, toArray(ids));
+        out.flush();
+    }
+
+    /** Write {@code ids} as a JSON array. */
+    public static void write(Writer writer, int[] ids) throws IOException {
+        JsonWriter out = new JsonWriter(writer);
+        INSTANCE.write(out, ids);
+        out.flush();
+    }
+
+    public static int[] toArray(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return EMPTY;
+        }
+        int[] out = new int[ids.size()];
+        int n = 0;
+        for (Integer id : ids) {
+            if (id != null) {
+                out[n++] = id;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+}
@@ -1,6 +1,7 @@
 package com.choicer.ui;
 
 import com.choicer.drops.DropCache;
+import com.choicer.drops.FetchPriority;
 import lombok.extern.slf4j.Slf4j;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -84,14 +85,18 @@ public class DropsMenuListener
                 attackIdx - 1,
                 attackEntry
         );
-        showDrops.onClick(me -> fetchAndDisplayDrops(id, name, level, 1));
+        showDrops.onClick(me -> fetchAndDisplayDrops(id, name, level));
 
         entries.add(attackIdx + 1, showDrops);
         event.setMenuEntries(entries.toArray(new MenuEntry[0]));
     }
-    private void fetchAndDisplayDrops(int id, String name, int level, int attemptsLeft)
+    /**
+     * Retries on throttling and transient failures happen inside the wiki
+     * request scheduler, so a failure here is final.
+     */
+    private void fetchAndDisplayDrops(int id, String name, int level)
     {
-        dropCache.get(id, name, level)
+        dropCache.get(id, name, level, FetchPriority.USER)
                 .whenComplete((dropData, ex) ->
                 {
                     if (dropData != null && ex == null)
@@ -100,9 +105,7 @@ public class DropsMenuListener
                         return;
                     }
 
-                    if (attemptsLeft > 0) fetchAndDisplayDrops(id, name, level, attemptsLeft - 1);
-                    else log.error("Failed to fetch drop data for {}", name, ex);
-
+                    log.error("Failed to fetch drop data for {}", name, ex);
                 });
     }
 }
\ No newline at end of file
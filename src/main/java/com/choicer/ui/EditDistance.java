@@ -0,0 +1,103 @@
+package com.choicer.ui;
+
+/**
+ * Bounded Levenshtein distance from one fixed pattern to many texts, using
+ * Myers' bit-parallel algorithm: each text character costs a handful of
+ * word operations instead of a row of the DP matrix. The pattern's match
+ * masks are built once, so comparisons allocate nothing and an instance
+ * can be shared once built.
+ * <p>
+ * Patterns longer than 64 characters are cut to 64, which no NPC name
+ * comes near.
+ */
+public final class EditDistance {
+    private static final int MAX_LENGTH = 64;
+
+    /** Match masks for ASCII characters; other characters use the spill arrays. */
+    private final long[] asciiMasks = new long[128];
+    private final char[] otherChars;
+    private final long[] otherMasks;
+    private int otherCount;
+    private final int length;
+    private final long lastBit;
+
+    public EditDistance(String pattern) {
+        length = Math.min(pattern.length(), MAX_LENGTH);
+        lastBit = length == 0 ? 0 : 1L << (length - 1);
+        otherChars = new char[length];
+        otherMasks = new long[length];
+        for (int i = 0; i < length; i++) {
+            char c = pattern.charAt(i);
+            if (c < 128) {
+                asciiMasks[c] |= 1L << i;
+                continue;
+            }
+            int slot = indexOfOther(c);
+            if (slot < 0) {
+                slot = otherCount++;
+                otherChars[slot] = c;
+            }
+            otherMasks[slot] |= 1L << i;
+        }
+    }
+
+    /** @return length of the (possibly cut) pattern */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return the edit distance between the pattern and {@code text}, or
+     *         {@code max + 1} as soon as it is certain to exceed {@code max}
+     */
+    public int distance(CharSequence text, int max) {
+        int n = text.length();
+        if (Math.abs(n - length) > max) {
+            return max + 1;
+        }
+        if (length == 0) {
+            return n;
+        }
+        long pv = -1L;
+        long mv = 0L;
+        int score = length;
+        for (int j = 0; j < n; j++) {
+            long eq = mask(text.charAt(j));
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & lastBit) != 0) {
+                score++;
+            } else if ((mh & lastBit) != 0) {
+                score--;
+            }
+            // the remaining characters can lower the score by at most one each
+            if (score - (n - j - 1) > max) {
+                return max + 1;
+            }
+            ph = ph << 1 | 1L;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+        return Math.min(score, max + 1);
+    }
+
+    private long mask(char c) {
+        if (c < 128) {
+            return asciiMasks[c];
+        }
+        int slot = indexOfOther(c);
+        return slot < 0 ? 0L : otherMasks[slot];
+    }
+
+    private int indexOfOther(char c) {
+        for (int i = 0; i < otherCount; i++) {
+            if (otherChars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,149 @@
+package com.choicer.ui;
+
+import net.runelite.api.ItemComposition;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.util.ImageUtil;
+
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Icons and names for item list cells, loaded in batches. Misses reported
+ * while a list paints are collected and resolved together by one client
+ * thread task after the paint; icons are scaled on a background executor
+ * and the whole batch is published back to Swing at once. Both caches are
+ * bounded and evict the items least recently shown. All public methods
+ * must be called on the Swing thread.
+ */
+public class ItemCellLoader {
+    static final int ICON_CACHE_SIZE = 512;
+    static final int NAME_CACHE_SIZE = 4096;
+
+    private final ItemManager itemManager;
+    private final ClientThread clientThread;
+    private final Executor executor;
+    private final int iconSize;
+    private final Runnable onLoaded;
+    /** Cached for items without an image, so they are not requested on every paint. */
+    private final ImageIcon blank;
+
+    private final Map<Integer, ImageIcon> icons = lru(ICON_CACHE_SIZE);
+    private final Map<Integer, String> names = lru(NAME_CACHE_SIZE);
+    private final Set<Integer> queued = new LinkedHashSet<>();
+    private final Set<Integer> inFlight = new HashSet<>();
+    private boolean flushScheduled;
+
+    /**
+     * @param executor runs icon scaling off the client thread
+     * @param onLoaded run on the Swing thread after each batch is published
+     */
+    public ItemCellLoader(ItemManager itemManager, ClientThread clientThread, Executor executor,
+            int iconSize, Runnable onLoaded) {
+        this.itemManager = itemManager;
+        this.clientThread = clientThread;
+        this.executor = executor;
+        this.iconSize = iconSize;
+        this.onLoaded = onLoaded;
+        this.blank = new ImageIcon(new BufferedImage(iconSize, iconSize, BufferedImage.TYPE_INT_ARGB));
+    }
+
+    /** @return the cached icon, or null after queueing a load */
+    public ImageIcon icon(int itemId) {
+        ImageIcon icon = icons.get(itemId);
+        if (icon == null) {
+            request(itemId);
+        }
+        return icon;
+    }
+
+    /** @return the cached name, or null after queueing a load */
+    public String name(int itemId) {
+        String name = names.get(itemId);
+        if (name == null) {
+            request(itemId);
+        }
+        return name;
+    }
+
+    /** Queue a load unless the item is cached or already on its way. */
+    public void prefetch(int itemId) {
+        if (!icons.containsKey(itemId) || !names.containsKey(itemId)) {
+            request(itemId);
+        }
+    }
+
+    private void request(int itemId) {
+        if (inFlight.contains(itemId) || !queued.add(itemId)) {
+            return;
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            // after the current paint, so one batch covers every visible miss
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        if (queued.isEmpty()) {
+            return;
+        }
+        final int[] ids = queued.stream().mapToInt(Integer::intValue).toArray();
+        inFlight.addAll(queued);
+        queued.clear();
+
+        clientThread.invokeLater(() -> {
+            BufferedImage[] images = new BufferedImage[ids.length];
+            String[] loadedNames = new String[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                images[i] = itemManager.getImage(ids[i]);
+                ItemComposition comp = itemManager.getItemComposition(ids[i]);
+                loadedNames[i] = comp != null ? comp.getName() : "Unknown";
+            }
+            try {
+                executor.execute(() -> publish(ids, scale(images), loadedNames));
+            } catch (RejectedExecutionException ignored) {
+                // owner shut down
+            }
+        });
+    }
+
+    private ImageIcon[] scale(BufferedImage[] images) {
+        ImageIcon[] scaled = new ImageIcon[images.length];
+        for (int i = 0; i < images.length; i++) {
+            if (images[i] != null) {
+                scaled[i] = new ImageIcon(ImageUtil.resizeImage(images[i], iconSize, iconSize));
+            }
+        }
+        return scaled;
+    }
+
+    private void publish(int[] ids, ImageIcon[] loadedIcons, String[] loadedNames) {
+        SwingUtilities.invokeLater(() -> {
+            for (int i = 0; i < ids.length; i++) {
+                icons.put(ids[i], loadedIcons[i] != null ? loadedIcons[i] : blank);
+                names.put(ids[i], loadedNames[i]);
+                inFlight.remove(ids[i]);
+            }
+            onLoaded.run();
+        });
+    }
+
+    private static <V> Map<Integer, V> lru(int maxEntries) {
+        return new LinkedHashMap<Integer, V>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
@@ -1,37 +1,69 @@
 package com.choicer.ui;
 
 import com.choicer.ChoicerConfig;
+import com.choicer.managers.ItemSetListener;
 import com.choicer.managers.RolledItemsManager;
 import com.choicer.filters.EnsouledHeadMapping;
 import com.choicer.filters.ItemsFilter;
 import com.choicer.menus.EnabledUI;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.ItemComposition;
+import net.runelite.api.ScriptEvent;
 import net.runelite.api.events.BeforeRender;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.ScriptPostFired;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.widgets.Widget;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.game.ItemManager;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Dims locked item icon widgets.
  * Tradeables are dimmable by default; untradeables are dimmable only when
  * includeUntradeable is enabled and the item is allowlisted.
  * Runs at BeforeRender so scripts in the same frame can't overwrite opacity.
+ *
+ * The widget tree is not walked every frame. Walks record, per interface
+ * group, where the group was entered and which of its widgets show items;
+ * only groups marked dirty by loads, scripts and container changes are
+ * walked again, and each frame just re-applies opacity to the recorded item
+ * widgets. A full walk still runs on login, for newly loaded groups and
+ * every {@link #FULL_WALK_INTERVAL} frames as a safety net.
  */
+@Slf4j
 @Singleton
 @RequiredArgsConstructor(onConstructor_ = @Inject)
 public class ItemDimmerController {
+    /** Frames between safety-net walks of the whole tree. */
+    private static final int FULL_WALK_INTERVAL = 250;
+    /** Frames between debug reports of the per-frame cost. */
+    private static final int REPORT_INTERVAL = 3000;
+    private static final int NO_GROUP = -1;
+    private static final int INITIAL_ITEM_CAPACITY = 32768;
+    /** Related-ID table slot that has not been looked up yet. */
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+    /** bankmain_build, run without a source widget when the bank redraws. */
+    private static final int BANK_BUILD_SCRIPT = 277;
+    /** GE search results build, also run without a source widget. */
+    private static final int GE_SEARCH_BUILD_SCRIPT = 751;
+
     private final Client client;
     private final RolledItemsManager rolledItemsManager;
     private final ItemManager itemManager;
@@ -40,66 +72,213 @@ public class ItemDimmerController {
     // Cache (long-lived) for tradeable-by-canonical-id
     private final ConcurrentHashMap<Integer, Boolean> tradeableCache = new ConcurrentHashMap<>();
 
-    // Cache (per-frame) for "should dim?" decisions by raw item id
-    private final Map<Integer, Boolean> dimDecisionCache = new HashMap<>(256);
+    // "Should dim?" decisions by normalized item id, as generation << 1 | dim;
+    // entries from an older generation are stale. Client thread only.
+    private int[] decisions = new int[INITIAL_ITEM_CAPACITY];
+    // Placeholder and noted/unnoted counterparts, at [2 * id] and [2 * id + 1];
+    // 0 when there is none. Item definitions don't change, so never invalidated.
+    private int[] relatedIds = newRelatedTable(INITIAL_ITEM_CAPACITY);
+    // Bumped by anything that can change a decision; starts above the zeroed array's 0
+    private final AtomicInteger generation = new AtomicInteger(1);
+
+    // Walk results and dirty tracking; client thread only
+    private final Map<Integer, List<Widget>> entriesByGroup = new HashMap<>();
+    private final Map<Integer, List<Widget>> itemsByGroup = new HashMap<>();
+    private final Set<Integer> dirtyGroups = new HashSet<>();
+    private final Set<Integer> walking = new HashSet<>();
+    private boolean fullWalkNeeded = true;
+    private boolean itemGroupsDirty;
+    private int framesSinceFullWalk;
+
+    // Per-frame cost, reported every REPORT_INTERVAL frames
+    private int reportFrames;
+    private long reportNanos;
+    private long reportMaxNanos;
+    private int reportFullWalks;
+    private int reportGroupWalks;
 
     private volatile int dimOpacity = 150;
     @Setter
     private volatile boolean enabled = true;
 
+    private final ItemSetListener rolledListener = new ItemSetListener() {
+        @Override
+        public void itemAdded(int itemId) {
+            invalidate();
+        }
+
+        @Override
+        public void itemsReloaded() {
+            invalidate();
+        }
+    };
+
+    public void startUp() {
+        rolledItemsManager.addListener(rolledListener);
+        invalidate();
+    }
+
+    public void shutDown() {
+        rolledItemsManager.removeListener(rolledListener);
+    }
+
     public void setDimOpacity(int opacity) {
         this.dimOpacity = Math.max(0, Math.min(255, opacity));
     }
 
+    /**
+     * Recompute every dim decision, e.g. after the rolled set or the
+     * includeUntradeable option changed. Safe to call from any thread. The
+     * dim opacity is not part of a decision, so changing it needs no call.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
     private boolean isCollectionLogWidget(Widget w) {
         return w != null && w.getId() >>> 16 == 621;
     }
 
+    @Subscribe
+    public void onWidgetLoaded(WidgetLoaded e) {
+        dirtyGroups.add(e.getGroupId());
+    }
+
+    @Subscribe
+    public void onWidgetClosed(WidgetClosed e) {
+        entriesByGroup.remove(e.getGroupId());
+        itemsByGroup.remove(e.getGroupId());
+        dirtyGroups.remove(e.getGroupId());
+    }
+
+    /**
+     * Scripts rebuild item grids (bank tabs, shops, inventory redraws). A
+     * script run for a widget only dirties that widget's group; of the
+     * scripts run without one, only the known item-grid builds count.
+     */
+    @Subscribe
+    public void onScriptPostFired(ScriptPostFired e) {
+        final ScriptEvent event = e.getScriptEvent();
+        final Widget source = event != null ? event.getSource() : null;
+        if (source != null) {
+            final int groupId = source.getId() >>> 16;
+            // unseen groups are left to WidgetLoaded and the safety-net walk
+            if (entriesByGroup.containsKey(groupId))
+                dirtyGroups.add(groupId);
+            return;
+        }
+        final int scriptId = e.getScriptId();
+        if (scriptId == BANK_BUILD_SCRIPT || scriptId == GE_SEARCH_BUILD_SCRIPT)
+            itemGroupsDirty = true;
+    }
+
+    @Subscribe
+    public void onItemContainerChanged(ItemContainerChanged e) {
+        itemGroupsDirty = true;
+    }
+
     /**
      * Last chance before drawing this frame; safe place to enforce opacity without
      * races.
      */
     @Subscribe
     public void onBeforeRender(BeforeRender e) {
-        if (!enabled || client.getGameState() != GameState.LOGGED_IN)
+        if (!enabled || client.getGameState() != GameState.LOGGED_IN) {
+            if (!fullWalkNeeded)
+                reset();
             return;
+        }
+
+        final long start = System.nanoTime();
+        if (fullWalkNeeded || ++framesSinceFullWalk >= FULL_WALK_INTERVAL || hasUnknownDirtyGroup()) {
+            walkAllRoots();
+        } else if (itemGroupsDirty || !dirtyGroups.isEmpty()) {
+            walkDirtyGroups();
+        }
+        verifyItemWidgets();
+        recordCost(System.nanoTime() - start);
+    }
 
-        dimDecisionCache.clear();
-        dimAllRoots();
+    private void reset() {
+        entriesByGroup.clear();
+        itemsByGroup.clear();
+        dirtyGroups.clear();
+        itemGroupsDirty = false;
+        fullWalkNeeded = true;
     }
 
-    private void dimAllRoots() {
+    private boolean hasUnknownDirtyGroup() {
+        for (int group : dirtyGroups) {
+            if (!entriesByGroup.containsKey(group))
+                return true;
+        }
+        return false;
+    }
+
+    private void walkAllRoots() {
+        reset();
+        fullWalkNeeded = false;
+        framesSinceFullWalk = 0;
+        reportFullWalks++;
+
         final Widget[] roots = client.getWidgetRoots();
         if (roots == null)
             return;
 
         for (Widget root : roots) {
             if (root != null) {
-                walkAndDim(root);
+                walkAndDim(root, NO_GROUP, false);
             }
         }
     }
 
-    private void walkAndDim(Widget w) {
-        if (w == null || w.isHidden())
+    /** Walk again from where each dirty group was entered last time. */
+    private void walkDirtyGroups() {
+        walking.clear();
+        walking.addAll(dirtyGroups);
+        if (itemGroupsDirty)
+            walking.addAll(itemsByGroup.keySet());
+        dirtyGroups.clear();
+        itemGroupsDirty = false;
+        reportGroupWalks += walking.size();
+
+        for (int group : walking) {
+            final List<Widget> entries = entriesByGroup.get(group);
+            if (entries == null || allHidden(entries))
+                continue; // keep what was recorded until the group shows again
+            entriesByGroup.remove(group);
+            itemsByGroup.remove(group);
+            for (Widget entry : entries)
+                walkAndDim(entry, NO_GROUP, true);
+        }
+        walking.clear();
+    }
+
+    /**
+     * @param parentGroup group of the widget this one was reached from
+     * @param partial     whether this is a dirty-group walk, which leaves other
+     *                    groups it runs into alone unless it has never seen them
+     */
+    private void walkAndDim(Widget w, int parentGroup, boolean partial) {
+        if (w == null)
+            return;
+
+        final int groupId = w.getId() >>> 16;
+        if (groupId != parentGroup) {
+            if (partial && !walking.contains(groupId) && entriesByGroup.containsKey(groupId))
+                return;
+            if (partial && walking.contains(groupId) && parentGroup != NO_GROUP)
+                return; // walked from its own entries
+            entriesByGroup.computeIfAbsent(groupId, k -> new ArrayList<>(2)).add(w);
+        }
+        // still recorded above, so a hidden entry is walked again once shown
+        if (w.isHidden())
             return;
 
         // Don't dim item icons in EnabledUIs configured to not grey locked items
-        int groupId = w.getId() >>> 16;
         EnabledUI ui = EnabledUI.fromGroupId(groupId);
         if (ui != null && !ui.isGreyLockedItems()) {
-            Widget[] dyn = w.getDynamicChildren();
-            if (dyn != null)
-                for (Widget c : dyn)
-                    walkAndDim(c);
-            Widget[] stat = w.getStaticChildren();
-            if (stat != null)
-                for (Widget c : stat)
-                    walkAndDim(c);
-            Widget[] nest = w.getNestedChildren();
-            if (nest != null)
-                for (Widget c : nest)
-                    walkAndDim(c);
+            walkChildren(w, groupId, partial);
             return;
         }
 
@@ -107,37 +286,96 @@ public class ItemDimmerController {
             return;
         final int itemId = w.getItemId();
         if (itemId > 0) {
-            // Don’t override the game’s own dim on bank placeholders
-            if (!isBankPlaceholderWidget(w)) {
-                final int target = shouldDimMemoized(itemId) ? dimOpacity : 0;
-                if (w.getOpacity() != target) {
-                    w.setOpacity(target);
-                }
-            }
+            itemsByGroup.computeIfAbsent(groupId, k -> new ArrayList<>()).add(w);
+            applyDim(w, itemId);
+        }
+
+        walkChildren(w, groupId, partial);
+    }
+
+    private static boolean allHidden(List<Widget> widgets) {
+        for (int i = 0, n = widgets.size(); i < n; i++) {
+            if (!widgets.get(i).isHidden())
+                return false;
         }
+        return true;
+    }
 
+    private void walkChildren(Widget w, int groupId, boolean partial) {
         final Widget[] dyn = w.getDynamicChildren();
         if (dyn != null)
             for (Widget c : dyn)
-                walkAndDim(c);
+                walkAndDim(c, groupId, partial);
         final Widget[] stat = w.getStaticChildren();
         if (stat != null)
             for (Widget c : stat)
-                walkAndDim(c);
+                walkAndDim(c, groupId, partial);
         final Widget[] nest = w.getNestedChildren();
         if (nest != null)
             for (Widget c : nest)
-                walkAndDim(c);
+                walkAndDim(c, groupId, partial);
+    }
+
+    /** Re-apply opacity to the known item widgets, whose items scripts may have swapped in place. */
+    private void verifyItemWidgets() {
+        for (List<Widget> items : itemsByGroup.values()) {
+            for (int i = 0, n = items.size(); i < n; i++) {
+                final Widget w = items.get(i);
+                if (w.isHidden())
+                    continue;
+                final int itemId = w.getItemId();
+                if (itemId > 0)
+                    applyDim(w, itemId);
+            }
+        }
+    }
+
+    private void applyDim(Widget w, int itemId) {
+        // Don’t override the game’s own dim on bank placeholders
+        if (isBankPlaceholderWidget(w))
+            return;
+        final int target = shouldDimMemoized(itemId) ? dimOpacity : 0;
+        if (w.getOpacity() != target) {
+            w.setOpacity(target);
+        }
+    }
+
+    private void recordCost(long nanos) {
+        reportFrames++;
+        reportNanos += nanos;
+        reportMaxNanos = Math.max(reportMaxNanos, nanos);
+        if (reportFrames < REPORT_INTERVAL)
+            return;
+
+        if (log.isDebugEnabled()) {
+            int itemWidgets = 0;
+            for (List<Widget> items : itemsByGroup.values())
+                itemWidgets += items.size();
+            log.debug("Item dimming: {} µs/frame avg, {} µs max over {} frames; {} full walks, {} group walks, {} item widgets in {} groups",
+                    reportNanos / reportFrames / 1000, reportMaxNanos / 1000, reportFrames,
+                    reportFullWalks, reportGroupWalks, itemWidgets, itemsByGroup.size());
+        }
+        reportFrames = 0;
+        reportNanos = 0;
+        reportMaxNanos = 0;
+        reportFullWalks = 0;
+        reportGroupWalks = 0;
     }
 
     private boolean shouldDimMemoized(int rawItemId) {
         final int key = EnsouledHeadMapping.toTradeableId(rawItemId); // normalize cache key
-        final Boolean cached = dimDecisionCache.get(key);
-        if (cached != null)
-            return cached;
+        if (key < 0)
+            return shouldDim(rawItemId);
+        if (key >= decisions.length)
+            decisions = Arrays.copyOf(decisions, capacityFor(key, decisions.length));
+
+        final int gen = generation.get();
+        final int cached = decisions[key];
+        if (cached >>> 1 == gen)
+            return (cached & 1) != 0;
 
         final boolean result = shouldDim(rawItemId);
-        dimDecisionCache.put(key, result);
+        decisions[key] = gen << 1 | (result ? 1 : 0);
         return result;
     }
 
@@ -172,20 +410,10 @@ public class ItemDimmerController {
                 return true;
 
             // Slower path: related ids (placeholders / noted variants)
-            final Set<Integer> candidates = new LinkedHashSet<>(4);
-            candidates.add(normalizedItemId);
-            candidates.add(canonicalItemId);
-
-            collectRelatedIds(normalizedItemId, candidates);
-            if (canonicalItemId != normalizedItemId) {
-                collectRelatedIds(canonicalItemId, candidates);
-            }
-
-            for (int id : candidates) {
-                if (id > 0 && obtainedItemSubCheck(id)) {
-                    return true;
-                }
-            }
+            if (relatedRolled(normalizedItemId))
+                return true;
+            if (canonicalItemId != normalizedItemId && relatedRolled(canonicalItemId))
+                return true;
         } catch (Exception e) {
             return true; // fail open on unexpected errors
         }
@@ -201,28 +429,61 @@ public class ItemDimmerController {
         }
     }
 
-    private void collectRelatedIds(int itemId, Set<Integer> sink) {
+    private boolean relatedRolled(int itemId) {
         if (itemId <= 0)
-            return;
+            return false;
+        if (2 * itemId + 1 >= relatedIds.length)
+            growRelatedTable(itemId);
+        if (relatedIds[2 * itemId] == UNKNOWN)
+            loadRelatedIds(itemId);
+
+        final int placeholderId = relatedIds[2 * itemId];
+        final int linkedNoteId = relatedIds[2 * itemId + 1];
+        return (placeholderId > 0 && obtainedItemSubCheck(placeholderId))
+                || (linkedNoteId > 0 && obtainedItemSubCheck(linkedNoteId));
+    }
 
+    private void loadRelatedIds(int itemId) {
+        int placeholderId = 0;
+        int linkedNoteId = 0;
         try {
             final ItemComposition comp = itemManager.getItemComposition(itemId);
-            if (comp == null)
-                return;
-
-            // Placeholder
-            if (comp.getPlaceholderTemplateId() != -1) {
-                sink.add(comp.getPlaceholderId());
-            }
+            if (comp != null) {
+                // Placeholder
+                if (comp.getPlaceholderTemplateId() != -1) {
+                    placeholderId = comp.getPlaceholderId();
+                }
 
-            // Noted/unnoted pair
-            final int linkedNoteId = comp.getLinkedNoteId();
-            if (linkedNoteId > 0 && linkedNoteId != itemId) {
-                sink.add(linkedNoteId);
+                // Noted/unnoted pair
+                final int noteId = comp.getLinkedNoteId();
+                if (noteId > 0 && noteId != itemId) {
+                    linkedNoteId = noteId;
+                }
             }
         } catch (Exception ignored) {
             // ignore bad compositions, rely on other IDs
         }
+        relatedIds[2 * itemId] = placeholderId;
+        relatedIds[2 * itemId + 1] = linkedNoteId;
+    }
+
+    private void growRelatedTable(int itemId) {
+        final int oldLength = relatedIds.length;
+        relatedIds = Arrays.copyOf(relatedIds, 2 * capacityFor(itemId, oldLength / 2));
+        Arrays.fill(relatedIds, oldLength, relatedIds.length, UNKNOWN);
+    }
+
+    private static int[] newRelatedTable(int capacity) {
+        final int[] table = new int[2 * capacity];
+        Arrays.fill(table, UNKNOWN);
+        return table;
+    }
+
+    private static int capacityFor(int itemId, int current) {
+        int capacity = current;
+        while (capacity <= itemId)
+            capacity *= 2;
+        return capacity;
     }
 
     private boolean isBankPlaceholderWidget(Widget w) {
@@ -0,0 +1,74 @@
+package com.choicer.ui;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * List model over a plain array of item IDs. Replacing the contents only
+ * announces the span that differs from the previous array, after trimming
+ * the common head and tail, so the usual update (one unlock prepended to a
+ * list of thousands) is a single one-row insertion rather than a clear and
+ * refill with an event per row.
+ */
+public class ItemIdListModel extends AbstractListModel<Integer> {
+    private static final int[] NONE = new int[0];
+
+    private int[] ids = NONE;
+
+    @Override
+    public int getSize() {
+        return ids.length;
+    }
+
+    @Override
+    public Integer getElementAt(int index) {
+        return ids[index];
+    }
+
+    /** @return the item ID at {@code index}, without boxing */
+    public int getIdAt(int index) {
+        return ids[index];
+    }
+
+    /** @return the first index holding {@code itemId}, or -1 */
+    public int indexOf(int itemId) {
+        int[] current = ids;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == itemId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replace the contents, firing events for the changed span only. Must be
+     * called on the Swing thread; the array is kept, not copied.
+     */
+    public void setIds(int[] next) {
+        int[] prev = ids;
+        ids = next;
+
+        int shorter = Math.min(prev.length, next.length);
+        int head = 0;
+        while (head < shorter && prev[head] == next[head]) {
+            head++;
+        }
+        int tail = 0;
+        while (tail < shorter - head
+                && prev[prev.length - 1 - tail] == next[next.length - 1 - tail]) {
+            tail++;
+        }
+
+        int removed = prev.length - head - tail;
+        int added = next.length - head - tail;
+        int changed = Math.min(removed, added);
+        if (changed > 0) {
+            fireContentsChanged(this, head, head + changed - 1);
+        }
+        if (added > changed) {
+            fireIntervalAdded(this, head + changed, head + added - 1);
+        } else if (removed > changed) {
+            fireIntervalRemoved(this, head + changed, head + removed - 1);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.choicer.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable word index over item names for the side panel's search box.
+ * Names are split into lowercase words; a query matches an item when each
+ * of its words occurs in one of the item's words, so "rune sc" finds
+ * "Rune scimitar" and "axe" finds "Battleaxe". Words starting with a query
+ * word are found by binary search over the sorted vocabulary, and only the
+ * remaining words are scanned for inner matches. Results are bit sets over
+ * item IDs, so callers filter without boxing.
+ */
+public final class ItemSearchIndex {
+    public static final ItemSearchIndex EMPTY = build(new HashMap<>());
+
+    private final String[] words;
+    private final int[][] idsByWord;
+    private final BitSet known;
+
+    private ItemSearchIndex(String[] words, int[][] idsByWord, BitSet known) {
+        this.words = words;
+        this.idsByWord = idsByWord;
+        this.known = known;
+    }
+
+    /** Index the given item names, keyed by item ID. */
+    public static ItemSearchIndex build(Map<Integer, String> names) {
+        Map<String, List<Integer>> byWord = new HashMap<>();
+        BitSet known = new BitSet();
+        for (Map.Entry<Integer, String> e : names.entrySet()) {
+            int id = e.getKey();
+            if (id < 0 || e.getValue() == null) {
+                continue;
+            }
+            known.set(id);
+            for (String w : split(e.getValue())) {
+                byWord.computeIfAbsent(w, k -> new ArrayList<>(2)).add(id);
+            }
+        }
+        String[] words = byWord.keySet().toArray(new String[0]);
+        Arrays.sort(words);
+        int[][] ids = new int[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            ids[i] = byWord.get(words[i]).stream().mapToInt(Integer::intValue).distinct().toArray();
+        }
+        return new ItemSearchIndex(words, ids, known);
+    }
+
+    /** @return whether a name was indexed for the item */
+    public boolean contains(int itemId) {
+        return itemId >= 0 && known.get(itemId);
+    }
+
+    /**
+     * @return IDs of the items matching every word of {@code query}, or null
+     *         if the query has no words and so matches everything
+     */
+    public BitSet matching(String query) {
+        String[] queryWords = split(query);
+        if (queryWords.length == 0) {
+            return null;
+        }
+        BitSet result = null;
+        for (String w : queryWords) {
+            BitSet ids = idsForWord(w);
+            if (result == null) {
+                result = ids;
+            } else {
+                result.and(ids);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private BitSet idsForWord(String w) {
+        BitSet out = new BitSet();
+        int from = lowerBound(w);
+        int to = from;
+        while (to < words.length && words[to].startsWith(w)) {
+            addAll(out, idsByWord[to++]);
+        }
+        addInner(out, w, 0, from);
+        addInner(out, w, to, words.length);
+        return out;
+    }
+
+    private void addInner(BitSet out, String w, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (words[i].length() > w.length() && words[i].indexOf(w, 1) > 0) {
+                addAll(out, idsByWord[i]);
+            }
+        }
+    }
+
+    private static void addAll(BitSet out, int[] ids) {
+        for (int id : ids) {
+            out.set(id);
+        }
+    }
+
+    private int lowerBound(String w) {
+        int lo = 0;
+        int hi = words.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (words[mid].compareTo(w) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    static String[] split(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        List<String> out = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                out.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return out.toArray(new String[0]);
+    }
+}
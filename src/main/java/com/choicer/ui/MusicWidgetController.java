@@ -1,8 +1,11 @@
 package com.choicer.ui;
 
 import com.choicer.ChoicerConfig;
+import com.choicer.drops.DropCache;
 import com.choicer.drops.DropItem;
+import com.choicer.drops.FarmRanking;
 import com.choicer.drops.NpcDropData;
+import com.choicer.managers.CompletionSimulator;
 import com.choicer.managers.ObtainedItemsManager;
 
 import java.util.*;
@@ -122,6 +125,12 @@ public class MusicWidgetController {
 
     @Inject
     private MusicSearchButton musicSearchButton;
+    @Inject
+    private FarmRanking farmRanking;
+    @Inject
+    private DropCache dropCache;
+    @Inject
+    private CompletionSimulator completionSimulator;
     private boolean hideObtainedItems = false;
 
     private final Map<Integer, Boolean> hiddenStateByPacked = new HashMap<>();
@@ -496,6 +505,7 @@ public class MusicWidgetController {
         bg.setOriginalHeight(BAR_HEIGHT);
         bg.setFilled(true);
         bg.setTextColor(0x000000);
+        addBarActions(bg, dropData);
         bg.revalidate();
         overrideRootWidgets.add(bg);
 
@@ -517,7 +527,10 @@ public class MusicWidgetController {
         fill.revalidate();
         overrideRootWidgets.add(fill);
 
-        String txt = String.format("%d/%d", obtainedCount, totalDrops);
+        FarmRanking.Entry standing = farmRanking.find(dropData.getName(), dropData.getLevel());
+        String txt = standing != null && standing.getNewItemRate() > 0
+                ? String.format("%d/%d  #%d", obtainedCount, totalDrops, standing.getRank())
+                : String.format("%d/%d", obtainedCount, totalDrops);
         Widget label = root.createChild(-1);
         label.setHidden(false);
         label.setType(WidgetType.TEXT);
@@ -576,54 +589,47 @@ public class MusicWidgetController {
     }
 
     /**
-     * Display a Swing dialog prompting the user for an NPC name or ID. The
-     * potentially long running search executes on a background thread so the
-     * UI remains responsive. Selecting a result will override the widget with
-     * the chosen drop table.
+     * Menu options on the progress bar: simulate unlocking every drop shown,
+     * and open the cached NPC with the most new items per kill.
      */
-    private void showSearchDialog() {
-        SwingUtilities.invokeLater(() -> {
-            String query = JOptionPane.showInputDialog(
-                    null,
-                    "Enter NPC name or ID:",
-                    "Search NPC",
-                    JOptionPane.PLAIN_MESSAGE);
-            if (query == null || query.trim().isEmpty()) {
-                return;
+    private void addBarActions(Widget bar, NpcDropData dropData) {
+        List<FarmRanking.Entry> best = farmRanking.top(1);
+        FarmRanking.Entry top = !best.isEmpty() && best.get(0).getNewItemRate() > 0 ? best.get(0) : null;
+        bar.setAction(0, "Simulate unlocking all");
+        if (top != null) {
+            bar.setName(String.format("<col=ff9040>%s (lvl %d)</col> 1 new item per %.0f kills",
+                    top.getNpcName(), top.getLevel(), Math.ceil(top.getKillsPerNewItem())));
+            bar.setAction(1, "Best to farm");
+        }
+        bar.setHasListener(true);
+        bar.setOnOpListener((JavaScriptCallback) ev -> {
+            if (ev.getOp() == 1) {
+                List<Integer> ids = buildDrops(dropData).stream()
+                        .map(DropItem::getItemId)
+                        .collect(Collectors.toList());
+                showSimulation(ids, "all drops");
+            } else if (top != null) {
+                dropCache.get(0, top.getNpcName(), top.getLevel()).thenAccept(this::override);
             }
+        });
+    }
 
-            new Thread(() -> {
-                List<NpcDropData> results = searchService.search(query.trim());
-
-                SwingUtilities.invokeLater(() -> {
-                    if (results.isEmpty()) {
-                        JOptionPane.showMessageDialog(
-                                null,
-                                "No NPCs found for: " + query,
-                                "Search NPC",
-                                JOptionPane.INFORMATION_MESSAGE);
-                        return;
-                    }
+    /** Estimate, in a separate window, how long rolling the given drops of the open NPC takes. */
+    private void showSimulation(List<Integer> targets, String what) {
+        NpcDropData npc = currentDrops;
+        if (npc == null) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> SimulationDialog.open(completionSimulator, npc, targets, what));
+    }
 
-                    List<NpcDropData> limited = results.stream().limit(5).collect(Collectors.toList());
-                    String[] choices = limited.stream()
-                            .map(n -> String.format("%s (ID %d, Lvl %d)", n.getName(), n.getNpcId(), n.getLevel()))
-                            .toArray(String[]::new);
-                    int idx = JOptionPane.showOptionDialog(
-                            null,
-                            "Select NPC:",
-                            "Search Results",
-                            JOptionPane.DEFAULT_OPTION,
-                            JOptionPane.PLAIN_MESSAGE,
-                            null,
-                            choices,
-                            choices[0]);
-                    if (idx >= 0 && idx < limited.size()) {
-                        override(limited.get(idx));
-                    }
-                });
-            }).start();
-        });
+    /**
+     * Open the search-as-you-type NPC search window. Lookups run off the
+     * Swing thread and results appear as their tables arrive; selecting one
+     * overrides the widget with that drop table.
+     */
+    private void showSearchDialog() {
+        SwingUtilities.invokeLater(() -> NpcSearchDialog.open(searchService, this::override));
     }
 
     public void openDropsSearch() {
@@ -669,6 +675,11 @@ public class MusicWidgetController {
             icon.setOriginalWidth(ICON_SIZE);
             icon.setOriginalHeight(ICON_SIZE);
             icon.setOpacity(obtainedIds.contains(itemId) ? 0 : 150);
+            icon.setName(d.getName());
+            icon.setAction(0, "Simulate unlock");
+            icon.setHasListener(true);
+            icon.setOnOpListener((JavaScriptCallback) ev -> showSimulation(
+                    Collections.singletonList(itemId), d.getName() != null ? d.getName() : "item " + itemId));
             icon.revalidate();
 
             iconItemMap.put(icon, d);
@@ -0,0 +1,175 @@
+package com.choicer.ui;
+
+import com.choicer.drops.NpcDropData;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Search-as-you-type window for NPC drop tables. Every edit feeds an
+ * {@link NpcSearchService.Session}, and results fill the list as their
+ * tables arrive. Picking a result with Enter or a double click hands it to
+ * the caller and closes the window; closing it cancels the search.
+ */
+public final class NpcSearchDialog extends JDialog
+{
+    private final JTextField field = new JTextField(24);
+    private final DefaultListModel<NpcDropData> model = new DefaultListModel<>();
+    private final JList<NpcDropData> list = new JList<>(model);
+    private final JLabel status = new JLabel(" ");
+    private final Consumer<NpcDropData> onSelect;
+    private NpcSearchService.Session session;
+
+    private NpcSearchDialog(Consumer<NpcDropData> onSelect)
+    {
+        super((Frame) null, "Search NPC", false);
+        this.onSelect = onSelect;
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setVisibleRowCount(10);
+        list.setCellRenderer(new DefaultListCellRenderer()
+        {
+            @Override
+            public Component getListCellRendererComponent(JList<?> l, Object value, int index,
+                    boolean selected, boolean focused)
+            {
+                NpcDropData n = (NpcDropData) value;
+                String text = String.format("%s (ID %d, Lvl %d)", n.getName(), n.getNpcId(), n.getLevel());
+                return super.getListCellRendererComponent(l, text, index, selected, focused);
+            }
+        });
+        list.addMouseListener(new MouseAdapter()
+        {
+            @Override
+            public void mouseClicked(MouseEvent e)
+            {
+                if (e.getClickCount() == 2)
+                {
+                    choose();
+                }
+            }
+        });
+
+        field.addKeyListener(new KeyAdapter()
+        {
+            @Override
+            public void keyPressed(KeyEvent e)
+            {
+                int size = model.getSize();
+                if (e.getKeyCode() == KeyEvent.VK_ENTER)
+                {
+                    choose();
+                }
+                else if (e.getKeyCode() == KeyEvent.VK_DOWN && size > 0)
+                {
+                    list.setSelectedIndex(Math.min(list.getSelectedIndex() + 1, size - 1));
+                }
+                else if (e.getKeyCode() == KeyEvent.VK_UP && size > 0)
+                {
+                    list.setSelectedIndex(Math.max(list.getSelectedIndex() - 1, 0));
+                }
+            }
+        });
+
+        JPanel content = new JPanel(new BorderLayout(0, 6));
+        content.setBorder(new EmptyBorder(8, 8, 8, 8));
+        content.add(field, BorderLayout.NORTH);
+        content.add(new JScrollPane(list), BorderLayout.CENTER);
+        content.add(status, BorderLayout.SOUTH);
+        setContentPane(content);
+
+        addWindowListener(new WindowAdapter()
+        {
+            @Override
+            public void windowClosed(WindowEvent e)
+            {
+                if (session != null)
+                {
+                    session.close();
+                }
+            }
+        });
+    }
+
+    /** Open the window; call on the EDT. {@code onSelect} is called on the EDT. */
+    public static void open(NpcSearchService service, Consumer<NpcDropData> onSelect)
+    {
+        NpcSearchDialog dialog = new NpcSearchDialog(onSelect);
+        dialog.session = service.openSession((query, results, complete) ->
+                SwingUtilities.invokeLater(() -> dialog.showResults(query, results, complete)));
+        dialog.field.getDocument().addDocumentListener(new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                dialog.queryChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e)
+            {
+                dialog.queryChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e)
+            {
+                dialog.queryChanged();
+            }
+        });
+        dialog.pack();
+        dialog.setLocationRelativeTo(null);
+        dialog.setVisible(true);
+    }
+
+    private void queryChanged()
+    {
+        String query = field.getText().trim();
+        status.setText(query.isEmpty() ? " " : "Searching…");
+        session.update(query);
+    }
+
+    private void showResults(String query, List<NpcDropData> results, boolean complete)
+    {
+        // a result can be queued just before the next keystroke
+        if (!isDisplayable() || !query.equals(field.getText().trim()))
+        {
+            return;
+        }
+        NpcDropData selected = list.getSelectedValue();
+        model.clear();
+        for (NpcDropData n : results)
+        {
+            model.addElement(n);
+        }
+        int keep = selected != null ? results.indexOf(selected) : -1;
+        list.setSelectedIndex(keep >= 0 ? keep : 0);
+        if (complete)
+        {
+            status.setText(results.isEmpty() && !query.isEmpty() ? "No NPCs found for: " + query : " ");
+        }
+    }
+
+    private void choose()
+    {
+        NpcDropData chosen = list.getSelectedValue();
+        if (chosen == null)
+        {
+            return;
+        }
+        dispose();
+        onSelect.accept(chosen);
+    }
+}
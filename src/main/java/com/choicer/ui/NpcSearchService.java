@@ -1,7 +1,9 @@
 package com.choicer.ui;
 
 import com.choicer.drops.DropCache;
+import com.choicer.drops.FetchPriority;
 import com.choicer.drops.NpcDropData;
+import com.choicer.drops.NpcNameIndex;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -10,12 +12,23 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Provides fuzzy search over available NPC drop data. The cache is consulted
- * first and any misses fall back to a wiki lookup. Results without drop tables
+ * Provides fuzzy search over available NPC drop data. Candidate names come
+ * from the local name index, with the wiki only asked when it knows too few,
+ * and their tables from the cache or the wiki. Results without drop tables
  * are discarded and lookups for multiple candidates are performed in parallel
- * to keep searches snappy.
+ * to keep searches snappy. A {@link Session} streams results as the lookups
+ * finish, for searching as the user types.
+ * <p>
+ * Results are ordered by a key computed once per candidate: how the name
+ * matches the query, its bit-parallel edit distance, how far its level is
+ * from the one asked for, and whether it was known locally before the search.
  */
 @Singleton
 public class NpcSearchService
@@ -26,12 +39,26 @@ public class NpcSearchService
     private static final Pattern NAME_NUM_PATTERN = Pattern.compile("^(.*\\D)\\s+(\\d+)$");
     private static final Pattern NUM_NAME_PATTERN = Pattern.compile("^(\\d+)\\s+(\\D.*)$");
 
+    // match tiers, best first
+    private static final int TIER_EXACT = 0;
+    private static final int TIER_PREFIX = 1;
+    private static final int TIER_WORD_PREFIX = 2;
+    private static final int TIER_SUBSTRING = 3;
+    private static final int TIER_OTHER = 4;
+
+    private static final int MAX_CANDIDATES = 10;
+    /** Typing pause after which a {@link Session} query is started. */
+    private static final long DEBOUNCE_MS = 250L;
+
     private final DropCache dropCache;
+    private final NpcNameIndex npcNames;
+    private ScheduledExecutorService debouncer;
 
     @Inject
-    public NpcSearchService(DropCache dropCache)
+    public NpcSearchService(DropCache dropCache, NpcNameIndex npcNames)
     {
         this.dropCache = dropCache;
+        this.npcNames = npcNames;
     }
 
     private static class ParsedQuery
@@ -98,8 +125,8 @@ public class NpcSearchService
     }
 
     /**
-     * Search by partial name, level, or ID. Results are limited and ordered by
-     * Levenshtein distance when appropriate.
+     * Search by partial name, level, or ID and wait for every candidate.
+     * Results are limited and ordered as described above.
      */
     public List<NpcDropData> search(String query)
     {
@@ -108,39 +135,239 @@ public class NpcSearchService
         {
             return Collections.emptyList();
         }
+        if (isIdOnly(pq))
+        {
+            NpcDropData d = fetchById(pq).join();
+            return d != null ? Collections.singletonList(d) : Collections.emptyList();
+        }
+        List<String> names = candidates(pq).join();
+        Set<String> known = knownNames(names);
+        return finish(pq, fetchAll(names, fetchLevel(pq)), known);
+    }
+
+    /**
+     * Start an incremental search for a search-as-you-type field. Results
+     * are pushed to {@code listener} as each candidate's table arrives.
+     */
+    public Session openSession(Listener listener)
+    {
+        return new Session(listener);
+    }
 
-        // 1) name only → fetch all candidates by name
-        if (pq.npcId == null && pq.level == null && pq.name != null)
+    /** Receives the results of a {@link Session}. */
+    public interface Listener
+    {
+        /**
+         * Called off the Swing thread, with the session locked, so only hand
+         * the results over. Only the latest query is ever reported.
+         *
+         * @param complete whether every candidate has been looked up
+         */
+        void resultsChanged(String query, List<NpcDropData> results, boolean complete);
+    }
+
+    /**
+     * One search field's worth of queries. Each {@link #update} waits out
+     * {@link #DEBOUNCE_MS} of further typing, then supersedes the previous
+     * query: its pending name search and table fetches are cancelled, which
+     * drops wiki requests still queued, and its results are never reported.
+     */
+    public final class Session implements AutoCloseable
+    {
+        private final Listener listener;
+        private final List<CompletableFuture<?>> inFlight = new ArrayList<>();
+        private ScheduledFuture<?> pending;
+        private int generation;
+        private boolean closed;
+
+        private Session(Listener listener)
         {
-            List<String> names = dropCache.searchNpcNames(pq.name).join();
-            List<NpcDropData> fetched = fetchAll(names.stream().limit(10).collect(Collectors.toList()), 0);
-            return fetched.stream()
-                    .sorted(Comparator.comparingInt(d ->
-                            levenshtein(d.getName().toLowerCase(Locale.ROOT), pq.name)))
-                    .collect(Collectors.toList());
+            this.listener = listener;
         }
 
-        // 2) ID only → fetch by ID
-        if (pq.npcId != null && pq.name == null)
+        public synchronized void update(String query)
         {
-            int lvl = (pq.level != null ? pq.level : 0);
-            NpcDropData d = dropCache.get(pq.npcId, "", lvl).join();
-            if (d == null || d.getDropTableSections().isEmpty())
+            if (closed)
+            {
+                return;
+            }
+            int gen = ++generation;
+            cancelInFlight();
+            pending = debouncer().schedule(() -> start(gen, query), DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public synchronized void close()
+        {
+            closed = true;
+            generation++;
+            cancelInFlight();
+        }
+
+        private void cancelInFlight()
+        {
+            if (pending != null)
+            {
+                pending.cancel(false);
+                pending = null;
+            }
+            for (CompletableFuture<?> f : inFlight)
+            {
+                f.cancel(false);
+            }
+            inFlight.clear();
+        }
+
+        /** Keep {@code f} for cancelling, or cancel it now if the query is stale. */
+        private synchronized boolean track(int gen, CompletableFuture<?> f)
+        {
+            if (gen != generation)
+            {
+                f.cancel(false);
+                return false;
+            }
+            inFlight.add(f);
+            return true;
+        }
+
+        private synchronized void publish(int gen, String query, List<NpcDropData> results, boolean complete)
+        {
+            if (gen == generation)
+            {
+                listener.resultsChanged(query, results, complete);
+            }
+        }
+
+        private void start(int gen, String query)
+        {
+            ParsedQuery pq = parse(query);
+            if (pq == null)
+            {
+                publish(gen, query, Collections.emptyList(), true);
+                return;
+            }
+            if (isIdOnly(pq))
+            {
+                CompletableFuture<NpcDropData> byId = fetchById(pq);
+                if (track(gen, byId))
+                {
+                    byId.whenComplete((d, ex) -> publish(gen, query,
+                            d != null ? Collections.singletonList(d) : Collections.emptyList(), true));
+                }
+                return;
+            }
+            CompletableFuture<List<String>> names = candidates(pq);
+            if (track(gen, names))
+            {
+                names.whenComplete((list, ex) -> stream(gen, query, pq, list != null ? list : Collections.emptyList()));
+            }
+        }
+
+        /** Fetch every candidate and re-rank and report after each arrival. */
+        private void stream(int gen, String query, ParsedQuery pq, List<String> names)
+        {
+            if (names.isEmpty())
+            {
+                publish(gen, query, Collections.emptyList(), true);
+                return;
+            }
+            Set<String> known = knownNames(names);
+            List<NpcDropData> found = new ArrayList<>();
+            AtomicInteger remaining = new AtomicInteger(names.size());
+            for (String n : names)
             {
-                return Collections.emptyList();
+                CompletableFuture<NpcDropData> f = dropCache.get(0, n, fetchLevel(pq), FetchPriority.SEARCH);
+                if (!track(gen, f))
+                {
+                    return;
+                }
+                f.whenComplete((d, ex) -> {
+                    boolean useful = d != null && !d.getDropTableSections().isEmpty();
+                    List<NpcDropData> sofar;
+                    synchronized (found)
+                    {
+                        if (useful)
+                        {
+                            found.add(d);
+                        }
+                        sofar = new ArrayList<>(found);
+                    }
+                    boolean complete = remaining.decrementAndGet() == 0;
+                    if (useful || complete)
+                    {
+                        publish(gen, query, finish(pq, sofar, known), complete);
+                    }
+                });
             }
-            return Collections.singletonList(d);
         }
+    }
+
+    /** Shared, lazily started thread that runs debounced queries. */
+    private synchronized ScheduledExecutorService debouncer()
+    {
+        if (debouncer == null)
+        {
+            debouncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "choicer-npc-search");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return debouncer;
+    }
 
-        // 3) mixed or partial → fuzzy search
-        String nameFilter = (pq.name != null ? pq.name : "");
-        int lvlFilter = (pq.level != null ? pq.level : -1);
+    /** Stop the debounce thread; sessions still open report nothing further. */
+    public synchronized void shutdown()
+    {
+        if (debouncer != null)
+        {
+            debouncer.shutdownNow();
+            debouncer = null;
+        }
+    }
 
-        List<String> candidates = dropCache.searchNpcNames(nameFilter).join();
-        List<NpcDropData> all = fetchAll(candidates.stream().limit(10).collect(Collectors.toList()),
-                lvlFilter > -1 ? lvlFilter : 0);
+    private static boolean isIdOnly(ParsedQuery pq)
+    {
+        return pq.npcId != null && pq.name == null;
+    }
 
-        // if ID also provided, filter it
+    private CompletableFuture<NpcDropData> fetchById(ParsedQuery pq)
+    {
+        int lvl = (pq.level != null ? pq.level : 0);
+        return dropCache.get(pq.npcId, "", lvl)
+                .thenApply(d -> d == null || d.getDropTableSections().isEmpty() ? null : d);
+    }
+
+    /**
+     * Up to {@link #MAX_CANDIDATES} names to fetch tables for, best first,
+     * less those the wiki has no page for or that share a page.
+     */
+    private CompletableFuture<List<String>> candidates(ParsedQuery pq)
+    {
+        CompletableFuture<List<String>> names = pq.npcId == null && pq.level == null
+                ? dropCache.searchNpcNames(pq.name, 0, 0)
+                : dropCache.searchNpcNames(pq.name != null ? pq.name : "",
+                        pq.level != null ? pq.level : 0, pq.npcId != null ? pq.npcId : 0);
+        return names
+                .thenApply(list -> list.stream().limit(MAX_CANDIDATES).collect(Collectors.toList()))
+                .thenCompose(list -> dropCache.fetchableNames(list, fetchLevel(pq), FetchPriority.SEARCH));
+    }
+
+    private static int fetchLevel(ParsedQuery pq)
+    {
+        return pq.level != null ? pq.level : 0;
+    }
+
+    /** Filter fetched tables by the query's ID and level, then rank them. */
+    private static List<NpcDropData> finish(ParsedQuery pq, List<NpcDropData> fetched, Set<String> known)
+    {
+        // name only → rank everything by name
+        if (pq.npcId == null && pq.level == null)
+        {
+            return rank(fetched, pq.name, -1, known);
+        }
+
+        List<NpcDropData> all = fetched;
         if (pq.npcId != null)
         {
             all = all.stream()
@@ -148,22 +375,82 @@ public class NpcSearchService
                     .collect(Collectors.toList());
         }
 
-        // filter by level + sort by name distance
-        final int lvl = lvlFilter;
-        return all.stream()
+        // keep the requested level; without an exact match, the closest
+        // levels rank first
+        final int lvl = pq.level != null ? pq.level : -1;
+        List<NpcDropData> atLevel = all.stream()
                 .filter(d -> lvl < 0 || d.getLevel() == lvl)
-                .sorted(Comparator.comparingInt(d ->
-                        levenshtein(d.getName().toLowerCase(Locale.ROOT), nameFilter)))
                 .collect(Collectors.toList());
+        return rank(atLevel.isEmpty() ? all : atLevel, pq.name != null ? pq.name : "", lvl, known);
+    }
+
+    /** Names the local index knew before this search fetched anything. */
+    private Set<String> knownNames(List<String> names)
+    {
+        Set<String> known = new HashSet<>();
+        for (String n : names)
+        {
+            if (npcNames.contains(n))
+            {
+                known.add(n.toLowerCase(Locale.ROOT));
+            }
+        }
+        return known;
+    }
+
+    private static final class Ranked
+    {
+        final NpcDropData data;
+        final long key;
+
+        Ranked(NpcDropData data, long key)
+        {
+            this.data = data;
+            this.key = key;
+        }
     }
 
     /**
-     * Fetch drop data for a list of names concurrently.
+     * Sort by a key packed once per candidate, most significant first:
+     * match tier, edit distance (capped), level gap and whether the name
+     * had to come from the wiki.
+     */
+    private static List<NpcDropData> rank(List<NpcDropData> results, String query, int level, Set<String> known)
+    {
+        EditDistance pattern = new EditDistance(query);
+        int maxDistance = Math.max(2, pattern.length() / 2);
+        List<Ranked> ranked = new ArrayList<>(results.size());
+        for (NpcDropData d : results)
+        {
+            String name = d.getName().toLowerCase(Locale.ROOT);
+            int tier = name.equals(query) ? TIER_EXACT
+                    : name.startsWith(query) ? TIER_PREFIX
+                    : name.contains(" " + query) ? TIER_WORD_PREFIX
+                    : name.contains(query) ? TIER_SUBSTRING
+                    : TIER_OTHER;
+            long distance = pattern.distance(name, maxDistance);
+            long levelGap = level < 0 ? 0 : Math.min(Math.abs(d.getLevel() - level), 0xFFFF);
+            long remote = known.contains(name) ? 0 : 1;
+            ranked.add(new Ranked(d, (long) tier << 40 | distance << 32 | levelGap << 16 | remote));
+        }
+        ranked.sort(Comparator.<Ranked>comparingLong(r -> r.key)
+                .thenComparing(r -> r.data.getName(), String.CASE_INSENSITIVE_ORDER));
+        List<NpcDropData> out = new ArrayList<>(ranked.size());
+        for (Ranked r : ranked)
+        {
+            out.add(r.data);
+        }
+        return out;
+    }
+
+    /**
+     * Fetch drop data for a list of names concurrently. These are speculative
+     * expansions of a search, so they queue behind explicit "Show Drops".
      */
     private List<NpcDropData> fetchAll(List<String> names, int level)
     {
         List<CompletableFuture<NpcDropData>> futures = names.stream()
-                .map(n -> dropCache.get(0, n, level))
+                .map(n -> dropCache.get(0, n, level, FetchPriority.SEARCH))
                 .collect(Collectors.toList());
 
         CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
@@ -174,19 +461,4 @@ public class NpcSearchService
                 .filter(d -> !d.getDropTableSections().isEmpty())
                 .collect(Collectors.toList());
     }
-
-    // simple DP Levenshtein
-    private static int levenshtein(String a, String b)
-    {
-        int[][] dp = new int[a.length()+1][b.length()+1];
-        for (int i = 0; i <= a.length(); i++) dp[i][0] = i;
-        for (int j = 0; j <= b.length(); j++) dp[0][j] = j;
-        for (int i = 1; i <= a.length(); i++)
-            for (int j = 1; j <= b.length(); j++)
-                dp[i][j] = Math.min(
-                        Math.min(dp[i-1][j] + 1, dp[i][j-1] + 1),
-                        dp[i-1][j-1] + (a.charAt(i-1)==b.charAt(j-1) ? 0 : 1)
-                );
-        return dp[a.length()][b.length()];
-    }
 }
\ No newline at end of file
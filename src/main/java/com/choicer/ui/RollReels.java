@@ -0,0 +1,354 @@
+package com.choicer.ui;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+
+/**
+ * Reel contents of the roll animation, shared between the thread that
+ * starts a roll and the render thread that spins it, without locks.
+ *
+ * The render thread owns the live reels: one fixed-size ring buffer of item
+ * IDs per column, advanced in place. Every change is also published as a
+ * {@link Frame} through a single atomic reference, which any thread may
+ * read. Starting a roll publishes a frame for a new roll, which the render
+ * thread loads into its rings on its next {@link #acquire()}; a frame the
+ * render thread derives from an older roll never replaces it.
+ *
+ * Frames come from a small preallocated pool and are refilled in place
+ * rather than allocated per advance. A reader pins the frame it reads until
+ * it closes it, and a frame is only refilled once it is neither published
+ * nor pinned, so no reader ever sees one change under it.
+ */
+public final class RollReels {
+    public static final int MAX_COLUMNS = 5;
+
+    // published, loaded by the render thread, and one being filled
+    private static final int POOL_SIZE = 3;
+
+    private final int rows;
+    private final Frame[] pool;
+    private final AtomicInteger rolls = new AtomicInteger();
+    private final AtomicReference<Frame> published;
+
+    // Render thread only
+    private final int[] ring;
+    private final IntSet seen;
+    // pinned for as long as it stays loaded
+    private Frame loaded;
+    private int loadedRoll = -1;
+    private int loadedColumns;
+    private int head;
+    private int winnerDelta;
+
+    /**
+     * @param rows  items held per column, including the one scrolling in
+     * @param spins most items a column scrolls through in one roll; the
+     *              render thread's bookkeeping is sized for that up front
+     */
+    public RollReels(int rows, int spins) {
+        this.rows = rows;
+        this.ring = new int[MAX_COLUMNS * rows];
+        this.seen = new IntSet(MAX_COLUMNS * (rows + spins));
+        this.pool = new Frame[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool[i] = new Frame(rows);
+        }
+        this.published = new AtomicReference<>(pool[0]);
+    }
+
+    /**
+     * One view of the reels. Pinned while open: close it when done reading,
+     * after which it may be refilled with a later view.
+     */
+    public static final class Frame implements AutoCloseable {
+        private static final int FILLING = -1;
+
+        private final int rows;
+        private final int[] items;
+        // readers holding the frame, or FILLING while a writer owns it
+        private final AtomicInteger pins = new AtomicInteger();
+        private int roll;
+        private int columns;
+        private int winnerDelta;
+
+        Frame(int rows) {
+            this.rows = rows;
+            this.items = new int[MAX_COLUMNS * rows];
+        }
+
+        public int getColumns() {
+            return columns;
+        }
+
+        /** @return the item at {@code row} of {@code column}, top first, or 0 */
+        public int item(int column, int row) {
+            if (column < 0 || column >= columns || row < 0 || row >= rows) {
+                return 0;
+            }
+            return items[column * rows + row];
+        }
+
+        /** @return the item the column settles on, given the row under the marker */
+        public int winner(int column, int centerRow) {
+            return item(column, Math.min(centerRow + winnerDelta, rows - 1));
+        }
+
+        @Override
+        public void close() {
+            pins.decrementAndGet();
+        }
+
+        private boolean pin() {
+            int held = pins.get();
+            return held != FILLING && pins.compareAndSet(held, held + 1);
+        }
+    }
+
+    /**
+     * Fill {@code columns} reels for a new roll with items from
+     * {@code supplier}, avoiding repeats. Callable from any thread.
+     */
+    public void reset(int columns, IntSupplier supplier) {
+        columns = Math.max(0, Math.min(MAX_COLUMNS, columns));
+        Frame next = claim();
+        int count = columns * rows;
+        for (int i = 0; i < count; i++) {
+            next.items[i] = nextUnique(supplier, next.items, i);
+        }
+        next.roll = rolls.incrementAndGet();
+        next.columns = columns;
+        next.winnerDelta = 0;
+        published.set(next);
+        next.pins.set(0);
+    }
+
+    /**
+     * @return the latest published frame, pinned until closed; callable
+     * from any thread
+     */
+    public Frame frame() {
+        while (true) {
+            Frame latest = published.get();
+            if (latest.pin()) {
+                // still published, so it was not refilled before the pin took
+                if (published.get() == latest) {
+                    return latest;
+                }
+                latest.close();
+            }
+        }
+    }
+
+    /**
+     * Bring the render thread's rings up to date with the latest roll.
+     * Render thread only; allocates nothing.
+     */
+    public void acquire() {
+        Frame latest = frame();
+        if (latest == loaded) {
+            latest.close();
+            return;
+        }
+        if (latest.roll != loadedRoll) {
+            int count = latest.columns * rows;
+            System.arraycopy(latest.items, 0, ring, 0, count);
+            head = 0;
+            winnerDelta = latest.winnerDelta;
+            seen.clear();
+            for (int i = 0; i < count; i++) {
+                seen.add(latest.items[i]);
+            }
+        }
+        load(latest);
+    }
+
+    /** @return columns in the loaded roll. Render thread only. */
+    public int columns() {
+        return loadedColumns;
+    }
+
+    /** @return the live item at {@code row} of {@code column}, or 0. Render thread only. */
+    public int item(int column, int row) {
+        if (column < 0 || column >= columns() || row < 0 || row >= rows) {
+            return 0;
+        }
+        return ring[column * rows + (head + row) % rows];
+    }
+
+    /** @return the item the live column settles on. Render thread only. */
+    public int winner(int column, int centerRow) {
+        return item(column, Math.min(centerRow + winnerDelta, rows - 1));
+    }
+
+    /**
+     * Scroll every column by one item: the top item leaves and a new one
+     * from {@code supplier} enters at the bottom. Render thread only.
+     */
+    public void advance(IntSupplier supplier) {
+        final int columns = columns();
+        if (columns == 0) {
+            return;
+        }
+        final int tail = head;
+        head = (head + 1) % rows;
+        for (int col = 0; col < columns; col++) {
+            ring[col * rows + tail] = nextUnique(supplier);
+        }
+        publish();
+    }
+
+    /** Set which row past the centre the columns settle on. Render thread only. */
+    public void setWinnerDelta(int delta) {
+        if (delta != winnerDelta) {
+            winnerDelta = delta;
+            publish();
+        }
+    }
+
+    private void publish() {
+        if (loaded == null) {
+            return;
+        }
+        final int columns = columns();
+        Frame next = claim();
+        for (int col = 0; col < columns; col++) {
+            for (int row = 0; row < rows; row++) {
+                next.items[col * rows + row] = item(col, row);
+            }
+        }
+        next.roll = loadedRoll;
+        next.columns = columns;
+        next.winnerDelta = winnerDelta;
+        // loses only to a newly started roll, which the next acquire picks
+        // up; the loaded frame stays pinned, so it cannot have been refilled
+        if (published.compareAndSet(loaded, next)) {
+            next.pins.set(1);
+            load(next);
+        } else {
+            next.pins.set(0);
+        }
+    }
+
+    /** Swap the render thread's pin over to {@code frame}, which it already holds. */
+    private void load(Frame frame) {
+        if (loaded != null) {
+            loaded.close();
+        }
+        loaded = frame;
+        loadedRoll = frame.roll;
+        loadedColumns = frame.columns;
+    }
+
+    /**
+     * @return a frame no reader can see, owned by the caller until it
+     * publishes it or hands it back by resetting its pins
+     */
+    private Frame claim() {
+        for (Frame frame : pool) {
+            if (frame != published.get() && frame.pins.compareAndSet(0, Frame.FILLING)) {
+                // published between the check and the claim
+                if (frame == published.get()) {
+                    frame.pins.set(0);
+                    continue;
+                }
+                return frame;
+            }
+        }
+        // every pooled frame is held; a reader left one open or two rolls raced
+        Frame spare = new Frame(rows);
+        spare.pins.set(Frame.FILLING);
+        return spare;
+    }
+
+    private int nextUnique(IntSupplier supplier) {
+        if (supplier == null) {
+            return 0;
+        }
+        final int maxAttempts = Math.max(10, columns() * rows);
+        int fallback = 0;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            int candidate = supplier.getAsInt();
+            fallback = candidate;
+            if (candidate == 0) {
+                break;
+            }
+            if (seen.add(candidate)) {
+                return candidate;
+            }
+        }
+        seen.add(fallback);
+        return fallback;
+    }
+
+    /** Unique draw while seeding, checked against the items drawn so far. */
+    private int nextUnique(IntSupplier supplier, int[] drawn, int count) {
+        if (supplier == null) {
+            return 0;
+        }
+        final int maxAttempts = Math.max(10, drawn.length);
+        int fallback = 0;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            int candidate = supplier.getAsInt();
+            fallback = candidate;
+            if (candidate == 0) {
+                break;
+            }
+            if (indexOf(drawn, count, candidate) < 0) {
+                return candidate;
+            }
+        }
+        return fallback;
+    }
+
+    private static int indexOf(int[] items, int count, int id) {
+        for (int i = 0; i < count; i++) {
+            if (items[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Open-addressed set of positive item IDs; 0 marks a free slot. Never
+     * reallocates: past its capacity it forgets what it held and starts over.
+     */
+    private static final class IntSet {
+        private final int[] slots;
+        private final int capacity;
+        private int size;
+
+        IntSet(int capacity) {
+            this.capacity = Math.max(1, capacity);
+            // at most half full, so probes stay short
+            this.slots = new int[Integer.highestOneBit(this.capacity * 2 - 1) << 1];
+        }
+
+        boolean add(int id) {
+            if (id <= 0) {
+                return false;
+            }
+            if (size >= capacity) {
+                clear();
+            }
+            int mask = slots.length - 1;
+            int i = (id * 0x9E3779B9) >>> 1 & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == id) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = id;
+            size++;
+            return true;
+        }
+
+        void clear() {
+            Arrays.fill(slots, 0);
+            size = 0;
+        }
+    }
+}
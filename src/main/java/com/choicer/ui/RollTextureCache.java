@@ -0,0 +1,219 @@
+package com.choicer.ui;
+
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.util.AsyncBufferedImage;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Pre-rendered images for the roll overlay, so that steady-state frames are
+ * mostly image blits. Sprites such as glows and slot frames are painted once
+ * per key by a caller-supplied painter; item icons are scaled once per item,
+ * size and interpolation. Every size the overlay uses derives from the
+ * viewport, so all of it is dropped when the viewport is resized.
+ *
+ * Confined to the render thread, apart from the load notifications of item
+ * images that were still being fetched when first scaled.
+ */
+public class RollTextureCache {
+    static final int MAX_ICONS = 256;
+
+    private final ItemManager itemManager;
+    private final LongTable<Sprite> sprites = new LongTable<>();
+    private final LongTable<Icon> icons = new LongTable<>();
+    private int viewportWidth = -1;
+    private int viewportHeight = -1;
+
+    public RollTextureCache(ItemManager itemManager) {
+        this.itemManager = itemManager;
+    }
+
+    /** An image drawn at a fixed offset from the point it decorates. */
+    public static final class Sprite {
+        private final BufferedImage image;
+        private final int offsetX;
+        private final int offsetY;
+
+        Sprite(BufferedImage image, int offsetX, int offsetY) {
+            this.image = image;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+        }
+
+        public void draw(Graphics2D g, int x, int y) {
+            g.drawImage(image, x + offsetX, y + offsetY, null);
+        }
+    }
+
+    private static final class Icon {
+        BufferedImage image;
+        /** Scaled before its pixels arrived; rescale once {@link #loaded}. */
+        boolean waiting;
+        volatile boolean loaded;
+
+        boolean stale() {
+            return waiting && loaded;
+        }
+    }
+
+    /**
+     * Pack a sprite key. {@code a} and {@code b} keep 16 bits, {@code c} 24,
+     * {@code kind} the top 8.
+     */
+    public static long key(int kind, int a, int b, int c) {
+        return (long) (kind & 0xFF) << 56
+                | (long) (a & 0xFFFF) << 40
+                | (long) (b & 0xFFFF) << 24
+                | (c & 0xFFFFFF);
+    }
+
+    /** Drop everything if the viewport changed size since the last frame. */
+    public void validate(int viewportWidth, int viewportHeight) {
+        if (viewportWidth == this.viewportWidth && viewportHeight == this.viewportHeight) {
+            return;
+        }
+        this.viewportWidth = viewportWidth;
+        this.viewportHeight = viewportHeight;
+        sprites.clear();
+        icons.clear();
+    }
+
+    /** @return the sprite rendered for {@code key}, or null */
+    public Sprite sprite(long key) {
+        return sprites.get(key);
+    }
+
+    /**
+     * Render and remember a sprite. The painter draws as if the decorated
+     * point were the origin; the image spans {@code width} by {@code height}
+     * from ({@code offsetX}, {@code offsetY}) relative to it. Antialiasing and
+     * pure strokes are on, matching the overlay.
+     */
+    public Sprite render(long key, int offsetX, int offsetY, int width, int height, Consumer<Graphics2D> painter) {
+        BufferedImage image = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            g.translate(-offsetX, -offsetY);
+            painter.accept(g);
+        } finally {
+            g.dispose();
+        }
+        Sprite sprite = new Sprite(image, offsetX, offsetY);
+        sprites.put(key, sprite);
+        return sprite;
+    }
+
+    /**
+     * @param smooth bilinear rather than nearest-neighbour scaling
+     * @return the item's image scaled to the given size, or null if it has none
+     */
+    public BufferedImage icon(int itemId, int width, int height, boolean smooth) {
+        final long key = key(smooth ? 1 : 0, width, height, itemId);
+        final Icon cached = icons.get(key);
+        if (cached != null && !cached.stale()) {
+            return cached.image;
+        }
+
+        final BufferedImage source = itemManager.getImage(itemId, 1, false);
+        if (source == null) {
+            return null;
+        }
+        final Icon icon = new Icon();
+        if (cached == null && source instanceof AsyncBufferedImage) {
+            icon.waiting = true;
+            ((AsyncBufferedImage) source).onLoaded(() -> icon.loaded = true);
+            // runs inline when the pixels are already there
+            icon.waiting = !icon.loaded;
+        }
+        icon.image = scale(source, width, height, smooth);
+
+        if (icons.size() >= MAX_ICONS) {
+            icons.clear();
+        }
+        icons.put(key, icon);
+        return icon.image;
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height, boolean smooth) {
+        BufferedImage scaled = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, smooth
+                    ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+                    : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    /** Open-addressed map from long keys, so lookups don't box. */
+    static final class LongTable<V> {
+        private long[] keys = new long[64];
+        private Object[] values = new Object[64];
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        V get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return (V) values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(long key, V value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (values[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == null) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Object[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    @SuppressWarnings("unchecked")
+                    V v = (V) oldValues[i];
+                    put(oldKeys[i], v);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.choicer.ui;
+
+import com.choicer.drops.NpcDropData;
+import com.choicer.managers.CompletionSimulator;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Small non-modal window that runs a {@link CompletionSimulator} estimate and
+ * shows its partial results as they stream in. Closing the window cancels
+ * the remaining trials.
+ */
+public final class SimulationDialog extends JDialog
+{
+    private final JLabel body = new JLabel();
+    private final String heading;
+    private CompletionSimulator.Simulation simulation;
+
+    private SimulationDialog(String heading)
+    {
+        super((Frame) null, "Choicer unlock estimate", false);
+        this.heading = heading;
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        body.setBorder(new EmptyBorder(10, 12, 10, 12));
+        body.setText(html("Simulating…"));
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> dispose());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(close);
+
+        getContentPane().add(body, BorderLayout.CENTER);
+        getContentPane().add(buttons, BorderLayout.SOUTH);
+        addWindowListener(new WindowAdapter()
+        {
+            @Override
+            public void windowClosed(WindowEvent e)
+            {
+                if (simulation != null)
+                {
+                    simulation.cancel();
+                }
+            }
+        });
+    }
+
+    /** Open the window and start simulating; call on the EDT. */
+    public static void open(CompletionSimulator simulator, NpcDropData npc, Collection<Integer> targets,
+            String what)
+    {
+        String heading = String.format("Unlocking %s from %s (lvl %d)", what, npc.getName(), npc.getLevel());
+        SimulationDialog dialog = new SimulationDialog(heading);
+        dialog.setSize(360, 200);
+        dialog.setLocationRelativeTo(null);
+        dialog.setVisible(true);
+        dialog.simulation = simulator.simulate(npc, targets,
+                result -> SwingUtilities.invokeLater(() -> dialog.showResult(result)));
+    }
+
+    private void showResult(CompletionSimulator.Result r)
+    {
+        if (!isDisplayable())
+        {
+            return;
+        }
+        if (r.isNothingToRoll())
+        {
+            body.setText(html("Nothing to simulate: every target is already rolled or cannot be rolled."));
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Trials: %,d%s<br>", r.getTrials(), r.isDone() ? "" : " (running)"));
+        if (r.getCompleted() == 0)
+        {
+            sb.append("None of the targets unlocked within the simulated kills.");
+        }
+        else
+        {
+            sb.append(String.format(Locale.ROOT, "Unlocked in %.1f%% of trials<br>", r.getCompletionRate() * 100));
+            sb.append(String.format(Locale.ROOT, "Mean: %,.0f kills (%.1f h)<br>", r.getMeanKills(), r.getMeanHours()));
+            sb.append(String.format(Locale.ROOT, "Median %,d, 90%% %,d, 99%% %,d kills",
+                    r.getMedianKills(), r.getP90Kills(), r.getP99Kills()));
+        }
+        body.setText(html(sb.toString()));
+    }
+
+    private String html(String text)
+    {
+        return "<html><b>" + heading.replace("&", "&amp;").replace("<", "&lt;") + "</b><br><br>" + text + "</html>";
+    }
+}
@@ -0,0 +1,71 @@
+package com.choicer.drops;
+
+import com.choicer.ChoicerConfig;
+import com.choicer.account.AccountManager;
+import com.google.gson.Gson;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Name searches over an empty drop cache, answered from a seed database
+ * fixture holding Hill Giant and Man.
+ */
+public class DropCacheTest {
+    private static final String SEED = "/com/choicer/drops/seed-fixture.json.gz";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private DropCache cache;
+
+    @Before
+    public void setUp() {
+        AccountManager accountManager = mock(AccountManager.class);
+        when(accountManager.getPlayerName()).thenReturn("player");
+        DropFetcher dropFetcher = mock(DropFetcher.class);
+        // the wiki knows nothing, so every name below comes from the seed
+        when(dropFetcher.searchNpcNames(anyString())).thenReturn(Collections.emptyList());
+
+        DropPool pool = new DropPool();
+        cache = new DropCache(new Gson(), accountManager, dropFetcher, new DropSeedDatabase(new Gson(), pool, SEED),
+                mock(ChoicerConfig.class), mock(DropRevalidator.class), pool, new DropSourceIndex(),
+                new NpcNameIndex(), tmp.getRoot().toPath());
+    }
+
+    @After
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    private List<String> search(String query, int level) throws Exception {
+        return cache.searchNpcNames(query, level, 0).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void seededNamesAreFoundWithoutACachedTable() throws Exception {
+        assertEquals("Hill Giant", search("hill giant", 0).get(0));
+        assertEquals("Hill Giant", search("hill gi", 0).get(0));
+        assertEquals("Hill Giant", search("hil giatn", 0).get(0));
+        assertTrue(search("man", 0).contains("Man"));
+    }
+
+    @Test
+    public void seededNamesHonourTheLevelFilter() throws Exception {
+        assertTrue(search("giant", 28).contains("Hill Giant"));
+        assertFalse(search("giant", 27).contains("Hill Giant"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.choicer.drops;
+
+import com.choicer.persist.IntArrayAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares load time and allocation of reflective Gson against the streaming
+ * adapters for drop tables and item-ID sets, and the heap retained by a large
+ * cache with and without the {@link DropPool}. Not a test; run it by hand,
+ * e.g. from the IDE, on a quiet machine.
+ */
+public class DropJsonBenchmark {
+    private static final Type SET_TYPE = new TypeToken<Set<Integer>>() {
+    }.getType();
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws IOException {
+        Gson reflective = new Gson();
+        Gson streaming = new GsonBuilder()
+                .registerTypeAdapter(NpcDropData.class, new NpcDropDataAdapter())
+                .create();
+
+        List<String> tables = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tables.add(reflective.toJson(table(i)));
+        }
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            ids.add(i * 3 + 1);
+        }
+        String idJson = reflective.toJson(ids);
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            boolean report = warmup == 1;
+            measure(report, "drop tables, reflective", () -> {
+                for (String t : tables) {
+                    reflective.fromJson(t, NpcDropData.class).getDropTableSections().forEach(s ->
+                            s.getItems().forEach(DropItem::getRarityValue));
+                }
+            });
+            measure(report, "drop tables, streaming ", () -> {
+                for (String t : tables) {
+                    streaming.fromJson(t, NpcDropData.class).getDropTableSections().forEach(s ->
+                            s.getItems().forEach(DropItem::getRarityValue));
+                }
+            });
+            measure(report, "item ids, reflective   ", () -> reflective.fromJson(idJson, SET_TYPE));
+            measure(report, "item ids, streaming    ", () -> IntArrayAdapter.read(new StringReader(idJson)));
+            measure(report, "item ids write, refl.  ", () -> reflective.toJson(ids, SET_TYPE, new StringWriter()));
+            measure(report, "item ids write, stream ", () -> IntArrayAdapter.write(new StringWriter(), ids));
+        }
+
+        // Realistic vocabulary: a few hundred distinct items spread over many NPCs.
+        List<String> shared = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            shared.add(reflective.toJson(table(i, 300)));
+        }
+        Gson unpooled = new GsonBuilder()
+                .registerTypeAdapter(NpcDropData.class, new NpcDropDataAdapter(new DropPool() {
+                    @Override
+                    public String intern(String s) {
+                        return s;
+                    }
+
+                    @Override
+                    public DropRarity rarity(String raw, DropRarity parsed) {
+                        return parsed != null ? parsed : DropRarity.parse(raw);
+                    }
+                }))
+                .create();
+        Gson pooled = new GsonBuilder()
+                .registerTypeAdapter(NpcDropData.class, new NpcDropDataAdapter(new DropPool()))
+                .create();
+        System.out.printf("2000 tables retained, unpooled  %8.1f KiB%n", retained(unpooled, shared) / 1024.0);
+        System.out.printf("2000 tables retained, pooled    %8.1f KiB%n", retained(pooled, shared) / 1024.0);
+    }
+
+    private static long retained(Gson gson, List<String> tables) {
+        long before = usedHeap();
+        List<NpcDropData> loaded = new ArrayList<>(tables.size());
+        for (String t : tables) {
+            loaded.add(gson.fromJson(t, NpcDropData.class));
+        }
+        long after = usedHeap();
+        if (loaded.size() != tables.size()) {
+            throw new AssertionError();
+        }
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static NpcDropData table(int n) {
+        return table(n, Integer.MAX_VALUE);
+    }
+
+    private static NpcDropData table(int n, int vocabulary) {
+        String[] rarities = { "Always", "4/128", "1/64", "3/128–1/64", "2 x 1/128", "12.5%", "Rare" };
+        List<DropTableSection> sections = new ArrayList<>();
+        for (int s = 0; s < 4; s++) {
+            List<DropItem> items = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                int id = (n * 100 + s * 12 + i) % vocabulary;
+                items.add(new DropItem(id, "Item " + id, rarities[(n + s + i) % rarities.length]));
+            }
+            sections.add(new DropTableSection("Section " + s, items));
+        }
+        NpcDropData data = new NpcDropData(n, "Npc " + n, n % 100, sections);
+        data.setRevisionId(1_000_000L + n);
+        return data;
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private static void measure(boolean report, String label, Task task) throws IOException {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytes = mx.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            task.run();
+        }
+        long nanos = System.nanoTime() - start;
+        bytes = mx.getThreadAllocatedBytes(thread) - bytes;
+        if (report) {
+            System.out.printf("%s  %8.2f ms/round  %8.1f KiB/round%n", label,
+                    nanos / 1e6 / ROUNDS, bytes / 1024.0 / ROUNDS);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.choicer.drops;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the {@link DropRarity} parser against the rarity formats the wiki
+ * uses.
+ */
+public class DropRarityTest {
+    private static final double EPS = 1e-9;
+
+    @Test
+    public void normalizesFractions() {
+        DropRarity r = DropRarity.parse("4/128");
+        assertEquals("1/32", r.getDisplay());
+        assertEquals(4, r.getNumerator(), EPS);
+        assertEquals(128, r.getDenominator(), EPS);
+        assertEquals(32, r.getSortValue(), EPS);
+    }
+
+    @Test
+    public void normalizesPercentagesMultipliersAndInSyntax() {
+        assertEquals("1/8", DropRarity.parse("12.5%").getDisplay());
+        assertEquals("1/64", DropRarity.parse("2 x 1/128").getDisplay());
+        assertEquals("1/64", DropRarity.parse("1 in 64").getDisplay());
+        assertEquals("1/3.33", DropRarity.parse("3/10").getDisplay());
+        assertEquals("1/5000", DropRarity.parse("1/5,000 [d 1]").getDisplay());
+    }
+
+    @Test
+    public void keepsRangeBounds() {
+        DropRarity r = DropRarity.parse("3/128–1/64");
+        assertEquals("1/42.67–1/64", r.getDisplay());
+        assertEquals(128 / 3.0, r.getRangeFrom(), EPS);
+        assertEquals(64, r.getRangeTo(), EPS);
+        assertEquals(128 / 3.0, r.getSortValue(), EPS);
+    }
+
+    @Test
+    public void keepsEverySegmentInDisplay() {
+        DropRarity r = DropRarity.parse("1/128; 1/512");
+        assertEquals("1/128; 1/512", r.getDisplay());
+        assertEquals(128, r.getRangeTo(), EPS);
+    }
+
+    @Test
+    public void alwaysSortsFirstAndUnknownLast() {
+        DropRarity always = DropRarity.parse("Always");
+        assertTrue(always.isAlways());
+        assertEquals(0, always.getSortValue(), EPS);
+
+        DropRarity rare = DropRarity.parse("Rare");
+        assertFalse(rare.isAlways());
+        assertEquals("Rare", rare.getDisplay());
+        assertEquals(Double.POSITIVE_INFINITY, rare.getSortValue(), 0);
+        assertEquals(Double.POSITIVE_INFINITY, DropRarity.parse(null).getSortValue(), 0);
+    }
+
+    @Test
+    public void chancePerKill() {
+        assertEquals(1, DropRarity.parse("Always").getChance(), EPS);
+        assertEquals(1 / 32d, DropRarity.parse("4/128").getChance(), EPS);
+        assertEquals((1 / 64d + 1 / 32d) / 2, DropRarity.parse("1/64–1/32").getChance(), EPS);
+        assertEquals(0, DropRarity.parse("Rare").getChance(), 0);
+    }
+
+    @Test
+    public void modelSurvivesCacheRoundTrip() {
+        Gson gson = new Gson();
+        DropItem item = new DropItem(1, "Bones", "Always");
+        DropItem read = gson.fromJson(gson.toJson(item), DropItem.class);
+        assertTrue(read.getParsedRarity().isAlways());
+
+        // entries cached before the model existed are parsed on first use
+        DropItem legacy = gson.fromJson("{\"itemId\":2,\"name\":\"Coins\",\"rarity\":\"1/4\"}", DropItem.class);
+        assertEquals(4, legacy.getRarityValue(), EPS);
+    }
+
+    @Test
+    public void sortsByPrecomputedValue() {
+        List<DropItem> drops = Arrays.asList(
+                new DropItem(1, "Rune", "Rare"),
+                new DropItem(2, "Bronze", "1/4"),
+                new DropItem(3, "Bones", "Always"),
+                new DropItem(4, "Iron", "1/64–1/32"));
+        List<String> sorted = drops.stream()
+                .sorted((a, b) -> Double.compare(a.getRarityValue(), b.getRarityValue()))
+                .map(DropItem::getName)
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList("Bones", "Bronze", "Iron", "Rune"), sorted);
+    }
+}
@@ -0,0 +1,106 @@
+package com.choicer.drops;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.choicer.drops.DropTables.table;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DropSourceIndexTest {
+    private static final int BONES = 526;
+    private static final int COINS = 995;
+    private static final int RUNE_SPEAR = 1247;
+
+    @Test
+    public void sourcesAreSortedMostCommonFirst() {
+        DropSourceIndex index = new DropSourceIndex();
+        index.put(Paths.get("a.json"), table("Goblin", 2,
+                new DropItem(BONES, "Bones", "Always"),
+                new DropItem(COINS, "Coins", "1/128")));
+        index.put(Paths.get("b.json"), table("Guard", 21,
+                new DropItem(COINS, "Coins", "1/8")));
+        index.put(Paths.get("c.json"), table("Man", 2,
+                new DropItem(COINS, "Coins", "Rare")));
+
+        List<DropSourceIndex.Source> coins = index.sourcesOf(COINS);
+        assertEquals(3, coins.size());
+        assertEquals("Guard", coins.get(0).getNpcName());
+        assertEquals("Goblin", coins.get(1).getNpcName());
+        assertEquals("Man", coins.get(2).getNpcName());
+        assertEquals("Guard (lvl 21) 1/8", coins.get(0).toString());
+        assertEquals("Drops", coins.get(0).getSection());
+
+        assertEquals(1, index.sourcesOf(BONES).size());
+        assertTrue(index.sourcesOf(RUNE_SPEAR).isEmpty());
+    }
+
+    @Test
+    public void equalSourcesKeepTheOrderTheyWereIndexedIn() {
+        DropSourceIndex index = new DropSourceIndex();
+        index.put(Paths.get("a.json"), table("Goblin", 2, new DropItem(COINS, "Coins", "1/8")));
+        index.put(Paths.get("b.json"), table("Goblin", 2, new DropItem(COINS, "Coins", "1/8")));
+        index.put(Paths.get("c.json"), table("Imp", 7, new DropItem(COINS, "Coins", "1/128")));
+        index.put(Paths.get("d.json"), table("Goblin", 2, new DropItem(COINS, "Coins", "1/8")));
+        index.put(Paths.get("e.json"), table("Cow", 2, new DropItem(COINS, "Coins", "Always")));
+
+        List<DropSourceIndex.Source> coins = index.sourcesOf(COINS);
+        assertEquals(5, coins.size());
+        assertEquals("Cow", coins.get(0).getNpcName());
+        assertEquals(Paths.get("a.json"), coins.get(1).getTable());
+        assertEquals(Paths.get("b.json"), coins.get(2).getTable());
+        assertEquals(Paths.get("d.json"), coins.get(3).getTable());
+        assertEquals("Imp", coins.get(4).getNpcName());
+    }
+
+    @Test
+    public void duplicateRowsKeepTheMostCommon() {
+        DropSourceIndex index = new DropSourceIndex();
+        NpcDropData data = new NpcDropData(0, "Hill Giant", 28, Arrays.asList(
+                new DropTableSection("Weapons", Arrays.asList(new DropItem(COINS, "Coins", "1/64"))),
+                new DropTableSection("Coins", Arrays.asList(new DropItem(COINS, "Coins", "1/16")))));
+        index.put(Paths.get("giant.json"), data);
+
+        List<DropSourceIndex.Source> coins = index.sourcesOf(COINS);
+        assertEquals(1, coins.size());
+        assertEquals("Coins", coins.get(0).getSection());
+    }
+
+    @Test
+    public void replacingAndRemovingTablesUpdatesTheIndex() {
+        DropSourceIndex index = new DropSourceIndex();
+        Path goblin = Paths.get("goblin.json");
+        index.put(goblin, table("Goblin", 2, new DropItem(BONES, "Bones", "Always"),
+                new DropItem(COINS, "Coins", "1/128")));
+        index.put(Paths.get("guard.json"), table("Guard", 21, new DropItem(COINS, "Coins", "1/8")));
+
+        // a refetched table no longer lists coins
+        index.put(goblin, table("Goblin", 2, new DropItem(BONES, "Bones", "Always")));
+        assertEquals(1, index.sourcesOf(COINS).size());
+        assertEquals("Guard", index.sourcesOf(COINS).get(0).getNpcName());
+
+        index.remove(goblin);
+        assertFalse(index.contains(goblin));
+        assertTrue(index.sourcesOf(BONES).isEmpty());
+        assertEquals(1, index.size());
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertNull(index.describe(COINS, 3));
+    }
+
+    @Test
+    public void describeSummarisesTheTopSources() {
+        DropSourceIndex index = new DropSourceIndex();
+        for (int i = 1; i <= 5; i++) {
+            index.put(Paths.get(i + ".json"), table("Npc " + i, i, new DropItem(COINS, "Coins", "1/" + (i * 10))));
+        }
+        assertEquals("Dropped by Npc 1 (lvl 1) 1/10, Npc 2 (lvl 2) 1/20 and 3 more", index.describe(COINS, 2));
+    }
+}
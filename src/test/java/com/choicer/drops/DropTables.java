@@ -0,0 +1,16 @@
+package com.choicer.drops;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/** Drop tables for tests. */
+public final class DropTables {
+    private DropTables() {
+    }
+
+    /** @return a table with a single "Drops" section listing {@code items} */
+    public static NpcDropData table(String name, int level, DropItem... items) {
+        return new NpcDropData(0, name, level,
+                Collections.singletonList(new DropTableSection("Drops", Arrays.asList(items))));
+    }
+}
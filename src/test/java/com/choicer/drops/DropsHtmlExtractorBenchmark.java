@@ -0,0 +1,105 @@
+package com.choicer.drops;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compares time and allocation per page of {@link DropsHtmlExtractor} against
+ * the Jsoup DOM walk it replaced, over the wiki articles saved by
+ * {@code ./gradlew saveWikiPages} and a boss-sized page made by repeating the
+ * largest of them. Without saved articles it falls back to the hand-written
+ * fixtures, whose timings say little about the live wiki. Not a test; run it
+ * by hand, e.g. from the IDE, on a quiet machine.
+ */
+public class DropsHtmlExtractorBenchmark {
+    private static final String[] FIXTURES = { "man-page.html", "hill-giant-page.html" };
+    /** Copies of the largest page in the synthetic boss page, about 1 MB. */
+    private static final int BOSS_COPIES = 12;
+    private static final int ROUNDS = 50;
+
+    public static void main(String[] args) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<String> pages = new ArrayList<>();
+        for (Path page : SavedWikiPages.list()) {
+            names.add(page.getFileName().toString());
+            pages.add(SavedWikiPages.read(page));
+        }
+        if (pages.isEmpty()) {
+            System.out.println("No saved wiki articles; timing the hand-written fixtures instead");
+            for (String page : FIXTURES) {
+                names.add(page);
+                pages.add(read(page));
+            }
+        }
+        String largest = Collections.max(pages, Comparator.comparingInt(String::length));
+        StringBuilder boss = new StringBuilder(largest.length() * BOSS_COPIES);
+        for (int i = 0; i < BOSS_COPIES; i++) {
+            boss.append(largest);
+        }
+        names.add("boss-sized (" + BOSS_COPIES + " copies)");
+        pages.add(boss.toString());
+
+        for (int i = 0; i < pages.size(); i++) {
+            String html = pages.get(i);
+            int streamed = DropsHtmlExtractor.extract(new StringReader(html)).getSections().size();
+            int dom = SavedWikiPages.jsoupItemCounts(html).size();
+            if (streamed != dom) {
+                throw new AssertionError(names.get(i) + ": extractor found " + streamed
+                        + " tables, Jsoup " + dom);
+            }
+        }
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            boolean report = warmup == 1;
+            for (int i = 0; i < pages.size(); i++) {
+                String html = pages.get(i);
+                if (report) {
+                    System.out.printf("%s, %.1f KiB%n", names.get(i), html.length() / 1024.0);
+                }
+                measure(report, "  streaming extractor", () -> DropsHtmlExtractor.extract(new StringReader(html)));
+                measure(report, "  Jsoup DOM          ", () -> SavedWikiPages.jsoupItemCounts(html).size());
+            }
+        }
+    }
+
+    private static String read(String page) throws IOException {
+        try (InputStream in = DropsHtmlExtractorBenchmark.class.getResourceAsStream(page)) {
+            if (in == null) {
+                throw new IOException("missing fixture " + page);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private static void measure(boolean report, String label, Task task) throws IOException {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytes = mx.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            task.run();
+        }
+        long nanos = System.nanoTime() - start;
+        bytes = mx.getThreadAllocatedBytes(thread) - bytes;
+        if (report) {
+            System.out.printf("%s  %8.2f ms/page  %10.1f KiB/page%n", label,
+                    nanos / 1e6 / ROUNDS, bytes / 1024.0 / ROUNDS);
+        }
+    }
+}
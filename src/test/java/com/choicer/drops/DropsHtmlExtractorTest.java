@@ -0,0 +1,180 @@
+package com.choicer.drops;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link DropsHtmlExtractor} against hand-written NPC articles modelled
+ * on the wiki's markup, a few inline edge cases, and any real articles saved
+ * by {@code ./gradlew saveWikiPages}.
+ */
+public class DropsHtmlExtractorTest {
+    private static DropsHtmlExtractor.Result extractFixture(String page) throws IOException {
+        try (Reader r = new InputStreamReader(
+                DropsHtmlExtractorTest.class.getResourceAsStream(page), StandardCharsets.UTF_8)) {
+            return DropsHtmlExtractor.extract(r);
+        }
+    }
+
+    private static List<String> headers(DropsHtmlExtractor.Result page) {
+        List<String> out = new ArrayList<>();
+        for (DropTableSection s : page.getSections()) {
+            out.add(s.getHeader());
+        }
+        return out;
+    }
+
+    private static DropTableSection section(DropsHtmlExtractor.Result page, String header) {
+        for (DropTableSection s : page.getSections()) {
+            if (s.getHeader().equals(header)) {
+                return s;
+            }
+        }
+        throw new AssertionError("no section " + header);
+    }
+
+    @Test
+    public void extractsPageFacts() throws IOException {
+        DropsHtmlExtractor.Result page = extractFixture("hill-giant-page.html");
+
+        assertEquals("Hill Giant", page.getHeading());
+        assertEquals("https://oldschool.runescape.wiki/w/Hill_Giant", page.getCanonicalHref());
+        assertEquals(28, page.getCombatLevel());
+    }
+
+    @Test
+    public void extractsEveryDropTableOfALargePage() throws IOException {
+        DropsHtmlExtractor.Result page = extractFixture("hill-giant-page.html");
+
+        assertEquals(Arrays.asList("100%", "Weapons and armour", "Runes and ammunition", "Herbs", "Seeds",
+                "Coins", "Other", "Rare and Gem drop table", "Tertiary"), headers(page));
+
+        List<DropItem> always = section(page, "100%").getItems();
+        assertEquals(1, always.size());
+        assertEquals("Big bones", always.get(0).getName());
+        assertEquals("Always", always.get(0).getRarity());
+
+        // the Nothing row is skipped
+        assertEquals(3, section(page, "Other").getItems().size());
+        assertEquals(6, section(page, "Coins").getItems().size());
+    }
+
+    @Test
+    public void readsRareDropTableRows() throws IOException {
+        List<DropItem> rdt = section(extractFixture("hill-giant-page.html"), "Rare and Gem drop table").getItems();
+
+        assertEquals(27, rdt.size());
+        assertEquals("Nature rune", rdt.get(0).getName());
+        assertEquals("3/16384", rdt.get(0).getRarity());
+        assertEquals("Loop half of key", rdt.get(12).getName());
+        assertEquals("Silver ore", rdt.get(16).getName());
+        assertEquals("Dragon spear", rdt.get(26).getName());
+        assertEquals("1/524288", rdt.get(26).getRarity());
+    }
+
+    @Test
+    public void skipsTablesThatAreNotDropTables() throws IOException {
+        DropsHtmlExtractor.Result page = extractFixture("man-page.html");
+
+        assertEquals("Man", page.getHeading());
+        assertEquals(2, page.getCombatLevel());
+        // the pickpocketing table above the drops is a plain wikitable
+        assertEquals(Arrays.asList("100%", "Weapons and armour", "Runes and ammunition", "Herbs", "Coins",
+                "Other", "Gem drop table", "Tertiary"), headers(page));
+        List<DropItem> tertiary = section(page, "Tertiary").getItems();
+        assertEquals("Clue scroll (beginner)", tertiary.get(0).getName());
+        assertEquals("1/90", tertiary.get(0).getRarity());
+    }
+
+    @Test
+    public void savedWikiPagesReadLikeTheJsoupWalk() throws IOException {
+        List<Path> pages = SavedWikiPages.list();
+        Assume.assumeFalse("no saved wiki articles", pages.isEmpty());
+
+        for (Path page : pages) {
+            String html = SavedWikiPages.read(page);
+            List<Integer> counts = new ArrayList<>();
+            for (DropTableSection s : DropsHtmlExtractor.extract(new StringReader(html)).getSections()) {
+                counts.add(s.getItems().size());
+            }
+            assertEquals(page.getFileName().toString(), SavedWikiPages.jsoupItemCounts(html), counts);
+        }
+    }
+
+    @Test
+    public void ignoresScriptsStylesAndComments() throws IOException {
+        String html = "<head><script>var t = \"<table class='item-drops'><tr><td>Fake</td></tr></table>\";</script>"
+                + "<style>.item-drops td { color: red; }</style></head>"
+                + "<!-- <table class=\"item-drops\"><tr><td>Commented</td></tr></table> -->"
+                + "<h2>Drops</h2><table class=\"item-drops\"><tr><th>Item</th><th>Rarity</th></tr>"
+                + "<tr><td><a title=\"Bones\">Bones</a></td><td><span data-drop-fraction=\"Always\"></span></td></tr>"
+                + "</table>";
+
+        List<DropTableSection> sections = DropsHtmlExtractor.extract(new StringReader(html)).getSections();
+
+        assertEquals(1, sections.size());
+        assertEquals(1, sections.get(0).getItems().size());
+        assertEquals("Bones", sections.get(0).getItems().get(0).getName());
+    }
+
+    @Test
+    public void readsUnlinkedNamesAndUnusualRarities() throws IOException {
+        String html = "<h3>Weapons &amp; armour</h3><table class=\"item-drops\"><tbody>"
+                + "<tr><th class=\"item-col\" colspan=\"2\">Item</th><th>Quantity</th><th>Rarity</th></tr>"
+                + "<tr><td></td><td>Water rune (m)</td><td>6</td>"
+                + "<td><span data-drop-fraction=\"3/128\">3/128</span><span data-drop-fraction=\"1/64\">1/64</span></td></tr>"
+                + "<tr><td></td><td><a title=\"Zamorak monk robe &#40;top&#41;\">Zamorak monk robe (top)</a></td><td>1</td>"
+                + "<td><span data-drop-fraction=\"1/1,024\" data-drop-oneover=\"\">1/1,024</span></td></tr>"
+                + "<tr><td></td><td><a title=\"Coins\">Coins</a></td><td>5</td><td>Rare <i>(varies)</i></td></tr>"
+                + "</tbody></table>";
+
+        List<DropTableSection> sections = DropsHtmlExtractor.extract(new StringReader(html)).getSections();
+
+        assertEquals("Weapons & armour", sections.get(0).getHeader());
+        List<DropItem> items = sections.get(0).getItems();
+        assertEquals("Water rune", items.get(0).getName());
+        assertEquals("3/128–1/64", items.get(0).getRarity());
+        assertEquals("Zamorak monk robe (top)", items.get(1).getName());
+        assertEquals("1/1024", items.get(1).getRarity());
+        assertEquals("Coins", items.get(2).getName());
+        assertEquals("Rare", items.get(2).getRarity());
+    }
+
+    @Test
+    public void toleratesUnclosedCells() throws IOException {
+        String html = "<h2>Drops</h2><table class=\"item-drops\">"
+                + "<tr><th>Item<th>Rarity"
+                + "<tr><td><a title=\"Big bones\">Big bones</a><td><span data-drop-oneover=\"1/4\"></span>"
+                + "</table>";
+
+        List<DropTableSection> sections = DropsHtmlExtractor.extract(new StringReader(html)).getSections();
+
+        assertEquals(1, sections.size());
+        DropItem item = sections.get(0).getItems().get(0);
+        assertNotNull(item);
+        assertEquals("Big bones", item.getName());
+        assertEquals("1/4", item.getRarity());
+    }
+
+    @Test
+    public void sectionWithoutTablesYieldsNothing() throws IOException {
+        DropsHtmlExtractor.Result page = DropsHtmlExtractor.extract(new StringReader("<p>No drops &amp; no infobox"));
+
+        assertTrue(page.getSections().isEmpty());
+        assertEquals(0, page.getCombatLevel());
+    }
+}
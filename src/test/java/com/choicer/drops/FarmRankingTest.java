@@ -0,0 +1,121 @@
+package com.choicer.drops;
+
+import com.choicer.managers.ItemSetListener;
+import com.choicer.managers.ObtainedItemsManager;
+import com.choicer.managers.RolledItemsManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.choicer.drops.DropTables.table;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FarmRankingTest {
+    private static final double EPS = 1e-9;
+    private static final int BONES = 526;
+    private static final int COINS = 995;
+    private static final int SPEAR = 1247;
+    private static final int BEAD = 1470;
+
+    private final Set<Integer> obtained = new HashSet<>();
+    private final Set<Integer> rolled = new HashSet<>();
+    private DropSourceIndex index;
+    private FarmRanking ranking;
+    private ItemSetListener obtainedListener;
+    private ItemSetListener rolledListener;
+
+    @Before
+    public void setUp() {
+        ObtainedItemsManager obtainedItems = mock(ObtainedItemsManager.class);
+        RolledItemsManager rolledItems = mock(RolledItemsManager.class);
+        when(obtainedItems.isObtained(anyInt())).thenAnswer(inv -> obtained.contains(inv.<Integer>getArgument(0)));
+        when(rolledItems.isRolled(anyInt())).thenAnswer(inv -> rolled.contains(inv.<Integer>getArgument(0)));
+
+        index = new DropSourceIndex();
+        ranking = new FarmRanking(index, obtainedItems, rolledItems);
+        ranking.startUp();
+
+        ArgumentCaptor<ItemSetListener> captor = ArgumentCaptor.forClass(ItemSetListener.class);
+        verify(obtainedItems).addListener(captor.capture());
+        obtainedListener = captor.getValue();
+        captor = ArgumentCaptor.forClass(ItemSetListener.class);
+        verify(rolledItems).addListener(captor.capture());
+        rolledListener = captor.getValue();
+
+        index.put(Paths.get("goblin.json"), table("Goblin", 2,
+                new DropItem(BONES, "Bones", "Always"),
+                new DropItem(COINS, "Coins", "1/4"),
+                new DropItem(BEAD, "Red bead", "1/128")));
+        index.put(Paths.get("guard.json"), table("Guard", 21,
+                new DropItem(COINS, "Coins", "1/2"),
+                new DropItem(SPEAR, "Rune spear", "1/1000")));
+    }
+
+    private void obtain(int itemId) {
+        obtained.add(itemId);
+        obtainedListener.itemAdded(itemId);
+    }
+
+    @Test
+    public void ranksByExpectedNewItemsPerKill() {
+        List<FarmRanking.Entry> top = ranking.top(10);
+        assertEquals(2, top.size());
+        assertEquals("Goblin", top.get(0).getNpcName());
+        assertEquals(1, top.get(0).getRank());
+        assertEquals(1 + 0.25 + 1 / 128d, top.get(0).getNewItemRate(), EPS);
+        assertEquals(3, top.get(0).getLockedItems());
+        assertEquals(2, ranking.find("guard", 21).getRank());
+        assertNull(ranking.find("Guard", 22));
+    }
+
+    @Test
+    public void obtainingAnItemUpdatesEveryTableThatDropsIt() {
+        obtain(BONES);
+        obtain(COINS);
+
+        FarmRanking.Entry goblin = ranking.find("Goblin", 2);
+        FarmRanking.Entry guard = ranking.find("Guard", 21);
+        assertEquals(1 / 128d, goblin.getNewItemRate(), EPS);
+        assertEquals(1, goblin.getLockedItems());
+        assertEquals(1 / 1000d, guard.getNewItemRate(), EPS);
+        assertEquals("Goblin", ranking.top(1).get(0).getNpcName());
+
+        // a repeated notification must not subtract twice
+        obtainedListener.itemAdded(COINS);
+        assertEquals(1 / 128d, ranking.find("Goblin", 2).getNewItemRate(), EPS);
+    }
+
+    @Test
+    public void rollingMovesChanceIntoTheUsableShare() {
+        rolled.add(SPEAR);
+        rolledListener.itemAdded(SPEAR);
+        assertEquals(1 / 1000d, ranking.find("Guard", 21).getUsableRate(), EPS);
+
+        obtain(SPEAR);
+        assertEquals(0, ranking.find("Guard", 21).getUsableRate(), EPS);
+        assertEquals(0.5, ranking.find("Guard", 21).getNewItemRate(), EPS);
+    }
+
+    @Test
+    public void reloadRescoresAndRemovalDropsTheTable() {
+        obtained.add(BONES);
+        obtained.add(COINS);
+        obtainedListener.itemsReloaded();
+        assertEquals("Goblin", ranking.top(1).get(0).getNpcName());
+        assertEquals(1 / 128d, ranking.find("Goblin", 2).getNewItemRate(), EPS);
+
+        index.remove(Paths.get("goblin.json"));
+        assertNull(ranking.find("Goblin", 2));
+        assertEquals(1, ranking.size());
+    }
+}
@@ -0,0 +1,83 @@
+package com.choicer.drops;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round-trips drop tables through {@link NpcDropDataAdapter} and checks it
+ * still reads cache files written by reflective Gson.
+ */
+public class NpcDropDataAdapterTest {
+    private static final Gson REFLECTIVE = new Gson();
+    private static final Gson STREAMING = new GsonBuilder()
+            .registerTypeAdapter(NpcDropData.class, new NpcDropDataAdapter())
+            .create();
+
+    private static NpcDropData sample() {
+        NpcDropData data = new NpcDropData(1000, "Goblin", 2, Arrays.asList(
+                new DropTableSection("100%", Collections.singletonList(new DropItem(526, "Bones", "Always"))),
+                new DropTableSection("Weapons", Arrays.asList(
+                        new DropItem(1205, "Bronze dagger", "4/128"),
+                        new DropItem(0, "Goblin mail", "3/128–1/64")))));
+        data.setRevisionId(123456L);
+        return data;
+    }
+
+    @Test
+    public void roundTripsEveryField() {
+        NpcDropData read = STREAMING.fromJson(STREAMING.toJson(sample()), NpcDropData.class);
+
+        assertEquals(1000, read.getNpcId());
+        assertEquals("Goblin", read.getName());
+        assertEquals(2, read.getLevel());
+        assertEquals(123456L, read.getRevisionId());
+        assertEquals(2, read.getDropTableSections().size());
+        DropItem dagger = read.getDropTableSections().get(1).getItems().get(0);
+        assertEquals(1205, dagger.getItemId());
+        assertEquals("4/128", dagger.getRarity());
+        assertEquals("1/32", dagger.getOneOverRarity());
+        assertEquals(32, dagger.getRarityValue(), 1e-9);
+        assertTrue(read.getDropTableSections().get(0).getItems().get(0).getParsedRarity().isAlways());
+    }
+
+    @Test
+    public void sharesNamesAndRaritiesAcrossTables() {
+        String json = STREAMING.toJson(sample());
+        NpcDropData a = STREAMING.fromJson(json, NpcDropData.class);
+        NpcDropData b = STREAMING.fromJson(json, NpcDropData.class);
+
+        DropItem first = a.getDropTableSections().get(1).getItems().get(0);
+        DropItem second = b.getDropTableSections().get(1).getItems().get(0);
+        assertNotSame(first, second);
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getRarity(), second.getRarity());
+        assertSame(first.getParsedRarity(), second.getParsedRarity());
+        assertSame(a.getDropTableSections().get(0).getHeader(), b.getDropTableSections().get(0).getHeader());
+    }
+
+    @Test
+    public void readsReflectiveOutput() {
+        NpcDropData read = STREAMING.fromJson(REFLECTIVE.toJson(sample()), NpcDropData.class);
+        assertEquals(REFLECTIVE.toJson(sample()), REFLECTIVE.toJson(read));
+    }
+
+    @Test
+    public void readsFilesFromBeforeTheRarityModel() {
+        String legacy = "{\"npcId\":7,\"name\":\"Man\",\"level\":2,\"extra\":[1,2],"
+                + "\"dropTableSections\":[{\"header\":\"Coins\",\"items\":"
+                + "[{\"itemId\":995,\"name\":\"Coins\",\"rarity\":\"1/4\"}]}]}";
+        NpcDropData read = STREAMING.fromJson(legacy, NpcDropData.class);
+
+        assertEquals(0L, read.getRevisionId());
+        assertEquals(4, read.getDropTableSections().get(0).getItems().get(0).getRarityValue(), 1e-9);
+    }
+}
@@ -0,0 +1,96 @@
+package com.choicer.drops;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NpcNameIndexTest {
+    private NpcNameIndex index;
+
+    @Before
+    public void setUp() {
+        index = new NpcNameIndex();
+        index.add("Guard", 21, 1234);
+        index.add("Guard", 22, 0);
+        index.add("Guard dog", 44, 0);
+        index.add("Goblin", 2, 0);
+        index.add("Hobgoblin", 28, 0);
+        index.add("Goblin guard", 42, 0);
+        index.add("Man", 2, 0);
+    }
+
+    private List<String> search(String query, int level, int npcId) {
+        return index.search(query, level, npcId, 10).stream()
+                .map(NpcNameIndex.Match::toString)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void exactThenPrefixThenSubstring() {
+        List<NpcNameIndex.Match> hits = index.search("guard", 0, 0, 10);
+        assertEquals(NpcNameIndex.MatchKind.EXACT, hits.get(0).getKind());
+        assertEquals(NpcNameIndex.MatchKind.PREFIX, hits.get(2).getKind());
+        assertEquals("Guard dog", hits.get(2).getName());
+        assertEquals(NpcNameIndex.MatchKind.SUBSTRING, hits.get(3).getKind());
+        assertEquals("Goblin guard", hits.get(3).getName());
+        assertEquals(4, hits.size());
+    }
+
+    @Test
+    public void shortQueriesMatchSubstrings() {
+        assertEquals(Arrays.asList("Man (lvl 2)"), search("ma", 0, 0));
+        assertEquals(3, search("ob", 0, 0).size());
+    }
+
+    @Test
+    public void toleratesTyposAndTranspositions() {
+        List<NpcNameIndex.Match> hits = index.search("gaurd", 0, 0, 10);
+        assertTrue(hits.stream().allMatch(m -> m.getKind() == NpcNameIndex.MatchKind.FUZZY));
+        assertEquals("Guard", hits.get(0).getName());
+        assertEquals(1, hits.get(0).getDistance());
+
+        // a typo while the name is still being typed
+        assertEquals("Hobgoblin (lvl 28)", search("hobgpb", 0, 0).get(0));
+        assertTrue(search("zzzzz", 0, 0).isEmpty());
+    }
+
+    @Test
+    public void filtersByLevelAndPageId() {
+        assertEquals(Arrays.asList("Guard (lvl 22)"), search("guard", 22, 0));
+        // names without a known page ID pass the ID filter
+        assertEquals(Arrays.asList("Guard (lvl 22)", "Guard dog (lvl 44)", "Goblin guard (lvl 42)"),
+                search("guard", 0, 99));
+        assertEquals(Arrays.asList("Man (lvl 2)", "Goblin (lvl 2)"), search("", 2, 0));
+    }
+
+    @Test
+    public void readdingKeepsKnownPageId() {
+        index.add("guard", 21, 0);
+        NpcNameIndex.Match guard = index.search("guard", 21, 0, 1).get(0);
+        assertEquals(1234, guard.getNpcId());
+        assertEquals("guard", guard.getName());
+        assertEquals(7, index.size());
+    }
+
+    @Test
+    public void readdingWithNewCasingRenamesTheMatch() {
+        assertEquals("Guard", index.search("guard", 21, 0, 1).get(0).getName());
+
+        index.add("guard", 21, 0);
+
+        assertEquals("guard", index.search("guard", 21, 0, 1).get(0).getName());
+    }
+
+    @Test
+    public void prefixDistanceIsBounded() {
+        assertEquals(0, NpcNameIndex.prefixDistance("gob", "goblin", 1));
+        assertEquals(1, NpcNameIndex.prefixDistance("gbo", "goblin", 1));
+        assertEquals(2, NpcNameIndex.prefixDistance("xyz", "goblin", 1));
+    }
+}
@@ -0,0 +1,86 @@
+package com.choicer.drops;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Wiki articles saved as served by {@code ./gradlew saveWikiPages} into the
+ * {@code wiki} test resources, and the Jsoup DOM walk the extractor replaced,
+ * which serves as the reference reading of them.
+ */
+final class SavedWikiPages {
+    private SavedWikiPages() {
+    }
+
+    /** @return the saved articles, by file name; empty if none were saved */
+    static List<Path> list() throws IOException {
+        URL dir = SavedWikiPages.class.getResource("wiki");
+        if (dir == null || !"file".equals(dir.getProtocol())) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(Paths.get(dir.toURI()))) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".html"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (URISyntaxException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    static String read(Path page) throws IOException {
+        return Files.readString(page, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The Jsoup walk the extractor replaced, reduced to the selects it ran
+     * per table and row.
+     *
+     * @return the item row count of every drop table with items, in page order
+     */
+    static List<Integer> jsoupItemCounts(String html) {
+        Document doc = Jsoup.parse(html);
+        List<Integer> counts = new ArrayList<>();
+        for (Element table : doc.select("table.item-drops")) {
+            Element headerRow = table.selectFirst("tr:has(th)");
+            if (headerRow == null) {
+                continue;
+            }
+            headerRow.select("th").eachText();
+            int items = 0;
+            for (Element row : table.select("tbody > tr")) {
+                if (!row.select("th").isEmpty()) {
+                    continue;
+                }
+                for (Element td : row.select("td")) {
+                    Element a = td.selectFirst("a.itemlink[title], a[title]");
+                    if (a != null) {
+                        a.attr("title");
+                    }
+                    td.select("span[data-drop-fraction], span[data-drop-oneover]").eachText();
+                }
+                String name = row.select("td").size() > 1 ? row.select("td").get(1).text() : "";
+                if (!name.isEmpty() && !name.equalsIgnoreCase("nothing")) {
+                    items++;
+                }
+            }
+            if (items > 0) {
+                counts.add(items);
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,106 @@
+package com.choicer.drops;
+
+import com.google.gson.Gson;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SearchResultCacheTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final List<String> requests = new ArrayList<>();
+    private long now = 1_000_000L;
+    private Path file;
+    private SearchResultCache cache;
+
+    @Before
+    public void setUp() {
+        file = tmp.getRoot().toPath().resolve("wiki-search.json");
+        cache = new SearchResultCache(new Gson(), file, () -> now);
+    }
+
+    private SearchResultCache.Search wiki(String... titles) {
+        return q -> {
+            requests.add(q);
+            return Arrays.asList(titles);
+        };
+    }
+
+    @Test
+    public void repeatedQueriesAreServedUntilTheyExpire() {
+        assertEquals(Arrays.asList("Guard", "Guard dog"), cache.lookup("Guard", wiki("Guard", "Guard dog")));
+        assertEquals(Arrays.asList("Guard", "Guard dog"), cache.lookup(" guard ", wiki()));
+        assertEquals(1, requests.size());
+
+        now += SearchResultCache.HIT_TTL.toMillis();
+        cache.lookup("guard", wiki("Guard"));
+        assertEquals(2, requests.size());
+
+        SearchResultCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(1 / 3d, stats.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void completeResultsNarrowLongerQueries() {
+        cache.lookup("gener", wiki("General Graardor", "General Bentnoze", "Generator"));
+        assertEquals(Arrays.asList("General Graardor", "General Bentnoze"), cache.lookup("general", wiki()));
+        assertEquals(Collections.emptyList(), cache.lookup("generals", wiki()));
+        assertEquals(1, requests.size());
+        assertEquals(2, cache.getStats().getPrefixHits());
+    }
+
+    @Test
+    public void truncatedResultsAreNotNarrowed() {
+        String[] full = new String[WikiApiClient.SEARCH_LIMIT];
+        for (int i = 0; i < full.length; i++) {
+            full[i] = "Goblin " + i;
+        }
+        cache.lookup("gob", wiki(full));
+        cache.lookup("gobl", wiki("Goblin 1"));
+        assertEquals(Arrays.asList("gob", "gobl"), requests);
+    }
+
+    @Test
+    public void failuresAreCachedBriefly() {
+        SearchResultCache.Search failing = q -> {
+            requests.add(q);
+            throw new IOException("offline");
+        };
+        assertTrue(cache.lookup("man", failing).isEmpty());
+        assertTrue(cache.lookup("man", failing).isEmpty());
+        assertEquals(1, requests.size());
+        assertEquals(1, cache.getStats().getErrors());
+
+        now += SearchResultCache.ERROR_TTL.toMillis();
+        assertEquals(Collections.singletonList("Man"), cache.lookup("man", wiki("Man")));
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void resultsSurviveARestart() {
+        cache.lookup("zulrah", wiki("Zulrah"));
+        cache.lookup("offline", q -> {
+            throw new IOException("offline");
+        });
+        cache.save();
+
+        SearchResultCache reloaded = new SearchResultCache(new Gson(), file, () -> now);
+        assertEquals(Collections.singletonList("Zulrah"), reloaded.lookup("zulrah", wiki()));
+        assertEquals(Collections.singletonList("Offline"), reloaded.lookup("offline", wiki("Offline")));
+        assertEquals(Arrays.asList("zulrah", "offline"), requests);
+    }
+}
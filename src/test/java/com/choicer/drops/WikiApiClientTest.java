@@ -0,0 +1,212 @@
+package com.choicer.drops;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises batching and caching of {@link WikiApiClient} against a local
+ * stand-in for the wiki's api.php.
+ */
+public class WikiApiClientTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private final List<Map<String, String>> requests = new ArrayList<>();
+    private final List<String> pageRequests = new ArrayList<>();
+    private WikiRequestScheduler scheduler;
+    private WikiApiClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api.php", exchange -> {
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            synchronized (requests) {
+                requests.add(params);
+            }
+            byte[] body = respond(params).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.createContext("/w/", exchange -> {
+            String path = exchange.getRequestURI().getRawPath();
+            synchronized (pageRequests) {
+                pageRequests.add(exchange.getRequestMethod() + " " + path);
+            }
+            String query = exchange.getRequestURI().getRawQuery();
+            if (path.equals("/w/Special:Lookup") && query != null && query.contains("id=404")) {
+                // no article: the lookup answers with its own search page
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            if (path.equals("/w/Special:Lookup")) {
+                exchange.getResponseHeaders().add("Location", "/w/Goblin_(Lumbridge)");
+                exchange.sendResponseHeaders(302, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = "<html></html>".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+
+        HttpUrl api = HttpUrl.get("http://127.0.0.1:" + server.getAddress().getPort() + "/api.php");
+        scheduler = new WikiRequestScheduler();
+        client = new WikiApiClient(new OkHttpClient(), new Gson(), scheduler, api,
+                tmp.getRoot().toPath().resolve("wiki-titles.json"));
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    public void pageIdsAreBatchedAndCached() throws IOException {
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            titles.add("Npc " + i);
+        }
+
+        Map<String, Integer> ids = client.getPageIds(titles);
+
+        assertEquals(60, ids.size());
+        assertEquals(2, requests.size());
+        for (Map<String, String> req : requests) {
+            assertTrue(req.get("titles").split("\\|").length <= WikiApiClient.MAX_TITLES_PER_QUERY);
+        }
+
+        client.getPageIds(titles);
+        assertEquals("cached titles must not hit the network", 2, requests.size());
+    }
+
+    @Test
+    public void dropsSectionIndexIsDiscoveredOnce() throws IOException {
+        WikiApiClient.Section first = client.fetchDropsSection("Goblin");
+        assertNotNull(first);
+        assertEquals(1000, first.getPageId());
+        assertEquals("the first fetch parses the whole article", 1, requests.size());
+        assertFalse(requests.get(0).containsKey("section"));
+        client.rememberCombatLevel("Goblin", 2);
+
+        WikiApiClient.Section second = client.fetchDropsSection("Goblin");
+        assertEquals(2, requests.size());
+        assertEquals("3", requests.get(1).get("section"));
+        assertEquals(2, second.getCombatLevel());
+    }
+
+    @Test
+    public void npcIdsResolveThroughLookupOnce() throws IOException {
+        assertEquals("Goblin (Lumbridge)", client.lookupNpcTitle(3029, "Goblin"));
+        assertEquals(Collections.singletonList("HEAD /w/Special:Lookup"), pageRequests);
+
+        assertEquals("Goblin (Lumbridge)", client.lookupNpcTitle(3029, "Goblin"));
+        assertEquals("resolved IDs must not hit the network", 1, pageRequests.size());
+    }
+
+    @Test
+    public void npcIdsWithoutAnArticleAreRemembered() throws IOException {
+        assertNull(client.lookupNpcTitle(404, "Nobody"));
+        assertEquals(1, pageRequests.size());
+
+        assertNull(client.lookupNpcTitle(404, "Nobody"));
+        assertEquals("missing IDs must not hit the network again", 1, pageRequests.size());
+    }
+
+    @Test
+    public void revisionsAreCheckedInBatches() throws Exception {
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            titles.add("Npc " + i);
+        }
+        titles.add("Gone npc");
+
+        Map<String, Long> revisions = new DropRevalidator(client, scheduler)
+                .currentRevisions(titles)
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(3, requests.size());
+        assertEquals(121, revisions.size());
+        assertEquals(Long.valueOf((1000 + Math.abs("Npc 7".hashCode() % 100000)) * 10L), revisions.get("Npc 7"));
+        assertEquals(Long.valueOf(0), revisions.get("Gone npc"));
+    }
+
+    private static String respond(Map<String, String> params) {
+        if ("query".equals(params.get("action"))) {
+            StringBuilder pages = new StringBuilder();
+            String[] titles = params.get("titles").split("\\|");
+            for (int i = 0; i < titles.length; i++) {
+                int id = 1000 + Math.abs(titles[i].hashCode() % 100000);
+                if (i > 0) {
+                    pages.append(',');
+                }
+                if (titles[i].startsWith("Gone")) {
+                    pages.append("\"-").append(i + 1).append("\":{\"title\":\"").append(titles[i])
+                            .append("\",\"missing\":\"\"}");
+                    continue;
+                }
+                pages.append('"').append(id).append("\":{\"pageid\":").append(id)
+                        .append(",\"title\":\"").append(titles[i])
+                        .append("\",\"revisions\":[{\"revid\":").append(id * 10).append("}]}");
+            }
+            return "{\"query\":{\"pages\":{" + pages + "}}}";
+        }
+        if (params.containsKey("section")) {
+            return "{\"parse\":{\"title\":\"Goblin\",\"pageid\":1000,\"revid\":5,"
+                    + "\"text\":{\"*\":\"<table class=\\\"item-drops\\\"></table>\"}}}";
+        }
+        return "{\"parse\":{\"title\":\"Goblin\",\"pageid\":1000,\"revid\":5,"
+                + "\"text\":{\"*\":\"<table class=\\\"infobox\\\"></table>\"},\"sections\":["
+                + "{\"toclevel\":1,\"line\":\"Locations\",\"index\":\"1\"},"
+                + "{\"toclevel\":1,\"line\":\"Combat info\",\"index\":\"2\"},"
+                + "{\"toclevel\":1,\"line\":\"Drops\",\"index\":\"3\"}]}}";
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> out = new HashMap<>();
+        if (raw == null) {
+            return out;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String v = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            out.put(k, v);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,286 @@
+package com.choicer.drops;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Drives {@link WikiRequestScheduler} through {@link WikiApiClient} against a
+ * local stand-in for the wiki that can throttle, fail or stall on demand.
+ * Waits run on a {@link FakeClock}, so timing assertions do not depend on
+ * the speed of the machine.
+ */
+public class WikiRequestSchedulerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private HttpUrl api;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final List<String> searches = Collections.synchronizedList(new ArrayList<>());
+    private volatile Handler handler = WikiRequestSchedulerTest::ok;
+    private final FakeClock clock = new FakeClock();
+
+    private interface Handler {
+        void handle(HttpExchange exchange, int hit) throws IOException;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/api.php", exchange -> {
+            String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8);
+            searches.add(query.replaceAll(".*search=([^&]*).*", "$1"));
+            handler.handle(exchange, hits.incrementAndGet());
+        });
+        server.start();
+        api = HttpUrl.get("http://127.0.0.1:" + server.getAddress().getPort() + "/api.php");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private WikiApiClient client(WikiRequestScheduler scheduler) {
+        return new WikiApiClient(new OkHttpClient(), new Gson(), scheduler, api,
+                tmp.getRoot().toPath().resolve("wiki-titles.json"));
+    }
+
+    @Test
+    public void throttledRequestIsRetriedAfterRetryAfter() throws IOException {
+        WikiRequestScheduler scheduler = new WikiRequestScheduler(100, 10, 1, 4, 4, 10, 100, 4_000, clock);
+        handler = (exchange, hit) -> {
+            if (hit == 1) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                respond(exchange, 429, "");
+            } else {
+                ok(exchange, hit);
+            }
+        };
+
+        List<String> titles = client(scheduler).searchTitles("goblin");
+
+        assertEquals(Collections.singletonList("Goblin"), titles);
+        assertEquals(2, hits.get());
+        assertTrue("Retry-After must be honoured, waited " + clock.elapsedMillis() + "ms",
+                clock.elapsedMillis() >= 1000);
+    }
+
+    @Test
+    public void persistentServerErrorsGiveUpAndBackOff() {
+        WikiRequestScheduler scheduler = new WikiRequestScheduler(100, 10, 1, 4, 3, 5, 20, 4_000, clock);
+        handler = (exchange, hit) -> respond(exchange, 503, "");
+
+        try {
+            client(scheduler).searchTitles("goblin");
+            fail("expected the request to fail");
+        } catch (IOException ex) {
+            assertTrue(ex instanceof WikiRequestScheduler.HttpStatusException);
+            assertEquals(503, ((WikiRequestScheduler.HttpStatusException) ex).getCode());
+        }
+        assertEquals(3, hits.get());
+        assertEquals(1, scheduler.getConcurrencyLimit());
+    }
+
+    @Test
+    public void clientErrorsAreNotRetried() {
+        WikiRequestScheduler scheduler = new WikiRequestScheduler(100, 10, 1, 4, 4, 5, 20, 4_000, clock);
+        handler = (exchange, hit) -> respond(exchange, 404, "");
+
+        try {
+            client(scheduler).searchTitles("goblin");
+            fail("expected the request to fail");
+        } catch (IOException expected) {
+            // expected
+        }
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void unexpectedExceptionsDoNotShrinkTheLimit() throws IOException {
+        WikiRequestScheduler scheduler = new WikiRequestScheduler(100, 10, 1, 4, 4, 5, 20, 4_000, clock);
+        int before = scheduler.getConcurrencyLimit();
+
+        try {
+            scheduler.call(() -> {
+                throw new IllegalStateException("bad response");
+            });
+            fail("expected the exception to propagate");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        assertEquals(before, scheduler.getConcurrencyLimit());
+    }
+
+    @Test
+    public void tokenBucketSpacesRequests() throws IOException {
+        WikiRequestScheduler scheduler = new WikiRequestScheduler(20, 1, 1, 4, 1, 5, 20, 4_000, clock);
+        WikiApiClient client = client(scheduler);
+
+        for (int i = 0; i < 6; i++) {
+            client.searchTitles("goblin" + i);
+        }
+
+        // one token up front, then one every 50 ms
+        assertTrue("rate limit not applied, waited " + clock.elapsedMillis() + "ms",
+                clock.elapsedMillis() >= 250);
+    }
+
+    @Test
+    public void userLaneOvertakesQueuedBackgroundWork() throws Exception {
+        WikiRequestScheduler scheduler = new WikiRequestScheduler(1000, 100, 1, 1, 1, 5, 20, 60_000, clock);
+        WikiApiClient client = client(scheduler);
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        handler = (exchange, hit) -> {
+            if (hit == 1) {
+                stalled.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            ok(exchange, hit);
+        };
+
+        try {
+            // occupy the only request slot
+            CompletableFuture<List<String>> blocker = scheduler.submit(FetchPriority.USER,
+                    () -> client.searchTitles("first"));
+            assertTrue(stalled.await(5, TimeUnit.SECONDS));
+
+            // tasks wait in their lanes without taking a pool thread
+            List<CompletableFuture<List<String>>> queued = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                String q = "background" + i;
+                queued.add(scheduler.submit(FetchPriority.BACKGROUND, () -> client.searchTitles(q)));
+            }
+            queued.add(scheduler.submit(FetchPriority.USER, () -> client.searchTitles("user")));
+
+            release.countDown();
+            blocker.get(5, TimeUnit.SECONDS);
+            for (CompletableFuture<List<String>> f : queued) {
+                f.get(5, TimeUnit.SECONDS);
+            }
+
+            assertEquals("first", searches.get(0));
+            assertEquals("user", searches.get(1));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void retryBackoffFreesThePermit() throws Exception {
+        AtomicReference<WikiRequestScheduler> ref = new AtomicReference<>();
+        List<String> ranDuringBackoff = Collections.synchronizedList(new ArrayList<>());
+        WikiRequestScheduler.Clock sleepy = new WikiRequestScheduler.Clock() {
+            @Override
+            public long nanoTime() {
+                return clock.nanoTime();
+            }
+
+            @Override
+            public void await(Object monitor, long nanos) {
+                clock.await(monitor, nanos);
+            }
+
+            @Override
+            public void sleep(long millis) {
+                // with the only permit still held, this task could never start
+                try {
+                    ranDuringBackoff.add(ref.get().submit(FetchPriority.USER, () -> "other")
+                            .get(5, TimeUnit.SECONDS));
+                } catch (Exception ex) {
+                    ranDuringBackoff.add(ex.toString());
+                }
+                clock.sleep(millis);
+            }
+        };
+        WikiRequestScheduler scheduler = new WikiRequestScheduler(1000, 100, 1, 1, 2, 5, 20, 60_000, sleepy);
+        ref.set(scheduler);
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            String result = scheduler.submit(FetchPriority.BACKGROUND, () -> scheduler.call(() -> {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IOException("connection reset");
+                }
+                return "retried";
+            })).get(10, TimeUnit.SECONDS);
+
+            assertEquals("retried", result);
+            assertEquals(Collections.singletonList("other"), ranDuringBackoff);
+            assertEquals("other", scheduler.submit(FetchPriority.USER, () -> "other").get(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    /** Time that only moves when the scheduler waits, by exactly the time asked for. */
+    private static final class FakeClock implements WikiRequestScheduler.Clock {
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long nanoTime() {
+            return nanos.get();
+        }
+
+        @Override
+        public void await(Object monitor, long waitNanos) {
+            nanos.addAndGet(waitNanos);
+        }
+
+        @Override
+        public void sleep(long millis) {
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+        }
+    }
+
+    private static void ok(HttpExchange exchange, int hit) throws IOException {
+        respond(exchange, 200, "[\"goblin\",[\"Goblin\"],[\"\"],[\"\"]]");
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.choicer.managers;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ChoicerOptionGeneratorTest {
+    /** Pool that hands out a scripted sequence of candidates. */
+    private static final class ScriptedPool implements ChoicerOptionGenerator.ItemPool {
+        final Set<Integer> rolled = new HashSet<>();
+        final Set<Integer> tradeable = new HashSet<>();
+        final Deque<Integer> locked = new ArrayDeque<>();
+        int failsafe;
+
+        @Override
+        public boolean isRolled(int itemId) {
+            return rolled.contains(itemId);
+        }
+
+        @Override
+        public boolean isTradeable(int itemId) {
+            return tradeable.contains(itemId);
+        }
+
+        @Override
+        public int randomLocked() {
+            return locked.isEmpty() ? 0 : locked.poll();
+        }
+
+        @Override
+        public int randomTradeable() {
+            return failsafe;
+        }
+
+        @Override
+        public int size() {
+            return 100;
+        }
+    }
+
+    private static int[] generate(int obtained, int target, ScriptedPool pool) {
+        int[] out = new int[target];
+        return Arrays.copyOf(out, ChoicerOptionGenerator.generate(obtained, target, pool, out));
+    }
+
+    @Test
+    public void offersTheObtainedItemFirstAndSkipsDuplicates() {
+        ScriptedPool pool = new ScriptedPool();
+        pool.tradeable.addAll(Arrays.asList(1, 2, 3));
+        pool.locked.addAll(Arrays.asList(2, 1, 2, 3));
+        assertArrayEquals(new int[] { 1, 2, 3 }, generate(1, 3, pool));
+    }
+
+    @Test
+    public void rolledObtainedItemIsNotOffered() {
+        ScriptedPool pool = new ScriptedPool();
+        pool.rolled.add(1);
+        pool.tradeable.addAll(Arrays.asList(1, 2, 3));
+        pool.locked.addAll(Arrays.asList(2, 3));
+        assertArrayEquals(new int[] { 2, 3 }, generate(1, 2, pool));
+    }
+
+    @Test
+    public void replacesFirstUntradeableOptionWithATradeableOne() {
+        ScriptedPool pool = new ScriptedPool();
+        pool.tradeable.add(9);
+        pool.locked.add(6);
+        pool.failsafe = 9;
+        assertArrayEquals(new int[] { 6, 9 }, generate(7, 2, pool));
+    }
+
+    @Test
+    public void appendsFailsafeWhenThereIsRoom() {
+        ScriptedPool pool = new ScriptedPool();
+        pool.failsafe = 9;
+        assertArrayEquals(new int[] { 7, 9 }, generate(7, 3, pool));
+    }
+
+    @Test
+    public void clampsOptionCount() {
+        assertEquals(2, ChoicerOptionGenerator.optionCount(0));
+        assertEquals(5, ChoicerOptionGenerator.optionCount(9));
+        assertEquals(3, ChoicerOptionGenerator.optionCount(3));
+    }
+}
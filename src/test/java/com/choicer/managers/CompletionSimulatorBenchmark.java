@@ -0,0 +1,69 @@
+package com.choicer.managers;
+
+import com.choicer.drops.DropItem;
+import com.choicer.drops.DropTableSection;
+import com.choicer.drops.NpcDropData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how {@link CompletionSimulator} scales with the number of worker
+ * threads, on a table shaped like a mid-level slayer monster and a pool the
+ * size of the tradeable item list. Not a test; run it by hand on a quiet
+ * machine.
+ */
+public class CompletionSimulatorBenchmark {
+    private static final long TRIALS = 2_000_000;
+
+    public static void main(String[] args) throws Exception {
+        String[] rarities = { "Always", "1/8", "1/16", "1/32", "5/128", "1/128", "1/512", "1/5000" };
+        List<DropItem> items = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            items.add(new DropItem(10_000 + i, "Item " + i, rarities[i % rarities.length]));
+        }
+        NpcDropData npc = new NpcDropData(0, "Bench", 100,
+                Arrays.asList(new DropTableSection("Drops", items)));
+        Set<Integer> rollable = new HashSet<>();
+        Set<Integer> tradeable = new HashSet<>();
+        for (int id = 10_000; id < 14_000; id++) {
+            rollable.add(id);
+            if (id % 4 != 0) {
+                tradeable.add(id);
+            }
+        }
+        CompletionSimulator.Scenario scenario = CompletionSimulator.Scenario.of(npc,
+                Arrays.asList(10_005, 10_047, 12_345), rollable, tradeable, id -> id % 7 == 0, id -> false, 5);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double base = 0;
+        for (int threads = 1; threads <= cores; threads = threads < cores && threads * 2 > cores ? cores : threads * 2) {
+            ForkJoinPool pool = CompletionSimulator.newPool(threads);
+            try {
+                // warm up, then measure
+                CompletionSimulator.run(scenario, TRIALS / 10, 30, pool, new SplittableRandom(1), null)
+                        .getResult().get();
+                long start = System.nanoTime();
+                CompletionSimulator.Result r = CompletionSimulator.run(scenario, TRIALS, 30, pool,
+                        new SplittableRandom(2), null).getResult().get();
+                double secs = (System.nanoTime() - start) / 1e9;
+                double rate = TRIALS / secs;
+                if (threads == 1) {
+                    base = rate;
+                }
+                System.out.printf("%2d threads  %8.0f ms  %,12.0f trials/s  speedup %5.2f  mean %,.0f kills%n",
+                        threads, secs * 1000, rate, rate / base, r.getMeanKills());
+            } finally {
+                pool.shutdownNow();
+            }
+            if (threads == cores) {
+                break;
+            }
+        }
+    }
+}
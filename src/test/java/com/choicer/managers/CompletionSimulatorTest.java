@@ -0,0 +1,117 @@
+package com.choicer.managers;
+
+import com.choicer.drops.DropItem;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.choicer.drops.DropTables.table;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompletionSimulatorTest {
+    private static final int TARGET = 1_000;
+
+    private static Set<Integer> range(int from, int to) {
+        Set<Integer> ids = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    private static CompletionSimulator.Result run(CompletionSimulator.Scenario scenario, long trials,
+            int parallelism, long seed) throws Exception {
+        ForkJoinPool pool = CompletionSimulator.newPool(parallelism);
+        try {
+            return CompletionSimulator.run(scenario, trials, 30, pool, new SplittableRandom(seed), null)
+                    .getResult().get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void soleDropMatchesTheGeometricMean() throws Exception {
+        // With a large pool, random offers of the target are rare, so rolling
+        // it takes about as long as first obtaining it.
+        Set<Integer> pool = range(TARGET, TARGET + 100_000);
+        CompletionSimulator.Scenario scenario = CompletionSimulator.Scenario.of(
+                table("Npc", 1, new DropItem(TARGET, "Target", "1/100")),
+                Collections.singleton(TARGET), pool, pool, id -> false, id -> false, 3);
+
+        CompletionSimulator.Result r = run(scenario, 200_000, 2, 42);
+        assertEquals(200_000, r.getTrials());
+        assertEquals(1d, r.getCompletionRate(), 0);
+        assertEquals(100, r.getMeanKills(), 2);
+        // median of Geometric(1/100) is 69, within one histogram bucket
+        assertTrue(r.getMedianKills() >= 65 && r.getMedianKills() <= 75);
+        assertEquals(100 * 30 / 3600d, r.getMeanHours(), 0.05);
+    }
+
+    @Test
+    public void sameSeedGivesTheSameAnswerAtAnyParallelism() throws Exception {
+        List<DropItem> items = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            items.add(new DropItem(TARGET + i, "Item " + i, "1/" + (8 + i * 4)));
+        }
+        Set<Integer> pool = range(TARGET, TARGET + 200);
+        CompletionSimulator.Scenario scenario = CompletionSimulator.Scenario.of(
+                table("Npc", 1, items.toArray(new DropItem[0])), Arrays.asList(TARGET + 39, TARGET + 500), pool,
+                range(TARGET, TARGET + 100), id -> id == TARGET + 1, id -> id == TARGET + 2, 5);
+
+        CompletionSimulator.Result one = run(scenario, 50_000, 1, 7);
+        CompletionSimulator.Result four = run(scenario, 50_000, 4, 7);
+        assertEquals(one.getCompleted(), four.getCompleted());
+        assertEquals(one.getMeanKills(), four.getMeanKills(), 1e-9);
+        assertEquals(one.getP99Kills(), four.getP99Kills());
+    }
+
+    @Test
+    public void targetsThatCanNeverRollAreReportedAsIncomplete() throws Exception {
+        // The only target is not in the rollable pool, so there is nothing left to roll.
+        Set<Integer> pool = range(TARGET, TARGET + 10);
+        CompletionSimulator.Scenario scenario = CompletionSimulator.Scenario.of(
+                table("Npc", 1, new DropItem(TARGET, "Item", "1/2")),
+                Collections.singleton(TARGET + 50), pool, pool, id -> false, id -> false, 3);
+        assertEquals(0, scenario.getTargetCount());
+        CompletionSimulator.Result r = run(scenario, 10_000, 2, 1);
+        assertTrue(r.isNothingToRoll());
+        assertTrue(r.isDone());
+        assertEquals(0, r.getTrials());
+
+        // Unknown rarities never drop, and a target off the table can only be
+        // offered by rolls, of which there are none.
+        scenario = CompletionSimulator.Scenario.of(
+                table("Npc", 1, new DropItem(TARGET, "Item", "Rare")),
+                Collections.singleton(TARGET + 5), pool, pool, id -> false, id -> false, 3);
+        r = run(scenario, 10_000, 2, 1);
+        assertFalse(r.isNothingToRoll());
+        assertEquals(10_000, r.getTrials());
+        assertEquals(0, r.getCompleted());
+    }
+
+    @Test
+    public void histogramPercentilesStayWithinABucket() {
+        CompletionSimulator.Tally tally = new CompletionSimulator.Tally();
+        for (int i = 1; i <= 10_000; i++) {
+            tally.add(i);
+        }
+        tally.add(-1);
+        assertEquals(10_001, tally.trials);
+        assertEquals(10_000, tally.completed);
+        long median = tally.percentile(0.5);
+        assertTrue(median >= 5_000 && median <= 5_000 * 1.07);
+        assertEquals(1, tally.percentile(0.0001));
+        long p99 = tally.percentile(0.99);
+        assertTrue(p99 >= 9_900 && p99 <= 9_900 * 1.07);
+    }
+}
@@ -0,0 +1,54 @@
+package com.choicer.managers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ItemIdSetTest {
+    @Test
+    public void keepsInsertionOrderWithoutDuplicates() {
+        ItemIdSet set = new ItemIdSet();
+        assertTrue(set.add(4151));
+        assertTrue(set.add(0));
+        assertTrue(set.add(995));
+        assertFalse(set.add(4151));
+
+        assertArrayEquals(new int[]{4151, 0, 995}, set.toArray());
+        assertEquals(Arrays.asList(4151, 0, 995), Arrays.asList(set.toSet().toArray()));
+        assertTrue(set.contains(0));
+        assertFalse(set.contains(996));
+    }
+
+    @Test
+    public void growsPastItsInitialCapacity() {
+        ItemIdSet set = new ItemIdSet();
+        for (int id = 30000; id > 0; id -= 3) {
+            assertTrue(set.add(id));
+        }
+
+        assertEquals(10000, set.size());
+        for (int id = 30000; id > 0; id -= 3) {
+            assertTrue(set.contains(id));
+            assertFalse(set.contains(id - 1));
+        }
+        assertEquals(30000, set.toArray()[0]);
+        assertEquals(3, set.toArray()[9999]);
+    }
+
+    @Test
+    public void replaceAllTakesTheNewOrder() {
+        ItemIdSet set = new ItemIdSet();
+        set.add(1);
+        set.add(2);
+
+        set.replaceAll(Arrays.asList(3, null, 2, 3));
+
+        assertArrayEquals(new int[]{3, 2}, set.toArray());
+        assertFalse(set.contains(1));
+    }
+}
@@ -0,0 +1,47 @@
+package com.choicer.persist;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class IntArrayAdapterTest
+{
+    @Test
+    public void roundTripsInOrder() throws IOException
+    {
+        StringWriter w = new StringWriter();
+        IntArrayAdapter.write(w, new LinkedHashSet<>(Arrays.asList(4151, 995, 11832)));
+
+        assertEquals("[4151,995,11832]", w.toString());
+        assertArrayEquals(new int[]{4151, 995, 11832}, IntArrayAdapter.read(new StringReader(w.toString())));
+    }
+
+    @Test
+    public void toleratesEmptyAndNullInput() throws IOException
+    {
+        assertArrayEquals(new int[0], IntArrayAdapter.read(new StringReader("")));
+        assertArrayEquals(new int[0], IntArrayAdapter.read(new StringReader("null")));
+        assertArrayEquals(new int[]{1, 2}, IntArrayAdapter.read(new StringReader("[1,null,2]")));
+    }
+
+    @Test
+    public void growsPastInitialCapacity() throws IOException
+    {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++)
+        {
+            json.append(i == 0 ? "" : ",").append(i);
+        }
+        int[] ids = IntArrayAdapter.read(new StringReader(json.append(']').toString()));
+
+        assertEquals(1000, ids.length);
+        assertEquals(999, ids[999]);
+    }
+}
@@ -0,0 +1,65 @@
+package com.choicer.ui;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class EditDistanceTest {
+    private static int reference(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            dp[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            dp[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
+                        dp[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+            }
+        }
+        return dp[a.length()][b.length()];
+    }
+
+    @Test
+    public void knownDistances() {
+        assertEquals(0, new EditDistance("goblin").distance("goblin", 3));
+        assertEquals(3, new EditDistance("kitten").distance("sitting", 3));
+        assertEquals(2, new EditDistance("gaurd").distance("guard", 3));
+        assertEquals(5, new EditDistance("").distance("guard", 5));
+        assertEquals(1, new EditDistance("zulrah").distance("zulräh", 3));
+    }
+
+    @Test
+    public void stopsAtTheBound() {
+        EditDistance d = new EditDistance("abyssal demon");
+        assertEquals(3, d.distance("man", 2));
+        assertEquals(3, d.distance("abyssal sire", 2));
+        assertEquals(reference("abyssal demon", "abyssal sire"), d.distance("abyssal sire", 20));
+    }
+
+    @Test
+    public void matchesTheMatrixOnRandomStrings() {
+        Random rnd = new Random(7);
+        for (int n = 0; n < 2000; n++) {
+            String a = random(rnd, rnd.nextInt(64));
+            String b = random(rnd, rnd.nextInt(40));
+            int expected = reference(a, b);
+            int max = rnd.nextInt(70);
+            assertEquals(a + " / " + b, Math.min(expected, max + 1), new EditDistance(a).distance(b, max));
+        }
+    }
+
+    private static String random(Random rnd, int length) {
+        // a small alphabet, including one non-ASCII letter, so matches are common
+        String alphabet = "abcde é";
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.choicer.ui;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ItemIdListModelTest {
+    private final List<String> events = new ArrayList<>();
+    private ItemIdListModel model;
+
+    @Before
+    public void setUp() {
+        model = new ItemIdListModel();
+        model.setIds(new int[]{30, 20, 10});
+        model.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                events.add("added " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                events.add("removed " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                events.add("changed " + e.getIndex0() + "-" + e.getIndex1());
+            }
+        });
+    }
+
+    @Test
+    public void prependingFiresOneInsertion() {
+        model.setIds(new int[]{40, 30, 20, 10});
+        assertEquals(Collections.singletonList("added 0-0"), events);
+        assertEquals(4, model.getSize());
+        assertEquals(40, model.getIdAt(0));
+    }
+
+    @Test
+    public void removingFromTheMiddleFiresOneRemoval() {
+        model.setIds(new int[]{30, 10});
+        assertEquals(Collections.singletonList("removed 1-1"), events);
+    }
+
+    @Test
+    public void identicalContentsFireNothing() {
+        model.setIds(new int[]{30, 20, 10});
+        assertEquals(Collections.emptyList(), events);
+    }
+
+    @Test
+    public void replacementsAreReportedAsChangesPlusTheSizeDifference() {
+        model.setIds(new int[]{1, 2, 3, 4, 5});
+        assertEquals(Arrays.asList("changed 0-2", "added 3-4"), events);
+
+        events.clear();
+        model.setIds(new int[]{9});
+        assertEquals(Arrays.asList("changed 0-0", "removed 1-4"), events);
+    }
+
+    @Test
+    public void findsIdsByValue() {
+        assertEquals(1, model.indexOf(20));
+        assertEquals(-1, model.indexOf(99));
+    }
+}
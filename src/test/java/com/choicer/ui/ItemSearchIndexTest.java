@@ -0,0 +1,68 @@
+package com.choicer.ui;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ItemSearchIndexTest {
+    private ItemSearchIndex index;
+
+    @Before
+    public void setUp() {
+        Map<Integer, String> names = new HashMap<>();
+        names.put(1333, "Rune scimitar");
+        names.put(1373, "Rune battleaxe");
+        names.put(1363, "Iron battleaxe");
+        names.put(5698, "Dragon dagger(p++)");
+        names.put(11840, "Dragon boots");
+        index = ItemSearchIndex.build(names);
+    }
+
+    private static BitSet ids(int... ids) {
+        BitSet out = new BitSet();
+        for (int id : ids) {
+            out.set(id);
+        }
+        return out;
+    }
+
+    @Test
+    public void matchesWordPrefixesCaseInsensitively() {
+        assertEquals(ids(1333, 1373), index.matching("RUNE"));
+        assertEquals(ids(1333), index.matching("rune sci"));
+        assertEquals(ids(5698, 11840), index.matching("drag"));
+    }
+
+    @Test
+    public void matchesInsideWords() {
+        assertEquals(ids(1373, 1363), index.matching("axe"));
+        assertEquals(ids(1363), index.matching("iron axe"));
+    }
+
+    @Test
+    public void everyQueryWordMustMatch() {
+        assertTrue(index.matching("rune boots").isEmpty());
+        assertEquals(ids(5698), index.matching("dagger(p"));
+    }
+
+    @Test
+    public void blankQueryMatchesEverything() {
+        assertNull(index.matching("  "));
+        assertNull(index.matching("++"));
+    }
+
+    @Test
+    public void tracksWhichItemsHaveNames() {
+        assertTrue(index.contains(1333));
+        assertFalse(index.contains(4151));
+        assertFalse(ItemSearchIndex.EMPTY.contains(1333));
+    }
+}
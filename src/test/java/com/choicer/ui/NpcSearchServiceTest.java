@@ -0,0 +1,150 @@
+package com.choicer.ui;
+
+import com.choicer.drops.DropCache;
+import com.choicer.drops.DropItem;
+import com.choicer.drops.DropTables;
+import com.choicer.drops.FetchPriority;
+import com.choicer.drops.NpcDropData;
+import com.choicer.drops.NpcNameIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NpcSearchServiceTest {
+    private static final Map<String, List<String>> NAMES = new ConcurrentHashMap<>();
+
+    static {
+        NAMES.put("goblin", Arrays.asList("Goblin champion", "Goblin"));
+        NAMES.put("man", Collections.singletonList("Man"));
+    }
+
+    private final Map<String, CompletableFuture<NpcDropData>> fetches = new ConcurrentHashMap<>();
+    private final BlockingQueue<Report> reports = new LinkedBlockingQueue<>();
+    private NpcSearchService service;
+
+    private static final class Report {
+        final String query;
+        final List<String> names;
+        final boolean complete;
+
+        Report(String query, List<NpcDropData> results, boolean complete) {
+            this.query = query;
+            this.names = results.stream().map(NpcDropData::getName).collect(Collectors.toList());
+            this.complete = complete;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        DropCache dropCache = mock(DropCache.class);
+        when(dropCache.searchNpcNames(anyString(), anyInt(), anyInt())).thenAnswer(inv ->
+                CompletableFuture.completedFuture(NAMES.getOrDefault(inv.getArgument(0), Collections.emptyList())));
+        when(dropCache.get(eq(0), anyString(), anyInt(), eq(FetchPriority.SEARCH))).thenAnswer(inv ->
+                fetches.computeIfAbsent(inv.getArgument(1), k -> new CompletableFuture<>()));
+        when(dropCache.fetchableNames(anyList(), anyInt(), any())).thenAnswer(inv ->
+                CompletableFuture.completedFuture(inv.getArgument(0)));
+        service = new NpcSearchService(dropCache, new NpcNameIndex());
+    }
+
+    @After
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    private static NpcDropData table(String name) {
+        return DropTables.table(name, 2, new DropItem(526, "Bones", "Always"));
+    }
+
+    private CompletableFuture<NpcDropData> awaitFetch(String name) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!fetches.containsKey(name) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        CompletableFuture<NpcDropData> f = fetches.get(name);
+        assertNotNull("no fetch for " + name, f);
+        return f;
+    }
+
+    private Report next() throws InterruptedException {
+        Report r = reports.poll(5, TimeUnit.SECONDS);
+        assertNotNull("no results reported", r);
+        return r;
+    }
+
+    @Test
+    public void streamsResultsAsTablesArrive() throws Exception {
+        try (NpcSearchService.Session session = service.openSession(
+                (query, results, complete) -> reports.add(new Report(query, results, complete)))) {
+            session.update("goblin");
+            CompletableFuture<NpcDropData> champion = awaitFetch("Goblin champion");
+            CompletableFuture<NpcDropData> goblin = awaitFetch("Goblin");
+
+            champion.complete(table("Goblin champion"));
+            Report partial = next();
+            assertEquals("goblin", partial.query);
+            assertEquals(Collections.singletonList("Goblin champion"), partial.names);
+            assertFalse(partial.complete);
+
+            goblin.complete(table("Goblin"));
+            Report done = next();
+            assertEquals(Arrays.asList("Goblin", "Goblin champion"), done.names);
+            assertTrue(done.complete);
+        }
+    }
+
+    @Test
+    public void newQueryCancelsTheOldOne() throws Exception {
+        try (NpcSearchService.Session session = service.openSession(
+                (query, results, complete) -> reports.add(new Report(query, results, complete)))) {
+            session.update("goblin");
+            CompletableFuture<NpcDropData> goblin = awaitFetch("Goblin");
+
+            session.update("man");
+            assertTrue(goblin.isCancelled());
+            awaitFetch("Man").complete(table("Man"));
+
+            Report r = next();
+            assertEquals("man", r.query);
+            assertEquals(Collections.singletonList("Man"), r.names);
+            assertTrue(r.complete);
+            assertTrue(reports.isEmpty());
+        }
+    }
+
+    @Test
+    public void typingFasterThanTheDebounceRunsOnlyTheLastQuery() throws Exception {
+        try (NpcSearchService.Session session = service.openSession(
+                (query, results, complete) -> reports.add(new Report(query, results, complete)))) {
+            session.update("go");
+            session.update("gob");
+            session.update("man");
+            awaitFetch("Man").complete(table("Man"));
+
+            assertEquals("man", next().query);
+            assertFalse(fetches.containsKey("Goblin"));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.choicer.ui;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.IntSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class RollReelsTest {
+    private RollReels reels;
+    private int next;
+    private final IntSupplier counter = () -> ++next;
+
+    @Before
+    public void setUp() {
+        reels = new RollReels(4, 8);
+        next = 0;
+    }
+
+    @Test
+    public void resetFillsColumnsWithoutRepeats() {
+        IntSupplier repeating = () -> next++ / 2 + 1;
+        reels.reset(2, repeating);
+
+        RollReels.Frame frame = reels.frame();
+        assertEquals(2, frame.getColumns());
+        Set<Integer> seen = new HashSet<>();
+        for (int col = 0; col < 2; col++) {
+            for (int row = 0; row < 4; row++) {
+                assertTrue(seen.add(frame.item(col, row)));
+            }
+        }
+    }
+
+    @Test
+    public void advanceScrollsEveryColumnByOne() {
+        reels.reset(2, counter);
+        reels.acquire();
+        RollReels.Frame before = reels.frame();
+
+        reels.advance(counter);
+
+        RollReels.Frame after = reels.frame();
+        for (int col = 0; col < 2; col++) {
+            for (int row = 0; row < 3; row++) {
+                assertEquals(before.item(col, row + 1), after.item(col, row));
+                assertEquals(after.item(col, row), reels.item(col, row));
+            }
+        }
+        assertEquals(9, after.item(0, 3));
+        assertEquals(10, after.item(1, 3));
+    }
+
+    @Test
+    public void winnerFollowsTheDelta() {
+        reels.reset(1, counter);
+        reels.acquire();
+        try (RollReels.Frame frame = reels.frame()) {
+            assertEquals(2, frame.winner(0, 1));
+        }
+
+        reels.setWinnerDelta(1);
+        try (RollReels.Frame frame = reels.frame()) {
+            assertEquals(3, frame.winner(0, 1));
+        }
+        assertEquals(3, reels.winner(0, 1));
+    }
+
+    @Test
+    public void newRollIsNotOverwrittenByTheOldOne() {
+        reels.reset(1, counter);
+        reels.acquire();
+
+        reels.reset(3, counter);
+        reels.advance(counter);
+
+        RollReels.Frame frame = reels.frame();
+        assertEquals(3, frame.getColumns());
+        assertEquals(5, frame.item(0, 0));
+
+        reels.acquire();
+        assertEquals(3, reels.columns());
+        assertEquals(5, reels.item(0, 0));
+    }
+
+    @Test
+    public void spinningPastTheSizedRollKeepsDrawing() {
+        reels.reset(RollReels.MAX_COLUMNS, counter);
+        reels.acquire();
+        for (int i = 0; i < 100; i++) {
+            reels.advance(counter);
+        }
+
+        RollReels.Frame frame = reels.frame();
+        for (int col = 0; col < RollReels.MAX_COLUMNS; col++) {
+            for (int row = 0; row < 4; row++) {
+                assertTrue(frame.item(col, row) > 0);
+            }
+        }
+    }
+
+    @Test
+    public void advancingReusesThePooledFrames() {
+        reels.reset(2, counter);
+        reels.acquire();
+
+        Set<RollReels.Frame> frames = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 50; i++) {
+            reels.advance(counter);
+            try (RollReels.Frame frame = reels.frame()) {
+                frames.add(frame);
+            }
+        }
+
+        assertTrue(frames.size() <= 3);
+    }
+
+    @Test
+    public void openFrameIsNotRefilled() {
+        reels.reset(1, counter);
+        reels.acquire();
+        RollReels.Frame held = reels.frame();
+        int top = held.item(0, 0);
+
+        for (int i = 0; i < 10; i++) {
+            reels.advance(counter);
+        }
+
+        assertEquals(top, held.item(0, 0));
+        held.close();
+        try (RollReels.Frame frame = reels.frame()) {
+            assertNotSame(held, frame);
+            assertEquals(reels.item(0, 0), frame.item(0, 0));
+        }
+    }
+}
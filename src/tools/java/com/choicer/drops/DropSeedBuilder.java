@@ -0,0 +1,139 @@
+package com.choicer.drops;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds the bundled drop database read by {@link DropSeedDatabase} from a
+ * directory of saved wiki pages. Run through {@code ./gradlew buildDropDatabase
+ * -PdropPages=<dir>}.
+ *
+ * <p>Accepted inputs are full article HTML ({@code *.html}) and MediaWiki
+ * {@code action=parse} responses ({@code *.json}).</p>
+ */
+public class DropSeedBuilder {
+    private static final Pattern ARTICLE_ID = Pattern.compile("\"wgArticleId\"\\s*:\\s*(\\d+)");
+    private static final Pattern REVISION_ID = Pattern.compile("\"wgRevisionId\"\\s*:\\s*(\\d+)");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: DropSeedBuilder <pages dir> <output .json.gz>");
+            System.exit(2);
+        }
+        Path in = Paths.get(args[0]);
+        Path out = Paths.get(args[1]);
+
+        List<Path> pages;
+        try (Stream<Path> files = Files.walk(in)) {
+            pages = files.filter(Files::isRegularFile)
+                    .filter(p -> p.toString().endsWith(".html") || p.toString().endsWith(".json"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        List<NpcDropData> entries = new ArrayList<>();
+        for (Path page : pages) {
+            try {
+                NpcDropData data = page.toString().endsWith(".json") ? readParseResponse(page) : readArticle(page);
+                if (data != null) {
+                    entries.add(data);
+                }
+            } catch (IOException | RuntimeException ex) {
+                System.err.println("Skipping " + page + ": " + ex);
+            }
+        }
+        entries.sort(Comparator.comparing(NpcDropData::getName).thenComparingInt(NpcDropData::getLevel));
+
+        DropSeedDatabase.SeedFile seed = new DropSeedDatabase.SeedFile();
+        seed.version = DropSeedDatabase.FORMAT_VERSION;
+        seed.generatedAt = Instant.now().toString();
+        seed.entries = entries;
+
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        try (Writer w = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(out)),
+                StandardCharsets.UTF_8)) {
+            new Gson().toJson(seed, w);
+        }
+        System.out.println("Wrote " + entries.size() + " drop tables from " + pages.size() + " pages to " + out);
+    }
+
+    private static NpcDropData readArticle(Path page) throws IOException {
+        DropsHtmlExtractor.Result result;
+        try (Reader r = Files.newBufferedReader(page, StandardCharsets.UTF_8)) {
+            result = DropsHtmlExtractor.extract(r);
+        }
+        if (result.getSections().isEmpty()) {
+            return null;
+        }
+
+        // The extractor skips scripts, so pick the page and revision IDs out
+        // of the raw page.
+        String raw = Files.readString(page, StandardCharsets.UTF_8);
+        int pageId = 0;
+        Matcher m = ARTICLE_ID.matcher(raw);
+        if (m.find()) {
+            pageId = Integer.parseInt(m.group(1));
+        }
+        long revisionId = 0;
+        m = REVISION_ID.matcher(raw);
+        if (m.find()) {
+            revisionId = Long.parseLong(m.group(1));
+        }
+
+        String name = result.getHeading();
+        if (name == null && result.getCanonicalHref() != null) {
+            String href = result.getCanonicalHref();
+            name = URLDecoder.decode(href.substring(href.lastIndexOf('/') + 1), StandardCharsets.UTF_8)
+                    .replace('_', ' ');
+        }
+        if (name == null) {
+            return null;
+        }
+        NpcDropData data = new NpcDropData(pageId, name, result.getCombatLevel(), result.getSections());
+        data.setRevisionId(revisionId);
+        return data;
+    }
+
+    private static NpcDropData readParseResponse(Path page) throws IOException {
+        JsonObject parse;
+        try (Reader r = Files.newBufferedReader(page, StandardCharsets.UTF_8)) {
+            parse = new JsonParser().parse(r).getAsJsonObject().getAsJsonObject("parse");
+        }
+        if (parse == null || !parse.has("text") || !parse.has("title")) {
+            return null;
+        }
+        JsonElement text = parse.get("text");
+        String html = text.isJsonObject() ? text.getAsJsonObject().get("*").getAsString() : text.getAsString();
+        DropsHtmlExtractor.Result result = DropsHtmlExtractor.extract(new StringReader(html));
+        if (result.getSections().isEmpty()) {
+            return null;
+        }
+        int pageId = parse.has("pageid") ? parse.get("pageid").getAsInt() : 0;
+        NpcDropData data = new NpcDropData(pageId, parse.get("title").getAsString(), result.getCombatLevel(),
+                result.getSections());
+        data.setRevisionId(parse.has("revid") ? parse.get("revid").getAsLong() : 0L);
+        return data;
+    }
+}
@@ -0,0 +1,71 @@
+package com.choicer.drops;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Saves full wiki articles, as the site serves them, for the extractor tests
+ * and benchmark. Run through {@code ./gradlew saveWikiPages
+ * -Ptitles='Hill Giant|Man'}.
+ */
+public class WikiPageSaver {
+    private static final String ARTICLE_URL = "https://oldschool.runescape.wiki/w/";
+    /** Pause between downloads, to stay well inside the wiki's rate limits. */
+    private static final long PAUSE_MS = 1_000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("usage: WikiPageSaver <output dir> <title>...");
+            System.exit(2);
+        }
+        Path out = Paths.get(args[0]);
+        Files.createDirectories(out);
+        HttpClient http = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        int failed = 0;
+        for (int i = 1; i < args.length; i++) {
+            String title = args[i].trim();
+            if (title.isEmpty()) {
+                continue;
+            }
+            if (i > 1) {
+                Thread.sleep(PAUSE_MS);
+            }
+            String path = URLEncoder.encode(title.replace(' ', '_'), StandardCharsets.UTF_8);
+            HttpRequest req = HttpRequest.newBuilder(URI.create(ARTICLE_URL + path))
+                    .header("User-Agent", WikiApiClient.USER_AGENT)
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+            HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            if (res.statusCode() != 200) {
+                System.err.println("Skipping " + title + ": HTTP " + res.statusCode());
+                failed++;
+                continue;
+            }
+            Path file = out.resolve(fileName(title));
+            Files.writeString(file, res.body(), StandardCharsets.UTF_8);
+            System.out.println("Saved " + title + " to " + file);
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /** @return e.g. {@code hill-giant.html} for "Hill Giant" */
+    static String fileName(String title) {
+        return title.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "") + ".html";
+    }
+}